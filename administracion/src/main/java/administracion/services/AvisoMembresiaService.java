@@ -0,0 +1,110 @@
+package administracion.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Avisa a registro, pronostico y notificacion que cambió la empresa de un usuario,
+ * para que descarten la empresa que tienen cacheada para su sub.
+ * El aviso sale después del commit y en segundo plano; si se pierde, la entrada
+ * vence sola por TTL en cada servicio.
+ * Cada aviso lleva la credencial de servicio (mycfo.interno.token, la misma en todos los
+ * servicios) en el header X-Servicio-Token; sin ella los servicios lo rechazan.
+ */
+@Service
+@Slf4j
+public class AvisoMembresiaService implements DisposableBean {
+
+    private static final String RUTA_INVALIDACION = "/api/interno/empresa-por-usuario/";
+    private static final String HEADER_TOKEN = "X-Servicio-Token";
+
+    private final RestTemplate restTemplate;
+    private final List<String> servicios;
+    private final HttpEntity<Void> credencial;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "aviso-membresia");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public AvisoMembresiaService(
+            RestTemplateBuilder restTemplateBuilder,
+            @Value("${mycfo.membresia.servicios-a-avisar:${mycfo.registro.url},${mycfo.pronostico.url},${mycfo.notificacion.url}}") List<String> servicios,
+            @Value("${mycfo.membresia.timeout:2s}") Duration timeout,
+            @Value("${mycfo.interno.token:}") String token) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(timeout)
+                .readTimeout(timeout)
+                .build();
+        this.servicios = servicios.stream()
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.replaceAll("/+$", ""))
+                .toList();
+        HttpHeaders headers = new HttpHeaders();
+        if (token.isBlank()) {
+            log.warn("mycfo.interno.token sin configurar: los servicios van a rechazar los avisos de cambio de empresa");
+        } else {
+            headers.set(HEADER_TOKEN, token.trim());
+        }
+        this.credencial = new HttpEntity<>(headers);
+    }
+
+    public void empresaCambiada(String usuarioSub) {
+        empresaCambiada(List.of(usuarioSub));
+    }
+
+    /** Programa el aviso para el commit de la transacción actual (o lo envía ya si no hay una). */
+    public void empresaCambiada(Collection<String> usuarioSubs) {
+        List<String> subs = usuarioSubs.stream().filter(sub -> sub != null && !sub.isBlank()).toList();
+        if (subs.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> avisar(subs));
+                }
+            });
+        } else {
+            executor.execute(() -> avisar(subs));
+        }
+    }
+
+    private void avisar(List<String> subs) {
+        for (String servicio : servicios) {
+            for (String sub : subs) {
+                try {
+                    restTemplate.exchange(servicio + RUTA_INVALIDACION + sub, HttpMethod.DELETE, credencial, Void.class);
+                } catch (RestClientException e) {
+                    // El resto de los subs a este servicio fallaría igual; la caché vence por TTL
+                    log.warn("No se pudo avisar a {} el cambio de empresa de {}: {}", servicio, sub, e.getMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -17,6 +17,7 @@ public class EmpresaService {
 
     private final EmpresaRepository empresaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final AvisoMembresiaService avisoMembresiaService;
 
     public EmpresaDTO obtenerEmpresa(Long id) {
         Empresa empresa = empresaRepository.findById(id)
@@ -50,6 +51,7 @@ public class EmpresaService {
             usuario.setEsPropietario(true);
 
             usuarioRepository.save(usuario);
+            avisoMembresiaService.empresaCambiada(creatorSub);
             System.out.println("✅ [EMPRESA-SERVICE] Usuario " + usuario.getNombre() + " asignado como OWNER de "
                     + guardada.getNombre());
         }
@@ -206,6 +208,7 @@ public class EmpresaService {
 
         // 4. Eliminar la empresa
         empresaRepository.delete(empresa);
+        avisoMembresiaService.empresaCambiada(empleados.stream().map(Usuario::getSub).toList());
         System.out.println("✅ [EMPRESA-SERVICE] Empresa eliminada: " + empresa.getNombre() + " por " + ownerSub);
     }
 }
@@ -20,6 +20,7 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final EmpresaRepository empresaRepository;
     private final CognitoService cognitoService;
+    private final AvisoMembresiaService avisoMembresiaService;
 
     public UsuarioDTO obtenerUsuarioPorSub(String sub) {
         Usuario usuario = usuarioRepository.findBySub(sub)
@@ -80,6 +81,7 @@ public class UsuarioService {
                 Empresa empresa = empresaRepository.findById(empId)
                         .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
                 usuario.setEmpresa(empresa);
+                avisoMembresiaService.empresaCambiada(usuario.getSub());
             }
         }
 
@@ -126,6 +128,7 @@ public class UsuarioService {
                 Empresa empresa = empresaRepository.findById(empId)
                         .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
                 usuario.setEmpresa(empresa);
+                avisoMembresiaService.empresaCambiada(usuario.getSub());
             }
         }
 
@@ -148,6 +151,7 @@ public class UsuarioService {
         usuario.setRol(rol != null ? rol : "COLABORADOR");
 
         usuarioRepository.save(usuario);
+        avisoMembresiaService.empresaCambiada(sub);
         // Opcional: Actualizar en Cognito si el rol se guarda ahí
     }
 
@@ -192,6 +196,7 @@ public class UsuarioService {
             Empresa empresa = empresaRepository.findById(dto.getEmpresaId())
                     .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
             usuario.setEmpresa(empresa);
+            avisoMembresiaService.empresaCambiada(subEmpleado);
         }
 
         Usuario actualizado = usuarioRepository.save(usuario);
@@ -231,6 +236,7 @@ public class UsuarioService {
         usuario.setEsPropietario(false);
 
         usuarioRepository.save(usuario);
+        avisoMembresiaService.empresaCambiada(subEmpleado);
         // NO se borra de Cognito para que el usuario pueda seguir usando su cuenta en
         // MyCFO
     }
@@ -250,6 +256,7 @@ public class UsuarioService {
         usuario.setEsPropietario(false);
 
         usuarioRepository.save(usuario);
+        avisoMembresiaService.empresaCambiada(subUsuario);
     }
 
     @Transactional
@@ -0,0 +1,39 @@
+package clientehttp;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Invalidación de cachés llamada por otros microservicios (sin token de usuario).
+ * Exige la credencial de servicio ({@link CredencialInterna}); el gateway además no
+ * enruta /api/interno/**.
+ */
+@RestController
+@RequestMapping("/api/interno")
+public class CacheInternaController {
+
+    private final EmpresaPorUsuarioCache empresaPorUsuarioCache;
+    private final CredencialInterna credencialInterna;
+
+    public CacheInternaController(EmpresaPorUsuarioCache empresaPorUsuarioCache, CredencialInterna credencialInterna) {
+        this.empresaPorUsuarioCache = empresaPorUsuarioCache;
+        this.credencialInterna = credencialInterna;
+    }
+
+    // administración avisa cuando un usuario se vincula o se desvincula de una empresa
+    @DeleteMapping("/empresa-por-usuario/{usuarioSub}")
+    public ResponseEntity<Void> invalidarEmpresaPorUsuario(
+            @PathVariable String usuarioSub,
+            @RequestHeader(name = CredencialInterna.HEADER, required = false) String token) {
+        if (!credencialInterna.valida(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        empresaPorUsuarioCache.invalidar(usuarioSub);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,207 @@
+package clientehttp;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * RestTemplates para llamar a otros servicios, uno por destino (registro, reporte, vertex...).
+ * Cada destino tiene su propio pool de conexiones keep-alive con tamaño fijo: un destino
+ * lento agota solo su pool, las llamadas que no consiguen conexión fallan tras
+ * esperaConexion y los hilos de Tomcat quedan libres para el resto.
+ * Con {@link #conPlazo} los timeouts de cada llamada se acortan para no pasar de un plazo dado.
+ * <p>
+ * Métricas por destino:
+ * <ul>
+ *   <li>mycfo.http.cliente (timer con histograma), tags destino y estado (código HTTP,
+ *   SIN_CONEXION si el pool estaba lleno, IO_ERROR si falló la conexión o venció el timeout).</li>
+ *   <li>mycfo.http.cliente.conexiones (gauge), tags destino y estado (en_uso, libres, en_espera).</li>
+ * </ul>
+ */
+@Slf4j
+public class ClientesHttp implements DisposableBean {
+
+    // Plazo (en System.nanoTime) de las llamadas que se hacen desde el hilo actual
+    private static final ThreadLocal<Long> PLAZO = new ThreadLocal<>();
+    // Con el plazo vencido la llamada igual sale, pero falla enseguida
+    private static final Duration TIMEOUT_MINIMO = Duration.ofMillis(1);
+
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final ClientesHttpProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cliente> clientes = new ConcurrentHashMap<>();
+
+    public ClientesHttp(RestTemplateBuilder restTemplateBuilder,
+                        ClientesHttpProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** RestTemplate del destino. Se crea la primera vez y después se reutiliza. */
+    public RestTemplate para(String destino) {
+        return clientes.computeIfAbsent(destino, this::crear).restTemplate();
+    }
+
+    /**
+     * Ejecuta {@code llamadas} con un plazo para todas las requests que hagan desde este hilo:
+     * cada una espera conexión del pool y respuesta a lo sumo lo que falte hasta {@code limiteNanos}
+     * (un valor de {@link System#nanoTime}), aunque el destino tenga timeouts más largos.
+     * Sirve para cortar de verdad una llamada que ya no se va a esperar: interrumpir el hilo no
+     * corta una lectura bloqueada del socket.
+     */
+    public static <T> T conPlazo(long limiteNanos, Supplier<T> llamadas) {
+        Long anterior = PLAZO.get();
+        PLAZO.set(anterior != null && anterior - limiteNanos < 0 ? anterior : limiteNanos);
+        try {
+            return llamadas.get();
+        } finally {
+            if (anterior != null) {
+                PLAZO.set(anterior);
+            } else {
+                PLAZO.remove();
+            }
+        }
+    }
+
+    private Cliente crear(String destino) {
+        ClientesHttpProperties.Destino config = properties.para(destino);
+
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConexiones())
+                .setMaxConnPerRoute(config.getMaxConexiones())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(config.getReadTimeout()))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(config.getEsperaConexion()))
+                        .setResponseTimeout(Timeout.of(config.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(config.getKeepAlive()))
+                .evictExpiredConnections()
+                .build();
+
+        RestTemplate restTemplate = restTemplateBuilder
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+                    requestFactory.setHttpContextFactory((method, uri) -> contextoConPlazo(config));
+                    return requestFactory;
+                })
+                .additionalInterceptors(medir(destino))
+                .build();
+
+        if (meterRegistry != null) {
+            registrarPool(destino, pool, "en_uso", PoolStats::getLeased);
+            registrarPool(destino, pool, "libres", PoolStats::getAvailable);
+            registrarPool(destino, pool, "en_espera", PoolStats::getPending);
+        }
+
+        log.info("Cliente HTTP '{}': {} conexiones, connect {} / read {}",
+                destino, config.getMaxConexiones(), config.getConnectTimeout(), config.getReadTimeout());
+        return new Cliente(restTemplate, httpClient);
+    }
+
+    /** Sin plazo devuelve null y la request usa la configuración del destino. */
+    private static HttpClientContext contextoConPlazo(ClientesHttpProperties.Destino config) {
+        Long limite = PLAZO.get();
+        if (limite == null) {
+            return null;
+        }
+        Duration restante = Duration.ofNanos(limite - System.nanoTime());
+        if (restante.compareTo(TIMEOUT_MINIMO) < 0) {
+            restante = TIMEOUT_MINIMO;
+        }
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(menor(config.getEsperaConexion(), restante)))
+                .setResponseTimeout(Timeout.of(menor(config.getReadTimeout(), restante)))
+                .build();
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(requestConfig);
+        return context;
+    }
+
+    private static Duration menor(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private ClientHttpRequestInterceptor medir(String destino) {
+        return (request, body, execution) -> {
+            if (meterRegistry == null) {
+                return execution.execute(request, body);
+            }
+            long inicio = System.nanoTime();
+            String estado = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                estado = String.valueOf(response.getStatusCode().value());
+                return response;
+            } catch (ConnectionRequestTimeoutException e) {
+                estado = "SIN_CONEXION";
+                log.warn("Cliente HTTP '{}': pool lleno, se rechaza {} {}", destino, request.getMethod(), request.getURI().getPath());
+                throw e;
+            } finally {
+                Timer.builder("mycfo.http.cliente")
+                        .description("Latencia de las llamadas a otros servicios")
+                        .tag("destino", destino)
+                        .tag("estado", estado)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private void registrarPool(String destino, PoolingHttpClientConnectionManager pool, String estado,
+                               ToDoubleFunction<PoolStats> valor) {
+        Gauge.builder("mycfo.http.cliente.conexiones", pool, p -> valor.applyAsDouble(p.getTotalStats()))
+                .description("Conexiones del pool del destino")
+                .tag("destino", destino)
+                .tag("estado", estado)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        clientes.forEach((destino, cliente) -> {
+            try {
+                cliente.httpClient().close();
+            } catch (IOException e) {
+                log.warn("No se pudo cerrar el cliente HTTP '{}': {}", destino, e.getMessage());
+            }
+        });
+    }
+
+    private record Cliente(RestTemplate restTemplate, CloseableHttpClient httpClient) {}
+}
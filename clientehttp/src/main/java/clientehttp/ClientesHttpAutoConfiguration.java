@@ -0,0 +1,26 @@
+package clientehttp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registra {@link ClientesHttp} en los servicios que tienen este módulo como dependencia.
+ */
+@AutoConfiguration(after = RestTemplateAutoConfiguration.class)
+@EnableConfigurationProperties(ClientesHttpProperties.class)
+public class ClientesHttpAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ClientesHttp clientesHttp(RestTemplateBuilder restTemplateBuilder,
+                                     ClientesHttpProperties properties,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ClientesHttp(restTemplateBuilder, properties, meterRegistry.getIfAvailable());
+    }
+}
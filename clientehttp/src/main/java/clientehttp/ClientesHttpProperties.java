@@ -0,0 +1,77 @@
+package clientehttp;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración de los clientes HTTP hacia otros servicios.
+ * <pre>
+ * mycfo.http.por-defecto.read-timeout=10s
+ * mycfo.http.destinos.vertex.read-timeout=90s
+ * mycfo.http.destinos.registro.max-conexiones=30
+ * </pre>
+ * Lo que un destino no define lo toma de {@code por-defecto}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mycfo.http")
+public class ClientesHttpProperties {
+
+    private Destino porDefecto = Destino.valoresBase();
+    private Map<String, Destino> destinos = new HashMap<>();
+
+    /** Configuración efectiva del destino: la propia completada con la de por-defecto. */
+    public Destino para(String destino) {
+        Destino propio = destinos.get(destino);
+        Destino base = porDefecto.completarCon(Destino.valoresBase());
+        return propio == null ? base : propio.completarCon(base);
+    }
+
+    @Getter
+    @Setter
+    public static class Destino {
+
+        /** Tiempo máximo para establecer la conexión TCP. */
+        private Duration connectTimeout;
+
+        /** Tiempo máximo de espera de la respuesta (entre paquetes). */
+        private Duration readTimeout;
+
+        /**
+         * Conexiones simultáneas hacia el destino. Es también el bulkhead: con el pool
+         * ocupado, una llamada espera a lo sumo {@link #esperaConexion} y falla.
+         */
+        private Integer maxConexiones;
+
+        /** Espera máxima por una conexión libre del pool. */
+        private Duration esperaConexion;
+
+        /** Tiempo que una conexión ociosa se conserva para reutilizarla. */
+        private Duration keepAlive;
+
+        static Destino valoresBase() {
+            Destino destino = new Destino();
+            destino.connectTimeout = Duration.ofSeconds(2);
+            destino.readTimeout = Duration.ofSeconds(10);
+            destino.maxConexiones = 20;
+            destino.esperaConexion = Duration.ofMillis(500);
+            destino.keepAlive = Duration.ofSeconds(30);
+            return destino;
+        }
+
+        Destino completarCon(Destino base) {
+            Destino completo = new Destino();
+            completo.connectTimeout = connectTimeout != null ? connectTimeout : base.connectTimeout;
+            completo.readTimeout = readTimeout != null ? readTimeout : base.readTimeout;
+            completo.maxConexiones = maxConexiones != null ? maxConexiones : base.maxConexiones;
+            completo.esperaConexion = esperaConexion != null ? esperaConexion : base.esperaConexion;
+            completo.keepAlive = keepAlive != null ? keepAlive : base.keepAlive;
+            return completo;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package clientehttp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Credencial compartida entre servicios para los endpoints /api/interno/**, que no llevan
+ * token de usuario. Quien llama la manda en el header {@value #HEADER}; el valor sale de
+ * mycfo.interno.token y tiene que ser el mismo en todos los servicios. Sin valor configurado
+ * no acepta ningún pedido.
+ */
+public class CredencialInterna {
+
+    public static final String HEADER = "X-Servicio-Token";
+
+    private final byte[] token;
+
+    public CredencialInterna(String token) {
+        this.token = token != null && !token.isBlank() ? token.trim().getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    public boolean configurada() {
+        return token != null;
+    }
+
+    /** Compara en tiempo constante, para no filtrar el token por lo que tarda en rechazar. */
+    public boolean valida(String recibido) {
+        return token != null && recibido != null
+                && MessageDigest.isEqual(token, recibido.trim().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,44 @@
+package clientehttp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Registra {@link EmpresaPorUsuarioCache} y su endpoint de invalidación
+ * (DELETE /api/interno/empresa-por-usuario/{sub}) en los servicios que traen Caffeine,
+ * que son los que resuelven la empresa del usuario contra administración.
+ */
+@AutoConfiguration(after = InternoAutoConfiguration.class)
+@ConditionalOnClass(name = "com.github.benmanes.caffeine.cache.Caffeine")
+@Slf4j
+public class EmpresaPorUsuarioAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EmpresaPorUsuarioCache empresaPorUsuarioCache(
+            MeterRegistry meterRegistry,
+            @Value("${mycfo.cache.empresa-por-usuario.max-entries:10000}") long maxEntries,
+            @Value("${mycfo.cache.empresa-por-usuario.ttl:5m}") Duration ttl,
+            @Value("${mycfo.cache.empresa-por-usuario.ttl-sin-empresa:30s}") Duration ttlSinEmpresa) {
+        return new EmpresaPorUsuarioCache(meterRegistry, maxEntries, ttl, ttlSinEmpresa);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public CacheInternaController cacheInternaController(EmpresaPorUsuarioCache empresaPorUsuarioCache,
+                                                         CredencialInterna credencialInterna) {
+        if (!credencialInterna.configurada()) {
+            log.warn("mycfo.interno.token sin configurar: los avisos de cambio de empresa se rechazan "
+                    + "y la caché empresaPorUsuario solo se renueva por TTL");
+        }
+        return new CacheInternaController(empresaPorUsuarioCache, credencialInterna);
+    }
+}
@@ -0,0 +1,109 @@
+package clientehttp;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Caché de la empresa de cada usuario (sub de Cognito) resuelta en administración.
+ * Los usuarios sin empresa también se guardan, con un TTL más corto. Si varios pedidos
+ * buscan el mismo sub a la vez, solo uno consulta a administración y el resto espera
+ * su resultado. administración avisa cuando cambia la pertenencia de un usuario
+ * (ver {@link #invalidar}).
+ * Métricas: cache.gets (hit/miss), cache.evictions, cache.size y cache.hit.ratio con
+ * cache=empresaPorUsuario.
+ * La registra {@link EmpresaPorUsuarioAutoConfiguration} en los servicios que tienen Caffeine.
+ */
+@Slf4j
+public class EmpresaPorUsuarioCache {
+
+    public static final String NOMBRE = "empresaPorUsuario";
+
+    private final AsyncCache<String, Resolucion> cache;
+
+    public EmpresaPorUsuarioCache(MeterRegistry meterRegistry, long maxEntries, Duration ttl, Duration ttlSinEmpresa) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Resolucion>() {
+                    @Override
+                    public long expireAfterCreate(String sub, Resolucion resolucion, long ahora) {
+                        return (resolucion.tieneEmpresa() ? ttl : ttlSinEmpresa).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String sub, Resolucion resolucion, long ahora, long restante) {
+                        return expireAfterCreate(sub, resolucion, ahora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String sub, Resolucion resolucion, long ahora, long restante) {
+                        return restante;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NOMBRE);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                .tag("cache", NOMBRE)
+                .description("Proporción de búsquedas de empresa resueltas sin llamar a administración")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve la resolución cacheada del sub o la obtiene con {@code consultar}.
+     * La consulta corre en el hilo que llega primero, fuera de los locks de la caché.
+     * Un error de consulta no se cachea y se propaga a todos los que esperaban.
+     */
+    public Resolucion obtener(String usuarioSub, Function<String, Resolucion> consultar) {
+        CompletableFuture<Resolucion> nueva = new CompletableFuture<>();
+        AtomicBoolean propia = new AtomicBoolean();
+        CompletableFuture<Resolucion> resolucion = cache.get(usuarioSub, (sub, executor) -> {
+            propia.set(true);
+            return nueva;
+        });
+
+        if (propia.get()) {
+            try {
+                nueva.complete(consultar.apply(usuarioSub));
+            } catch (RuntimeException e) {
+                nueva.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return resolucion.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /** Descarta lo cacheado del usuario: su próxima búsqueda vuelve a consultar a administración. */
+    public void invalidar(String usuarioSub) {
+        cache.synchronous().invalidate(usuarioSub);
+        log.debug("Empresa cacheada del usuario {} invalidada", usuarioSub);
+    }
+
+    /** Empresa de un usuario; empresaId null si administración informa que no tiene. */
+    public record Resolucion(Long empresaId) {
+
+        public static final Resolucion SIN_EMPRESA = new Resolucion(null);
+
+        public boolean tieneEmpresa() {
+            return empresaId != null;
+        }
+    }
+}
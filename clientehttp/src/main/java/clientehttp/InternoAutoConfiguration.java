@@ -0,0 +1,19 @@
+package clientehttp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registra {@link CredencialInterna} con el valor de mycfo.interno.token.
+ */
+@AutoConfiguration
+public class InternoAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CredencialInterna credencialInterna(@Value("${mycfo.interno.token:}") String token) {
+        return new CredencialInterna(token);
+    }
+}
@@ -0,0 +1,184 @@
+package clientehttp;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.StringUtils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token de Google (scope cloud-platform) para llamar a Vertex.
+ * Las credenciales se leen una sola vez y el token se guarda en memoria; antes de que venza
+ * se renueva en segundo plano, así que los pedidos solo leen el token vigente.
+ * Si el token vence igual (la renovación falló o todavía no hubo ninguna), el primer pedido
+ * lo renueva y los que llegan mientras tanto esperan ese mismo resultado.
+ * Un token sin vencimiento no se renueva en segundo plano; la espera hasta una renovación
+ * nunca pasa de un día (después se vuelve a pedir).
+ */
+@Slf4j
+public class TokenGoogle implements DisposableBean {
+
+    static final String CLOUD_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
+    // Un token con menos vida que esto no se entrega: podría vencer durante la llamada
+    private static final Duration VIDA_MINIMA = Duration.ofSeconds(60);
+    private static final Duration DEMORA_MAXIMA = Duration.ofDays(1);
+
+    private final String credentialsPath;
+    private final Duration margenRenovacion;
+    private final Duration reintento;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "token-google");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private final Object lock = new Object();
+
+    private volatile AccessToken actual;
+    private GoogleCredentials credentials;
+    private ScheduledFuture<?> proximaRenovacion;
+
+    public TokenGoogle(String credentialsPath, Duration margenRenovacion, Duration reintento, Clock clock) {
+        this.credentialsPath = credentialsPath;
+        this.margenRenovacion = margenRenovacion;
+        this.reintento = reintento;
+        this.clock = clock;
+    }
+
+    /** Pide el primer token en segundo plano para que tampoco lo pague el primer pedido. */
+    public void precargar() {
+        scheduler.execute(() -> {
+            try {
+                renovar();
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo precargar el token de Google: {}", ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Token vigente para usar como Bearer.
+     * @throws IllegalStateException si no se pudo obtener uno
+     */
+    public String obtener() {
+        AccessToken token = actual;
+        if (vigente(token)) {
+            return token.getTokenValue();
+        }
+        synchronized (lock) {
+            token = actual;
+            if (vigente(token)) {
+                return token.getTokenValue();
+            }
+            return renovar().getTokenValue();
+        }
+    }
+
+    private AccessToken renovar() {
+        synchronized (lock) {
+            try {
+                if (credentials == null) {
+                    credentials = cargarCredenciales();
+                }
+                AccessToken nuevo = credentials.refreshAccessToken();
+                if (nuevo == null || !StringUtils.hasText(nuevo.getTokenValue())) {
+                    throw new IllegalStateException("Google no devolvió access token.");
+                }
+                actual = nuevo;
+                if (nuevo.getExpirationTime() != null) {
+                    programarRenovacion(vencimiento(nuevo).minus(margenRenovacion));
+                } else {
+                    cancelarRenovacion();
+                }
+                log.debug("Token de Google renovado, vence {}", nuevo.getExpirationTime());
+                return nuevo;
+            } catch (IOException ex) {
+                throw new IllegalStateException("No se pudo obtener access token de Google: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void renovarEnSegundoPlano() {
+        try {
+            renovar();
+        } catch (RuntimeException ex) {
+            // Mientras el token actual siga vigente se reintenta; si vence, lo renueva el próximo pedido
+            AccessToken token = actual;
+            if (vigente(token)) {
+                log.warn("No se pudo renovar el token de Google, se reintenta en {}: {}", reintento, ex.getMessage());
+                synchronized (lock) {
+                    programarRenovacion(clock.instant().plus(reintento));
+                }
+            } else {
+                log.error("No se pudo renovar el token de Google: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void programarRenovacion(Instant cuando) {
+        cancelarRenovacion();
+        Duration demora = Duration.between(clock.instant(), cuando);
+        if (demora.isNegative()) {
+            demora = Duration.ZERO;
+        } else if (demora.compareTo(DEMORA_MAXIMA) > 0) {
+            demora = DEMORA_MAXIMA;
+        }
+        proximaRenovacion = scheduler.schedule(this::renovarEnSegundoPlano, demora.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelarRenovacion() {
+        if (proximaRenovacion != null) {
+            proximaRenovacion.cancel(false);
+            proximaRenovacion = null;
+        }
+    }
+
+    /** Demora hasta la próxima renovación en segundo plano (vacío si no hay ninguna programada). */
+    Optional<Duration> proximaRenovacion() {
+        synchronized (lock) {
+            return proximaRenovacion == null || proximaRenovacion.isDone()
+                    ? Optional.empty()
+                    : Optional.of(Duration.ofMillis(proximaRenovacion.getDelay(TimeUnit.MILLISECONDS)));
+        }
+    }
+
+    private GoogleCredentials cargarCredenciales() throws IOException {
+        GoogleCredentials cargadas;
+        if (StringUtils.hasText(credentialsPath)) {
+            try (InputStream stream = new FileInputStream(credentialsPath)) {
+                cargadas = GoogleCredentials.fromStream(stream);
+            }
+        } else {
+            cargadas = GoogleCredentials.getApplicationDefault();
+        }
+        log.info("Credenciales de Google cargadas desde {}",
+                StringUtils.hasText(credentialsPath) ? credentialsPath : "application default credentials");
+        return cargadas.createScoped(List.of(CLOUD_SCOPE));
+    }
+
+    private boolean vigente(AccessToken token) {
+        return token != null && vencimiento(token).isAfter(clock.instant().plus(VIDA_MINIMA));
+    }
+
+    private static Instant vencimiento(AccessToken token) {
+        return token.getExpirationTime() != null ? token.getExpirationTime().toInstant() : Instant.MAX;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,33 @@
+package clientehttp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Registra {@link TokenGoogle} en los servicios que tienen la librería de autenticación de
+ * Google (los que llaman a Vertex). Usa las mismas credenciales que {@code vertex.ai.credentials-path}.
+ */
+@AutoConfiguration
+@ConditionalOnClass(name = "com.google.auth.oauth2.GoogleCredentials")
+public class TokenGoogleAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenGoogle tokenGoogle(
+            @Value("${mycfo.google.credentials-path:${vertex.ai.credentials-path:}}") String credentialsPath,
+            @Value("${mycfo.google.token.margen-renovacion:5m}") Duration margenRenovacion,
+            @Value("${mycfo.google.token.reintento:30s}") Duration reintento,
+            @Value("${mycfo.google.token.precargar:true}") boolean precargar) {
+        TokenGoogle tokenGoogle = new TokenGoogle(credentialsPath, margenRenovacion, reintento, Clock.systemUTC());
+        if (precargar) {
+            tokenGoogle.precargar();
+        }
+        return tokenGoogle;
+    }
+}
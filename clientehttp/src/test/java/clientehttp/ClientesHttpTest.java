@@ -0,0 +1,68 @@
+package clientehttp;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientesHttpTest {
+
+    private HttpServer servidor;
+    private ClientesHttp clientesHttp;
+    private String url;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        // Responde después de 2 segundos, dentro del read timeout por defecto (10s)
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/lento", exchange -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] cuerpo = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cuerpo);
+            }
+        });
+        servidor.setExecutor(null);
+        servidor.start();
+        url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/lento";
+        clientesHttp = new ClientesHttp(new RestTemplateBuilder(), new ClientesHttpProperties(), null);
+    }
+
+    @AfterEach
+    void detener() {
+        clientesHttp.destroy();
+        servidor.stop(0);
+    }
+
+    @Test
+    void conPlazoLaLlamadaSeCortaAlVencer() {
+        RestTemplate restTemplate = clientesHttp.para("lento");
+        long inicio = System.nanoTime();
+        long limite = inicio + Duration.ofMillis(300).toNanos();
+
+        assertThatThrownBy(() -> ClientesHttp.conPlazo(limite, () -> restTemplate.getForObject(url, String.class)))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(1_500));
+    }
+
+    @Test
+    void sinPlazoUsaElTimeoutDelDestino() {
+        assertThat(clientesHttp.para("lento").getForObject(url, String.class)).isEqualTo("ok");
+    }
+}
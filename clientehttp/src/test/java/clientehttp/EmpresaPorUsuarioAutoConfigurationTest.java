@@ -0,0 +1,48 @@
+package clientehttp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmpresaPorUsuarioAutoConfigurationTest {
+
+    private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(InternoAutoConfiguration.class, EmpresaPorUsuarioAutoConfiguration.class))
+            // Como en la aplicación: los "5m" de las propiedades se convierten a Duration
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    void laInvalidacionExigeLaCredencialDeServicio() {
+        runner.withPropertyValues("mycfo.interno.token=secreto").run(context -> {
+            EmpresaPorUsuarioCache cache = context.getBean(EmpresaPorUsuarioCache.class);
+            CacheInternaController controller = context.getBean(CacheInternaController.class);
+            AtomicInteger consultas = new AtomicInteger();
+            cache.obtener("sub-1", sub -> new EmpresaPorUsuarioCache.Resolucion((long) consultas.incrementAndGet()));
+
+            assertThat(controller.invalidarEmpresaPorUsuario("sub-1", null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+            assertThat(controller.invalidarEmpresaPorUsuario("sub-1", "otro").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+            cache.obtener("sub-1", sub -> new EmpresaPorUsuarioCache.Resolucion((long) consultas.incrementAndGet()));
+            assertThat(consultas).hasValue(1);
+
+            assertThat(controller.invalidarEmpresaPorUsuario("sub-1", "secreto").getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+            cache.obtener("sub-1", sub -> new EmpresaPorUsuarioCache.Resolucion((long) consultas.incrementAndGet()));
+            assertThat(consultas).hasValue(2);
+        });
+    }
+
+    @Test
+    void sinTokenConfiguradoRechazaTodo() {
+        runner.run(context -> assertThat(context.getBean(CacheInternaController.class)
+                .invalidarEmpresaPorUsuario("sub-1", "").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+    }
+}
@@ -0,0 +1,66 @@
+package clientehttp;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenGoogleTest {
+
+    private static final Instant AHORA = Instant.parse("2026-03-01T12:00:00Z");
+
+    private final GoogleCredentials credentials = mock(GoogleCredentials.class);
+    private final TokenGoogle tokenGoogle = new TokenGoogle(null, Duration.ofMinutes(5), Duration.ofSeconds(30),
+            Clock.fixed(AHORA, ZoneOffset.UTC));
+
+    @AfterEach
+    void cerrar() {
+        tokenGoogle.destroy();
+    }
+
+    @Test
+    void tokenSinVencimientoSeEntregaYNoSeProgramaRenovacion() throws Exception {
+        credenciales(new AccessToken("sin-vencimiento", null));
+
+        assertThat(tokenGoogle.obtener()).isEqualTo("sin-vencimiento");
+        assertThat(tokenGoogle.obtener()).isEqualTo("sin-vencimiento");
+        assertThat(tokenGoogle.proximaRenovacion()).isEmpty();
+        verify(credentials, times(1)).refreshAccessToken();
+    }
+
+    @Test
+    void laRenovacionSeProgramaAntesDelVencimiento() throws Exception {
+        credenciales(new AccessToken("una-hora", Date.from(AHORA.plus(Duration.ofHours(1)))));
+
+        assertThat(tokenGoogle.obtener()).isEqualTo("una-hora");
+        assertThat(tokenGoogle.proximaRenovacion()).hasValueSatisfying(demora ->
+                assertThat(demora).isBetween(Duration.ofMinutes(54), Duration.ofMinutes(55)));
+    }
+
+    @Test
+    void unVencimientoMuyLejanoEsperaComoMucho1Dia() throws Exception {
+        credenciales(new AccessToken("lejano", Date.from(AHORA.plus(Duration.ofDays(3650)))));
+
+        assertThat(tokenGoogle.obtener()).isEqualTo("lejano");
+        assertThat(tokenGoogle.proximaRenovacion()).hasValueSatisfying(demora ->
+                assertThat(demora).isBetween(Duration.ofHours(23), Duration.ofDays(1)));
+    }
+
+    private void credenciales(AccessToken token) throws Exception {
+        when(credentials.refreshAccessToken()).thenReturn(token);
+        ReflectionTestUtils.setField(tokenGoogle, "credentials", credentials);
+    }
+}
@@ -601,6 +601,44 @@ const fetchCargaData = async ({ tipo, modo }) => {
     };
 };
 
+// Lee los eventos del stream de /chat/stream: "delta" con texto parcial, "done" con la
+// respuesta final (reemplaza a los deltas) y "error".
+const leerEventosChat = async (response, { onDelta, onDone }) => {
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder('utf-8');
+    let buffer = '';
+    let terminado = false;
+
+    const procesar = (bloque) => {
+        let evento = 'message';
+        const datos = [];
+        bloque.split(/\r?\n/).forEach((linea) => {
+            if (linea.startsWith('event:')) evento = linea.slice(6).trim();
+            else if (linea.startsWith('data:')) datos.push(linea.slice(5).replace(/^ /, ''));
+        });
+        if (!datos.length) return;
+        const data = JSON.parse(datos.join('\n'));
+        if (evento === 'delta') onDelta(data.text || '');
+        else if (evento === 'done') {
+            terminado = true;
+            onDone(data);
+        } else if (evento === 'error') {
+            throw new Error(data.error || 'Error en la comunicación');
+        }
+    };
+
+    while (true) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+        const bloques = buffer.split(/\r?\n\r?\n/);
+        buffer = bloques.pop();
+        bloques.forEach(procesar);
+    }
+    if (buffer.trim()) procesar(buffer);
+    if (!terminado) throw new Error('El stream terminó sin respuesta');
+};
+
 const ChatbotWidget = ({ currentModule = 'general' }) => {
     const theme = useTheme();
     const navigate = useNavigate();
@@ -896,7 +934,7 @@ const ChatbotWidget = ({ currentModule = 'general' }) => {
                 : baseContext;
 
             const authHeaders = getAuthHeaders();
-            const response = await fetch(IA_API_URL, {
+            const request = {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json',
@@ -908,7 +946,32 @@ const ChatbotWidget = ({ currentModule = 'general' }) => {
                     context: Object.keys(mergedContext).length ? mergedContext : null,
                     history: messages.slice(-6)
                 }),
+            };
+
+            // Respuesta en vivo por SSE; si el stream no está disponible se usa /chat
+            const streamResponse = await fetch(`${IA_API_URL}/stream`, {
+                ...request,
+                headers: { ...request.headers, Accept: 'text/event-stream' },
             });
+            if (streamResponse.ok && streamResponse.body) {
+                await leerEventosChat(streamResponse, {
+                    onDelta: (text) => setMessages(prev => {
+                        const last = prev[prev.length - 1];
+                        if (last?.streaming) {
+                            return [...prev.slice(0, -1), { ...last, text: last.text + text }];
+                        }
+                        return [...prev, { sender: 'bot', text, streaming: true }];
+                    }),
+                    onDone: (data) => setMessages(prev => {
+                        const last = prev[prev.length - 1];
+                        const rest = last?.streaming ? prev.slice(0, -1) : prev;
+                        return [...rest, { sender: 'bot', text: data.response }];
+                    }),
+                });
+                return;
+            }
+
+            const response = await fetch(IA_API_URL, request);
 
             if (!response.ok) throw new Error('Error en la comunicación');
 
@@ -917,7 +980,10 @@ const ChatbotWidget = ({ currentModule = 'general' }) => {
             setMessages(prev => [...prev, botMessage]);
         } catch (error) {
             console.error('Error:', error);
-            setMessages(prev => [...prev, { sender: 'bot', text: 'Lo siento, tuve un problema al procesar tu consulta.' }]);
+            setMessages(prev => [
+                ...prev.filter(message => !message.streaming),
+                { sender: 'bot', text: 'Lo siento, tuve un problema al procesar tu consulta.' }
+            ]);
         } finally {
             setIsLoading(false);
         }
@@ -1050,7 +1116,7 @@ const ChatbotWidget = ({ currentModule = 'general' }) => {
                                 </Typography>
                             </Box>
                         ))}
-                        {isLoading && (
+                        {isLoading && !messages[messages.length - 1]?.streaming && (
                             <Box sx={{ alignSelf: 'flex-start', p: 1 }}>
                                 <CircularProgress size={20} />
                             </Box>
@@ -0,0 +1,68 @@
+package gateway.gateway.config;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtro global que no deja pasar los endpoints /api/interno/** de los módulos backend.
+ * Son para llamadas entre servicios y no llevan token de usuario; con StripPrefix=2,
+ * /api/registro/api/interno/... llegaría tal cual a registro. Se responde 404.
+ */
+@Component
+public class BloqueoInternoFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (esInterno(exchange.getRequest().getPath().pathWithinApplication())) {
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    /**
+     * Busca "api/interno" en cualquier posición de la ruta, comparando los segmentos como los
+     * compara Spring MVC del otro lado (decodificados y sin ";parámetros"), sin segmentos
+     * vacíos y resolviendo "." y "..".
+     */
+    static boolean esInterno(PathContainer path) {
+        List<String> segmentos = new ArrayList<>();
+        for (PathContainer.Element elemento : path.elements()) {
+            if (!(elemento instanceof PathContainer.PathSegment segmento)) {
+                continue;
+            }
+            String valor = segmento.valueToMatch();
+            if (valor.isEmpty() || valor.equals(".")) {
+                continue;
+            }
+            if (valor.equals("..")) {
+                if (!segmentos.isEmpty()) {
+                    segmentos.remove(segmentos.size() - 1);
+                }
+                continue;
+            }
+            segmentos.add(valor);
+        }
+        for (int i = 0; i + 1 < segmentos.size(); i++) {
+            if (segmentos.get(i).equals("api") && segmentos.get(i + 1).equals("interno")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        // Antes que UserSubHeaderFilter y que los filtros de cada ruta
+        return -200;
+    }
+}
@@ -0,0 +1,34 @@
+package gateway.gateway.config;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.server.PathContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloqueoInternoFilterTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/registro/api/interno/empresa-por-usuario/abc",
+            "/api/pronostico//api/interno/empresa-por-usuario/abc",
+            "/api/ia/api/interno/conocimiento/recargar",
+            "/api/ia/api;x=1/interno/conocimiento/recargar",
+            "/api/ia/api/%69nterno/conocimiento/recargar",
+            "/api/registro/otra/../api/./interno/x"
+    })
+    void bloqueaLosEndpointsInternos(String ruta) {
+        assertThat(BloqueoInternoFilter.esInterno(PathContainer.parsePath(ruta))).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/registro/movimientos",
+            "/api/ia/chat",
+            "/api/registro/api/internos",
+            "/api/registro/interno/api"
+    })
+    void dejaPasarElResto(String ruta) {
+        assertThat(BloqueoInternoFilter.esInterno(PathContainer.parsePath(ruta))).isFalse();
+    }
+}
@@ -0,0 +1,32 @@
+package ia.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor propio de POST /chat/stream: cada respuesta ocupa un hilo mientras se genera.
+ * Tiene tope de hilos y de cola; lleno, rechaza la tarea (TaskRejectedException) y el
+ * controller responde con un evento "error" en vez de dejar el pedido esperando.
+ * El executor de Spring (applicationTaskExecutor) queda con su tamaño por defecto.
+ */
+@Configuration
+public class ChatbotStreamExecutorConfig {
+
+    public static final String CHATBOT_STREAM_EXECUTOR = "chatbotStreamExecutor";
+
+    @Bean(name = CHATBOT_STREAM_EXECUTOR)
+    public ThreadPoolTaskExecutor chatbotStreamExecutor(
+            @Value("${mycfo.chatbot.stream.hilos:32}") int hilos,
+            @Value("${mycfo.chatbot.stream.cola:0}") int cola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("chat-stream-");
+        executor.setCorePoolSize(Math.max(1, hilos));
+        executor.setMaxPoolSize(Math.max(1, hilos));
+        executor.setQueueCapacity(Math.max(0, cola));
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setDaemon(true);
+        return executor;
+    }
+}
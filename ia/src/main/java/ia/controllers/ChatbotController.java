@@ -1,23 +1,43 @@
 package ia.controllers;
 
+import ia.config.ChatbotStreamExecutorConfig;
 import ia.services.ChatbotVertexService;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
 @RestController
-@RequiredArgsConstructor
 @RequestMapping("/")
+@Slf4j
 public class ChatbotController {
 
         private final ChatbotVertexService chatbotVertexService;
+        private final AsyncTaskExecutor streamExecutor;
+
+        @Value("${mycfo.chatbot.stream.timeout:120s}")
+        private Duration streamTimeout;
+
+        public ChatbotController(ChatbotVertexService chatbotVertexService,
+                        @Qualifier(ChatbotStreamExecutorConfig.CHATBOT_STREAM_EXECUTOR) AsyncTaskExecutor streamExecutor) {
+                this.chatbotVertexService = chatbotVertexService;
+                this.streamExecutor = streamExecutor;
+        }
 
         @PostMapping(value = "/chat", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
         public Map<String, Object> chat(
@@ -36,6 +56,71 @@ public class ChatbotController {
                                 "raw", result.rawText());
         }
 
+        /**
+         * Igual que /chat pero por Server-Sent Events: eventos "delta" con el texto a medida que
+         * se genera ({"text": ...}), un "done" con la respuesta final ({"response", "raw"}) que
+         * reemplaza a los deltas, o un "error" ({"error": ...}). Si no hay hilo libre para generar
+         * la respuesta, el único evento es el "error".
+         */
+        @PostMapping(value = "/chat/stream", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        public SseEmitter chatStream(
+                        @RequestHeader(value = "X-Usuario-Sub", required = false) String userSub,
+                        @RequestHeader(value = "Authorization", required = false) String authorization,
+                        @RequestBody ChatRequest request) {
+                SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+                try {
+                        streamExecutor.execute(() -> generar(emitter, request, userSub, authorization));
+                } catch (TaskRejectedException ex) {
+                        log.warn("Stream de chat rechazado: no hay hilos libres");
+                        sendError(emitter, "Hay demasiadas consultas en curso. Probá de nuevo en unos segundos.");
+                }
+                return emitter;
+        }
+
+        private void generar(SseEmitter emitter, ChatRequest request, String userSub, String authorization) {
+                try {
+                        ChatbotVertexService.ChatbotResult result = chatbotVertexService.chatStream(
+                                        request != null ? request.message() : null,
+                                        request != null ? request.module() : null,
+                                        request != null ? request.context() : null,
+                                        request != null ? request.history() : null,
+                                        userSub,
+                                        authorization,
+                                        text -> send(emitter, "delta", Map.of("text", text)));
+                        send(emitter, "done", Map.of(
+                                        "response", result.responseText(),
+                                        "raw", result.rawText()));
+                        emitter.complete();
+                } catch (UncheckedIOException ex) {
+                        // El cliente cerró la conexión: se corta la generación
+                        log.debug("Stream de chat cancelado por el cliente: {}", ex.getMessage());
+                        emitter.completeWithError(ex.getCause());
+                } catch (ResponseStatusException ex) {
+                        sendError(emitter, ex.getReason());
+                } catch (RuntimeException ex) {
+                        log.error("Error en el stream de chat", ex);
+                        sendError(emitter, "Error al procesar el mensaje.");
+                }
+        }
+
+        private void send(SseEmitter emitter, String event, Map<String, Object> data) {
+                try {
+                        emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+                } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                }
+        }
+
+        private void sendError(SseEmitter emitter, String message) {
+                try {
+                        send(emitter, "error", Map.of("error", message != null ? message : "Error al procesar el mensaje."));
+                        emitter.complete();
+                } catch (UncheckedIOException | IllegalStateException ex) {
+                        // Conexión cerrada o emitter vencido: no queda a quién avisar
+                        log.debug("No se pudo enviar el error del stream de chat: {}", ex.getMessage());
+                }
+        }
+
         public record ChatRequest(String message, String module, Map<String, Object> context,
                         List<Map<String, String>> history) {
         }
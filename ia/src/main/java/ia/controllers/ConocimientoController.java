@@ -0,0 +1,35 @@
+package ia.controllers;
+
+import clientehttp.CredencialInterna;
+import ia.services.IndiceConocimiento;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Endpoint interno para volver a indexar la base de conocimiento del chatbot después de
+ * editar el manual, sin reiniciar el servicio. El gateway no enruta /api/interno/** y,
+ * para quien llegue directo al servicio, exige la credencial de servicio
+ * ({@link CredencialInterna}, header X-Servicio-Token).
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/interno/conocimiento")
+public class ConocimientoController {
+
+    private final IndiceConocimiento indiceConocimiento;
+    private final CredencialInterna credencialInterna;
+
+    @PostMapping("/recargar")
+    public ResponseEntity<IndiceConocimiento.Resumen> recargar(
+            @RequestHeader(name = CredencialInterna.HEADER, required = false) String token) {
+        if (!credencialInterna.valida(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(indiceConocimiento.recargar());
+    }
+}
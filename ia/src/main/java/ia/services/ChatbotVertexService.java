@@ -1,13 +1,17 @@
 package ia.services;
 
+import clientehttp.ClientesHttp;
+import clientehttp.TokenGoogle;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.auth.oauth2.AccessToken;
-import com.google.auth.oauth2.GoogleCredentials;
 import ia.config.VertexAiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -16,22 +20,33 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.FileInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.time.Instant;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,72 +56,10 @@ import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class ChatbotVertexService {
+public class ChatbotVertexService implements DisposableBean {
 
-    private static final String CLOUD_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
     private static final Pattern FENCE_PATTERN = Pattern.compile("```[a-zA-Z]*");
-    private static final String MANUAL_INTEGRAL_MD_CLASSPATH = "knowledge/manual_integral_mycfo.md";
-    private static final Pattern OUT_OF_SCOPE_PATTERN = Pattern.compile(
-            "(?i)\\b(" +
-                    "calcula|calcular|recalcula|recalcular|sumar|suma|restar|resta|" +
-                    "multiplicar|multiplica|dividir|divide|porcentaje|promedio|tasa|" +
-                    "variacion|crecimiento|simulacion|simula|estima|estimacion" +
-                    ")\\b");
-    private static final Pattern SCOPE_QUESTION_PATTERN = Pattern.compile(
-            "(?i)\\b(que podes hacer|que puedes hacer|cual es tu alcance|cu[aá]l es tu alcance|" +
-                    "para que servis|para que serv[íi]s|para qu[eé] serv[íi]s|ayuda|que haces)\\b");
-    private static final Pattern LOCAL_ACTION_PATTERN = Pattern.compile(
-            "(?i)\\b(que puedo hacer|que pod[eé]s hacer|que puedes hacer|que se puede hacer)\\b" +
-                    ".*\\b(aca|aqui|aquí|esta pantalla|este modulo|este módulo|esta seccion|esta sección|este lugar)\\b");
-    private static final Pattern LOCATION_QUESTION_PATTERN = Pattern.compile(
-            "(?i)\\b(donde estoy|en que modulo estoy|en qué modulo estoy|que modulo es este|" +
-                    "que m[oó]dulo es este|que pantalla es|en que pantalla estoy|en qué pantalla estoy|" +
-                    "que pantalla estoy viendo|que pantalla estoy|pantalla actual|que estoy viendo|que veo|" +
-                    "que veo aca|que veo aquí|que es esto que veo|donde estoy parado)\\b");
-    private static final Pattern GREETING_ONLY_PATTERN = Pattern.compile(
-            "(?i)^\\s*(hola|buenas|buenos dias|buen d[ií]a|buen dia|buenas tardes|buenas noches|hello|hey)\\s*[!.?]*\\s*$");
-    private static final Pattern INTERPRETATION_PATTERN = Pattern.compile(
-            "(?i)\\b(interpretaci[oó]n|interpretar|que significa|significa|lectura|analisis|análisis|explicaci[oó]n|explica|"
-                    +
-                    "que puedes decirme|que me puedes decir|que puedes decir|que me puedes contar|que ves en pantalla|sobre los datos|sobre estos datos)\\b");
-    private static final Pattern IDENTITY_QUESTION_PATTERN = Pattern.compile(
-            "(?i)\\b(qui[eé]n soy|mi nombre|nombre de usuario|mi usuario|usuario estoy usando|" +
-                    "mi cuenta|mi perfil|mi email|mi correo|mi mail|mi tel[ée]fono|mi telefono|mi celular)\\b");
-    private static final Pattern EMAIL_QUESTION_PATTERN = Pattern.compile("(?i)\\b(email|e-mail|correo|mail)\\b");
-    private static final Pattern PHONE_QUESTION_PATTERN = Pattern
-            .compile("(?i)\\b(tel[ée]fono|telefono|celular|celu|m[oó]vil|movil)\\b");
-    private static final Pattern NAME_QUESTION_PATTERN = Pattern.compile("(?i)\\b(nombre|usuario)\\b");
-    private static final Pattern DATE_QUESTION_PATTERN = Pattern.compile(
-            "(?i)\\b(que fecha es|que dia es|que dia|fecha|dia|en que dia estamos|en que fecha estamos|que hora es|hora)\\b");
-    private static final Pattern EXPLICIT_DATE_TIME_PATTERN = Pattern.compile(
-            "(?i)\\b(que fecha es|que dia es|en que dia estamos|en que fecha estamos|que hora es|hora actual|fecha actual|fecha de hoy|dia de hoy|hoy es)\\b");
-    private static final Pattern DATE_ONLY_PATTERN = Pattern.compile(
-            "(?i)^\\s*(fecha|dia|hora|que fecha|que dia|que hora)\\s*[?.!]*\\s*$");
-    private static final Pattern TEMPORAL_WORD_PATTERN = Pattern.compile(
-            "(?i)\\b(hoy|ahora|en este momento|en este instante|actualmente|reciente|recientes)\\b");
-    private static final Pattern AMBIGUOUS_TEMPORAL_PATTERN = Pattern.compile(
-            "(?i)^\\s*(hoy|ahora|en este momento|en este instante|actualmente|lo de hoy|lo de ahora|lo de este momento)\\s*[?.!]*\\s*$");
     private static final Pattern TIME_QUESTION_PATTERN = Pattern.compile("(?i)\\bhora\\b");
-    private static final Pattern DATA_REQUEST_PATTERN = Pattern.compile(
-            "(?i)\\b(cuanto|cuantos|monto|importe|total|saldo|balance|caja|plata|dinero|efectivo|resultado|ingresos|egresos|"
-                    +
-                    "cash ?flow|flujo de caja|p&l|pyl|presupuesto|presupuestos|factura|facturas|" +
-                    "cobro|cobros|pago|pagos|movimiento|movimientos|reporte|reportes|estado de resultados|" +
-                    "deuda|deudas|acreencia|acreencias|kpi|indicador|indicadores|numero|numeros|" +
-                    "pendiente|pendientes|recordatorio|recordatorios|notificacion|notificaciones|" +
-                    "pronostico|pronosticos|forecast|conciliado|conciliados|conciliar|conciliacion|" +
-                    "movimento|movimentos|otro|otra|mas|más|siguiente|dolar|dolares|usd|ars|peso|pesos|u\\$s)\\b");
-    private static final Pattern HOW_TO_PATTERN = Pattern.compile(
-            "(?i)\\b(pasos|procedimiento|instrucciones|guia|tutorial|ayuda|" +
-                    "como hago|como puedo|dime como|dime donde|que hace|para que sirve|" +
-                    "donde encuentro|donde esta|configurar|activar|desactivar|crear|" +
-                    "editar|cargar|importar|conciliar|generar)\\b");
-    private static final Pattern BUDGET_PATTERN = Pattern.compile("(?i)\\bpresupuesto(s)?\\b");
-    private static final Pattern PRONOSTICO_PATTERN = Pattern.compile("(?i)\\b(pronostico|pronosticos|forecast)\\b");
-    private static final Pattern BUDGET_EXISTENCE_PATTERN = Pattern.compile(
-            "(?i)\\b(tengo|tenes|hay|existe|existen|alg[uú]n|alguna|alguno|ningun|ningÃºn|ninguna)\\b");
-    private static final Pattern BUDGET_COUNT_PATTERN = Pattern.compile(
-            "(?i)\\b(cuantos|cuÃ¡ntos|cantidad|numero|nÃºmero)\\b");
     private static final Pattern EMOJI_PATTERN = Pattern.compile(
             "[\\x{1F300}-\\x{1FAFF}\\x{2600}-\\x{27BF}]");
     private static final Pattern LIST_PREFIX_PATTERN = Pattern.compile("^\\s*([\\-*+•·]|\\d+\\.)\\s+");
@@ -120,6 +73,10 @@ public class ChatbotVertexService {
     private static final Pattern TOOL_CALL_PATTERN = Pattern.compile(
             "@@CALL[_ ]?TOOL:([A-Za-z_]+)(?:\\s*(\\{.*?\\}))?@@",
             Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern TOOL_CALL_START_PATTERN = Pattern.compile(
+            "(```[a-zA-Z]*\\s*)?(@@|CALL[_ ]?TOOL)", Pattern.CASE_INSENSITIVE);
+    // Caracteres que se esperan antes de decidir si una respuesta por streaming es una llamada a tool
+    private static final int MIN_CHARS_DECIDIR_STREAM = 12;
     private static final Pattern TOOL_CALL_LOOSE_PATTERN = Pattern.compile(
             "CALL[_ ]?TOOL\\s*:?\\s*([A-Za-z_]+)(?:\\s*(\\{.*?\\}))?",
             Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
@@ -134,15 +91,59 @@ public class ChatbotVertexService {
             "query",
             "pageIndex",
             "statusFilter");
+    private static final int HILOS_HERRAMIENTAS = 16;
+    // Llamadas a tools esperando hilo; con la cola llena la tool se rechaza y queda como "timeout"
+    private static final int COLA_HERRAMIENTAS = 64;
+    private static final AtomicInteger HILOS_HERRAMIENTAS_CREADOS = new AtomicInteger();
+
+    @Value("${mycfo.chatbot.herramientas.timeout:10s}")
+    private Duration herramientasTimeout;
 
     private final VertexAiProperties properties;
     private final ObjectMapper objectMapper;
     private final DataRetrievalService dataRetrievalService;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private String cachedManualIntegral;
+    private final ClientesHttp clientesHttp;
+    private final TokenGoogle tokenGoogle;
+    private final IndiceConocimiento indiceConocimiento;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService herramientasExecutor = new ThreadPoolExecutor(
+            HILOS_HERRAMIENTAS, HILOS_HERRAMIENTAS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(COLA_HERRAMIENTAS), r -> {
+                Thread hilo = new Thread(r, "chatbot-herramientas-" + HILOS_HERRAMIENTAS_CREADOS.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
 
     public ChatbotResult chat(String message, String module, Map<String, Object> context,
             List<Map<String, String>> history, String userSub, String authorization) {
+        Turno turno = prepararTurno(message, module, context, history, userSub, authorization);
+        if (turno.respuestaDirecta() != null) {
+            return turno.respuestaDirecta();
+        }
+        return responder(turno, prompt -> callVertex(turno.module(), prompt, turno.context(), turno.history(),
+                turno.manual()), userSub, authorization);
+    }
+
+    /**
+     * Igual que {@link #chat} pero la respuesta de Vertex llega por streaming: {@code onDelta} recibe
+     * el texto ya saneado a medida que se genera. El resultado devuelto es la respuesta final completa
+     * (la misma que daria {@link #chat}) y reemplaza a lo enviado por {@code onDelta}.
+     */
+    public ChatbotResult chatStream(String message, String module, Map<String, Object> context,
+            List<Map<String, String>> history, String userSub, String authorization, Consumer<String> onDelta) {
+        Turno turno = prepararTurno(message, module, context, history, userSub, authorization);
+        if (turno.respuestaDirecta() != null) {
+            onDelta.accept(turno.respuestaDirecta().responseText());
+            return turno.respuestaDirecta();
+        }
+        // En preguntas de ubicacion la respuesta puede reemplazarse entera: no se adelanta texto
+        Consumer<String> destino = turno.forceManual() ? texto -> { } : onDelta;
+        return responder(turno, prompt -> streamVertex(turno.module(), prompt, turno.context(), turno.history(),
+                turno.manual(), new FiltroStreaming(destino)), userSub, authorization);
+    }
+
+    private Turno prepararTurno(String message, String module, Map<String, Object> context,
+            List<Map<String, String>> history, String userSub, String authorization) {
         if (!StringUtils.hasText(message)) {
             throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "El mensaje no puede estar vacio.");
         }
@@ -155,87 +156,89 @@ public class ChatbotVertexService {
 
         String safeModule = StringUtils.hasText(module) ? module.trim() : "general";
         String trimmedMessage = message.trim();
+        // Todas las decisiones de ruteo salen de los mismos rasgos, calculados una vez
+        IntencionMensaje intencion = IntencionMensaje.de(trimmedMessage);
 
         // SEGURIDAD GLOBAL: Interceptor de permisos antes de cualquier logica
         enrichContext(context);
-        if (!isHowToQuestion(trimmedMessage) && !isModuleAuthorized(trimmedMessage, context)) {
-            return new ChatbotResult(ChatbotPolicy.NO_PERMISSIONS_RESPONSE, "");
+        if (!intencion.comoHacer() && !isModuleAuthorized(intencion, context)) {
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_PERMISSIONS_RESPONSE, ""));
         }
 
         String resolvedModule = resolveModuleOverride(trimmedMessage, safeModule);
         String promptMessage = trimmedMessage;
         boolean forceManual = false;
 
-        if (isGreeting(trimmedMessage)) {
-            return new ChatbotResult(ChatbotPolicy.GREETING_RESPONSE, "");
+        if (intencion.saludo()) {
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.GREETING_RESPONSE, ""));
         }
 
-        if (isScopeQuestion(trimmedMessage) && !isLocalActionQuestion(trimmedMessage)) {
-            return new ChatbotResult(ChatbotPolicy.SCOPE_RESPONSE, "");
+        if (intencion.preguntaAlcance() && !intencion.accionLocal()) {
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.SCOPE_RESPONSE, ""));
         }
 
-        if (isIdentityQuestion(trimmedMessage)) {
-            return new ChatbotResult(buildProfileResponse(trimmedMessage, context), "");
+        if (intencion.preguntaIdentidad()) {
+            return Turno.directo(new ChatbotResult(buildProfileResponse(intencion, context), ""));
         }
 
-        if (isAmbiguousTemporal(trimmedMessage) && !isDataRequest(trimmedMessage)) {
-            return new ChatbotResult(ChatbotPolicy.AMBIGUOUS_TEMPORAL_RESPONSE, "");
+        if (intencion.temporalAmbiguo() && !intencion.pedidoDatos()) {
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.AMBIGUOUS_TEMPORAL_RESPONSE, ""));
         }
 
         if (needsPeriodClarification(trimmedMessage)) {
-            return new ChatbotResult(ChatbotPolicy.AMBIGUOUS_PERIOD_RESPONSE, "");
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.AMBIGUOUS_PERIOD_RESPONSE, ""));
         }
 
-        if (isDateQuestion(trimmedMessage)) {
-            return new ChatbotResult(buildDateResponse(trimmedMessage), "");
+        if (intencion.preguntaFecha()) {
+            return Turno.directo(new ChatbotResult(buildDateResponse(trimmedMessage), ""));
         }
 
-        if (isOutOfScope(trimmedMessage)) {
-            return new ChatbotResult(ChatbotPolicy.OUT_OF_SCOPE_RESPONSE, "");
+        if (intencion.fueraDeAlcance()) {
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.OUT_OF_SCOPE_RESPONSE, ""));
         }
 
-        if (isHowToQuestion(trimmedMessage) && !isLocalActionQuestion(trimmedMessage)) {
+        if (intencion.comoHacer() && !intencion.accionLocal()) {
             String override = buildHowToOverride(trimmedMessage);
             if (StringUtils.hasText(override)) {
-                return new ChatbotResult(override, "");
+                return Turno.directo(new ChatbotResult(override, ""));
             }
         }
 
         String targetHint = resolveTargetScreenHint(trimmedMessage);
 
-        if (isLocationQuestion(trimmedMessage)) {
+        if (intencion.preguntaUbicacion()) {
             // Si menciona una pantalla explicita (targetHint), dejamos que la IA responda
             // via manual
             if (!StringUtils.hasText(targetHint)) {
                 String locationPrompt = buildLocationSummaryPrompt(resolvedModule, context);
                 if (!StringUtils.hasText(locationPrompt)) {
-                    return new ChatbotResult(buildLocationResponse(resolvedModule, context), "");
+                    return Turno.directo(new ChatbotResult(buildLocationResponse(resolvedModule, context), ""));
                 }
                 promptMessage = locationPrompt;
                 forceManual = true;
             }
         }
-        boolean dataRequest = isDataRequest(trimmedMessage) && !isHowToQuestion(trimmedMessage);
-        boolean multiIntent = hasMultipleDataIntents(trimmedMessage);
+        boolean dataRequest = intencion.pedidoDatos() && !intencion.comoHacer();
+        boolean multiIntent = intencion.variasConsultasDeDatos();
         ToolExecution autoTool = dataRequest && !multiIntent
                 ? maybeAutoTool(trimmedMessage, context, history, userSub, authorization)
                 : null;
         if (autoTool != null && !autoTool.ok() && "missing_params".equals(autoTool.error())) {
-            return new ChatbotResult(buildMissingParamsResponse(autoTool), "");
+            return Turno.directo(new ChatbotResult(buildMissingParamsResponse(autoTool), ""));
         }
 
         ExternalFetchInfo externalFetch = extractExternalFetchInfo(context);
         if (autoTool == null && externalFetch != null && !externalFetch.isOk()) {
-            return new ChatbotResult(buildExternalFetchResponse(externalFetch), "");
+            return Turno.directo(new ChatbotResult(buildExternalFetchResponse(externalFetch), ""));
         }
         boolean externalFetchOk = externalFetch != null && externalFetch.isOk();
         if (autoTool != null && autoTool.ok()) {
             if (!hasToolData(autoTool)) {
                 String hint = resolveMissingDataHintForMessage(trimmedMessage);
                 if (StringUtils.hasText(hint)) {
-                    return new ChatbotResult(buildMissingDataResponse(hint), "");
+                    return Turno.directo(new ChatbotResult(buildMissingDataResponse(hint), ""));
                 }
-                return new ChatbotResult(ChatbotPolicy.NO_DATA_RESPONSE, "");
+                return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_DATA_RESPONSE, ""));
             }
             promptMessage = buildToolFollowupMessage(promptMessage, autoTool);
         }
@@ -243,57 +246,57 @@ public class ChatbotVertexService {
         if (autoTool == null && dataRequest
                 && StringUtils.hasText(targetHint) && isTargetScreenDifferent(context, targetHint)
                 && !externalFetchOk) {
-            return new ChatbotResult(buildMissingDataResponse(targetHint), "");
+            return Turno.directo(new ChatbotResult(buildMissingDataResponse(targetHint), ""));
         }
 
-        if (autoTool == null && !isHowToQuestion(trimmedMessage)) {
+        if (autoTool == null && !intencion.comoHacer()) {
             // Este bloque se mantiene como redundancia de seguridad
-            if (isBudgetQuestion(trimmedMessage)) {
+            if (intencion.presupuesto()) {
                 if (!hasPermission(context, "pres", "view")) {
-                    return new ChatbotResult(ChatbotPolicy.NO_PERMISSIONS_RESPONSE, "");
+                    return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_PERMISSIONS_RESPONSE, ""));
                 }
-            } else if (isPronosticoQuestion(trimmedMessage)) {
+            } else if (intencion.pronostico()) {
                 if (!hasPermission(context, "pron", "view")) {
-                    return new ChatbotResult(ChatbotPolicy.NO_PERMISSIONS_RESPONSE, "");
+                    return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_PERMISSIONS_RESPONSE, ""));
                 }
             }
         }
 
-        if (autoTool == null && isBudgetQuestion(trimmedMessage) && !isHowToQuestion(trimmedMessage)) {
+        if (autoTool == null && intencion.presupuesto() && !intencion.comoHacer()) {
             if (StringUtils.hasText(targetHint) && isTargetScreenDifferent(context, targetHint) && !externalFetchOk) {
-                return new ChatbotResult(buildMissingDataResponse(targetHint), "");
+                return Turno.directo(new ChatbotResult(buildMissingDataResponse(targetHint), ""));
             }
-            if (isBudgetExistenceQuestion(trimmedMessage) || isBudgetCountQuestion(trimmedMessage)
-                    || wantsBudgetNames(trimmedMessage)) {
+            if (intencion.existenciaPresupuesto() || intencion.cantidadPresupuestos()
+                    || intencion.nombresPresupuestos()) {
                 BudgetInfo budgetInfo = extractBudgetInfo(context);
                 if (budgetInfo != null && budgetInfo.count > 0) {
-                    return new ChatbotResult(buildBudgetSummaryResponse(trimmedMessage, budgetInfo), "");
+                    return Turno.directo(new ChatbotResult(buildBudgetSummaryResponse(intencion, budgetInfo), ""));
                 }
                 if (hasExplicitBudgetZero(context)) {
-                    return new ChatbotResult(ChatbotPolicy.NO_BUDGETS_RESPONSE, "");
+                    return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_BUDGETS_RESPONSE, ""));
                 }
                 String hint = StringUtils.hasText(targetHint) ? targetHint : "Pronostico > Presupuestos";
-                return new ChatbotResult(buildMissingDataResponse(hint), "");
+                return Turno.directo(new ChatbotResult(buildMissingDataResponse(hint), ""));
             }
         }
 
-        if (autoTool == null && isBudgetQuestion(trimmedMessage) && !isHowToQuestion(trimmedMessage)
+        if (autoTool == null && intencion.presupuesto() && !intencion.comoHacer()
                 && !hasBudgetData(context)) {
             if (hasExplicitBudgetZero(context)) {
-                return new ChatbotResult(ChatbotPolicy.NO_BUDGETS_RESPONSE, "");
+                return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_BUDGETS_RESPONSE, ""));
             }
             String hint = StringUtils.hasText(targetHint) ? targetHint : "Pronostico > Presupuestos";
-            return new ChatbotResult(buildMissingDataResponse(hint), "");
+            return Turno.directo(new ChatbotResult(buildMissingDataResponse(hint), ""));
         }
 
         if (autoTool == null && dataRequest && !hasUsableData(context)) {
             if (StringUtils.hasText(targetHint)) {
-                return new ChatbotResult(buildMissingDataResponse(targetHint), "");
+                return Turno.directo(new ChatbotResult(buildMissingDataResponse(targetHint), ""));
             }
-            return new ChatbotResult(ChatbotPolicy.NO_DATA_RESPONSE, "");
+            return Turno.directo(new ChatbotResult(ChatbotPolicy.NO_DATA_RESPONSE, ""));
         }
 
-        if (isHowToQuestion(trimmedMessage) && !isLocalActionQuestion(trimmedMessage)) {
+        if (intencion.comoHacer() && !intencion.accionLocal()) {
             String screenLabel = resolveScreenLabel(context);
             String route = extractRoute(context);
             if (StringUtils.hasText(screenLabel)) {
@@ -307,24 +310,38 @@ public class ChatbotVertexService {
             }
         }
 
-        if (isInterpretationRequest(trimmedMessage)) {
+        if (intencion.pedidoInterpretacion()) {
             promptMessage = buildInterpretationPrompt(promptMessage, context);
         }
-        boolean includeManual = forceManual || shouldAttachManual(promptMessage);
+        boolean includeManual = forceManual || shouldAttachManual(
+                promptMessage.equals(trimmedMessage) ? intencion : IntencionMensaje.de(promptMessage));
+        // Se busca una vez por turno y se reutiliza si hay una segunda llamada con el resultado de una tool
+        String manual = includeManual
+                ? indiceConocimiento.contextoPara(buildManualQuery(trimmedMessage, targetHint, context))
+                : null;
+
+        return new Turno(null, resolvedModule, trimmedMessage, intencion, promptMessage, context, history, manual,
+                forceManual);
+    }
+
+    private ChatbotResult responder(Turno turno, LlamadaVertex llamada, String userSub, String authorization) {
+        String resolvedModule = turno.module();
+        String promptMessage = turno.promptMessage();
+        Map<String, Object> context = turno.context();
+        boolean forceManual = turno.forceManual();
 
-        VertexResponse first = callVertex(resolvedModule, promptMessage, context, history, includeManual);
+        VertexResponse first = llamada.enviar(promptMessage);
         List<ToolCall> toolCalls = parseToolCalls(first.raw());
         if (toolCalls.isEmpty()) {
             toolCalls = parseToolCalls(first.cleaned());
         }
-        if (forceManual && isLocationQuestion(trimmedMessage)
+        if (forceManual && turno.intencion().preguntaUbicacion()
                 && (looksLikeManualLeak(first.cleaned()) || isUnanswerableResponse(first.cleaned()))) {
             return new ChatbotResult(buildLocationResponse(resolvedModule, context), first.raw());
         }
         if (!toolCalls.isEmpty()) {
             if (toolCalls.size() == 1) {
-                ToolCall toolCall = toolCalls.get(0);
-                ToolExecution execution = executeTool(toolCall.name(), toolCall.params(), userSub, authorization);
+                ToolExecution execution = ejecutarHerramientas(toolCalls, userSub, authorization).get(0);
                 if (!execution.ok() && "missing_params".equals(execution.error())) {
                     return new ChatbotResult(buildMissingParamsResponse(execution), first.raw());
                 }
@@ -332,7 +349,7 @@ public class ChatbotVertexService {
                     return new ChatbotResult(ChatbotPolicy.NO_DATA_RESPONSE, first.raw());
                 }
                 String toolPromptMessage = buildToolFollowupMessage(promptMessage, execution);
-                VertexResponse second = callVertex(resolvedModule, toolPromptMessage, context, history, includeManual);
+                VertexResponse second = llamada.enviar(toolPromptMessage);
                 List<ToolCall> secondCalls = parseToolCalls(second.raw());
                 if (secondCalls.isEmpty()) {
                     secondCalls = parseToolCalls(second.cleaned());
@@ -345,9 +362,7 @@ public class ChatbotVertexService {
                 }
                 return new ChatbotResult(second.cleaned(), second.raw());
             }
-            List<ToolExecution> executions = toolCalls.stream()
-                    .map(call -> executeTool(call.name(), call.params(), userSub, authorization))
-                    .collect(Collectors.toList());
+            List<ToolExecution> executions = ejecutarHerramientas(toolCalls, userSub, authorization);
             ToolExecution missing = executions.stream()
                     .filter(exec -> !exec.ok() && "missing_params".equals(exec.error()))
                     .findFirst()
@@ -360,7 +375,7 @@ public class ChatbotVertexService {
                 return new ChatbotResult(ChatbotPolicy.NO_DATA_RESPONSE, first.raw());
             }
             String toolPromptMessage = buildMultiToolFollowupMessage(promptMessage, executions);
-            VertexResponse second = callVertex(resolvedModule, toolPromptMessage, context, history, includeManual);
+            VertexResponse second = llamada.enviar(toolPromptMessage);
             List<ToolCall> secondCalls = parseToolCalls(second.raw());
             if (secondCalls.isEmpty()) {
                 secondCalls = parseToolCalls(second.cleaned());
@@ -381,32 +396,15 @@ public class ChatbotVertexService {
 
     private String resolveAccessToken() {
         try {
-            GoogleCredentials credentials;
-            if (StringUtils.hasText(properties.getCredentialsPath())) {
-                try (FileInputStream stream = new FileInputStream(properties.getCredentialsPath())) {
-                    credentials = GoogleCredentials.fromStream(stream);
-                }
-            } else {
-                credentials = GoogleCredentials.getApplicationDefault();
-            }
-            credentials = credentials.createScoped(Collections.singleton(CLOUD_SCOPE));
-            AccessToken token = credentials.getAccessToken();
-            if (token == null || token.getExpirationTime() == null
-                    || token.getExpirationTime().before(Date.from(Instant.now()))) {
-                token = credentials.refreshAccessToken();
-            }
-            if (token == null) {
-                throw new IllegalStateException("No se pudo obtener access token de Google.");
-            }
-            return token.getTokenValue();
-        } catch (Exception ex) {
+            return tokenGoogle.obtener();
+        } catch (IllegalStateException ex) {
             log.error("Error obteniendo token de Google", ex);
             throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "No se pudo autenticar con Google.");
         }
     }
 
     private VertexResponse callVertex(String module, String promptMessage, Map<String, Object> context,
-            List<Map<String, String>> history, boolean includeManual) {
+            List<Map<String, String>> history, String manual) {
         String prompt = buildPrompt(module, promptMessage, context, history);
         String endpoint = String.format(
                 "https://%s-aiplatform.googleapis.com/v1/projects/%s/locations/%s/publishers/google/models/%s:generateContent",
@@ -416,7 +414,7 @@ public class ChatbotVertexService {
                 properties.getModel());
 
         String token = resolveAccessToken();
-        Map<String, Object> requestBody = buildRequestBody(ChatbotPolicy.SYSTEM_PROMPT, prompt, includeManual);
+        Map<String, Object> requestBody = buildRequestBody(ChatbotPolicy.SYSTEM_PROMPT, prompt, manual);
 
         try {
             HttpHeaders headers = new HttpHeaders();
@@ -425,7 +423,7 @@ public class ChatbotVertexService {
 
             String payload = objectMapper.writeValueAsString(requestBody);
             log.info("Enviando mensaje a Vertex AI. Modulo: {}, Endpoint: {}", module, endpoint);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = clientesHttp.para("vertex").exchange(
                     endpoint,
                     HttpMethod.POST,
                     new HttpEntity<>(payload, headers),
@@ -445,21 +443,82 @@ public class ChatbotVertexService {
         }
     }
 
-    private Map<String, Object> buildRequestBody(String systemPrompt, String prompt, boolean includePdf) {
+    private VertexResponse streamVertex(String module, String promptMessage, Map<String, Object> context,
+            List<Map<String, String>> history, String manual, FiltroStreaming filtro) {
+        String prompt = buildPrompt(module, promptMessage, context, history);
+        String endpoint = String.format(
+                "https://%s-aiplatform.googleapis.com/v1/projects/%s/locations/%s/publishers/google/models/%s:streamGenerateContent?alt=sse",
+                properties.getLocation(),
+                properties.getProjectId(),
+                properties.getLocation(),
+                properties.getModel());
+
+        String token = resolveAccessToken();
+        Map<String, Object> requestBody = buildRequestBody(ChatbotPolicy.SYSTEM_PROMPT, prompt, manual);
+
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(requestBody);
+            StringBuilder raw = new StringBuilder();
+            log.info("Enviando mensaje a Vertex AI (streaming). Modulo: {}, Endpoint: {}", module, endpoint);
+            clientesHttp.para("vertex").execute(endpoint, HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setBearerAuth(token);
+                request.getBody().write(payload);
+            }, response -> {
+                // Cada evento "data:" trae un GenerateContentResponse con el siguiente trozo de texto
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    String chunk = extractStreamChunkText(line.substring("data:".length()).trim());
+                    if (!chunk.isEmpty()) {
+                        raw.append(chunk);
+                        filtro.agregar(chunk);
+                    }
+                }
+                return null;
+            });
+            filtro.terminar();
+
+            String cleaned = normalizePlainText(stripCodeFences(raw.toString())).trim();
+            log.info("Respuesta de Vertex AI por streaming (recortada): {}", truncate(cleaned, 1000));
+            return new VertexResponse(cleaned, raw.toString());
+        } catch (RestClientResponseException ex) {
+            log.error("Vertex AI respondio con error HTTP {}: {}", ex.getStatusCode().value(),
+                    ex.getResponseBodyAsString());
+            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "Error al consultar Vertex AI.");
+        } catch (ResponseStatusException | UncheckedIOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Error consultando Vertex AI por streaming", ex);
+            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "Error al procesar el mensaje.");
+        }
+    }
+
+    private String extractStreamChunkText(String json) throws IOException {
+        if (json.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : objectMapper.readTree(json).path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+        return text.toString();
+    }
+
+    private Map<String, Object> buildRequestBody(String systemPrompt, String prompt, String manual) {
         Map<String, Object> textPart = new LinkedHashMap<>();
         textPart.put("text", prompt);
 
         List<Map<String, Object>> parts = new java.util.ArrayList<>();
         parts.add(textPart);
 
-        if (includePdf) {
-            // Manual Integral (Markdown as Text)
-            if (cachedManualIntegral == null) {
-                cachedManualIntegral = loadTextContent(MANUAL_INTEGRAL_MD_CLASSPATH);
-            }
-            if (StringUtils.hasText(cachedManualIntegral)) {
-                parts.add(buildTextPart("MANUAL DE USUARIO INTEGRAL:\n" + cachedManualIntegral));
-            }
+        if (StringUtils.hasText(manual)) {
+            // Solo las secciones del manual relevantes para la pregunta (ver IndiceConocimiento)
+            parts.add(buildTextPart("MANUAL DE USUARIO (secciones relevantes):\n" + manual));
         }
 
         Map<String, Object> content = new LinkedHashMap<>();
@@ -489,20 +548,6 @@ public class ChatbotVertexService {
         return textPart;
     }
 
-    private String loadTextContent(String classpath) {
-        try {
-            ClassPathResource resource = new ClassPathResource(classpath);
-            if (!resource.exists()) {
-                log.warn("No se encontro el archivo de texto en classpath: {}", classpath);
-                return null;
-            }
-            return new String(resource.getInputStream().readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
-        } catch (IOException ex) {
-            log.error("Error leyendo archivo de texto desde classpath: {}", classpath, ex);
-            return null;
-        }
-    }
-
     private String extractTextFromResponse(String json) throws Exception {
         if (json == null || json.isBlank()) {
             return "";
@@ -529,7 +574,8 @@ public class ChatbotVertexService {
         };
 
         String contextBlock = buildContextBlock(context);
-        if (isHowToQuestion(message) && !isLocalActionQuestion(message)) {
+        IntencionMensaje intencion = IntencionMensaje.de(message);
+        if (intencion.comoHacer() && !intencion.accionLocal()) {
             contextBlock = "Contexto de pantalla: no relevante para esta consulta.";
             moduleHint = "Estas asistiendo en MyCFO. Responde con foco en la funcionalidad solicitada, aunque sea de otro modulo.";
         }
@@ -727,8 +773,103 @@ public class ChatbotVertexService {
         }
     }
 
+    /**
+     * Ejecuta las tools pedidas por el modelo en paralelo, con un plazo comun para todo el turno.
+     * Una llamada repetida (misma tool y parametros) se ejecuta una sola vez. Los resultados vuelven
+     * en el orden de las llamadas; la que no termino a tiempo, o no consiguio hilo, queda como error
+     * "timeout". Las llamadas HTTP de cada tool tienen el mismo plazo ({@link ClientesHttp#conPlazo}),
+     * asi que una tool vencida no sigue ocupando su hilo.
+     */
+    List<ToolExecution> ejecutarHerramientas(List<ToolCall> calls, String userSub, String authorization) {
+        long limite = System.nanoTime() + herramientasTimeout.toNanos();
+        Map<ToolCall, CompletableFuture<ToolExecution>> enCurso = new LinkedHashMap<>();
+        for (ToolCall call : calls) {
+            enCurso.computeIfAbsent(call, c -> lanzar(c, userSub, authorization, limite));
+        }
+        Map<ToolCall, ToolExecution> resultados = new HashMap<>();
+        enCurso.forEach((call, futuro) -> resultados.put(call, esperar(call, futuro, limite)));
+        return calls.stream().map(resultados::get).toList();
+    }
+
+    private CompletableFuture<ToolExecution> lanzar(ToolCall call, String userSub, String authorization, long limite) {
+        try {
+            return CompletableFuture.supplyAsync(() -> ClientesHttp.conPlazo(limite,
+                    () -> executeTool(call.name(), call.params(), userSub, authorization)), herramientasExecutor);
+        } catch (RejectedExecutionException ex) {
+            String nombre = nombreHerramienta(call.name());
+            log.warn("Herramienta {} rechazada: no hay hilos libres ni lugar en la cola", nombre);
+            contarVencida(nombre);
+            return CompletableFuture.completedFuture(ToolExecution.error(nombre, "timeout"));
+        }
+    }
+
+    private ToolExecution esperar(ToolCall call, CompletableFuture<ToolExecution> futuro, long limite) {
+        String nombre = nombreHerramienta(call.name());
+        try {
+            return futuro.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // No interrumpe la tool si ya arranco (la corta el plazo de sus llamadas HTTP);
+            // si todavia estaba en la cola, ya no se ejecuta
+            futuro.cancel(false);
+            log.warn("Herramienta {} sin respuesta en {} ms", nombre, herramientasTimeout.toMillis());
+            contarVencida(nombre);
+            return ToolExecution.error(nombre, "timeout");
+        } catch (ExecutionException ex) {
+            log.error("Error ejecutando herramienta {}", nombre, ex.getCause());
+            return ToolExecution.error(nombre, "tool_error");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ToolExecution.error(nombre, "tool_error");
+        }
+    }
+
+    private void contarVencida(String nombre) {
+        Counter.builder("mycfo.chatbot.herramienta.vencidas")
+                .description("Tools que no terminaron dentro del plazo del turno o no consiguieron hilo")
+                .tag("herramienta", nombre)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /** Ejecuta una tool y registra su latencia en mycfo.chatbot.herramienta (tags herramienta y resultado). */
     private ToolExecution executeTool(String toolName, Map<String, Object> params, String userSub,
             String authorization) {
+        long inicio = System.nanoTime();
+        ToolExecution execution = doExecuteTool(toolName, params, userSub, authorization);
+        Timer.builder("mycfo.chatbot.herramienta")
+                .description("Latencia de las tools que ejecuta el chatbot")
+                .tag("herramienta", nombreHerramienta(toolName))
+                .tag("resultado", resultadoHerramienta(execution))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return execution;
+    }
+
+    // Solo nombres conocidos, para no abrir una serie por cada nombre que invente el modelo
+    private static String nombreHerramienta(String toolName) {
+        ToolName tool = ToolName.from(toolName);
+        return tool != null ? tool.name() : "UNKNOWN_TOOL";
+    }
+
+    private static String resultadoHerramienta(ToolExecution execution) {
+        if (execution.ok()) {
+            return "ok";
+        }
+        return switch (String.valueOf(execution.error())) {
+            case "no_data" -> "sin_datos";
+            case "missing_params" -> "faltan_parametros";
+            default -> "error";
+        };
+    }
+
+    @Override
+    public void destroy() {
+        herramientasExecutor.shutdownNow();
+    }
+
+    private ToolExecution doExecuteTool(String toolName, Map<String, Object> params, String userSub,
+            String authorization) {
         String safeToolName = StringUtils.hasText(toolName) ? toolName : "UNKNOWN_TOOL";
         ToolName tool = ToolName.from(toolName);
         if (tool == null) {
@@ -1037,30 +1178,11 @@ public class ChatbotVertexService {
     }
 
     private boolean isConciliationQuery(String message) {
-        if (!StringUtils.hasText(message)) {
-            return false;
-        }
-        String normalized = normalizeKey(message);
-        if (matchesAny(normalized, "recordatorio", "recordatorios", "notificacion", "notificaciones")) {
-            return false;
-        }
-        boolean hasConciliation = matchesAny(normalized, "conciliacion", "conciliar", "sin conciliar", "conciliado",
-                "conciliados");
-        boolean hasPending = matchesAny(normalized, "pendiente", "pendientes");
-        boolean hasPayment = matchesAny(normalized, "pago", "pagos", "cobro", "cobros", "factura", "facturas",
-                "movimiento", "movimientos");
-        return hasConciliation || (hasPending && hasPayment);
+        return IntencionMensaje.de(message).consultaConciliacion();
     }
 
     private boolean isDueDateQuery(String message) {
-        if (!StringUtils.hasText(message)) {
-            return false;
-        }
-        String normalized = normalizeKey(message);
-        if (!normalized.contains("venc")) {
-            return false;
-        }
-        return matchesAny(normalized, "factura", "facturas", "pago", "pagos", "cobro", "cobros");
+        return IntencionMensaje.de(message).consultaVencimientos();
     }
 
     private DateRange resolveTemporalRange(String message) {
@@ -1092,22 +1214,7 @@ public class ChatbotVertexService {
     }
 
     private boolean isAmbiguousTemporal(String message) {
-        if (!StringUtils.hasText(message)) {
-            return false;
-        }
-        if (AMBIGUOUS_TEMPORAL_PATTERN.matcher(message.trim()).matches()) {
-            return true;
-        }
-        String normalized = normalizeKey(message);
-        if (matchesAny(normalized, "lo de hoy", "lo de ahora", "lo de este momento")) {
-            return true;
-        }
-        if (TEMPORAL_WORD_PATTERN.matcher(normalized).find()
-                && !isDataRequest(message)
-                && !EXPLICIT_DATE_TIME_PATTERN.matcher(normalized).find()) {
-            return true;
-        }
-        return false;
+        return IntencionMensaje.de(message).temporalAmbiguo();
     }
 
     private boolean needsPeriodClarification(String message) {
@@ -1131,43 +1238,7 @@ public class ChatbotVertexService {
     }
 
     private boolean hasMultipleDataIntents(String message) {
-        if (!StringUtils.hasText(message)) {
-            return false;
-        }
-        String normalized = normalizeKey(message);
-        boolean hasConjunction = normalized.contains(" y ")
-                || normalized.contains("ademas")
-                || normalized.contains("tambien")
-                || normalized.contains("junto con");
-        if (!hasConjunction) {
-            return false;
-        }
-        boolean hasCashflow = matchesAny(normalized, "flujo de caja", "cashflow", "cash flow");
-        boolean hasBalance = matchesAny(normalized, "saldo", "balance", "caja", "plata", "dinero", "efectivo");
-        boolean hasMovements = matchesAny(normalized, "movimiento", "movimientos");
-        boolean hasBudgets = matchesAny(normalized, "presupuesto", "presupuestos");
-        boolean hasInvoices = matchesAny(normalized, "factura", "facturas");
-        boolean hasConciliation = isConciliationQuery(message);
-        boolean hasReport = matchesAny(normalized, "ingreso", "ingresos", "egreso", "egresos",
-                "reporte", "estado de resultados", "resultado", "pyl", "p&l");
-        int intents = 0;
-        if (hasCashflow) {
-            intents++;
-        } else if (hasBalance) {
-            intents++;
-        }
-        if (hasConciliation) {
-            intents++;
-        } else if (hasMovements) {
-            intents++;
-        }
-        if (hasBudgets)
-            intents++;
-        if (hasInvoices)
-            intents++;
-        if (!hasCashflow && hasReport)
-            intents++;
-        return intents >= 2;
+        return IntencionMensaje.de(message).variasConsultasDeDatos();
     }
 
     private String resolveMissingDataHintForMessage(String message) {
@@ -1414,121 +1485,20 @@ public class ChatbotVertexService {
         }
     }
 
-    private boolean isOutOfScope(String message) {
-        if (message == null) {
-            return false;
-        }
-        return OUT_OF_SCOPE_PATTERN.matcher(message).find();
-    }
 
-    private boolean isScopeQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return SCOPE_QUESTION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isLocalActionQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return LOCAL_ACTION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isLocationQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return LOCATION_QUESTION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isGreeting(String message) {
-        if (message == null) {
-            return false;
-        }
-        return GREETING_ONLY_PATTERN.matcher(message.trim()).matches();
-    }
 
-    private boolean isInterpretationRequest(String message) {
-        if (message == null) {
-            return false;
-        }
-        return INTERPRETATION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isIdentityQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return IDENTITY_QUESTION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isEmailQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return EMAIL_QUESTION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isPhoneQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return PHONE_QUESTION_PATTERN.matcher(message).find();
-    }
 
-    private boolean isNameQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return NAME_QUESTION_PATTERN.matcher(message).find();
-    }
 
     private boolean isDateQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        if (isLocationQuestion(message)) {
-            return false;
-        }
-        String trimmed = message.trim();
-        if (AMBIGUOUS_TEMPORAL_PATTERN.matcher(trimmed).matches()) {
-            return false;
-        }
-        if (DATE_ONLY_PATTERN.matcher(trimmed).matches()) {
-            return true;
-        }
-        if (isDataRequest(message) || isHowToQuestion(message) || isInterpretationRequest(message)) {
-            return false;
-        }
-        if (EXPLICIT_DATE_TIME_PATTERN.matcher(trimmed).find()) {
-            return true;
-        }
-        String normalized = normalizeKey(message);
-        if (StringUtils.hasText(normalized)) {
-            if (matchesAny(normalized,
-                    "que fecha es", "que dia es", "que hora es",
-                    "en que fecha estamos", "en que dia estamos",
-                    "fecha actual", "fecha de hoy", "dia de hoy", "hora actual")) {
-                return true;
-            }
-            if (DATE_QUESTION_PATTERN.matcher(normalized).find()) {
-                return true;
-            }
-        }
-        return false;
+        return IntencionMensaje.de(message).preguntaFecha();
     }
 
-    private boolean isDataRequest(String message) {
-        if (message == null) {
-            return false;
-        }
-        if (DATA_REQUEST_PATTERN.matcher(message).find()) {
-            return true;
-        }
-        String normalized = normalizeKey(message);
-        return StringUtils.hasText(normalized) && DATA_REQUEST_PATTERN.matcher(normalized).find();
-    }
 
     private boolean hasPermission(Map<String, Object> context, String modulo, String accion) {
         if (context == null)
@@ -1610,11 +1580,11 @@ public class ChatbotVertexService {
         }
     }
 
-    private boolean isModuleAuthorized(String message, Map<String, Object> context) {
-        if (!isDataRequest(message)) {
+    private boolean isModuleAuthorized(IntencionMensaje intencion, Map<String, Object> context) {
+        if (!intencion.pedidoDatos()) {
             return true;
         }
-        String normalized = normalizeKey(message);
+        String normalized = intencion.normalizado();
 
         // Mapeo exhaustivo de palabras clave a permisos
         if (normalized.contains("presupuesto")) {
@@ -1648,72 +1618,29 @@ public class ChatbotVertexService {
         return true;
     }
 
-    private boolean isHowToQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        if (HOW_TO_PATTERN.matcher(message).find()) {
-            return true;
-        }
-        String normalized = normalizeKey(message);
-        return StringUtils.hasText(normalized) && HOW_TO_PATTERN.matcher(normalized).find();
-    }
 
-    private boolean isBudgetQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return BUDGET_PATTERN.matcher(message).find();
-    }
 
-    private boolean isPronosticoQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        return PRONOSTICO_PATTERN.matcher(message).find();
-    }
 
-    private boolean isBudgetExistenceQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        String lower = message.toLowerCase();
-        if (!lower.contains("presupuesto")) {
-            return false;
-        }
-        return BUDGET_EXISTENCE_PATTERN.matcher(lower).find();
-    }
 
-    private boolean isBudgetCountQuestion(String message) {
-        if (message == null) {
-            return false;
-        }
-        String lower = message.toLowerCase();
-        if (!lower.contains("presupuesto")) {
-            return false;
-        }
-        return BUDGET_COUNT_PATTERN.matcher(lower).find();
-    }
 
-    private boolean wantsBudgetNames(String message) {
-        if (message == null) {
-            return false;
+
+    private String buildManualQuery(String message, String targetHint, Map<String, Object> context) {
+        StringBuilder query = new StringBuilder(message);
+        if (StringUtils.hasText(targetHint)) {
+            query.append(' ').append(targetHint);
         }
-        String lower = message.toLowerCase();
-        if (!lower.contains("presupuesto")) {
-            return false;
+        String screenLabel = resolveScreenLabel(context);
+        if (StringUtils.hasText(screenLabel)) {
+            query.append(' ').append(screenLabel);
         }
-        return matchesAny(lower, "nombre", "nombres", "se llama", "se llaman", "como se llama", "cómo se llama");
+        return query.toString();
     }
 
-    private boolean shouldAttachManual(String message) {
-        if (!StringUtils.hasText(message)) {
-            return true;
-        }
-        if (isIdentityQuestion(message) || isDateQuestion(message)) {
+    private boolean shouldAttachManual(IntencionMensaje intencion) {
+        if (intencion.preguntaIdentidad() || intencion.preguntaFecha()) {
             return false;
         }
-        if (isDataRequest(message) && !isHowToQuestion(message)) {
+        if (intencion.pedidoDatos() && !intencion.comoHacer()) {
             return false;
         }
         return true;
@@ -1915,9 +1842,9 @@ public class ChatbotVertexService {
         return names;
     }
 
-    private String buildBudgetSummaryResponse(String message, BudgetInfo info) {
-        boolean wantsCount = isBudgetCountQuestion(message);
-        boolean wantsNames = wantsBudgetNames(message);
+    private String buildBudgetSummaryResponse(IntencionMensaje intencion, BudgetInfo info) {
+        boolean wantsCount = intencion.cantidadPresupuestos();
+        boolean wantsNames = intencion.nombresPresupuestos();
         StringBuilder sb = new StringBuilder();
         if (wantsCount) {
             sb.append("Tenes ").append(info.count).append(" presupuestos cargados en el sistema.");
@@ -1973,22 +1900,22 @@ public class ChatbotVertexService {
         return false;
     }
 
-    private String buildProfileResponse(String message, Map<String, Object> context) {
-        if (isPhoneQuestion(message)) {
+    private String buildProfileResponse(IntencionMensaje intencion, Map<String, Object> context) {
+        if (intencion.preguntaTelefono()) {
             String phone = extractProfileValue(context, "telefono", "teléfono", "phone", "celular", "mobile");
             if (!StringUtils.hasText(phone)) {
                 return ChatbotPolicy.NO_PROFILE_RESPONSE;
             }
             return "Tu telefono es " + phone.trim() + ".";
         }
-        if (isEmailQuestion(message)) {
+        if (intencion.preguntaEmail()) {
             String email = extractProfileValue(context, "email", "correo", "mail");
             if (!StringUtils.hasText(email)) {
                 return ChatbotPolicy.NO_PROFILE_RESPONSE;
             }
             return "Tu email es " + email.trim() + ".";
         }
-        if (isNameQuestion(message)) {
+        if (intencion.preguntaNombre()) {
             String name = extractProfileValue(context, "nombre", "name", "usuario", "username");
             if (!StringUtils.hasText(name)) {
                 return ChatbotPolicy.NO_PROFILE_RESPONSE;
@@ -2482,13 +2409,7 @@ public class ChatbotVertexService {
     }
 
     private String normalizeKey(String value) {
-        if (value == null) {
-            return "";
-        }
-        String normalized = java.text.Normalizer.normalize(value.toLowerCase(), java.text.Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "");
-        normalized = normalized.replaceAll("[^a-z0-9 ]", " ").trim();
-        return normalized.replaceAll("\\s+", " ");
+        return IntencionMensaje.normalizar(value);
     }
 
     private String buildMissingDataResponse(String targetHint) {
@@ -2626,13 +2547,13 @@ public class ChatbotVertexService {
         }
     }
 
-    private record ToolCall(String name, Map<String, Object> params) {
+    record ToolCall(String name, Map<String, Object> params) {
     }
 
     private record DateRange(LocalDate from, LocalDate to) {
     }
 
-    private record ToolExecution(String tool, boolean ok, Map<String, Object> data, String error,
+    record ToolExecution(String tool, boolean ok, Map<String, Object> data, String error,
             List<String> missing) {
         private static ToolExecution ok(String tool, Map<String, Object> data) {
             return new ToolExecution(tool, true, data, null, List.of());
@@ -2682,6 +2603,129 @@ public class ChatbotVertexService {
     private record VertexResponse(String cleaned, String raw) {
     }
 
+    /** Llamada a Vertex de un turno: bloqueante en {@link #chat}, por streaming en {@link #chatStream}. */
+    @FunctionalInterface
+    private interface LlamadaVertex {
+        VertexResponse enviar(String promptMessage);
+    }
+
+    /** Mensaje ya analizado: o tiene una respuesta directa o los datos para consultar a Vertex. */
+    private record Turno(ChatbotResult respuestaDirecta, String module, String trimmedMessage,
+            IntencionMensaje intencion, String promptMessage, Map<String, Object> context,
+            List<Map<String, String>> history, String manual, boolean forceManual) {
+
+        static Turno directo(ChatbotResult respuesta) {
+            return new Turno(respuesta, null, null, null, null, null, null, null, false);
+        }
+    }
+
+    /**
+     * Sanea el texto de Vertex a medida que llega, con las mismas reglas que {@link #stripCodeFences}
+     * y {@link #normalizePlainText}, y entrega cada oracion o linea completa apenas se puede mostrar.
+     * Si la respuesta empieza como una llamada a tool no se entrega nada. El control de menciones al
+     * manual se hace por oracion (en la respuesta final, por linea).
+     */
+    final class FiltroStreaming {
+
+        private final Consumer<String> destino;
+        private final StringBuilder pendiente = new StringBuilder();
+        private boolean decidido;
+        private boolean silenciado;
+        private boolean lineaAbierta;
+        private boolean algoEntregado;
+
+        FiltroStreaming(Consumer<String> destino) {
+            this.destino = destino;
+        }
+
+        void agregar(String texto) {
+            if (silenciado) {
+                return;
+            }
+            pendiente.append(texto);
+            if (!decidido) {
+                String inicio = pendiente.toString().strip();
+                if (inicio.length() < MIN_CHARS_DECIDIR_STREAM && inicio.indexOf('\n') < 0) {
+                    return;
+                }
+                decidir(inicio);
+            }
+            entregarListo(false);
+        }
+
+        void terminar() {
+            if (silenciado) {
+                return;
+            }
+            if (!decidido) {
+                decidir(pendiente.toString().strip());
+            }
+            entregarListo(true);
+        }
+
+        private void decidir(String inicio) {
+            decidido = true;
+            if (TOOL_CALL_START_PATTERN.matcher(inicio).lookingAt()) {
+                silenciado = true;
+                pendiente.setLength(0);
+            }
+        }
+
+        private void entregarListo(boolean fin) {
+            if (silenciado) {
+                return;
+            }
+            int salto;
+            while ((salto = pendiente.indexOf("\n")) >= 0) {
+                entregar(pendiente.substring(0, salto), true);
+                pendiente.delete(0, salto + 1);
+            }
+            int corte = finDeUltimaOracion();
+            if (corte > 0) {
+                entregar(pendiente.substring(0, corte), false);
+                pendiente.delete(0, corte);
+            }
+            if (fin && pendiente.length() > 0) {
+                entregar(pendiente.toString(), true);
+                pendiente.setLength(0);
+            }
+        }
+
+        private int finDeUltimaOracion() {
+            for (int i = pendiente.length() - 2; i >= 0; i--) {
+                if (".?!:".indexOf(pendiente.charAt(i)) >= 0 && Character.isWhitespace(pendiente.charAt(i + 1))) {
+                    return i + 2;
+                }
+            }
+            return -1;
+        }
+
+        private void entregar(String segmento, boolean cierraLinea) {
+            String limpio = FENCE_PATTERN.matcher(segmento).replaceAll("")
+                    .replace("*", "")
+                    .replace("_", "")
+                    .replace("`", "");
+            limpio = EMOJI_PATTERN.matcher(limpio).replaceAll("");
+            if (!lineaAbierta) {
+                limpio = limpio.stripLeading();
+                limpio = LIST_PREFIX_PATTERN.matcher(limpio).replaceAll("");
+                limpio = HEADING_PREFIX_PATTERN.matcher(limpio).replaceAll("");
+                limpio = QUOTE_PREFIX_PATTERN.matcher(limpio).replaceAll("");
+            }
+            if (cierraLinea) {
+                limpio = limpio.stripTrailing();
+            }
+            if (!limpio.isBlank() && !isManualLeakLine(limpio)) {
+                destino.accept(!lineaAbierta && algoEntregado ? "\n" + limpio : limpio);
+                lineaAbierta = true;
+                algoEntregado = true;
+            }
+            if (cierraLinea) {
+                lineaAbierta = false;
+            }
+        }
+    }
+
     public record ChatbotResult(String responseText, String rawText) {
     }
 }
@@ -1,5 +1,6 @@
 package ia.services;
 
+import clientehttp.ClientesHttp;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -39,7 +40,7 @@ public class DataRetrievalService {
     @Value("${mycfo.administracion.url}")
     private String administracionUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ClientesHttp clientesHttp;
 
     public Map<String, Object> getBalance(String userSub, String authorization, String moneda) {
         String normalizedMoneda = normalizeCurrency(moneda);
@@ -307,6 +308,23 @@ public class DataRetrievalService {
         };
     }
 
+    // Cada servicio consultado tiene su propio pool de conexiones (ver ClientesHttp)
+    private RestTemplate clientePara(String url) {
+        if (url.startsWith(registroUrl)) {
+            return clientesHttp.para("registro");
+        }
+        if (url.startsWith(reporteUrl)) {
+            return clientesHttp.para("reporte");
+        }
+        if (url.startsWith(pronosticoUrl)) {
+            return clientesHttp.para("pronostico");
+        }
+        if (url.startsWith(notificacionUrl)) {
+            return clientesHttp.para("notificacion");
+        }
+        return clientesHttp.para("administracion");
+    }
+
     private Map<String, Object> exchangeForMap(String url, String userSub, String authorization) {
         try {
             HttpHeaders headers = new HttpHeaders();
@@ -314,7 +332,7 @@ public class DataRetrievalService {
             if (StringUtils.hasText(authorization)) {
                 headers.set("Authorization", authorization);
             }
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = clientePara(url).exchange(
                     url,
                     HttpMethod.GET,
                     new HttpEntity<>(headers),
@@ -347,7 +365,7 @@ public class DataRetrievalService {
                 headers.set("Authorization", authorization);
             }
             HttpEntity<Object> entity = new HttpEntity<>(body, headers);
-            ResponseEntity<Object> response = restTemplate.exchange(url, method, entity, Object.class);
+            ResponseEntity<Object> response = clientePara(url).exchange(url, method, entity, Object.class);
             return response.getBody() != null ? response.getBody() : Map.of();
         } catch (RestClientResponseException ex) {
             log.error("Data retrieval HTTP {} al consultar {}", ex.getRawStatusCode(), url);
@@ -0,0 +1,295 @@
+package ia.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Índice BM25 en memoria sobre la base de conocimiento del chatbot (manual integral y anexo).
+ * Los documentos se parten por sección (títulos markdown, "Guía ..." y numeración 1. / 1.1.)
+ * y a Vertex se adjuntan solo las secciones más relevantes para la pregunta, no el manual entero.
+ * <p>
+ * Las fuentes se leen al iniciar y con {@link #recargar()}; pueden ser {@code classpath:} o
+ * {@code file:} para editar el contenido sin volver a desplegar.
+ */
+@Component
+@Slf4j
+public class IndiceConocimiento {
+
+    private static final Pattern TITULO_MARKDOWN = Pattern.compile("^(#{1,6})\\s+(.+)$");
+    private static final Pattern TITULO_GUIA = Pattern.compile("^Gu[ií]a .{5,120}$");
+    private static final Pattern TITULO_NUMERADO = Pattern.compile("^(\\d+(?:\\.\\d+)*)\\.\\s+(.{2,100})$");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final int MAX_NIVELES = 7;
+    private static final int MAX_CARACTERES_FRAGMENTO = 2000;
+    // Los términos del título cuentan doble: "Presupuestos > Semáforo" pesa más que una mención suelta
+    private static final int PESO_TITULO = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "algo", "ante", "como", "con", "cual", "cuales", "cuando", "de", "del", "desde",
+            "donde", "e", "el", "ella", "en", "entre", "es", "esa", "ese", "eso", "esta", "este", "esto",
+            "hay", "hace", "hacer", "hago", "la", "las", "le", "les", "lo", "los", "me", "mi", "mis", "muy",
+            "ni", "no", "nos", "o", "para", "pero", "por", "puedo", "puede", "que", "quiero", "se", "si",
+            "sin", "sobre", "su", "sus", "te", "tengo", "tu", "tus", "un", "una", "uno", "unos", "y", "ya");
+
+    private final ResourceLoader resourceLoader;
+    private final List<String> fuentes;
+    private final int topK;
+    private final int maxCaracteres;
+
+    private volatile Indice indice = Indice.VACIO;
+
+    public IndiceConocimiento(
+            ResourceLoader resourceLoader,
+            @Value("${mycfo.chatbot.conocimiento.fuentes:classpath:knowledge/manual_integral_mycfo.md,classpath:knowledge/anexo_ultra_detalles_maestro.md}") List<String> fuentes,
+            @Value("${mycfo.chatbot.conocimiento.top-k:4}") int topK,
+            @Value("${mycfo.chatbot.conocimiento.max-caracteres:6000}") int maxCaracteres) {
+        this.resourceLoader = resourceLoader;
+        this.fuentes = fuentes.stream().map(String::trim).filter(StringUtils::hasText).toList();
+        this.topK = topK;
+        this.maxCaracteres = maxCaracteres;
+        try {
+            recargar();
+        } catch (IllegalStateException ex) {
+            log.error("El chatbot arranca sin base de conocimiento: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a leer las fuentes y reemplaza el índice. Si ninguna fuente aporta secciones
+     * se conserva el índice anterior.
+     */
+    public synchronized Resumen recargar() {
+        List<Fragmento> fragmentos = new ArrayList<>();
+        List<String> leidas = new ArrayList<>();
+        for (String fuente : fuentes) {
+            String texto = leer(fuente);
+            if (texto != null) {
+                fragmentos.addAll(fragmentar(nombreFuente(fuente), texto));
+                leidas.add(fuente);
+            }
+        }
+        if (fragmentos.isEmpty()) {
+            throw new IllegalStateException("Ninguna fuente de conocimiento aportó secciones: " + fuentes);
+        }
+        Indice nuevo = Indice.construir(fragmentos);
+        indice = nuevo;
+        log.info("Base de conocimiento indexada: {} secciones, {} términos, fuentes={}",
+                fragmentos.size(), nuevo.postings().size(), leidas);
+        return new Resumen(fragmentos.size(), nuevo.postings().size(), leidas);
+    }
+
+    /** Las {@code k} secciones con mejor puntaje BM25 para la consulta, de mayor a menor. */
+    public List<Fragmento> buscar(String consulta, int k) {
+        Indice actual = indice;
+        int total = actual.fragmentos().size();
+        if (total == 0 || k <= 0) {
+            return List.of();
+        }
+        double[] puntajes = new double[total];
+        for (String termino : terminos(consulta).stream().distinct().toList()) {
+            Postings postings = actual.postings().get(termino);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (total - postings.documentos().length + 0.5) / (postings.documentos().length + 0.5));
+            for (int i = 0; i < postings.documentos().length; i++) {
+                int doc = postings.documentos()[i];
+                int tf = postings.frecuencias()[i];
+                double normalizacion = K1 * (1 - B + B * actual.longitudes()[doc] / actual.longitudMedia());
+                puntajes[doc] += idf * tf * (K1 + 1) / (tf + normalizacion);
+            }
+        }
+        return IntStream.range(0, total)
+                .filter(doc -> puntajes[doc] > 0)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer doc) -> puntajes[doc]).reversed())
+                .limit(k)
+                .map(actual.fragmentos()::get)
+                .toList();
+    }
+
+    /**
+     * Texto para adjuntar al prompt: las secciones relevantes hasta {@code max-caracteres}.
+     * Devuelve null si ninguna sección coincide con la consulta.
+     */
+    public String contextoPara(String consulta) {
+        List<Fragmento> relevantes = buscar(consulta, topK);
+        if (relevantes.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Fragmento fragmento : relevantes) {
+            String seccion = "### " + fragmento.titulo() + "\n" + fragmento.texto() + "\n\n";
+            if (sb.length() > 0 && sb.length() + seccion.length() > maxCaracteres) {
+                break;
+            }
+            sb.append(seccion);
+        }
+        return sb.toString().trim();
+    }
+
+    private String leer(String fuente) {
+        Resource resource = resourceLoader.getResource(fuente);
+        if (!resource.exists()) {
+            log.warn("No se encontró la fuente de conocimiento: {}", fuente);
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            log.error("Error leyendo la fuente de conocimiento {}", fuente, ex);
+            return null;
+        }
+    }
+
+    private static String nombreFuente(String fuente) {
+        return fuente.substring(fuente.lastIndexOf('/') + 1);
+    }
+
+    static List<Fragmento> fragmentar(String fuente, String texto) {
+        List<Fragmento> fragmentos = new ArrayList<>();
+        String[] ruta = new String[MAX_NIVELES];
+        StringBuilder cuerpo = new StringBuilder();
+        for (String linea : texto.split("\\R")) {
+            String limpia = linea.strip();
+            Titulo titulo = titulo(limpia);
+            if (titulo == null) {
+                if (!limpia.isEmpty()) {
+                    cuerpo.append(limpia).append('\n');
+                }
+                continue;
+            }
+            agregar(fragmentos, fuente, ruta, cuerpo);
+            ruta[titulo.nivel()] = titulo.texto();
+            Arrays.fill(ruta, titulo.nivel() + 1, MAX_NIVELES, null);
+        }
+        agregar(fragmentos, fuente, ruta, cuerpo);
+        return fragmentos;
+    }
+
+    private static Titulo titulo(String linea) {
+        Matcher markdown = TITULO_MARKDOWN.matcher(linea);
+        if (markdown.matches()) {
+            return new Titulo(markdown.group(1).length(), markdown.group(2).strip());
+        }
+        if (TITULO_GUIA.matcher(linea).matches()) {
+            return new Titulo(1, linea);
+        }
+        Matcher numerado = TITULO_NUMERADO.matcher(linea);
+        if (numerado.matches()) {
+            int nivel = 2 + numerado.group(1).split("\\.").length - 1;
+            return nivel < MAX_NIVELES ? new Titulo(nivel, linea) : null;
+        }
+        return null;
+    }
+
+    private static void agregar(List<Fragmento> fragmentos, String fuente, String[] ruta, StringBuilder cuerpo) {
+        if (cuerpo.isEmpty()) {
+            return;
+        }
+        String titulo = String.join(" > ", Arrays.stream(ruta).filter(StringUtils::hasText).toList());
+        if (titulo.isEmpty()) {
+            titulo = fuente;
+        }
+        // Secciones muy largas se parten por línea para que una sola no llene el prompt
+        StringBuilder parte = new StringBuilder();
+        for (String linea : cuerpo.toString().split("\n")) {
+            if (parte.length() > 0 && parte.length() + linea.length() > MAX_CARACTERES_FRAGMENTO) {
+                fragmentos.add(new Fragmento(fuente, titulo, parte.toString().trim()));
+                parte.setLength(0);
+            }
+            parte.append(linea).append('\n');
+        }
+        fragmentos.add(new Fragmento(fuente, titulo, parte.toString().trim()));
+        cuerpo.setLength(0);
+    }
+
+    /** Minúsculas sin tildes, sin stopwords y con los plurales y la vocal final recortados. */
+    static List<String> terminos(String texto) {
+        if (!StringUtils.hasText(texto)) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NO_ALFANUMERICO.split(normalizado))
+                .filter(token -> token.length() > 1 && !STOPWORDS.contains(token))
+                .map(IndiceConocimiento::raiz)
+                .toList();
+    }
+
+    private static String raiz(String token) {
+        String raiz = token;
+        if (raiz.length() > 4 && raiz.endsWith("es")) {
+            raiz = raiz.substring(0, raiz.length() - 2);
+        } else if (raiz.length() > 3 && raiz.endsWith("s")) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        if (raiz.length() > 4 && "aeo".indexOf(raiz.charAt(raiz.length() - 1)) >= 0) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        return raiz;
+    }
+
+    /** Sección de una fuente; {@code titulo} es la ruta de encabezados ("Guía ... > 2. ... > 2.1. ..."). */
+    public record Fragmento(String fuente, String titulo, String texto) {}
+
+    public record Resumen(int secciones, int terminos, List<String> fuentes) {}
+
+    private record Titulo(int nivel, String texto) {}
+
+    private record Postings(int[] documentos, int[] frecuencias) {}
+
+    private record Indice(List<Fragmento> fragmentos, Map<String, Postings> postings,
+                          int[] longitudes, double longitudMedia) {
+
+        static final Indice VACIO = new Indice(List.of(), Map.of(), new int[0], 1);
+
+        static Indice construir(List<Fragmento> fragmentos) {
+            Map<String, Map<Integer, Integer>> frecuencias = new HashMap<>();
+            int[] longitudes = new int[fragmentos.size()];
+            for (int doc = 0; doc < fragmentos.size(); doc++) {
+                Fragmento fragmento = fragmentos.get(doc);
+                List<String> tokens = new ArrayList<>(terminos(fragmento.texto()));
+                List<String> tokensTitulo = terminos(fragmento.titulo());
+                for (int i = 0; i < PESO_TITULO; i++) {
+                    tokens.addAll(tokensTitulo);
+                }
+                longitudes[doc] = tokens.size();
+                for (String token : tokens) {
+                    frecuencias.computeIfAbsent(token, t -> new LinkedHashMap<>()).merge(doc, 1, Integer::sum);
+                }
+            }
+
+            Map<String, Postings> postings = new HashMap<>(frecuencias.size() * 2);
+            frecuencias.forEach((termino, porDocumento) -> postings.put(termino, new Postings(
+                    porDocumento.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                    porDocumento.values().stream().mapToInt(Integer::intValue).toArray())));
+            double media = Math.max(1, Arrays.stream(longitudes).average().orElse(1));
+            return new Indice(List.copyOf(fragmentos), Map.copyOf(postings), longitudes, media);
+        }
+    }
+}
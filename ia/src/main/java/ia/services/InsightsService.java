@@ -1,31 +1,46 @@
 package ia.services;
 
+import clientehttp.ClientesHttp;
+import clientehttp.TokenGoogle;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.auth.oauth2.AccessToken;
-import com.google.auth.oauth2.GoogleCredentials;
 import ia.config.VertexAiProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.client.RestTemplate;
 
-import java.io.FileInputStream;
-import java.time.Instant;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class InsightsService {
-
-    private static final String CLOUD_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
+public class InsightsService implements DisposableBean {
+
+    private static final String FUENTE_PYL = "pyl";
+    private static final String FUENTE_CASHFLOW = "cashflow";
+    private static final String FUENTE_RESUMEN = "resumen";
+    private static final String FUENTE_PRESUPUESTOS = "presupuestos";
+    private static final List<String> FUENTES = List.of(FUENTE_PYL, FUENTE_CASHFLOW, FUENTE_RESUMEN, FUENTE_PRESUPUESTOS);
+    // Cuatro consultas por reporte; el límite real por destino lo pone el pool de ClientesHttp
+    private static final int HILOS_RECOLECCION = 16;
+    private static final AtomicInteger HILOS_CREADOS = new AtomicInteger();
     private static final String[] MESES = {
             "enero", "febrero", "marzo", "abril", "mayo", "junio",
             "julio", "agosto", "septiembre", "octubre", "noviembre", "diciembre"
@@ -46,6 +61,7 @@ public class InsightsService {
                             "Usa nombres de métricas descriptivos y legibles (ej.: dinero disponible, ganancia del mes, capacidad de pago).",
                             "Si falta algún dato puntual, genera el reporte igualmente usando la información disponible, siempre que sea posible obtener conclusiones razonables. Solo rechaza el reporte si la información es claramente insuficiente para un análisis confiable.",
                             "Usa solo los datos proporcionados; no inventes valores faltantes.",
+                            "Si los datos incluyen fuentesNoDisponibles, esa información no se pudo obtener: no la supongas y menciónalo en una frase en el Diagnostico.",
                             "Al final incluye OPCIONALMENTE un bloque JSON dentro de ```json ... ``` con llaves: diagnostico_corto, senales, detalles, riesgos_clave, tips, alerta.",
                             "diagnostico_corto debe ser 3 frases cortas separadas por \\n.",
                             "Si los datos son insuficientes responde exactamente: \"No hay datos suficientes para generar un reporte confiable.\"",
@@ -58,9 +74,18 @@ public class InsightsService {
     @Value("${mycfo.pronostico.url}")
     private String pronosticoUrl;
 
+    @Value("${mycfo.insights.recoleccion.timeout:8s}")
+    private Duration recoleccionTimeout;
+
     private final VertexAiProperties vertexProperties;
     private final ObjectMapper mapper;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ClientesHttp clientesHttp;
+    private final TokenGoogle tokenGoogle;
+    private final ExecutorService recoleccionExecutor = Executors.newFixedThreadPool(HILOS_RECOLECCION, r -> {
+        Thread hilo = new Thread(r, "insights-datos-" + HILOS_CREADOS.incrementAndGet());
+        hilo.setDaemon(true);
+        return hilo;
+    });
 
     public Map<String, Object> generarInsights(String userSub, String authorization, Integer anio, Integer mes, String moneda) throws Exception {
         LocalDate now = LocalDate.now();
@@ -84,37 +109,47 @@ public class InsightsService {
 
         String currency = (moneda != null && !moneda.isBlank()) ? moneda : "ARS";
 
+        // Las cuatro consultas van en paralelo con un plazo común. P&L y cashflow son
+        // imprescindibles; sin resumen o presupuestos el reporte se genera igual y se marca parcial.
+        long inicio = System.nanoTime();
+        long limite = inicio + recoleccionTimeout.toNanos();
+        Map<String, Long> tiempos = new ConcurrentHashMap<>();
+        List<String> faltantes = new ArrayList<>();
+
         // P&L (devengado) solo ARS
         String pylUrl = reporteUrl + "/pyl?anio=" + year + "&moneda=" + currency;
-        var pylResp = restTemplate.exchange(
-                pylUrl, HttpMethod.GET, new HttpEntity<>(headers),
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-        );
-        Map<String, Object> pyl = Optional.ofNullable(pylResp.getBody()).orElse(Map.of());
-        log.info("P&L detalle ingresos (moneda={}): {}", currency, describirDetalle(pyl.get("detalleIngresos")));
-        log.info("P&L detalle egresos (moneda={}): {}", currency, describirDetalle(pyl.get("detalleEgresos")));
+        var pylF = enParalelo(FUENTE_PYL, tiempos, limite, () -> consultar("reporte", pylUrl, headers,
+                new ParameterizedTypeReference<Map<String, Object>>() {}));
 
         // Cashflow (caja) solo ARS
         String cashUrl = reporteUrl + "/cashflow?anio=" + analysisYear + "&moneda=" + currency;
-        var cashResp = restTemplate.exchange(
-                cashUrl, HttpMethod.GET, new HttpEntity<>(headers),
-                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-        );
-        List<Map<String, Object>> cash = Optional.ofNullable(cashResp.getBody()).orElse(List.of());
+        var cashF = enParalelo(FUENTE_CASHFLOW, tiempos, limite, () -> consultar("reporte", cashUrl, headers,
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {}));
 
         // Resumen mensual (caja) solo ARS
         String resumenUrl = reporteUrl + "/resumen?anio=" + analysisYear + "&mes=" + analysisMonth + "&moneda=" + currency;
-        var resResp = restTemplate.exchange(
-                resumenUrl, HttpMethod.GET, new HttpEntity<>(headers),
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-        );
-        Map<String, Object> resumen = Optional.ofNullable(resResp.getBody()).orElse(Map.of());
+        var resumenF = enParalelo(FUENTE_RESUMEN, tiempos, limite, () -> consultar("reporte", resumenUrl, headers,
+                new ParameterizedTypeReference<Map<String, Object>>() {}));
 
-        Map<String, Object> presupuestos = fetchPresupuestos(headers);
+        String presupuestosUrl = pronosticoUrl + "/api/presupuestos?page=0&size=5&status=active";
+        var presupuestosF = enParalelo(FUENTE_PRESUPUESTOS, tiempos, limite, () -> consultar("pronostico", presupuestosUrl, headers,
+                new ParameterizedTypeReference<Map<String, Object>>() {}));
+
+        Map<String, Object> pyl = esperar(FUENTE_PYL, pylF, limite, true, Map.of(), faltantes);
+        List<Map<String, Object>> cash = esperar(FUENTE_CASHFLOW, cashF, limite, true, List.of(), faltantes);
+        Map<String, Object> resumen = esperar(FUENTE_RESUMEN, resumenF, limite, false, Map.of(), faltantes);
+        Map<String, Object> presupuestos = esperar(FUENTE_PRESUPUESTOS, presupuestosF, limite, false, Map.of(), faltantes);
+        long recoleccionMs = msDesde(inicio);
+
+        log.info("P&L detalle ingresos (moneda={}): {}", currency, describirDetalle(pyl.get("detalleIngresos")));
+        log.info("P&L detalle egresos (moneda={}): {}", currency, describirDetalle(pyl.get("detalleEgresos")));
 
         // Reducir datos a lo esencial para el prompt
         Map<String, Object> compact = compactarDatos(year, month, analysisYear, analysisMonth, pyl, cash, resumen);
         compact.put("presupuestos", compactarPresupuestos(presupuestos));
+        if (!faltantes.isEmpty()) {
+            compact.put("fuentesNoDisponibles", faltantes);
+        }
         payload.put("datos", compact);
 
         log.info("P&L devengado (GET {}/pyl?anio={}&moneda={}): ingresosMensuales={}, egresosMensuales={}, detalleIngresos={}, detalleEgresos={}",
@@ -158,12 +193,89 @@ public class InsightsService {
 
         log.info("Payload listo para Vertex: userSub={}, anio={}, mes={}, anioAnalisis={}, mesAnalisis={}, moneda={}, keys={}",
                 userSub, year, month, analysisYear, analysisMonth, currency, compact.keySet());
+        long inicioVertex = System.nanoTime();
         Map<String, Object> ai = llamarVertex(compact);
+        long vertexMs = msDesde(inicioVertex);
         payload.put("ai", ai);
-        log.info("Vertex response recibida: userSub={}, keys={}", userSub, ai != null ? ai.keySet() : "null");
+
+        Map<String, Long> tiemposMs = new LinkedHashMap<>();
+        for (String fuente : FUENTES) {
+            // Una fuente que no respondió a tiempo figura con la espera hasta el plazo
+            tiemposMs.put(fuente, tiempos.getOrDefault(fuente, recoleccionMs));
+        }
+        tiemposMs.put("recoleccion", recoleccionMs);
+        tiemposMs.put("vertex", vertexMs);
+        tiemposMs.put("total", msDesde(inicio));
+
+        Map<String, Object> metadatos = new LinkedHashMap<>();
+        metadatos.put("datos_parciales", !faltantes.isEmpty());
+        metadatos.put("fuentes_faltantes", faltantes);
+        metadatos.put("tiempos_ms", tiemposMs);
+        ai.put("metadatos", metadatos);
+
+        log.info("Vertex response recibida: userSub={}, keys={}, faltantes={}, tiemposMs={}",
+                userSub, ai.keySet(), faltantes, tiemposMs);
         return ai;
     }
 
+    private <T> T consultar(String destino, String url, HttpHeaders headers, ParameterizedTypeReference<T> tipo) {
+        return clientesHttp.para(destino).exchange(url, HttpMethod.GET, new HttpEntity<>(headers), tipo).getBody();
+    }
+
+    /**
+     * Lanza la consulta en el pool de recolección. Sus llamadas HTTP llevan el plazo común
+     * ({@link ClientesHttp#conPlazo}): una fuente que ya no se va a esperar no sigue ocupando
+     * su hilo hasta el timeout de lectura del destino.
+     */
+    private <T> CompletableFuture<T> enParalelo(String fuente, Map<String, Long> tiempos, long limite, Supplier<T> consulta) {
+        return CompletableFuture.supplyAsync(() -> {
+            long inicio = System.nanoTime();
+            try {
+                return ClientesHttp.conPlazo(limite, consulta);
+            } finally {
+                tiempos.put(fuente, msDesde(inicio));
+            }
+        }, recoleccionExecutor);
+    }
+
+    /**
+     * Espera la fuente hasta el plazo común. Si no llegó o falló: una fuente imprescindible
+     * corta el reporte; otra se anota en {@code faltantes} y se usa {@code siFalta}.
+     */
+    private <T> T esperar(String fuente, CompletableFuture<T> futuro, long limite, boolean imprescindible,
+                          T siFalta, List<String> faltantes) {
+        String motivo;
+        try {
+            T valor = futuro.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return valor != null ? valor : siFalta;
+        } catch (TimeoutException e) {
+            // Interrumpir no corta una lectura en curso (la corta el plazo de la llamada HTTP);
+            // si todavía estaba en la cola, ya no se ejecuta
+            futuro.cancel(false);
+            motivo = "sin respuesta en " + recoleccionTimeout.toMillis() + " ms";
+        } catch (ExecutionException e) {
+            motivo = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            motivo = "interrumpido";
+        }
+        if (imprescindible) {
+            throw new IllegalStateException("No se pudieron obtener los datos de " + fuente + ": " + motivo);
+        }
+        log.warn("Insights sin {}: {}", fuente, motivo);
+        faltantes.add(fuente);
+        return siFalta;
+    }
+
+    private static long msDesde(long inicioNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos);
+    }
+
+    @Override
+    public void destroy() {
+        recoleccionExecutor.shutdownNow();
+    }
+
     private Map<String, Object> compactarDatos(int anioPyl, int mesActual,
                                                int anioAnalisis, int mesAnalisis,
                                                Map<String, Object> pyl,
@@ -333,7 +445,7 @@ public class InsightsService {
         String payload = mapper.writeValueAsString(body);
 
         try {
-            ResponseEntity<String> resp = restTemplate.exchange(
+            ResponseEntity<String> resp = clientesHttp.para("vertex").exchange(
                     endpoint, HttpMethod.POST, new HttpEntity<>(payload, headers), String.class);
 
             String rawText = extractTextFromResponse(resp.getBody());
@@ -501,41 +613,10 @@ public class InsightsService {
         return out;
     }
 
-    private Map<String, Object> fetchPresupuestos(HttpHeaders headers) {
-        try {
-            String url = pronosticoUrl + "/api/presupuestos?page=0&size=5&status=active";
-            var resp = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(headers),
-                    new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
-            return Optional.ofNullable(resp.getBody()).orElse(Map.of());
-        } catch (Exception ex) {
-            log.warn("No se pudieron obtener presupuestos para insights: {}", ex.getMessage());
-            return Map.of();
-        }
-    }
-
     private String resolveAccessToken() {
         try {
-            GoogleCredentials credentials;
-            if (StringUtils.hasText(vertexProperties.getCredentialsPath())) {
-                try (FileInputStream stream = new FileInputStream(vertexProperties.getCredentialsPath())) {
-                    credentials = GoogleCredentials.fromStream(stream);
-                }
-            } else {
-                credentials = GoogleCredentials.getApplicationDefault();
-            }
-            credentials = credentials.createScoped(Collections.singleton(CLOUD_SCOPE));
-            AccessToken token = credentials.getAccessToken();
-            if (token == null || token.getExpirationTime() == null
-                    || token.getExpirationTime().before(Date.from(Instant.now()))) {
-                token = credentials.refreshAccessToken();
-            }
-            if (token == null) {
-                throw new IllegalStateException("No se pudo obtener access token de Google.");
-            }
-            return token.getTokenValue();
-        } catch (Exception ex) {
+            return tokenGoogle.obtener();
+        } catch (IllegalStateException ex) {
             log.error("Error obteniendo token de Google", ex);
             throw new IllegalStateException("No se pudo autenticar con Google.");
         }
@@ -0,0 +1,533 @@
+package ia.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Rasgos de un mensaje del chat que usan las decisiones de ruteo de {@link ChatbotVertexService}
+ * (saludo, pedido de datos, pregunta de fecha, "cómo hago"...).
+ * <p>
+ * Se calculan una sola vez por mensaje: el texto se normaliza una vez, todas las listas de palabras
+ * se buscan juntas con un autómata de Aho-Corasick en una sola pasada sobre el texto normalizado, y
+ * los patrones que miran el texto original (acentos, signos, mensaje completo) se evalúan una vez
+ * cada uno. El resultado es un vector de bits del que salen todas las intenciones.
+ */
+final class IntencionMensaje {
+
+    // Listas compartidas entre el patrón sobre el texto original y la búsqueda sobre el normalizado
+    private static final List<String> PALABRAS_DATOS = List.of(
+            "cuanto", "cuantos", "monto", "importe", "total", "saldo", "balance", "caja", "plata", "dinero",
+            "efectivo", "resultado", "ingresos", "egresos", "cashflow", "cash flow", "flujo de caja", "p&l", "pyl",
+            "presupuesto", "presupuestos", "factura", "facturas", "cobro", "cobros", "pago", "pagos", "movimiento",
+            "movimientos", "reporte", "reportes", "estado de resultados", "deuda", "deudas", "acreencia",
+            "acreencias", "kpi", "indicador", "indicadores", "numero", "numeros", "pendiente", "pendientes",
+            "recordatorio", "recordatorios", "notificacion", "notificaciones", "pronostico", "pronosticos",
+            "forecast", "conciliado", "conciliados", "conciliar", "conciliacion", "movimento", "movimentos", "otro",
+            "otra", "mas", "más", "siguiente", "dolar", "dolares", "usd", "ars", "peso", "pesos", "u$s");
+    private static final List<String> PALABRAS_COMO_HACER = List.of(
+            "pasos", "procedimiento", "instrucciones", "guia", "tutorial", "ayuda", "como hago", "como puedo",
+            "dime como", "dime donde", "que hace", "para que sirve", "donde encuentro", "donde esta", "configurar",
+            "activar", "desactivar", "crear", "editar", "cargar", "importar", "conciliar", "generar");
+    private static final List<String> PALABRAS_FECHA_EXPLICITA = List.of(
+            "que fecha es", "que dia es", "en que dia estamos", "en que fecha estamos", "que hora es", "hora actual",
+            "fecha actual", "fecha de hoy", "dia de hoy", "hoy es");
+
+    private static final Pattern DATOS = palabras(PALABRAS_DATOS);
+    private static final Pattern COMO_HACER = palabras(PALABRAS_COMO_HACER);
+    private static final Pattern FECHA_EXPLICITA = palabras(PALABRAS_FECHA_EXPLICITA);
+    private static final Pattern FUERA_DE_ALCANCE = Pattern.compile(
+            "(?i)\\b(" +
+                    "calcula|calcular|recalcula|recalcular|sumar|suma|restar|resta|" +
+                    "multiplicar|multiplica|dividir|divide|porcentaje|promedio|tasa|" +
+                    "variacion|crecimiento|simulacion|simula|estima|estimacion" +
+                    ")\\b");
+    private static final Pattern ALCANCE = Pattern.compile(
+            "(?i)\\b(que podes hacer|que puedes hacer|cual es tu alcance|cu[aá]l es tu alcance|" +
+                    "para que servis|para que serv[íi]s|para qu[eé] serv[íi]s|ayuda|que haces)\\b");
+    private static final Pattern ACCION_LOCAL = Pattern.compile(
+            "(?i)\\b(que puedo hacer|que pod[eé]s hacer|que puedes hacer|que se puede hacer)\\b" +
+                    ".*\\b(aca|aqui|aquí|esta pantalla|este modulo|este módulo|esta seccion|esta sección|este lugar)\\b");
+    private static final Pattern UBICACION = Pattern.compile(
+            "(?i)\\b(donde estoy|en que modulo estoy|en qué modulo estoy|que modulo es este|" +
+                    "que m[oó]dulo es este|que pantalla es|en que pantalla estoy|en qué pantalla estoy|" +
+                    "que pantalla estoy viendo|que pantalla estoy|pantalla actual|que estoy viendo|que veo|" +
+                    "que veo aca|que veo aquí|que es esto que veo|donde estoy parado)\\b");
+    private static final Pattern SOLO_SALUDO = Pattern.compile(
+            "(?i)^\\s*(hola|buenas|buenos dias|buen d[ií]a|buen dia|buenas tardes|buenas noches|hello|hey)\\s*[!.?]*\\s*$");
+    private static final Pattern INTERPRETACION = Pattern.compile(
+            "(?i)\\b(interpretaci[oó]n|interpretar|que significa|significa|lectura|analisis|análisis|explicaci[oó]n|explica|"
+                    +
+                    "que puedes decirme|que me puedes decir|que puedes decir|que me puedes contar|que ves en pantalla|sobre los datos|sobre estos datos)\\b");
+    private static final Pattern IDENTIDAD = Pattern.compile(
+            "(?i)\\b(qui[eé]n soy|mi nombre|nombre de usuario|mi usuario|usuario estoy usando|" +
+                    "mi cuenta|mi perfil|mi email|mi correo|mi mail|mi tel[ée]fono|mi telefono|mi celular)\\b");
+    private static final Pattern EMAIL = Pattern.compile("(?i)\\b(email|e-mail|correo|mail)\\b");
+    private static final Pattern TELEFONO = Pattern
+            .compile("(?i)\\b(tel[ée]fono|telefono|celular|celu|m[oó]vil|movil)\\b");
+    private static final Pattern NOMBRE = Pattern.compile("(?i)\\b(nombre|usuario)\\b");
+    private static final Pattern SOLO_FECHA = Pattern.compile(
+            "(?i)^\\s*(fecha|dia|hora|que fecha|que dia|que hora)\\s*[?.!]*\\s*$");
+    private static final Pattern SOLO_TEMPORAL = Pattern.compile(
+            "(?i)^\\s*(hoy|ahora|en este momento|en este instante|actualmente|lo de hoy|lo de ahora|lo de este momento)\\s*[?.!]*\\s*$");
+    private static final Pattern PRESUPUESTO = Pattern.compile("(?i)\\bpresupuesto(s)?\\b");
+    private static final Pattern PRONOSTICO = Pattern.compile("(?i)\\b(pronostico|pronosticos|forecast)\\b");
+    private static final Pattern EXISTENCIA = Pattern.compile(
+            "(?i)\\b(tengo|tenes|hay|existe|existen|alg[uú]n|alguna|alguno|ningun|ningÃºn|ninguna)\\b");
+    private static final Pattern CANTIDAD = Pattern.compile(
+            "(?i)\\b(cuantos|cuÃ¡ntos|cantidad|numero|nÃºmero)\\b");
+
+    private static final Automata AUTOMATA = new Automata.Constructor()
+            .palabras(Rasgo.DATOS_NORMALIZADO, PALABRAS_DATOS)
+            .palabras(Rasgo.COMO_HACER_NORMALIZADO, PALABRAS_COMO_HACER)
+            .palabras(Rasgo.FECHA_EXPLICITA_NORMALIZADA, PALABRAS_FECHA_EXPLICITA)
+            .palabras(Rasgo.PALABRA_TEMPORAL, List.of(
+                    "hoy", "ahora", "en este momento", "en este instante", "actualmente", "reciente", "recientes"))
+            .palabras(Rasgo.PALABRA_FECHA, List.of(
+                    "que fecha es", "que dia es", "que dia", "fecha", "dia", "en que dia estamos",
+                    "en que fecha estamos", "que hora es", "hora"))
+            .subcadenas(Rasgo.FRASE_FECHA, List.of(
+                    "que fecha es", "que dia es", "que hora es", "en que fecha estamos", "en que dia estamos",
+                    "fecha actual", "fecha de hoy", "dia de hoy", "hora actual"))
+            .subcadenas(Rasgo.LO_DE_AHORA, List.of("lo de hoy", "lo de ahora", "lo de este momento"))
+            .subcadenas(Rasgo.RECORDATORIO, List.of(
+                    "recordatorio", "recordatorios", "notificacion", "notificaciones"))
+            .subcadenas(Rasgo.CONCILIACION, List.of(
+                    "conciliacion", "conciliar", "sin conciliar", "conciliado", "conciliados"))
+            .subcadenas(Rasgo.PENDIENTE, List.of("pendiente", "pendientes"))
+            .subcadenas(Rasgo.PAGO_O_MOVIMIENTO, List.of(
+                    "pago", "pagos", "cobro", "cobros", "factura", "facturas", "movimiento", "movimientos"))
+            .subcadenas(Rasgo.VENCIMIENTO, List.of("venc"))
+            .subcadenas(Rasgo.PAGO_O_FACTURA, List.of("factura", "facturas", "pago", "pagos", "cobro", "cobros"))
+            .subcadenas(Rasgo.CONJUNCION, List.of(" y ", "ademas", "tambien", "junto con"))
+            .subcadenas(Rasgo.FLUJO_DE_CAJA, List.of("flujo de caja", "cashflow", "cash flow"))
+            .subcadenas(Rasgo.SALDO, List.of("saldo", "balance", "caja", "plata", "dinero", "efectivo"))
+            .subcadenas(Rasgo.MOVIMIENTOS, List.of("movimiento", "movimientos"))
+            .subcadenas(Rasgo.PRESUPUESTOS, List.of("presupuesto", "presupuestos"))
+            .subcadenas(Rasgo.FACTURAS, List.of("factura", "facturas"))
+            .subcadenas(Rasgo.REPORTE, List.of(
+                    "ingreso", "ingresos", "egreso", "egresos", "reporte", "estado de resultados", "resultado", "pyl",
+                    "p&l"))
+            .construir();
+
+    private static final IntencionMensaje VACIO = new IntencionMensaje("", 0L);
+
+    /** Rasgos sueltos del mensaje; las intenciones se arman combinándolos. */
+    enum Rasgo {
+        // Sobre el texto original
+        SALUDO, ALCANCE, ACCION_LOCAL, UBICACION, INTERPRETACION, IDENTIDAD, EMAIL, TELEFONO, NOMBRE,
+        FUERA_DE_ALCANCE, PRESUPUESTO, PRONOSTICO, SOLO_TEMPORAL, SOLO_FECHA, FECHA_EXPLICITA, DATOS,
+        COMO_HACER, PRESUPUESTO_EXISTENCIA, PRESUPUESTO_CANTIDAD, PRESUPUESTO_NOMBRES,
+        // Sobre el texto normalizado, en una pasada
+        DATOS_NORMALIZADO, COMO_HACER_NORMALIZADO, FECHA_EXPLICITA_NORMALIZADA, PALABRA_TEMPORAL, PALABRA_FECHA,
+        FRASE_FECHA, LO_DE_AHORA, RECORDATORIO, CONCILIACION, PENDIENTE, PAGO_O_MOVIMIENTO, VENCIMIENTO,
+        PAGO_O_FACTURA, CONJUNCION, FLUJO_DE_CAJA, SALDO, MOVIMIENTOS, PRESUPUESTOS, FACTURAS, REPORTE
+    }
+
+    private final String normalizado;
+    private final long rasgos;
+
+    private IntencionMensaje(String normalizado, long rasgos) {
+        this.normalizado = normalizado;
+        this.rasgos = rasgos;
+    }
+
+    static IntencionMensaje de(String mensaje) {
+        if (mensaje == null) {
+            return VACIO;
+        }
+        String normalizado = normalizar(mensaje);
+        long rasgos = AUTOMATA.buscar(normalizado);
+        String recortado = mensaje.trim();
+        String minusculas = mensaje.toLowerCase();
+
+        rasgos |= bit(Rasgo.SALUDO, SOLO_SALUDO.matcher(recortado).matches());
+        rasgos |= bit(Rasgo.SOLO_TEMPORAL, SOLO_TEMPORAL.matcher(recortado).matches());
+        rasgos |= bit(Rasgo.SOLO_FECHA, SOLO_FECHA.matcher(recortado).matches());
+        rasgos |= bit(Rasgo.ALCANCE, ALCANCE.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.ACCION_LOCAL, ACCION_LOCAL.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.UBICACION, UBICACION.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.INTERPRETACION, INTERPRETACION.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.IDENTIDAD, IDENTIDAD.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.EMAIL, EMAIL.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.TELEFONO, TELEFONO.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.NOMBRE, NOMBRE.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.FUERA_DE_ALCANCE, FUERA_DE_ALCANCE.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.PRESUPUESTO, PRESUPUESTO.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.PRONOSTICO, PRONOSTICO.matcher(mensaje).find());
+        rasgos |= bit(Rasgo.FECHA_EXPLICITA, FECHA_EXPLICITA.matcher(mensaje).find());
+        // Si el normalizado ya tiene las palabras no hace falta mirar el original
+        if ((rasgos & bit(Rasgo.DATOS_NORMALIZADO, true)) == 0) {
+            rasgos |= bit(Rasgo.DATOS, DATOS.matcher(mensaje).find());
+        }
+        if ((rasgos & bit(Rasgo.COMO_HACER_NORMALIZADO, true)) == 0) {
+            rasgos |= bit(Rasgo.COMO_HACER, COMO_HACER.matcher(mensaje).find());
+        }
+        if (minusculas.contains("presupuesto")) {
+            rasgos |= bit(Rasgo.PRESUPUESTO_EXISTENCIA, EXISTENCIA.matcher(minusculas).find());
+            rasgos |= bit(Rasgo.PRESUPUESTO_CANTIDAD, CANTIDAD.matcher(minusculas).find());
+            rasgos |= bit(Rasgo.PRESUPUESTO_NOMBRES, contieneAlguna(minusculas,
+                    "nombre", "nombres", "se llama", "se llaman", "como se llama", "cómo se llama"));
+        }
+        return new IntencionMensaje(normalizado, rasgos);
+    }
+
+    /**
+     * Minúsculas, sin acentos, solo letras, números y un espacio entre palabras
+     * ("¿Cuál es el saldo?" → "cual es el saldo").
+     */
+    static String normalizar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(valor.toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(descompuesto.length());
+        boolean espacioPendiente = false;
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (espacioPendiente && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                espacioPendiente = false;
+                sb.append(c);
+            } else if (!esMarca(c)) {
+                espacioPendiente = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    String normalizado() {
+        return normalizado;
+    }
+
+    boolean tiene(Rasgo rasgo) {
+        return (rasgos & (1L << rasgo.ordinal())) != 0;
+    }
+
+    boolean saludo() {
+        return tiene(Rasgo.SALUDO);
+    }
+
+    boolean preguntaAlcance() {
+        return tiene(Rasgo.ALCANCE);
+    }
+
+    boolean accionLocal() {
+        return tiene(Rasgo.ACCION_LOCAL);
+    }
+
+    boolean preguntaUbicacion() {
+        return tiene(Rasgo.UBICACION);
+    }
+
+    boolean pedidoInterpretacion() {
+        return tiene(Rasgo.INTERPRETACION);
+    }
+
+    boolean preguntaIdentidad() {
+        return tiene(Rasgo.IDENTIDAD);
+    }
+
+    boolean preguntaEmail() {
+        return tiene(Rasgo.EMAIL);
+    }
+
+    boolean preguntaTelefono() {
+        return tiene(Rasgo.TELEFONO);
+    }
+
+    boolean preguntaNombre() {
+        return tiene(Rasgo.NOMBRE);
+    }
+
+    boolean fueraDeAlcance() {
+        return tiene(Rasgo.FUERA_DE_ALCANCE);
+    }
+
+    boolean presupuesto() {
+        return tiene(Rasgo.PRESUPUESTO);
+    }
+
+    boolean pronostico() {
+        return tiene(Rasgo.PRONOSTICO);
+    }
+
+    boolean existenciaPresupuesto() {
+        return tiene(Rasgo.PRESUPUESTO_EXISTENCIA);
+    }
+
+    boolean cantidadPresupuestos() {
+        return tiene(Rasgo.PRESUPUESTO_CANTIDAD);
+    }
+
+    boolean nombresPresupuestos() {
+        return tiene(Rasgo.PRESUPUESTO_NOMBRES);
+    }
+
+    boolean pedidoDatos() {
+        return tiene(Rasgo.DATOS) || tiene(Rasgo.DATOS_NORMALIZADO);
+    }
+
+    boolean comoHacer() {
+        return tiene(Rasgo.COMO_HACER) || tiene(Rasgo.COMO_HACER_NORMALIZADO);
+    }
+
+    /** "hoy", "ahora"... sin decir qué dato se quiere. */
+    boolean temporalAmbiguo() {
+        if (tiene(Rasgo.SOLO_TEMPORAL) || tiene(Rasgo.LO_DE_AHORA)) {
+            return true;
+        }
+        return tiene(Rasgo.PALABRA_TEMPORAL) && !pedidoDatos() && !tiene(Rasgo.FECHA_EXPLICITA_NORMALIZADA);
+    }
+
+    /** Pregunta por la fecha o la hora actual. */
+    boolean preguntaFecha() {
+        if (preguntaUbicacion() || tiene(Rasgo.SOLO_TEMPORAL)) {
+            return false;
+        }
+        if (tiene(Rasgo.SOLO_FECHA)) {
+            return true;
+        }
+        if (pedidoDatos() || comoHacer() || pedidoInterpretacion()) {
+            return false;
+        }
+        return tiene(Rasgo.FECHA_EXPLICITA) || tiene(Rasgo.FRASE_FECHA) || tiene(Rasgo.PALABRA_FECHA);
+    }
+
+    boolean consultaConciliacion() {
+        if (tiene(Rasgo.RECORDATORIO)) {
+            return false;
+        }
+        return tiene(Rasgo.CONCILIACION) || (tiene(Rasgo.PENDIENTE) && tiene(Rasgo.PAGO_O_MOVIMIENTO));
+    }
+
+    boolean consultaVencimientos() {
+        return tiene(Rasgo.VENCIMIENTO) && tiene(Rasgo.PAGO_O_FACTURA);
+    }
+
+    /** Pide dos o más datos distintos en el mismo mensaje ("saldo y presupuestos"). */
+    boolean variasConsultasDeDatos() {
+        if (!tiene(Rasgo.CONJUNCION)) {
+            return false;
+        }
+        boolean flujoDeCaja = tiene(Rasgo.FLUJO_DE_CAJA);
+        int intenciones = 0;
+        if (flujoDeCaja || tiene(Rasgo.SALDO)) {
+            intenciones++;
+        }
+        if (consultaConciliacion() || tiene(Rasgo.MOVIMIENTOS)) {
+            intenciones++;
+        }
+        if (tiene(Rasgo.PRESUPUESTOS)) {
+            intenciones++;
+        }
+        if (tiene(Rasgo.FACTURAS)) {
+            intenciones++;
+        }
+        if (!flujoDeCaja && tiene(Rasgo.REPORTE)) {
+            intenciones++;
+        }
+        return intenciones >= 2;
+    }
+
+    private static long bit(Rasgo rasgo, boolean presente) {
+        return presente ? 1L << rasgo.ordinal() : 0L;
+    }
+
+    private static boolean esMarca(char c) {
+        int tipo = Character.getType(c);
+        return tipo == Character.NON_SPACING_MARK || tipo == Character.ENCLOSING_MARK
+                || tipo == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static boolean contieneAlguna(String texto, String... partes) {
+        for (String parte : partes) {
+            if (texto.contains(parte)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern palabras(List<String> alternativas) {
+        return Pattern.compile(alternativas.stream()
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|", "(?i)\\b(?:", ")\\b")));
+    }
+
+    /**
+     * Aho-Corasick sobre el alfabeto del texto normalizado (a-z, 0-9 y espacio). Las entradas
+     * "palabra" solo cuentan entre límites de palabra (como {@code \b...\b}); las "subcadena",
+     * en cualquier posición (como {@code String.contains}).
+     */
+    private static final class Automata {
+
+        private static final int ALFABETO = 37;
+
+        private final int[][] transiciones;
+        private final int[][] salidas;
+        private final int[] largo;
+        private final int[] rasgo;
+        private final boolean[] palabra;
+
+        private Automata(int[][] transiciones, int[][] salidas, int[] largo, int[] rasgo, boolean[] palabra) {
+            this.transiciones = transiciones;
+            this.salidas = salidas;
+            this.largo = largo;
+            this.rasgo = rasgo;
+            this.palabra = palabra;
+        }
+
+        long buscar(String texto) {
+            long encontrados = 0L;
+            int estado = 0;
+            int n = texto.length();
+            for (int i = 0; i < n; i++) {
+                estado = transiciones[estado][indice(texto.charAt(i))];
+                for (int entrada : salidas[estado]) {
+                    if (palabra[entrada] && !entrePalabras(texto, i - largo[entrada] + 1, i)) {
+                        continue;
+                    }
+                    encontrados |= 1L << rasgo[entrada];
+                }
+            }
+            return encontrados;
+        }
+
+        private static boolean entrePalabras(String texto, int inicio, int fin) {
+            return (inicio == 0 || texto.charAt(inicio - 1) == ' ')
+                    && (fin == texto.length() - 1 || texto.charAt(fin + 1) == ' ');
+        }
+
+        private static int indice(char c) {
+            if (c >= 'a' && c <= 'z') {
+                return c - 'a';
+            }
+            if (c >= '0' && c <= '9') {
+                return 26 + c - '0';
+            }
+            return 36;
+        }
+
+        private static boolean enAlfabeto(String texto) {
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == ' ')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static final class Constructor {
+
+            private final List<int[]> hijos = new ArrayList<>();
+            private final List<List<Integer>> propias = new ArrayList<>();
+            private final List<Integer> largos = new ArrayList<>();
+            private final List<Integer> rasgos = new ArrayList<>();
+            private final List<Boolean> palabras = new ArrayList<>();
+
+            Constructor() {
+                nuevoEstado();
+            }
+
+            Constructor palabras(Rasgo rasgo, List<String> entradas) {
+                entradas.forEach(entrada -> agregar(entrada, rasgo, true));
+                return this;
+            }
+
+            Constructor subcadenas(Rasgo rasgo, List<String> entradas) {
+                entradas.forEach(entrada -> agregar(entrada, rasgo, false));
+                return this;
+            }
+
+            private void agregar(String entrada, Rasgo rasgo, boolean palabra) {
+                // "más", "p&l"... no pueden aparecer en un texto normalizado
+                if (entrada.isEmpty() || !enAlfabeto(entrada)) {
+                    return;
+                }
+                int estado = 0;
+                for (int i = 0; i < entrada.length(); i++) {
+                    int c = indice(entrada.charAt(i));
+                    if (hijos.get(estado)[c] < 0) {
+                        hijos.get(estado)[c] = nuevoEstado();
+                    }
+                    estado = hijos.get(estado)[c];
+                }
+                propias.get(estado).add(largos.size());
+                largos.add(entrada.length());
+                rasgos.add(rasgo.ordinal());
+                palabras.add(palabra);
+            }
+
+            private int nuevoEstado() {
+                int[] transiciones = new int[ALFABETO];
+                Arrays.fill(transiciones, -1);
+                hijos.add(transiciones);
+                propias.add(new ArrayList<>());
+                return hijos.size() - 1;
+            }
+
+            Automata construir() {
+                int estados = hijos.size();
+                int[][] transiciones = new int[estados][];
+                int[][] salidas = new int[estados][];
+                int[] falla = new int[estados];
+                Deque<Integer> pendientes = new ArrayDeque<>();
+
+                transiciones[0] = new int[ALFABETO];
+                salidas[0] = new int[0];
+                for (int c = 0; c < ALFABETO; c++) {
+                    int hijo = hijos.get(0)[c];
+                    if (hijo < 0) {
+                        transiciones[0][c] = 0;
+                    } else {
+                        transiciones[0][c] = hijo;
+                        falla[hijo] = 0;
+                        pendientes.add(hijo);
+                    }
+                }
+                // En orden BFS el estado de falla siempre está resuelto antes que el propio
+                while (!pendientes.isEmpty()) {
+                    int estado = pendientes.poll();
+                    salidas[estado] = unir(propias.get(estado), salidas[falla[estado]]);
+                    transiciones[estado] = new int[ALFABETO];
+                    for (int c = 0; c < ALFABETO; c++) {
+                        int hijo = hijos.get(estado)[c];
+                        if (hijo < 0) {
+                            transiciones[estado][c] = transiciones[falla[estado]][c];
+                        } else {
+                            transiciones[estado][c] = hijo;
+                            falla[hijo] = transiciones[falla[estado]][c];
+                            pendientes.add(hijo);
+                        }
+                    }
+                }
+
+                int[] largo = largos.stream().mapToInt(Integer::intValue).toArray();
+                int[] rasgo = rasgos.stream().mapToInt(Integer::intValue).toArray();
+                boolean[] palabra = new boolean[palabras.size()];
+                for (int i = 0; i < palabra.length; i++) {
+                    palabra[i] = palabras.get(i);
+                }
+                return new Automata(transiciones, salidas, largo, rasgo, palabra);
+            }
+
+            private static int[] unir(List<Integer> propias, int[] heredadas) {
+                int[] todas = new int[propias.size() + heredadas.length];
+                for (int i = 0; i < propias.size(); i++) {
+                    todas[i] = propias.get(i);
+                }
+                System.arraycopy(heredadas, 0, todas, propias.size(), heredadas.length);
+                return todas;
+            }
+        }
+    }
+}
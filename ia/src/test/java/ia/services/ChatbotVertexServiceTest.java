@@ -1,7 +1,11 @@
 package ia.services;
 
+import clientehttp.ClientesHttp;
+import clientehttp.TokenGoogle;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ia.config.VertexAiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -10,14 +14,23 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class ChatbotVertexServiceTest {
 
     private ChatbotVertexService service;
+    private DataRetrievalService dataRetrievalService;
 
     @BeforeEach
     void setUp() {
@@ -26,8 +39,10 @@ class ChatbotVertexServiceTest {
         properties.setLocation("us-central1");
         properties.setModel("test-model");
         ObjectMapper mapper = new ObjectMapper();
-        DataRetrievalService dataRetrievalService = mock(DataRetrievalService.class);
-        service = new ChatbotVertexService(properties, mapper, dataRetrievalService);
+        dataRetrievalService = mock(DataRetrievalService.class);
+        service = new ChatbotVertexService(properties, mapper, dataRetrievalService, mock(ClientesHttp.class),
+                mock(TokenGoogle.class), mock(IndiceConocimiento.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "herramientasTimeout", Duration.ofSeconds(10));
     }
 
     private boolean isDateQuestion(String message) {
@@ -218,4 +233,119 @@ class ChatbotVertexServiceTest {
             assertNull(parseToolCall("no hay tool call"));
         }
     }
+
+    @Nested
+    @DisplayName("FiltroStreaming")
+    class FiltroStreamingTests {
+
+        private List<String> filtrar(String... partes) {
+            List<String> entregado = new ArrayList<>();
+            ChatbotVertexService.FiltroStreaming filtro = service.new FiltroStreaming(entregado::add);
+            for (String parte : partes) {
+                filtro.agregar(parte);
+            }
+            filtro.terminar();
+            return entregado;
+        }
+
+        @Test
+        void entregaCadaOracionOLineaCompleta() {
+            List<String> entregado = filtrar("Tu saldo ", "actual es $1.000. Los ", "egresos del mes",
+                    " suman $200.\nResumen:", " todo bien");
+            assertEquals(List.of("Tu saldo actual es $1.000. ", "Los egresos del mes suman $200.",
+                    "\nResumen: ", "todo bien"), entregado);
+            assertEquals("Tu saldo actual es $1.000. Los egresos del mes suman $200.\nResumen: todo bien",
+                    String.join("", entregado));
+        }
+
+        @Test
+        void noEntregaUnaLlamadaATool() {
+            assertEquals(List.of(), filtrar("@@CALL", "_TOOL:GET_B", "ALANCE@@"));
+            assertEquals(List.of(), filtrar("``", "`json\n", "@@CALL_TOOL:GET_BALANCE@@", "\n```"));
+        }
+
+        @Test
+        void quitaLosFencesPartidosEntreFragmentos() {
+            assertEquals(List.of("{\"saldo\": 10}", "\nListo."),
+                    filtrar("``", "`json\n{\"saldo\"", ": 10}\n``", "`\nListo."));
+        }
+
+        @Test
+        void descartaLaOracionQueMencionaElManual() {
+            assertEquals(List.of("Tu saldo es $500."),
+                    filtrar("Según el man", "ual de usuario, el saldo se ve en Inicio. Tu sal", "do es $500."));
+        }
+    }
+
+    @Nested
+    @DisplayName("ejecutarHerramientas")
+    class HerramientasTests {
+
+        @AfterEach
+        void cerrar() {
+            service.destroy();
+        }
+
+        private List<ChatbotVertexService.ToolExecution> ejecutar(ChatbotVertexService.ToolCall... calls) {
+            return service.ejecutarHerramientas(List.of(calls), "sub-1", "Bearer x");
+        }
+
+        @Test
+        void devuelveLosResultadosEnElOrdenDeLasLlamadas() {
+            when(dataRetrievalService.searchMovements(any(), any(), any())).thenAnswer(invocation -> {
+                Thread.sleep(200);
+                return Map.of("movimientos", 1);
+            });
+            when(dataRetrievalService.getBalance(any(), any(), any())).thenReturn(Map.of("saldo", 2));
+
+            List<ChatbotVertexService.ToolExecution> resultados = ejecutar(
+                    new ChatbotVertexService.ToolCall("SEARCH_MOVEMENTS", Map.of()),
+                    new ChatbotVertexService.ToolCall("GET_BALANCE", Map.of()),
+                    new ChatbotVertexService.ToolCall("FOO", Map.of()));
+
+            assertEquals(List.of("SEARCH_MOVEMENTS", "GET_BALANCE", "FOO"),
+                    resultados.stream().map(ChatbotVertexService.ToolExecution::tool).toList());
+            assertEquals(Map.of("movimientos", 1), resultados.get(0).data());
+            assertEquals(Map.of("saldo", 2), resultados.get(1).data());
+            assertEquals("unsupported_tool", resultados.get(2).error());
+        }
+
+        @Test
+        void unaLlamadaRepetidaSeEjecutaUnaSolaVez() {
+            when(dataRetrievalService.getBalance(any(), any(), any()))
+                    .thenAnswer(invocation -> Map.of("moneda", invocation.getArgument(2)));
+
+            List<ChatbotVertexService.ToolExecution> resultados = ejecutar(
+                    new ChatbotVertexService.ToolCall("GET_BALANCE", Map.of("moneda", "ARS")),
+                    new ChatbotVertexService.ToolCall("GET_BALANCE", Map.of("moneda", "USD")),
+                    new ChatbotVertexService.ToolCall("GET_BALANCE", Map.of("moneda", "ARS")));
+
+            assertEquals(3, resultados.size());
+            assertEquals(Map.of("moneda", "ARS"), resultados.get(0).data());
+            assertEquals(Map.of("moneda", "USD"), resultados.get(1).data());
+            assertSame(resultados.get(0), resultados.get(2));
+            verify(dataRetrievalService, times(1)).getBalance(any(), any(), eq("ARS"));
+            verify(dataRetrievalService, times(1)).getBalance(any(), any(), eq("USD"));
+        }
+
+        @Test
+        void unaToolLentaQuedaComoTimeoutSinDemorarAlResto() {
+            ReflectionTestUtils.setField(service, "herramientasTimeout", Duration.ofMillis(200));
+            when(dataRetrievalService.getPendingTasks(any(), any(), any())).thenAnswer(invocation -> {
+                Thread.sleep(2_000);
+                return Map.of("pendientes", 3);
+            });
+            when(dataRetrievalService.getBalance(any(), any(), any())).thenReturn(Map.of("saldo", 2));
+
+            long inicio = System.nanoTime();
+            List<ChatbotVertexService.ToolExecution> resultados = ejecutar(
+                    new ChatbotVertexService.ToolCall("GET_PENDING_TASKS", Map.of()),
+                    new ChatbotVertexService.ToolCall("GET_BALANCE", Map.of()));
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - inicio).compareTo(Duration.ofSeconds(1)) < 0);
+            assertFalse(resultados.get(0).ok());
+            assertEquals("timeout", resultados.get(0).error());
+            assertTrue(resultados.get(1).ok());
+        }
+    }
 }
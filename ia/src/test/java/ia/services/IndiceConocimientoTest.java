@@ -0,0 +1,121 @@
+package ia.services;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceConocimientoTest {
+
+    private static final List<String> FUENTES = List.of(
+            "classpath:knowledge/manual_integral_mycfo.md",
+            "classpath:knowledge/anexo_ultra_detalles_maestro.md");
+    private static final int TOP_K = 4;
+
+    private static IndiceConocimiento indice;
+
+    @BeforeAll
+    static void setUp() {
+        indice = new IndiceConocimiento(new DefaultResourceLoader(), FUENTES, TOP_K, 6000);
+    }
+
+    @Nested
+    @DisplayName("Recall sobre el set de preguntas")
+    class RecallTests {
+
+        @Test
+        void encuentraLaSeccionEsperadaEntreLasPrimerasK() throws IOException {
+            List<String[]> casos = leerCasos();
+            List<String> fallos = new ArrayList<>();
+            for (String[] caso : casos) {
+                boolean encontrada = indice.buscar(caso[0], TOP_K).stream()
+                        .anyMatch(fragmento -> fragmento.titulo().contains(caso[1]));
+                if (!encontrada) {
+                    fallos.add(caso[0] + " -> " + caso[1]);
+                }
+            }
+            double recall = 1 - (double) fallos.size() / casos.size();
+            assertTrue(recall >= 0.9, "recall@" + TOP_K + " = " + recall + ", fallos: " + fallos);
+        }
+
+        private List<String[]> leerCasos() throws IOException {
+            try (InputStream in = new ClassPathResource("conocimiento/recall.tsv").getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                        .filter(linea -> !linea.isBlank() && !linea.startsWith("#"))
+                        .map(linea -> linea.split("\t"))
+                        .toList();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Contexto para el prompt")
+    class ContextoTests {
+
+        @Test
+        void adjuntaSoloLasSeccionesRelevantes() {
+            String contexto = indice.contextoPara("¿Cómo creo un nuevo presupuesto?");
+            assertNotNull(contexto);
+            assertTrue(contexto.contains("Creación de un Nuevo Presupuesto"));
+            assertTrue(contexto.length() <= 6000);
+        }
+
+        @Test
+        void devuelveNullSiNadaCoincide() {
+            assertNull(indice.contextoPara("zzz qwerty"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Recarga")
+    class RecargaTests {
+
+        @Test
+        void reemplazaElIndiceConElContenidoNuevo() throws IOException {
+            Path archivo = Files.createTempFile("conocimiento", ".md");
+            try {
+                Files.writeString(archivo, "# Guía\n## Módulo: Tesorería\nEl arqueo de caja se hace al cierre.\n");
+                IndiceConocimiento propio = new IndiceConocimiento(
+                        new DefaultResourceLoader(), List.of(archivo.toUri().toString()), TOP_K, 6000);
+                assertTrue(propio.buscar("arqueo", TOP_K).get(0).titulo().contains("Tesorería"));
+
+                Files.writeString(archivo, "# Guía\n## Módulo: Cobranzas\nLa gestión de morosos está en cobranzas.\n");
+                IndiceConocimiento.Resumen resumen = propio.recargar();
+
+                assertEquals(1, resumen.secciones());
+                assertTrue(propio.buscar("arqueo", TOP_K).isEmpty());
+                assertFalse(propio.buscar("morosos", TOP_K).isEmpty());
+            } finally {
+                Files.deleteIfExists(archivo);
+            }
+        }
+
+        @Test
+        void conservaElIndiceSiLasFuentesNoAportanSecciones() throws IOException {
+            Path archivo = Files.createTempFile("conocimiento", ".md");
+            try {
+                Files.writeString(archivo, "# Guía\nEl arqueo de caja se hace al cierre.\n");
+                IndiceConocimiento propio = new IndiceConocimiento(
+                        new DefaultResourceLoader(), List.of(archivo.toUri().toString()), TOP_K, 6000);
+
+                Files.writeString(archivo, "");
+                assertThrows(IllegalStateException.class, propio::recargar);
+                assertFalse(propio.buscar("arqueo", TOP_K).isEmpty());
+            } finally {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+}
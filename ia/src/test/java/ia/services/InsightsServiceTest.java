@@ -0,0 +1,164 @@
+package ia.services;
+
+import clientehttp.ClientesHttp;
+import clientehttp.ClientesHttpProperties;
+import clientehttp.TokenGoogle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import ia.config.VertexAiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InsightsServiceTest {
+
+    // Bastante más que el plazo de recolección y menos que el read timeout por defecto (10s)
+    private static final long DEMORA_LENTA_MS = 3_000;
+    private static final Duration PLAZO = Duration.ofMillis(500);
+
+    private static final String RESPUESTA_VERTEX = """
+            {"candidates":[{"content":{"parts":[{"text":"## Diagnostico\\nTodo en orden."}]}}]}
+            """;
+
+    private HttpServer servidor;
+    private ExecutorService hilosServidor;
+    private ClientesHttp clientesReales;
+    private InsightsService service;
+    private volatile String rutaLenta;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hilosServidor = Executors.newCachedThreadPool();
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        responder("/reporte/pyl", "{\"ingresosMensuales\":[100,200],\"egresosMensuales\":[50,80]}");
+        responder("/reporte/cashflow", "[]");
+        responder("/reporte/resumen", "{}");
+        responder("/pronostico/api/presupuestos", "{\"content\":[],\"totalElements\":0}");
+        servidor.setExecutor(hilosServidor);
+        servidor.start();
+        String base = "http://127.0.0.1:" + servidor.getAddress().getPort();
+
+        // reporte y pronostico con los clientes reales (para que aplique el plazo); vertex simulado
+        clientesReales = new ClientesHttp(new RestTemplateBuilder(), new ClientesHttpProperties(), null);
+        RestTemplate vertex = mock(RestTemplate.class);
+        when(vertex.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok(RESPUESTA_VERTEX));
+        ClientesHttp clientesHttp = mock(ClientesHttp.class);
+        when(clientesHttp.para("reporte")).thenReturn(clientesReales.para("reporte"));
+        when(clientesHttp.para("pronostico")).thenReturn(clientesReales.para("pronostico"));
+        when(clientesHttp.para("vertex")).thenReturn(vertex);
+        TokenGoogle tokenGoogle = mock(TokenGoogle.class);
+        when(tokenGoogle.obtener()).thenReturn("token");
+
+        VertexAiProperties properties = new VertexAiProperties();
+        properties.setProjectId("test-project");
+        properties.setLocation("us-central1");
+        properties.setModel("test-model");
+        service = new InsightsService(properties, new ObjectMapper(), clientesHttp, tokenGoogle);
+        ReflectionTestUtils.setField(service, "reporteUrl", base + "/reporte");
+        ReflectionTestUtils.setField(service, "pronosticoUrl", base + "/pronostico");
+        ReflectionTestUtils.setField(service, "recoleccionTimeout", PLAZO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+        clientesReales.destroy();
+        servidor.stop(0);
+        hilosServidor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Una fuente opcional lenta deja el reporte parcial, con la fuente faltante y los tiempos")
+    @SuppressWarnings("unchecked")
+    void fuenteOpcionalLentaDejaReporteParcial() throws Exception {
+        rutaLenta = "/pronostico/api/presupuestos";
+
+        long inicio = System.nanoTime();
+        Map<String, Object> ai = service.generarInsights("sub", "Bearer x", 2026, 3, "ARS");
+        long duracionMs = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+
+        assertEquals("## Diagnostico\nTodo en orden.", ai.get("reporte_markdown"));
+        Map<String, Object> metadatos = (Map<String, Object>) ai.get("metadatos");
+        assertEquals(true, metadatos.get("datos_parciales"));
+        assertEquals(List.of("presupuestos"), metadatos.get("fuentes_faltantes"));
+        Map<String, Long> tiempos = (Map<String, Long>) metadatos.get("tiempos_ms");
+        assertEquals(List.of("pyl", "cashflow", "resumen", "presupuestos", "recoleccion", "vertex", "total"),
+                List.copyOf(tiempos.keySet()));
+        assertTrue(tiempos.get("recoleccion") >= PLAZO.toMillis() - 50, "recoleccion=" + tiempos.get("recoleccion"));
+        assertTrue(tiempos.get("total") >= tiempos.get("recoleccion"));
+        assertTrue(duracionMs < DEMORA_LENTA_MS, "no espera a la fuente lenta: " + duracionMs + " ms");
+    }
+
+    @Test
+    @DisplayName("La consulta vencida no sigue ocupando su hilo hasta el read timeout")
+    void consultaVencidaLiberaElHilo() throws Exception {
+        rutaLenta = "/pronostico/api/presupuestos";
+        ThreadPoolExecutor recoleccion = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "recoleccionExecutor");
+
+        service.generarInsights("sub", "Bearer x", 2026, 3, "ARS");
+
+        // El plazo corta la lectura del socket; sin él el hilo quedaría bloqueado los 3s de la respuesta
+        long hasta = System.nanoTime() + Duration.ofMillis(1_500).toNanos();
+        while (recoleccion.getActiveCount() > 0 && System.nanoTime() < hasta) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, recoleccion.getActiveCount());
+    }
+
+    @Test
+    @DisplayName("Una fuente imprescindible lenta corta el reporte")
+    void fuenteImprescindibleLentaCortaElReporte() {
+        rutaLenta = "/reporte/pyl";
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> service.generarInsights("sub", "Bearer x", 2026, 3, "ARS"));
+        assertTrue(ex.getMessage().contains("pyl"), ex.getMessage());
+    }
+
+    private void responder(String ruta, String json) {
+        servidor.createContext(ruta, exchange -> {
+            if (ruta.equals(rutaLenta)) {
+                try {
+                    Thread.sleep(DEMORA_LENTA_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            try {
+                exchange.sendResponseHeaders(200, cuerpo.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(cuerpo);
+                }
+            } catch (java.io.IOException ignore) {
+                // El cliente ya cortó por el plazo
+            }
+        });
+    }
+}
@@ -0,0 +1,371 @@
+package ia.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Costo de decidir la ruta de un mensaje del chat, por mensaje del corpus de consultas típicas:
+ * {@code enSerie} es la cadena de chequeos que hacía {@link ChatbotVertexService} (cada uno con su
+ * regex y su normalización), {@code unaPasada} la misma cadena sobre {@link IntencionMensaje}.
+ * Se corre con el {@code main}, con el classpath de test del módulo (desde el IDE o con
+ * {@code java -cp}, después de {@code mvn -pl ia -am test-compile}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntencionMensajeBenchmark {
+
+    private List<String> consultas;
+
+    @Setup
+    public void cargarConsultas() throws IOException {
+        consultas = consultas();
+        // Las dos variantes tienen que decidir lo mismo para que la comparación valga
+        for (String consulta : consultas) {
+            if (EnSerie.ruta(consulta) != ruta(IntencionMensaje.de(consulta))) {
+                throw new IllegalStateException("Las rutas no coinciden para: " + consulta);
+            }
+        }
+    }
+
+    @Benchmark
+    public void enSerie(Blackhole bh) {
+        for (String consulta : consultas) {
+            bh.consume(EnSerie.ruta(consulta));
+        }
+    }
+
+    @Benchmark
+    public void unaPasada(Blackhole bh) {
+        for (String consulta : consultas) {
+            bh.consume(ruta(IntencionMensaje.de(consulta)));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntencionMensajeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    static List<String> consultas() throws IOException {
+        try (InputStream in = new ClassPathResource("intenciones/consultas.txt").getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .map(String::trim)
+                    .filter(linea -> !linea.isEmpty() && !linea.startsWith("#"))
+                    .toList();
+        }
+    }
+
+    /** Mismo orden de decisiones que ChatbotVertexService.prepararTurno. */
+    static int ruta(IntencionMensaje intencion) {
+        int ruta = 0;
+        if (!intencion.comoHacer() && intencion.pedidoDatos() && intencion.normalizado().contains("presupuesto")) {
+            ruta |= 1 << 10;
+        }
+        if (intencion.saludo()) {
+            return ruta | 1;
+        }
+        if (intencion.preguntaAlcance() && !intencion.accionLocal()) {
+            return ruta | 2;
+        }
+        if (intencion.preguntaIdentidad()) {
+            return ruta | 3;
+        }
+        if (intencion.temporalAmbiguo() && !intencion.pedidoDatos()) {
+            return ruta | 4;
+        }
+        if (intencion.preguntaFecha()) {
+            return ruta | 5;
+        }
+        if (intencion.fueraDeAlcance()) {
+            return ruta | 6;
+        }
+        ruta |= bit(11, intencion.comoHacer() && !intencion.accionLocal());
+        ruta |= bit(12, intencion.preguntaUbicacion());
+        ruta |= bit(13, intencion.pedidoDatos() && !intencion.comoHacer());
+        ruta |= bit(14, intencion.variasConsultasDeDatos());
+        if (!intencion.comoHacer()) {
+            ruta |= bit(15, intencion.presupuesto());
+            ruta |= bit(16, !intencion.presupuesto() && intencion.pronostico());
+        }
+        if (intencion.presupuesto() && !intencion.comoHacer()) {
+            ruta |= bit(17, intencion.existenciaPresupuesto() || intencion.cantidadPresupuestos()
+                    || intencion.nombresPresupuestos());
+        }
+        ruta |= bit(18, intencion.comoHacer() && !intencion.accionLocal());
+        ruta |= bit(19, intencion.pedidoInterpretacion());
+        ruta |= bit(20, !(intencion.preguntaIdentidad() || intencion.preguntaFecha())
+                && !(intencion.pedidoDatos() && !intencion.comoHacer()));
+        return ruta | 7;
+    }
+
+    private static int bit(int posicion, boolean valor) {
+        return valor ? 1 << posicion : 0;
+    }
+
+    /** Los chequeos como estaban antes de IntencionMensaje: un regex y una normalización por llamada. */
+    static final class EnSerie {
+
+        private static final Pattern OUT_OF_SCOPE_PATTERN = Pattern.compile(
+                "(?i)\\b(" +
+                        "calcula|calcular|recalcula|recalcular|sumar|suma|restar|resta|" +
+                        "multiplicar|multiplica|dividir|divide|porcentaje|promedio|tasa|" +
+                        "variacion|crecimiento|simulacion|simula|estima|estimacion" +
+                        ")\\b");
+        private static final Pattern SCOPE_QUESTION_PATTERN = Pattern.compile(
+                "(?i)\\b(que podes hacer|que puedes hacer|cual es tu alcance|cu[aá]l es tu alcance|" +
+                        "para que servis|para que serv[íi]s|para qu[eé] serv[íi]s|ayuda|que haces)\\b");
+        private static final Pattern LOCAL_ACTION_PATTERN = Pattern.compile(
+                "(?i)\\b(que puedo hacer|que pod[eé]s hacer|que puedes hacer|que se puede hacer)\\b" +
+                        ".*\\b(aca|aqui|aquí|esta pantalla|este modulo|este módulo|esta seccion|esta sección|este lugar)\\b");
+        private static final Pattern LOCATION_QUESTION_PATTERN = Pattern.compile(
+                "(?i)\\b(donde estoy|en que modulo estoy|en qué modulo estoy|que modulo es este|" +
+                        "que m[oó]dulo es este|que pantalla es|en que pantalla estoy|en qué pantalla estoy|" +
+                        "que pantalla estoy viendo|que pantalla estoy|pantalla actual|que estoy viendo|que veo|" +
+                        "que veo aca|que veo aquí|que es esto que veo|donde estoy parado)\\b");
+        private static final Pattern GREETING_ONLY_PATTERN = Pattern.compile(
+                "(?i)^\\s*(hola|buenas|buenos dias|buen d[ií]a|buen dia|buenas tardes|buenas noches|hello|hey)\\s*[!.?]*\\s*$");
+        private static final Pattern INTERPRETATION_PATTERN = Pattern.compile(
+                "(?i)\\b(interpretaci[oó]n|interpretar|que significa|significa|lectura|analisis|análisis|explicaci[oó]n|explica|"
+                        +
+                        "que puedes decirme|que me puedes decir|que puedes decir|que me puedes contar|que ves en pantalla|sobre los datos|sobre estos datos)\\b");
+        private static final Pattern IDENTITY_QUESTION_PATTERN = Pattern.compile(
+                "(?i)\\b(qui[eé]n soy|mi nombre|nombre de usuario|mi usuario|usuario estoy usando|" +
+                        "mi cuenta|mi perfil|mi email|mi correo|mi mail|mi tel[ée]fono|mi telefono|mi celular)\\b");
+        private static final Pattern DATE_QUESTION_PATTERN = Pattern.compile(
+                "(?i)\\b(que fecha es|que dia es|que dia|fecha|dia|en que dia estamos|en que fecha estamos|que hora es|hora)\\b");
+        private static final Pattern EXPLICIT_DATE_TIME_PATTERN = Pattern.compile(
+                "(?i)\\b(que fecha es|que dia es|en que dia estamos|en que fecha estamos|que hora es|hora actual|fecha actual|fecha de hoy|dia de hoy|hoy es)\\b");
+        private static final Pattern DATE_ONLY_PATTERN = Pattern.compile(
+                "(?i)^\\s*(fecha|dia|hora|que fecha|que dia|que hora)\\s*[?.!]*\\s*$");
+        private static final Pattern TEMPORAL_WORD_PATTERN = Pattern.compile(
+                "(?i)\\b(hoy|ahora|en este momento|en este instante|actualmente|reciente|recientes)\\b");
+        private static final Pattern AMBIGUOUS_TEMPORAL_PATTERN = Pattern.compile(
+                "(?i)^\\s*(hoy|ahora|en este momento|en este instante|actualmente|lo de hoy|lo de ahora|lo de este momento)\\s*[?.!]*\\s*$");
+        private static final Pattern DATA_REQUEST_PATTERN = Pattern.compile(
+                "(?i)\\b(cuanto|cuantos|monto|importe|total|saldo|balance|caja|plata|dinero|efectivo|resultado|ingresos|egresos|"
+                        +
+                        "cash ?flow|flujo de caja|p&l|pyl|presupuesto|presupuestos|factura|facturas|" +
+                        "cobro|cobros|pago|pagos|movimiento|movimientos|reporte|reportes|estado de resultados|" +
+                        "deuda|deudas|acreencia|acreencias|kpi|indicador|indicadores|numero|numeros|" +
+                        "pendiente|pendientes|recordatorio|recordatorios|notificacion|notificaciones|" +
+                        "pronostico|pronosticos|forecast|conciliado|conciliados|conciliar|conciliacion|" +
+                        "movimento|movimentos|otro|otra|mas|más|siguiente|dolar|dolares|usd|ars|peso|pesos|u\\$s)\\b");
+        private static final Pattern HOW_TO_PATTERN = Pattern.compile(
+                "(?i)\\b(pasos|procedimiento|instrucciones|guia|tutorial|ayuda|" +
+                        "como hago|como puedo|dime como|dime donde|que hace|para que sirve|" +
+                        "donde encuentro|donde esta|configurar|activar|desactivar|crear|" +
+                        "editar|cargar|importar|conciliar|generar)\\b");
+        private static final Pattern BUDGET_PATTERN = Pattern.compile("(?i)\\bpresupuesto(s)?\\b");
+        private static final Pattern PRONOSTICO_PATTERN = Pattern.compile("(?i)\\b(pronostico|pronosticos|forecast)\\b");
+        private static final Pattern BUDGET_EXISTENCE_PATTERN = Pattern.compile(
+                "(?i)\\b(tengo|tenes|hay|existe|existen|alg[uú]n|alguna|alguno|ningun|ningÃºn|ninguna)\\b");
+        private static final Pattern BUDGET_COUNT_PATTERN = Pattern.compile(
+                "(?i)\\b(cuantos|cuÃ¡ntos|cantidad|numero|nÃºmero)\\b");
+
+        static int ruta(String m) {
+            int ruta = 0;
+            if (!isHowToQuestion(m) && isDataRequest(m) && normalizeKey(m).contains("presupuesto")) {
+                ruta |= 1 << 10;
+            }
+            if (GREETING_ONLY_PATTERN.matcher(m.trim()).matches()) {
+                return ruta | 1;
+            }
+            if (SCOPE_QUESTION_PATTERN.matcher(m).find() && !LOCAL_ACTION_PATTERN.matcher(m).find()) {
+                return ruta | 2;
+            }
+            if (IDENTITY_QUESTION_PATTERN.matcher(m).find()) {
+                return ruta | 3;
+            }
+            if (isAmbiguousTemporal(m) && !isDataRequest(m)) {
+                return ruta | 4;
+            }
+            if (isDateQuestion(m)) {
+                return ruta | 5;
+            }
+            if (OUT_OF_SCOPE_PATTERN.matcher(m).find()) {
+                return ruta | 6;
+            }
+            ruta |= bit(11, isHowToQuestion(m) && !LOCAL_ACTION_PATTERN.matcher(m).find());
+            ruta |= bit(12, LOCATION_QUESTION_PATTERN.matcher(m).find());
+            ruta |= bit(13, isDataRequest(m) && !isHowToQuestion(m));
+            ruta |= bit(14, hasMultipleDataIntents(m));
+            if (!isHowToQuestion(m)) {
+                ruta |= bit(15, BUDGET_PATTERN.matcher(m).find());
+                ruta |= bit(16, !BUDGET_PATTERN.matcher(m).find() && PRONOSTICO_PATTERN.matcher(m).find());
+            }
+            if (BUDGET_PATTERN.matcher(m).find() && !isHowToQuestion(m)) {
+                ruta |= bit(17, isBudgetExistenceQuestion(m) || isBudgetCountQuestion(m) || wantsBudgetNames(m));
+            }
+            ruta |= bit(18, isHowToQuestion(m) && !LOCAL_ACTION_PATTERN.matcher(m).find());
+            ruta |= bit(19, INTERPRETATION_PATTERN.matcher(m).find());
+            ruta |= bit(20, !(IDENTITY_QUESTION_PATTERN.matcher(m).find() || isDateQuestion(m))
+                    && !(isDataRequest(m) && !isHowToQuestion(m)));
+            return ruta | 7;
+        }
+
+        private static boolean isDataRequest(String message) {
+            if (DATA_REQUEST_PATTERN.matcher(message).find()) {
+                return true;
+            }
+            String normalized = normalizeKey(message);
+            return !normalized.isEmpty() && DATA_REQUEST_PATTERN.matcher(normalized).find();
+        }
+
+        private static boolean isHowToQuestion(String message) {
+            if (HOW_TO_PATTERN.matcher(message).find()) {
+                return true;
+            }
+            String normalized = normalizeKey(message);
+            return !normalized.isEmpty() && HOW_TO_PATTERN.matcher(normalized).find();
+        }
+
+        private static boolean isAmbiguousTemporal(String message) {
+            if (AMBIGUOUS_TEMPORAL_PATTERN.matcher(message.trim()).matches()) {
+                return true;
+            }
+            String normalized = normalizeKey(message);
+            if (matchesAny(normalized, "lo de hoy", "lo de ahora", "lo de este momento")) {
+                return true;
+            }
+            return TEMPORAL_WORD_PATTERN.matcher(normalized).find()
+                    && !isDataRequest(message)
+                    && !EXPLICIT_DATE_TIME_PATTERN.matcher(normalized).find();
+        }
+
+        private static boolean isDateQuestion(String message) {
+            if (LOCATION_QUESTION_PATTERN.matcher(message).find()) {
+                return false;
+            }
+            String trimmed = message.trim();
+            if (AMBIGUOUS_TEMPORAL_PATTERN.matcher(trimmed).matches()) {
+                return false;
+            }
+            if (DATE_ONLY_PATTERN.matcher(trimmed).matches()) {
+                return true;
+            }
+            if (isDataRequest(message) || isHowToQuestion(message) || INTERPRETATION_PATTERN.matcher(message).find()) {
+                return false;
+            }
+            if (EXPLICIT_DATE_TIME_PATTERN.matcher(trimmed).find()) {
+                return true;
+            }
+            String normalized = normalizeKey(message);
+            if (!normalized.isEmpty()) {
+                if (matchesAny(normalized,
+                        "que fecha es", "que dia es", "que hora es",
+                        "en que fecha estamos", "en que dia estamos",
+                        "fecha actual", "fecha de hoy", "dia de hoy", "hora actual")) {
+                    return true;
+                }
+                return DATE_QUESTION_PATTERN.matcher(normalized).find();
+            }
+            return false;
+        }
+
+        private static boolean isConciliationQuery(String message) {
+            String normalized = normalizeKey(message);
+            if (matchesAny(normalized, "recordatorio", "recordatorios", "notificacion", "notificaciones")) {
+                return false;
+            }
+            boolean hasConciliation = matchesAny(normalized, "conciliacion", "conciliar", "sin conciliar", "conciliado",
+                    "conciliados");
+            boolean hasPending = matchesAny(normalized, "pendiente", "pendientes");
+            boolean hasPayment = matchesAny(normalized, "pago", "pagos", "cobro", "cobros", "factura", "facturas",
+                    "movimiento", "movimientos");
+            return hasConciliation || (hasPending && hasPayment);
+        }
+
+        private static boolean hasMultipleDataIntents(String message) {
+            String normalized = normalizeKey(message);
+            boolean hasConjunction = normalized.contains(" y ")
+                    || normalized.contains("ademas")
+                    || normalized.contains("tambien")
+                    || normalized.contains("junto con");
+            if (!hasConjunction) {
+                return false;
+            }
+            boolean hasCashflow = matchesAny(normalized, "flujo de caja", "cashflow", "cash flow");
+            boolean hasBalance = matchesAny(normalized, "saldo", "balance", "caja", "plata", "dinero", "efectivo");
+            boolean hasMovements = matchesAny(normalized, "movimiento", "movimientos");
+            boolean hasBudgets = matchesAny(normalized, "presupuesto", "presupuestos");
+            boolean hasInvoices = matchesAny(normalized, "factura", "facturas");
+            boolean hasConciliation = isConciliationQuery(message);
+            boolean hasReport = matchesAny(normalized, "ingreso", "ingresos", "egreso", "egresos",
+                    "reporte", "estado de resultados", "resultado", "pyl", "p&l");
+            int intents = 0;
+            if (hasCashflow || hasBalance) {
+                intents++;
+            }
+            if (hasConciliation || hasMovements) {
+                intents++;
+            }
+            if (hasBudgets) {
+                intents++;
+            }
+            if (hasInvoices) {
+                intents++;
+            }
+            if (!hasCashflow && hasReport) {
+                intents++;
+            }
+            return intents >= 2;
+        }
+
+        private static boolean isBudgetExistenceQuestion(String message) {
+            String lower = message.toLowerCase();
+            return lower.contains("presupuesto") && BUDGET_EXISTENCE_PATTERN.matcher(lower).find();
+        }
+
+        private static boolean isBudgetCountQuestion(String message) {
+            String lower = message.toLowerCase();
+            return lower.contains("presupuesto") && BUDGET_COUNT_PATTERN.matcher(lower).find();
+        }
+
+        private static boolean wantsBudgetNames(String message) {
+            String lower = message.toLowerCase();
+            return lower.contains("presupuesto") && matchesAny(lower, "nombre", "nombres", "se llama", "se llaman",
+                    "como se llama", "cómo se llama");
+        }
+
+        private static String normalizeKey(String value) {
+            String normalized = java.text.Normalizer.normalize(value.toLowerCase(), java.text.Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "");
+            normalized = normalized.replaceAll("[^a-z0-9 ]", " ").trim();
+            return normalized.replaceAll("\\s+", " ");
+        }
+
+        private static boolean matchesAny(String haystack, String... needles) {
+            for (String needle : needles) {
+                if (haystack.contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
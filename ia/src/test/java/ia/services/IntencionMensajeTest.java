@@ -0,0 +1,28 @@
+package ia.services;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link IntencionMensaje} tiene que llevar cada consulta típica del chat por la misma ruta que la
+ * cadena de chequeos anterior ({@link IntencionMensajeBenchmark.EnSerie}).
+ */
+class IntencionMensajeTest {
+
+    static List<String> consultas() throws IOException {
+        return IntencionMensajeBenchmark.consultas();
+    }
+
+    @ParameterizedTest
+    @MethodSource("consultas")
+    void eligeLaMismaRutaQueLaCadenaAnterior(String consulta) {
+        assertEquals(IntencionMensajeBenchmark.EnSerie.ruta(consulta),
+                IntencionMensajeBenchmark.ruta(IntencionMensaje.de(consulta)),
+                () -> "Ruta distinta para: " + consulta);
+    }
+}
@@ -0,0 +1,51 @@
+package notificacion.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import notificacion.models.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Alinea la tabla notifications_seq con los ids ya existentes en notifications.
+ * Las filas históricas se crearon con AUTO_INCREMENT; sin este ajuste el generador
+ * por tabla arrancaría en 1 y chocaría con ellas.
+ */
+@Component
+public class NotificationIdGeneratorInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationIdGeneratorInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Se inyecta el EntityManagerFactory para correr después de que Hibernate haya creado/actualizado el esquema
+    public NotificationIdGeneratorInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alinearGenerador() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM notifications", Long.class);
+        long siguiente = (maxId != null ? maxId : 0L) + 1;
+
+        List<Long> actual = jdbcTemplate.queryForList(
+                "SELECT next_val FROM " + Notification.ID_GENERATOR_TABLE + " WHERE sequence_name = ?",
+                Long.class, Notification.ID_GENERATOR_KEY);
+
+        if (actual.isEmpty()) {
+            jdbcTemplate.update(
+                    "INSERT INTO " + Notification.ID_GENERATOR_TABLE + " (sequence_name, next_val) VALUES (?, ?)",
+                    Notification.ID_GENERATOR_KEY, siguiente);
+            log.info("Generador de ids de notifications inicializado en {}", siguiente);
+        } else if (actual.get(0) == null || actual.get(0) < siguiente) {
+            jdbcTemplate.update(
+                    "UPDATE " + Notification.ID_GENERATOR_TABLE + " SET next_val = ? WHERE sequence_name = ?",
+                    siguiente, Notification.ID_GENERATOR_KEY);
+            log.info("Generador de ids de notifications adelantado a {}", siguiente);
+        }
+    }
+}
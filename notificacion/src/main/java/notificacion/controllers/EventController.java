@@ -3,17 +3,36 @@ package notificacion.controllers;
 import jakarta.validation.Valid;
 import notificacion.dtos.*;
 import notificacion.services.EventService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/events")
 public class EventController {
 
     private final EventService eventService;
+    private final int batchMaxSize;
 
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService,
+                           @Value("${notifications.events.batch-max-size:1000}") int batchMaxSize) {
         this.eventService = eventService;
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    /**
+     * Varios eventos, de cualquier tipo, en una sola llamada. Responde 202 con el detalle
+     * de los que no se pudieron procesar; el resto ya quedó registrado.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchEventResponse> onBatch(@RequestBody List<BatchEvent> events) {
+        if (events.size() > batchMaxSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.accepted().body(eventService.handleBatch(events));
     }
 
     @PostMapping("/movements")
@@ -0,0 +1,13 @@
+package notificacion.dtos;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Evento dentro de una llamada a /api/events/batch.
+ * type es la ruta del endpoint individual sin el prefijo /api/events/
+ * ("movements", "movements/imported", "budget-created", ...) y payload su cuerpo.
+ */
+public record BatchEvent(
+        String type,
+        JsonNode payload
+) {}
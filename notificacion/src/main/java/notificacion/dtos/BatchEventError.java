@@ -0,0 +1,7 @@
+package notificacion.dtos;
+
+public record BatchEventError(
+        int index,        // posición en el array recibido
+        String type,
+        String error
+) {}
@@ -0,0 +1,11 @@
+package notificacion.dtos;
+
+import java.util.List;
+
+public record BatchEventResponse(
+        int received,
+        int processed,
+        int notificationsCreated,
+        List<BatchEventError> rejected,   // inválidos: reenviarlos no cambia el resultado
+        List<BatchEventError> failed      // errores transitorios (ej. administracion caído): se pueden reintentar
+) {}
@@ -13,8 +13,20 @@ import java.time.Instant;
 })
 public class Notification {
 
+    // Ids por tabla (no IDENTITY) para que Hibernate pueda agrupar los INSERT de la ingesta por lote
+    public static final String ID_GENERATOR_TABLE = "notifications_seq";
+    public static final String ID_GENERATOR_KEY = "notifications";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "notifications_id")
+    @TableGenerator(
+            name = "notifications_id",
+            table = ID_GENERATOR_TABLE,
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = ID_GENERATOR_KEY,
+            allocationSize = ID_ALLOCATION_SIZE)
     @Getter
     @Setter
     private Long id;
@@ -13,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -22,6 +23,14 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
         String getUsuarioId();
     }
 
+    interface NotificationKey {
+        Long getOrganizacionId();
+        String getUsuarioId();
+        NotificationType getType();
+        String getResourceId();
+        Instant getCreatedAt();
+    }
+
     Page<Notification> findByOrganizacionIdAndUsuarioIdOrderByCreatedAtDesc(Long organizacionId, String usuarioId, Pageable pageable);
 
     Page<Notification> findByOrganizacionIdAndUsuarioIdAndIsReadFalseOrderByCreatedAtDesc(Long organizacionId, String usuarioId, Pageable pageable);
@@ -41,6 +50,22 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
             Instant to
     );
 
+    /**
+     * Notificaciones ya guardadas que pueden repetir alguna de un lote: una sola consulta
+     * para todo el lote en lugar de un exists por notificación. El cruce exacto por
+     * usuario, tipo y día lo hace quien llama.
+     */
+    @Query("SELECT n.organizacionId AS organizacionId, n.usuarioId AS usuarioId, n.type AS type, " +
+           "n.resourceId AS resourceId, n.createdAt AS createdAt " +
+           "FROM Notification n " +
+           "WHERE n.organizacionId IN :organizacionIds " +
+           "AND n.resourceId IN :resourceIds " +
+           "AND n.createdAt BETWEEN :start AND :end")
+    List<NotificationKey> findKeysForDedupe(@Param("organizacionIds") Collection<Long> organizacionIds,
+                                            @Param("resourceIds") Collection<String> resourceIds,
+                                            @Param("start") Instant start,
+                                            @Param("end") Instant end);
+
     @Query("SELECT DISTINCT n.organizacionId AS organizacionId, n.usuarioId AS usuarioId " +
            "FROM Notification n " +
            "WHERE n.createdAt BETWEEN :start AND :end")
@@ -1,40 +1,63 @@
 package notificacion.services;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import notificacion.dtos.UsuarioAdministracionDTO;
+import clientehttp.EmpresaPorUsuarioCache;
+import clientehttp.EmpresaPorUsuarioCache.Resolucion;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AdministracionService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final EmpresaPorUsuarioCache empresaPorUsuarioCache;
 
     @Value("${mycfo.administracion.url}")
     private String administracionUrl;
 
+    public AdministracionService(RestTemplateBuilder restTemplateBuilder,
+                                 EmpresaPorUsuarioCache empresaPorUsuarioCache,
+                                 @Value("${mycfo.administracion.timeout:3s}") Duration timeout) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(timeout)
+                .readTimeout(timeout)
+                .build();
+        this.empresaPorUsuarioCache = empresaPorUsuarioCache;
+    }
+
+    // Cacheada por sub (ver EmpresaPorUsuarioCache)
     public Long obtenerEmpresaIdPorUsuarioSub(String usuarioSub) {
+        Resolucion resolucion = empresaPorUsuarioCache.obtener(usuarioSub, this::consultarEmpresa);
+        if (!resolucion.tieneEmpresa()) {
+            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+        }
+        return resolucion.empresaId();
+    }
+
+    private Resolucion consultarEmpresa(String usuarioSub) {
         try {
             String url = administracionUrl + "/api/empresas/usuario/" + usuarioSub + "/id";
-            log.info("Consultando administración para obtener empresa del usuario {}", usuarioSub);
+            log.debug("Consultando administración para obtener empresa del usuario {}", usuarioSub);
             Long empresaId = restTemplate.getForObject(url, Long.class);
 
             if (empresaId == null) {
-                throw new RuntimeException("El usuario no tiene empresa asociada");
+                log.warn("Usuario {} sin empresa asociada", usuarioSub);
+                return Resolucion.SIN_EMPRESA;
             }
 
-            return empresaId;
+            return new Resolucion(empresaId);
         } catch (HttpClientErrorException.NotFound e) {
-            log.error("Usuario {} no encontrado en administración", usuarioSub);
-            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+            log.warn("Usuario {} no encontrado en administración", usuarioSub);
+            return Resolucion.SIN_EMPRESA;
         } catch (Exception e) {
             log.error("Error obteniendo empresa para {}: {}", usuarioSub, e.getMessage());
             throw new RuntimeException("Error al comunicarse con administración", e);
@@ -1,5 +1,8 @@
 package notificacion.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import notificacion.dtos.*;
 import notificacion.models.Notification;
 import notificacion.models.NotificationPreferences;
@@ -7,6 +10,7 @@ import notificacion.models.NotificationType;
 import notificacion.models.ResourceType;
 import notificacion.models.Severity;
 import notificacion.repositories.NotificationRepository;
+import notificacion.repositories.NotificationRepository.NotificationKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,8 +18,18 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class EventService {
@@ -24,6 +38,17 @@ public class EventService {
     private final NotificationService notificationService;
     private final AdministracionService administracionService;
     private final NotificationPreferencesService preferencesService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    // Manejadores por tipo de evento de /api/events/batch (misma ruta que el endpoint individual)
+    private final Map<String, Manejador<?>> manejadores = new HashMap<>();
+
+    // Lote en curso en este hilo; null fuera de handleBatch
+    private final ThreadLocal<LoteEventos> loteEnCurso = new ThreadLocal<>();
+
+    // Tamaño de cada IN (...) de la consulta de duplicados
+    private static final int DEDUPE_CHUNK = 500;
 
     @Value("${notifications.default-user-id:demo-user}")
     private String defaultUsuarioId;
@@ -37,27 +62,174 @@ public class EventService {
     public EventService(NotificationRepository repo,
                         NotificationService notificationService,
                         AdministracionService administracionService,
-                        NotificationPreferencesService preferencesService) {
+                        NotificationPreferencesService preferencesService,
+                        ObjectMapper objectMapper,
+                        Validator validator) {
         this.repo = repo;
         this.notificationService = notificationService;
         this.administracionService = administracionService;
         this.preferencesService = preferencesService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+
+        registrar("movements", MovementCreatedEvent.class, this::handleMovementCreated);
+        registrar("movements/imported", MovementImportEvent.class, this::handleMovementsImported);
+        registrar("movements/duplicate", MovementDuplicateEvent.class, this::handleMovementDuplicate);
+        registrar("accounts/mp-linked", AccountMpLinkedEvent.class, this::handleMpLinked);
+        registrar("budget-created", BudgetCreatedEvent.class, this::handleBudgetCreated);
+        registrar("budget-deleted", BudgetDeletedEvent.class, this::handleBudgetDeleted);
+        registrar("budget-exceeded", BudgetExceededEvent.class, this::handleBudgetExceeded);
+        registrar("report-generated", ReportGeneratedEvent.class, this::handleReportGenerated);
+        registrar("reports/anomaly", ReportGeneratedEvent.class, this::handleReportAnomaly);
+        registrar("cashflow-alert", CashFlowAlertEvent.class, this::handleCashFlowAlert);
+        registrar("budget-warning", BudgetWarningEvent.class, this::handleBudgetWarning);
+        registrar("budget-missing-category", BudgetMissingCategoryEvent.class, this::handleBudgetMissingCategory);
+        registrar("bill-due", BillDueEvent.class, this::handleBillDue);
+        registrar("reconciliation-stale", ReconciliationStaleEvent.class, this::handleReconciliationStale);
+        registrar("reminders/deadline", ReminderDeadlineEvent.class, this::handleReminderDeadline);
+        registrar("reminders/created", ReminderCreatedEvent.class, this::handleReminderCreated);
+        registrar("forecast/reminder", ForecastReminderEvent.class, this::handleForecastReminder);
+        registrar("conciliation/reminder", ConciliationReminderEvent.class, this::handleConciliationReminder);
+        registrar("custom-reminder", CustomReminderEvent.class, this::handleCustomReminder);
+    }
+
+    /**
+     * Procesa un lote de eventos de distintos tipos con los mismos manejadores que los
+     * endpoints individuales, pero: cada usuario y empresa se resuelve contra administracion
+     * una sola vez, las notificaciones candidatas se deduplican con una consulta para todo
+     * el lote y se insertan juntas. Un evento inválido no frena al resto.
+     */
+    public BatchEventResponse handleBatch(List<BatchEvent> events) {
+        LoteEventos lote = new LoteEventos();
+        List<BatchEventError> rejected = new ArrayList<>();
+        List<BatchEventError> failed = new ArrayList<>();
+
+        loteEnCurso.set(lote);
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                BatchEvent event = events.get(i);
+                String type = event != null ? event.type() : null;
+                try {
+                    procesar(event);
+                } catch (IllegalArgumentException e) {
+                    // Solo los errores de validación son definitivos; cualquier otro se puede reintentar
+                    rejected.add(new BatchEventError(i, type, e.getMessage()));
+                } catch (RuntimeException e) {
+                    failed.add(new BatchEventError(i, type, e.getMessage()));
+                }
+            }
+        } finally {
+            loteEnCurso.remove();
+        }
+
+        int created = guardarPendientes(lote.pendientes);
+        return new BatchEventResponse(events.size(), events.size() - rejected.size() - failed.size(),
+                created, rejected, failed);
+    }
+
+    private void procesar(BatchEvent event) {
+        if (event == null || event.type() == null || event.payload() == null) {
+            throw new IllegalArgumentException("type y payload son obligatorios");
+        }
+        Manejador<?> manejador = manejadores.get(event.type());
+        if (manejador == null) {
+            throw new IllegalArgumentException("Tipo de evento desconocido: " + event.type());
+        }
+        manejador.procesar(event);
+    }
+
+    /**
+     * Guarda las notificaciones candidatas del lote que no existan ya (mismo usuario, tipo,
+     * recurso y día, igual que saveIfNew). Devuelve cuántas se crearon.
+     */
+    private int guardarPendientes(List<Notification> candidatas) {
+        if (candidatas.isEmpty()) {
+            return 0;
+        }
+
+        // Duplicados dentro del propio lote
+        Map<List<Object>, Notification> porClave = new LinkedHashMap<>();
+        candidatas.forEach(n -> porClave.putIfAbsent(clave(n.getOrganizacionId(), n.getUsuarioId(),
+                n.getType(), n.getResourceId(), n.getCreatedAt()), n));
+
+        // Duplicados contra lo ya guardado: una consulta por bloque de recursos
+        Set<Long> organizaciones = candidatas.stream().map(Notification::getOrganizacionId).collect(Collectors.toSet());
+        List<String> recursos = candidatas.stream().map(Notification::getResourceId)
+                .filter(Objects::nonNull).distinct().toList();
+        Instant desde = candidatas.stream().map(Notification::getCreatedAt).min(Instant::compareTo).orElseThrow()
+                .truncatedTo(ChronoUnit.DAYS);
+        Instant hasta = candidatas.stream().map(Notification::getCreatedAt).max(Instant::compareTo).orElseThrow()
+                .truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+
+        Set<List<Object>> existentes = new HashSet<>();
+        for (int i = 0; i < recursos.size(); i += DEDUPE_CHUNK) {
+            List<String> bloque = recursos.subList(i, Math.min(i + DEDUPE_CHUNK, recursos.size()));
+            for (NotificationKey existente : repo.findKeysForDedupe(organizaciones, bloque, desde, hasta)) {
+                existentes.add(clave(existente.getOrganizacionId(), existente.getUsuarioId(),
+                        existente.getType(), existente.getResourceId(), existente.getCreatedAt()));
+                // saveIfNew usa BETWEEN: lo creado justo a medianoche cuenta también para el día anterior
+                if (existente.getCreatedAt().equals(existente.getCreatedAt().truncatedTo(ChronoUnit.DAYS))) {
+                    existentes.add(clave(existente.getOrganizacionId(), existente.getUsuarioId(), existente.getType(),
+                            existente.getResourceId(), existente.getCreatedAt().minus(1, ChronoUnit.DAYS)));
+                }
+            }
+        }
+        porClave.keySet().removeAll(existentes);
+
+        return notificationService.createAll(new ArrayList<>(porClave.values()));
+    }
+
+    private static List<Object> clave(Long organizacionId, String usuarioId, NotificationType type,
+                                      String resourceId, Instant createdAt) {
+        return Arrays.asList(organizacionId, usuarioId, type, resourceId,
+                createdAt.truncatedTo(ChronoUnit.DAYS));
+    }
+
+    private static <T> T obligatorio(T valor, String mensaje) {
+        if (valor == null) {
+            throw new IllegalArgumentException(mensaje);
+        }
+        return valor;
+    }
+
+    private <T> void registrar(String type, Class<T> clase, Consumer<T> accion) {
+        manejadores.put(type, new Manejador<>(clase, accion));
+    }
+
+    private final class Manejador<T> {
+        private final Class<T> clase;
+        private final Consumer<T> accion;
+
+        private Manejador(Class<T> clase, Consumer<T> accion) {
+            this.clase = clase;
+            this.accion = accion;
+        }
+
+        void procesar(BatchEvent event) {
+            T evt = objectMapper.convertValue(event.payload(), clase);
+            Set<ConstraintViolation<T>> violaciones = validator.validate(evt);
+            if (!violaciones.isEmpty()) {
+                throw new IllegalArgumentException(violaciones.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .collect(Collectors.joining(", ")));
+            }
+            accion.accept(evt);
+        }
     }
 
     @Transactional
     public void handleMovementCreated(MovementCreatedEvent evt) {
         TenantContext baseCtx = resolveTenant(evt.userId());
-        String refId = Objects.requireNonNull(evt.refId(), "refId es obligatorio");
+        String refId = obligatorio(evt.refId(), "refId es obligatorio");
         Instant createdAt = evt.date() != null ? evt.date() : Instant.now();
         boolean isIncome = evt.amount() != null && evt.amount().signum() >= 0;
 
         forEachUserInEmpresa(baseCtx.organizacionId(), ctx -> {
-            BigDecimal threshold = preferencesService
-                    .getPreferences(ctx.organizacionId(), ctx.usuarioId())
+            Optional<NotificationPreferences> prefs = preferencias(ctx);
+            BigDecimal threshold = prefs
                     .map(NotificationPreferences::getMovementHighThreshold)
                     .orElse(highThreshold);
-            BigDecimal thresholdUsd = preferencesService
-                    .getPreferences(ctx.organizacionId(), ctx.usuarioId())
+            BigDecimal thresholdUsd = prefs
                     .map(NotificationPreferences::getMovementHighThresholdUsd)
                     .orElse(highThresholdUsd);
 
@@ -81,8 +253,8 @@ public class EventService {
     @Transactional
     public void handleBudgetCreated(BudgetCreatedEvent evt) {
         TenantContext baseCtx = resolveTenant(evt.userId());
-        Long budgetId = Objects.requireNonNull(evt.budgetId(), "budgetId es obligatorio");
-        String budgetName = Objects.requireNonNull(evt.budgetName(), "budgetName es obligatorio");
+        Long budgetId = obligatorio(evt.budgetId(), "budgetId es obligatorio");
+        String budgetName = obligatorio(evt.budgetName(), "budgetName es obligatorio");
 
         Instant now = Instant.now();
         forEachUserInEmpresa(baseCtx.organizacionId(), ctx -> {
@@ -120,8 +292,8 @@ public class EventService {
     @Transactional
     public void handleBudgetDeleted(BudgetDeletedEvent evt) {
         TenantContext baseCtx = resolveTenant(evt.userId());
-        Long budgetId = Objects.requireNonNull(evt.budgetId(), "budgetId es obligatorio");
-        String budgetName = Objects.requireNonNull(evt.budgetName(), "budgetName es obligatorio");
+        Long budgetId = obligatorio(evt.budgetId(), "budgetId es obligatorio");
+        String budgetName = obligatorio(evt.budgetName(), "budgetName es obligatorio");
 
         Instant now = Instant.now();
         forEachUserInEmpresa(baseCtx.organizacionId(), ctx -> {
@@ -453,6 +625,22 @@ public class EventService {
             String body,
             Severity severity,
             Instant createdAt) {
+        Notification notification = buildBaseNotification(ctx);
+        notification.setType(type);
+        notification.setTitle(title);
+        notification.setBody(body);
+        notification.setSeverity(severity);
+        notification.setResourceType(resourceType);
+        notification.setResourceId(resourceId);
+        notification.setCreatedAt(createdAt);
+
+        LoteEventos lote = loteEnCurso.get();
+        if (lote != null) {
+            // En un lote la deduplicación y el guardado se hacen al final, para todas juntas
+            lote.pendientes.add(notification);
+            return;
+        }
+
         Instant start = createdAt.truncatedTo(ChronoUnit.DAYS);
         Instant end = start.plus(1, ChronoUnit.DAYS);
 
@@ -467,15 +655,6 @@ public class EventService {
             return;
         }
 
-        Notification notification = buildBaseNotification(ctx);
-        notification.setType(type);
-        notification.setTitle(title);
-        notification.setBody(body);
-        notification.setSeverity(severity);
-        notification.setResourceType(resourceType);
-        notification.setResourceId(resourceId);
-        notification.setCreatedAt(createdAt);
-
         // Usamos el servicio para que aplique validaciones y envÃ­e email si corresponde
         notificationService.create(notification);
     }
@@ -493,7 +672,10 @@ public class EventService {
     }
 
     private void forEachUserInEmpresa(Long organizacionId, java.util.function.Consumer<TenantContext> consumer) {
-        List<UsuarioAdministracionDTO> usuarios = administracionService.obtenerUsuariosPorEmpresaId(organizacionId);
+        LoteEventos lote = loteEnCurso.get();
+        List<UsuarioAdministracionDTO> usuarios = lote != null
+                ? lote.usuariosPorEmpresa.computeIfAbsent(organizacionId, administracionService::obtenerUsuariosPorEmpresaId)
+                : administracionService.obtenerUsuariosPorEmpresaId(organizacionId);
         if (usuarios == null || usuarios.isEmpty()) {
             return;
         }
@@ -508,19 +690,53 @@ public class EventService {
 
     private TenantContext resolveTenant(String userIdFromEvent) {
         String usuarioId = userIdFromEvent != null ? userIdFromEvent : defaultUsuarioId;
-        Long organizacionId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioId);
-        return new TenantContext(organizacionId, usuarioId);
+        return new TenantContext(empresaDeUsuario(usuarioId), usuarioId);
     }
 
     // MÃ©todo sobrecargado para compatibilidad con eventos que usan Long userId
     private TenantContext resolveTenant(Long userIdFromEvent) {
         String usuarioId = userIdFromEvent != null ? userIdFromEvent.toString() : defaultUsuarioId;
-        Long organizacionId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioId);
-        return new TenantContext(organizacionId, usuarioId);
+        return new TenantContext(empresaDeUsuario(usuarioId), usuarioId);
+    }
+
+    private Long empresaDeUsuario(String usuarioId) {
+        LoteEventos lote = loteEnCurso.get();
+        if (lote == null) {
+            return administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioId);
+        }
+        // Una sola consulta a administracion por usuario en todo el lote, también si falla
+        RuntimeException error = lote.erroresPorUsuario.get(usuarioId);
+        if (error != null) {
+            throw error;
+        }
+        try {
+            return lote.empresaPorUsuario.computeIfAbsent(usuarioId, administracionService::obtenerEmpresaIdPorUsuarioSub);
+        } catch (RuntimeException e) {
+            lote.erroresPorUsuario.put(usuarioId, e);
+            throw e;
+        }
+    }
+
+    private Optional<NotificationPreferences> preferencias(TenantContext ctx) {
+        LoteEventos lote = loteEnCurso.get();
+        if (lote == null) {
+            return preferencesService.getPreferences(ctx.organizacionId(), ctx.usuarioId());
+        }
+        return lote.preferencias.computeIfAbsent(ctx,
+                c -> preferencesService.getPreferences(c.organizacionId(), c.usuarioId()));
     }
 
     private record TenantContext(Long organizacionId, String usuarioId) {
     }
+
+    /** Lo que se resuelve una vez por lote y las notificaciones que quedan para guardar al final. */
+    private static final class LoteEventos {
+        private final Map<String, Long> empresaPorUsuario = new HashMap<>();
+        private final Map<String, RuntimeException> erroresPorUsuario = new HashMap<>();
+        private final Map<Long, List<UsuarioAdministracionDTO>> usuariosPorEmpresa = new HashMap<>();
+        private final Map<TenantContext, Optional<NotificationPreferences>> preferencias = new HashMap<>();
+        private final List<Notification> pendientes = new ArrayList<>();
+    }
 }
 
 
@@ -1,26 +1,47 @@
 // src/main/java/notificacion/services/NotificationService.java
 package notificacion.services;
 
+import lombok.extern.slf4j.Slf4j;
 import notificacion.dtos.NotificationDTO;
 import notificacion.dtos.NotificationListResponse;
 import notificacion.mappers.NotificationMapper;
 import notificacion.models.Notification;
+import notificacion.models.NotificationPreferences;
 import notificacion.models.NotificationType;
 import notificacion.models.Severity;
 import notificacion.repositories.NotificationRepository;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
-public class NotificationService {
+@Slf4j
+public class NotificationService implements DisposableBean {
 
     private final NotificationRepository repo;
     private final EmailNotificationService emailService;
     private final NotificationPreferencesService preferencesService;
 
+    // Los mails salen después del commit y fuera del hilo del request (SMTP es lento)
+    private final ExecutorService mailExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "notificacion-mail");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
     public NotificationService(NotificationRepository repo,
                                EmailNotificationService emailService,
                                NotificationPreferencesService preferencesService) {
@@ -113,18 +134,74 @@ public class NotificationService {
         }
 
         Notification saved = repo.save(notification);
+        enviarEmailsTrasCommit(List.of(saved));
+
+        publishUnreadCount(notification.getOrganizacionId(), notification.getUsuarioId());
+        return NotificationMapper.toDTO(saved);
+    }
+
+    /**
+     * Igual que {@link #create} para muchas notificaciones: las preferencias se leen una vez
+     * por usuario y los INSERT se agrupan en batch. Devuelve cuántas se guardaron.
+     */
+    @Transactional
+    public int createAll(List<Notification> notifications) {
+        Map<List<Object>, Optional<NotificationPreferences>> prefsPorUsuario = new HashMap<>();
+        List<Notification> habilitadas = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            if (notification.getOrganizacionId() == null || notification.getUsuarioId() == null) {
+                throw new IllegalArgumentException("La notificacion debe incluir organizacion y usuario.");
+            }
+            Optional<NotificationPreferences> prefs = prefsPorUsuario.computeIfAbsent(
+                    List.of(notification.getOrganizacionId(), notification.getUsuarioId()),
+                    k -> preferencesService.getPreferences(notification.getOrganizacionId(), notification.getUsuarioId()));
+            // Respeta preferencia "Habilitado" (in-app) por tipo
+            if (prefs.map(p -> p.isNotificationEnabled(notification.getType())).orElse(true)) {
+                habilitadas.add(notification);
+            }
+        }
+
+        List<Notification> saved = repo.saveAll(habilitadas);
+        enviarEmailsTrasCommit(saved);
+
+        prefsPorUsuario.keySet().forEach(k -> publishUnreadCount((Long) k.get(0), (String) k.get(1)));
+        return saved.size();
+    }
 
+    /**
+     * Programa el mail de cada notificación para el commit de la transacción actual (o lo
+     * envía ya si no hay una), así la transacción no queda abierta esperando al SMTP y un
+     * rollback no deja mails de notificaciones que no existen.
+     */
+    private void enviarEmailsTrasCommit(List<Notification> notifications) {
         // Evitar doble envío en recordatorios: el mail específico lo envía CustomReminderService
-        if (notification.getType() != NotificationType.REMINDER_CUSTOM) {
+        List<Notification> aEnviar = notifications.stream()
+                .filter(n -> n.getType() != NotificationType.REMINDER_CUSTOM)
+                .toList();
+        if (aEnviar.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mailExecutor.execute(() -> enviarEmails(aEnviar));
+                }
+            });
+        } else {
+            mailExecutor.execute(() -> enviarEmails(aEnviar));
+        }
+    }
+
+    private void enviarEmails(List<Notification> notifications) {
+        for (Notification notification : notifications) {
             try {
-                emailService.sendNotificationEmail(notification.getOrganizacionId(), notification.getUsuarioId(), saved);
+                emailService.sendNotificationEmail(notification.getOrganizacionId(), notification.getUsuarioId(), notification);
             } catch (Exception e) {
-                System.err.println("Error enviando email de notificacion: " + e.getMessage());
+                log.warn("Error enviando email de la notificacion {}: {}", notification.getId(), e.getMessage());
             }
         }
-
-        publishUnreadCount(notification.getOrganizacionId(), notification.getUsuarioId());
-        return NotificationMapper.toDTO(saved);
     }
 
     @Transactional(readOnly = true)
@@ -206,4 +283,9 @@ public class NotificationService {
         // int unreadCount = repo.countByOrganizacionIdAndUsuarioIdAndIsReadFalse(organizacionId, usuarioId);
         // webSocketService.sendUnreadCountUpdate(usuarioId, unreadCount); // Eliminado
     }
+
+    @Override
+    public void destroy() {
+        mailExecutor.shutdown();
+    }
 }
@@ -0,0 +1,234 @@
+package notificacion.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManagerFactory;
+import notificacion.dtos.BatchEvent;
+import notificacion.dtos.BatchEventError;
+import notificacion.dtos.BatchEventResponse;
+import notificacion.dtos.UsuarioAdministracionDTO;
+import notificacion.models.Notification;
+import notificacion.repositories.NotificationRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "notifications.events.batch-max-size=400"
+})
+@AutoConfigureMockMvc
+class EventServiceBatchTest {
+
+    // 300 movimientos de 4 usuarios sobre 200 recursos; la mitad de los recursos supera el umbral
+    private static final int EVENTOS = 300;
+    private static final int RECURSOS = 200;
+    // 100 recursos con movimiento alto x 2 usuarios de la empresa
+    private static final int NOTIFICACIONES = 200;
+
+    @MockBean
+    AdministracionService administracionService;
+
+    @MockBean
+    EmailNotificationService emailService;
+
+    @SpyBean
+    NotificationRepository repo;
+
+    @Autowired
+    EventService eventService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM notifications");
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        when(administracionService.obtenerEmpresaIdPorUsuarioSub(anyString())).thenReturn(1L);
+        when(administracionService.obtenerEmpresaIdPorUsuarioSub("caido"))
+                .thenThrow(new ResourceAccessException("administracion no responde"));
+        when(administracionService.obtenerEmpresaIdPorUsuarioSub("bug"))
+                .thenThrow(new NullPointerException("empresa"));
+        when(administracionService.obtenerUsuariosPorEmpresaId(anyLong()))
+                .thenReturn(List.of(usuario("s1"), usuario("s2")));
+    }
+
+    @Test
+    @DisplayName("Resuelve cada usuario y empresa una vez y deduplica con una sola consulta")
+    void resuelveUnaVezPorUsuario() {
+        BatchEventResponse respuesta = eventService.handleBatch(movimientos());
+
+        assertThat(respuesta.received()).isEqualTo(EVENTOS);
+        assertThat(respuesta.processed()).isEqualTo(EVENTOS);
+        assertThat(respuesta.notificationsCreated()).isEqualTo(NOTIFICACIONES);
+        for (int u = 0; u < 4; u++) {
+            verify(administracionService, times(1)).obtenerEmpresaIdPorUsuarioSub("u" + u);
+        }
+        verify(administracionService, times(1)).obtenerUsuariosPorEmpresaId(1L);
+        verify(repo, times(1)).findKeysForDedupe(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Inserta las notificaciones nuevas en batch")
+    void insertaEnBatch() {
+        eventService.handleBatch(movimientos());
+
+        assertThat(stats.getEntityInsertCount()).isEqualTo(NOTIFICACIONES);
+        // Una sentencia por fila serían más de 200; con batch_size=50 son 4 más las lecturas
+        assertThat(stats.getPrepareStatementCount()).isLessThan(20);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM notifications", Long.class))
+                .isEqualTo(NOTIFICACIONES);
+    }
+
+    @Test
+    @DisplayName("Reenviar el mismo lote no crea notificaciones")
+    void reenvioNoDuplica() {
+        eventService.handleBatch(movimientos());
+        BatchEventResponse segunda = eventService.handleBatch(movimientos());
+
+        assertThat(segunda.processed()).isEqualTo(EVENTOS);
+        assertThat(segunda.notificationsCreated()).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM notifications", Long.class))
+                .isEqualTo(NOTIFICACIONES);
+    }
+
+    @Test
+    @DisplayName("Solo los errores de validación se rechazan; el resto queda para reintentar")
+    void separaRechazadosDeFallidos() {
+        List<BatchEvent> eventos = new ArrayList<>(movimientos());
+        eventos.add(new BatchEvent("nope", objectMapper.createObjectNode()));                              // 300
+        eventos.add(new BatchEvent("budget-created", objectMapper.createObjectNode().put("userId", "u1"))); // 301
+        eventos.add(new BatchEvent("movements", objectMapper.createObjectNode().put("userId", "u1")));      // 302
+        eventos.add(new BatchEvent("movements", movimiento("caido", "x1", 200000)));                       // 303
+        eventos.add(new BatchEvent("movements", movimiento("bug", "x2", 200000)));                         // 304
+        eventos.add(new BatchEvent("movements", movimiento("caido", "x3", 200000)));                       // 305
+        eventos.add(null);                                                                                  // 306
+
+        BatchEventResponse respuesta = eventService.handleBatch(eventos);
+
+        assertThat(respuesta.rejected()).extracting(BatchEventError::index).containsExactly(300, 301, 302, 306);
+        assertThat(respuesta.failed()).extracting(BatchEventError::index).containsExactly(303, 304, 305);
+        assertThat(respuesta.processed()).isEqualTo(EVENTOS);
+        assertThat(respuesta.notificationsCreated()).isEqualTo(NOTIFICACIONES);
+        // Un usuario que falla tampoco se consulta más de una vez por lote
+        verify(administracionService, times(1)).obtenerEmpresaIdPorUsuarioSub("caido");
+    }
+
+    @Test
+    @DisplayName("Los mails salen después del commit, fuera del hilo del lote")
+    void enviaMailsTrasCommit() {
+        List<String> hilos = new CopyOnWriteArrayList<>();
+        List<Long> visibles = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            Notification notification = inv.getArgument(2);
+            hilos.add(Thread.currentThread().getName());
+            visibles.add(jdbc.queryForObject("SELECT COUNT(*) FROM notifications WHERE id = ?",
+                    Long.class, notification.getId()));
+            return null;
+        }).when(emailService).sendNotificationEmail(anyLong(), anyString(), any(Notification.class));
+
+        eventService.handleBatch(movimientos());
+
+        verify(emailService, timeout(5000).times(NOTIFICACIONES))
+                .sendNotificationEmail(anyLong(), anyString(), any(Notification.class));
+        assertThat(hilos).containsOnly("notificacion-mail");
+        assertThat(visibles).containsOnly(1L);
+    }
+
+    @Test
+    @DisplayName("/batch responde 413 si el lote supera el máximo y 202 con el detalle si no")
+    void endpointBatch() throws Exception {
+        List<BatchEvent> demasiados = new ArrayList<>();
+        for (int i = 0; i < 401; i++) {
+            demasiados.add(new BatchEvent("movements", movimiento("u0", "r" + i, 10)));
+        }
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(demasiados)))
+                .andExpect(status().isPayloadTooLarge());
+        verify(administracionService, never()).obtenerEmpresaIdPorUsuarioSub(anyString());
+
+        List<BatchEvent> eventos = List.of(
+                new BatchEvent("movements", movimiento("u0", "r1", 200000)),
+                new BatchEvent("nope", objectMapper.createObjectNode()));
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(eventos)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.processed").value(1))
+                .andExpect(jsonPath("$.notificationsCreated").value(2))
+                .andExpect(jsonPath("$.rejected[0].index").value(1))
+                .andExpect(jsonPath("$.failed").isEmpty());
+    }
+
+    private List<BatchEvent> movimientos() {
+        List<BatchEvent> eventos = new ArrayList<>(EVENTOS);
+        for (int i = 0; i < EVENTOS; i++) {
+            int recurso = i % RECURSOS;
+            eventos.add(new BatchEvent("movements",
+                    movimiento("u" + (i % 4), "r" + recurso, recurso % 2 == 0 ? 200000 : 10)));
+        }
+        return eventos;
+    }
+
+    private ObjectNode movimiento(String userId, String refId, int amount) {
+        return objectMapper.createObjectNode()
+                .put("userId", userId)
+                .put("refId", refId)
+                .put("amount", amount)
+                .put("currency", "ARS")
+                .put("date", "2026-10-17T10:00:00Z");
+    }
+
+    private static UsuarioAdministracionDTO usuario(String sub) {
+        UsuarioAdministracionDTO usuario = new UsuarioAdministracionDTO();
+        usuario.setSub(sub);
+        return usuario;
+    }
+}
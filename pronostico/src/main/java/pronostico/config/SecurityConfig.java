@@ -28,6 +28,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/actuator/**", "/public/**", "/pronostico").permitAll()
                         .requestMatchers("/actuator/**", "/error").permitAll()
+                        // Invalidación de cachés desde otros microservicios: sin JWT, el controller exige
+                // X-Servicio-Token y el gateway no enruta /api/interno/**
+                        .requestMatchers(HttpMethod.DELETE, "/api/interno/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
@@ -0,0 +1,17 @@
+package pronostico.dtos;
+
+import lombok.Data;
+
+/**
+ * DTO con el total agregado de un mes (por tipo y moneda) desde el servicio de Registro
+ */
+@Data
+public class TotalMensualDTO {
+
+    private Integer anio;
+    private Integer mes;
+    private String tipo; // Ingreso, Egreso, Deuda, Acreencia
+    private String moneda;
+    private Double total;
+    private Long cantidad;
+}
@@ -1,12 +1,12 @@
 package pronostico.services;
 
+import clientehttp.ClientesHttp;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 import pronostico.dtos.*;
 import pronostico.models.Forecast;
@@ -35,7 +35,7 @@ public class ForecastService {
     private final RegistroService registroService;
     private final AdministracionService administracionService;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ClientesHttp clientesHttp;
 
     @Value("${mycfo.forecast.url}")
     private String forecastUrl;
@@ -63,13 +63,13 @@ public class ForecastService {
                     "La configuración está inactiva");
         }
 
-        // 1. Obtener movimientos históricos mensuales desde Registro
-        Map<String, Map<String, List<Map<String, Object>>>> movimientosMensuales = registroService
-                .obtenerMovimientosMensuales(config.getOrganizacionId(), authorization, creadoPor);
+        // 1. Obtener totales históricos mensuales desde Registro
+        List<TotalMensualDTO> totalesMensuales = registroService
+                .obtenerTotalesMensuales(config.getOrganizacionId(), authorization, creadoPor);
 
-        // 2. Procesar y convertir movimientos al formato esperado por el servicio de
+        // 2. Procesar y convertir totales al formato esperado por el servicio de
         // forecast
-        List<Map<String, Object>> dataHistorica = procesarMovimientosParaForecast(movimientosMensuales, moneda);
+        List<Map<String, Object>> dataHistorica = procesarTotalesParaForecast(totalesMensuales, moneda);
 
         // 3. Llamar al servicio de forecast
         Map<String, Object> responseForecast = llamarServicioForecast(dataHistorica, config.getHorizonteMeses());
@@ -100,13 +100,13 @@ public class ForecastService {
         log.info("Generando rolling forecast para organización {} con horizonte {} meses", organizacionId,
                 horizonteMeses);
 
-        // 1. Obtener movimientos históricos mensuales desde Registro
-        Map<String, Map<String, List<Map<String, Object>>>> movimientosMensuales = registroService
-                .obtenerMovimientosMensuales(organizacionId, authorization, usuarioSub);
+        // 1. Obtener totales históricos mensuales desde Registro
+        List<TotalMensualDTO> totalesMensuales = registroService
+                .obtenerTotalesMensuales(organizacionId, authorization, usuarioSub);
 
-        // 2. Procesar y convertir movimientos al formato esperado por el servicio de
+        // 2. Procesar y convertir totales al formato esperado por el servicio de
         // forecast
-        List<Map<String, Object>> dataHistorica = procesarMovimientosParaForecast(movimientosMensuales, moneda);
+        List<Map<String, Object>> dataHistorica = procesarTotalesParaForecast(totalesMensuales, moneda);
 
         // 3. Validar cantidad de datos históricos (mínimo 6 meses)
         if (dataHistorica.size() < 6) {
@@ -188,77 +188,52 @@ public class ForecastService {
     }
 
     /**
-     * Procesa los movimientos mensuales para el formato del servicio de forecast
+     * Procesa los totales mensuales para el formato del servicio de forecast
      */
-    private List<Map<String, Object>> procesarMovimientosParaForecast(
-            Map<String, Map<String, List<Map<String, Object>>>> movimientosMensuales, String moneda) {
+    private List<Map<String, Object>> procesarTotalesParaForecast(
+            List<TotalMensualDTO> totalesMensuales, String moneda) {
 
-        List<Map<String, Object>> resultado = new ArrayList<>();
+        // Acumular ingresos/egresos por mes (ordenado por año y mes)
+        Map<YearMonth, BigDecimal[]> porMes = new TreeMap<>();
 
-        for (Map.Entry<String, Map<String, List<Map<String, Object>>>> entry : movimientosMensuales.entrySet()) {
-            String yearMonth = entry.getKey(); // formato: "2023-01"
-            String[] parts = yearMonth.split("-");
-            int año = Integer.parseInt(parts[0]);
-            int mes = Integer.parseInt(parts[1]);
-
-            Map<String, List<Map<String, Object>>> porTipo = entry.getValue();
-
-            // Calcular totales
-            BigDecimal ingresos = BigDecimal.ZERO;
-            BigDecimal egresos = BigDecimal.ZERO;
-
-            List<Map<String, Object>> ingresosList = porTipo.get("Ingreso");
-            if (ingresosList != null) {
-                for (Map<String, Object> mov : ingresosList) {
-                    if (moneda != null && !moneda.isEmpty()) {
-                        String movMoneda = (String) mov.get("moneda");
-                        if (movMoneda != null && !movMoneda.equalsIgnoreCase(moneda)) {
-                            continue;
-                        }
-                    }
-                    Object montoObj = mov.get("montoTotal");
-                    if (montoObj != null) {
-                        BigDecimal monto = new BigDecimal(montoObj.toString());
-                        ingresos = ingresos.add(monto);
-                    }
+        for (TotalMensualDTO total : totalesMensuales) {
+            if (total.getAnio() == null || total.getMes() == null) {
+                continue;
+            }
+            // Todo mes con movimientos aparece en el histórico, aunque sus totales queden en cero
+            BigDecimal[] acumulado = porMes.computeIfAbsent(YearMonth.of(total.getAnio(), total.getMes()),
+                    k -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO });
+
+            if (moneda != null && !moneda.isEmpty()) {
+                String totalMoneda = total.getMoneda();
+                if (totalMoneda != null && !totalMoneda.equalsIgnoreCase(moneda)) {
+                    continue;
                 }
             }
+            if (total.getTotal() == null) {
+                continue;
+            }
 
-            List<Map<String, Object>> egresosList = porTipo.get("Egreso");
-            if (egresosList != null) {
-                for (Map<String, Object> mov : egresosList) {
-                    if (moneda != null && !moneda.isEmpty()) {
-                        String movMoneda = (String) mov.get("moneda");
-                        if (movMoneda != null && !movMoneda.equalsIgnoreCase(moneda)) {
-                            continue;
-                        }
-                    }
-                    Object montoObj = mov.get("montoTotal");
-                    if (montoObj != null) {
-                        BigDecimal monto = new BigDecimal(montoObj.toString());
-                        // Los egresos ya vienen negativos
-                        egresos = egresos.add(monto);
-                    }
-                }
+            BigDecimal monto = BigDecimal.valueOf(total.getTotal());
+            if ("Ingreso".equals(total.getTipo())) {
+                acumulado[0] = acumulado[0].add(monto);
+            } else if ("Egreso".equals(total.getTipo())) {
+                // Los egresos ya vienen negativos
+                acumulado[1] = acumulado[1].add(monto);
             }
+        }
 
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (Map.Entry<YearMonth, BigDecimal[]> entry : porMes.entrySet()) {
             Map<String, Object> registro = new HashMap<>();
-            registro.put("año", año);
-            registro.put("mes", mes);
-            registro.put("ingresos", ingresos.doubleValue());
-            registro.put("egresos", egresos.doubleValue());
+            registro.put("año", entry.getKey().getYear());
+            registro.put("mes", entry.getKey().getMonthValue());
+            registro.put("ingresos", entry.getValue()[0].doubleValue());
+            registro.put("egresos", entry.getValue()[1].doubleValue());
 
             resultado.add(registro);
         }
 
-        // Ordenar por año y mes
-        resultado.sort((a, b) -> {
-            int añoComp = ((Integer) a.get("año")).compareTo((Integer) b.get("año"));
-            if (añoComp != 0)
-                return añoComp;
-            return ((Integer) a.get("mes")).compareTo((Integer) b.get("mes"));
-        });
-
         return resultado;
     }
 
@@ -280,7 +255,7 @@ public class ForecastService {
 
             log.info("Llamando al servicio de forecast con {} datos históricos", dataHistorica.size());
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = clientesHttp.para("forecast").exchange(
                     forecastUrl + "/forecast",
                     HttpMethod.POST,
                     requestEntity,
@@ -1,5 +1,6 @@
 package pronostico.services;
 
+import clientehttp.ClientesHttp;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -22,8 +23,8 @@ public class PresupuestoEventService {
     @Value("${notifications.base-url:${notificacion.service.url:http://localhost:8084}}")
     private String notificationsBaseUrl;
 
-    public PresupuestoEventService() {
-        this.restTemplate = new RestTemplate();
+    public PresupuestoEventService(ClientesHttp clientesHttp) {
+        this.restTemplate = clientesHttp.para("notificacion");
     }
 
     public void sendBudgetExceededEvent(Presupuesto presupuesto, PresupuestoLinea linea, String userSub) {
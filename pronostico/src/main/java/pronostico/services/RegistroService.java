@@ -1,17 +1,19 @@
 package pronostico.services;
 
+import clientehttp.ClientesHttp;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import pronostico.dtos.TotalMensualDTO;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Servicio para comunicarse con el microservicio de Registro
@@ -20,27 +22,31 @@ import java.util.Map;
 @Slf4j
 public class RegistroService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     @Value("${mycfo.registro.url}")
     private String registroUrl;
 
+    public RegistroService(ClientesHttp clientesHttp) {
+        this.restTemplate = clientesHttp.para("registro");
+    }
+
     /**
-     * Obtiene los movimientos mensuales históricos de una empresa
+     * Obtiene los totales mensuales históricos de una empresa
      * @param organizacionId ID de la empresa
-     * @return Lista de movimientos agrupados por mes
+     * @return Totales agrupados por mes, tipo y moneda
      */
-    public Map<String, Map<String, List<Map<String, Object>>>> obtenerMovimientosMensuales(
+    public List<TotalMensualDTO> obtenerTotalesMensuales(
             Long organizacionId,
             String authorization,
             String usuarioSub
     ) {
         try {
-            String url = registroUrl + "/movimientos/empresa/" + organizacionId + "/mensuales";
-            log.info("Llamando a registro para obtener movimientos mensuales de empresa: {}", organizacionId);
+            String url = registroUrl + "/movimientos/empresa/" + organizacionId + "/totales-mensuales";
+            log.info("Llamando a registro para obtener totales mensuales de empresa: {}", organizacionId);
 
-            @SuppressWarnings("unchecked")
-            ResponseEntity<Map> response;
+            ResponseEntity<List<TotalMensualDTO>> response;
+            ParameterizedTypeReference<List<TotalMensualDTO>> tipo = new ParameterizedTypeReference<>() {};
 
             // Si tenemos token y usuario, reenviamos headers; de lo contrario, intentamos sin headers
             if (authorization != null && !authorization.isBlank()) {
@@ -49,16 +55,16 @@ public class RegistroService {
                 headers.add("X-Usuario-Sub", usuarioSub);
 
                 HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-                response = restTemplate.exchange(url, HttpMethod.GET, requestEntity, Map.class);
+                response = restTemplate.exchange(url, HttpMethod.GET, requestEntity, tipo);
             } else {
-                response = restTemplate.exchange(url, HttpMethod.GET, null, Map.class);
+                response = restTemplate.exchange(url, HttpMethod.GET, null, tipo);
             }
 
-            log.info("Movimientos mensuales obtenidos correctamente");
-            return response.getBody() != null ? response.getBody() : new HashMap<>();
+            log.info("Totales mensuales obtenidos correctamente");
+            return response.getBody() != null ? response.getBody() : new ArrayList<>();
             
         } catch (Exception e) {
-            log.error("Error al obtener movimientos mensuales: {}", e.getMessage());
+            log.error("Error al obtener totales mensuales: {}", e.getMessage());
             throw new RuntimeException("Error al comunicarse con el servicio de registro", e);
         }
     }
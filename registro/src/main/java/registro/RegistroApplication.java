@@ -3,9 +3,11 @@ package registro;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"registro", "registro.config"})
+@EnableScheduling
 public class RegistroApplication {
 
     public static void main(String[] args) {
@@ -1,27 +1,40 @@
 package registro.cargarDatos.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String MOVIMIENTOS_PRESUPUESTO = "movimientosPresupuesto";
+
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        
-        // Configurar los nombres de caché que usaremos
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "movimientosPresupuesto"
-        ));
-        
-        // Permitir crear cachés dinámicamente si es necesario
+    public CacheManager cacheManager(
+            @Value("${mycfo.cache.movimientos-presupuesto.max-entries:2000}") long maxEntries,
+            @Value("${mycfo.cache.movimientos-presupuesto.ttl:10m}") Duration ttl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // Caché acotada en tamaño y con expiración; recordStats expone hit/miss/evictions
+        // como métricas cache.* en Actuator
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats());
+
+        // Configurar los nombres de caché que usaremos (se registran al inicio para las métricas)
+        cacheManager.setCacheNames(List.of(MOVIMIENTOS_PRESUPUESTO));
+
         cacheManager.setAllowNullValues(false);
-        
+
         return cacheManager;
     }
 }
@@ -0,0 +1,46 @@
+package registro.cargarDatos.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor para armar las secciones del dashboard en paralelo.
+ * En JVMs con hilos virtuales (21+) usa uno por tarea; en las anteriores, un pool fijo.
+ * En ambos casos la concurrencia contra la base la limita DashboardService (mycfo.dashboard.max-consultas).
+ */
+@Configuration
+@Slf4j
+public class DashboardExecutorConfig {
+
+    public static final String DASHBOARD_EXECUTOR = "dashboardExecutor";
+
+    @Bean(name = DASHBOARD_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService dashboardExecutor(@Value("${mycfo.dashboard.pool-size:16}") int poolSize) {
+        try {
+            ExecutorService virtuales = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Dashboard: secciones en hilos virtuales");
+            return virtuales;
+        } catch (ReflectiveOperationException e) {
+            log.info("Dashboard: hilos virtuales no disponibles, pool fijo de {} hilos", poolSize);
+            return Executors.newFixedThreadPool(Math.max(1, poolSize), new ThreadFactory() {
+                private final AtomicInteger contador = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread hilo = new Thread(r, "dashboard-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                }
+            });
+        }
+    }
+}
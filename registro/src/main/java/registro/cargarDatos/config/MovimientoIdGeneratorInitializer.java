@@ -0,0 +1,48 @@
+package registro.cargarDatos.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import registro.cargarDatos.models.Movimiento;
+
+import java.util.List;
+
+/**
+ * Alinea la tabla registro_seq con los ids ya existentes en registro.
+ * Las filas históricas se crearon con AUTO_INCREMENT; sin este ajuste el generador
+ * por tabla arrancaría en 1 y chocaría con ellas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MovimientoIdGeneratorInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    // Se inyecta para correr después de que Hibernate haya creado/actualizado el esquema
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void alinearGenerador() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM registro", Long.class);
+        long siguiente = (maxId != null ? maxId : 0L) + 1;
+
+        List<Long> actual = jdbcTemplate.queryForList(
+                "SELECT next_val FROM " + Movimiento.ID_GENERATOR_TABLE + " WHERE sequence_name = ?",
+                Long.class, Movimiento.ID_GENERATOR_KEY);
+
+        if (actual.isEmpty()) {
+            jdbcTemplate.update(
+                    "INSERT INTO " + Movimiento.ID_GENERATOR_TABLE + " (sequence_name, next_val) VALUES (?, ?)",
+                    Movimiento.ID_GENERATOR_KEY, siguiente);
+            log.info("Generador de ids de registro inicializado en {}", siguiente);
+        } else if (actual.get(0) == null || actual.get(0) < siguiente) {
+            jdbcTemplate.update(
+                    "UPDATE " + Movimiento.ID_GENERATOR_TABLE + " SET next_val = ? WHERE sequence_name = ?",
+                    siguiente, Movimiento.ID_GENERATOR_KEY);
+            log.info("Generador de ids de registro adelantado a {}", siguiente);
+        }
+    }
+}
@@ -13,18 +13,23 @@ import registro.cargarDatos.dtos.ConciliacionResumenResponse;
 import registro.cargarDatos.dtos.DashboardSummaryResponse;
 import registro.cargarDatos.dtos.MontosMensualesResponse;
 import registro.cargarDatos.dtos.MontosPorCategoriaResponse;
+import registro.cargarDatos.dtos.MovimientoAgregadoResponse;
+import registro.cargarDatos.dtos.MovimientosCursorResponse;
 import registro.cargarDatos.dtos.MovimientosPresupuestoResponse;
 import registro.cargarDatos.dtos.ResumenMensualResponse;
+import registro.cargarDatos.dtos.SaldoConsistenciaResponse;
 import registro.cargarDatos.dtos.SaldoTotalResponse;
-import registro.cargarDatos.models.Factura;
+import registro.cargarDatos.dtos.TotalMensualResponse;
 import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMoneda;
 import registro.cargarDatos.models.TipoMovimiento;
-import registro.cargarDatos.services.FacturaService;
+import registro.cargarDatos.services.DashboardService;
 import registro.cargarDatos.services.MovimientoService;
+import registro.cargarDatos.services.SaldoMensualService;
 import registro.services.AdministracionService;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -35,8 +40,9 @@ import java.util.Map;
 public class MovimientoController {
 
     private final MovimientoService movimientoService;
-    private final FacturaService facturaService;
     private final AdministracionService administracionService;
+    private final SaldoMensualService saldoMensualService;
+    private final DashboardService dashboardService;
 
     /**
      * Crear un nuevo movimiento
@@ -205,6 +211,55 @@ public class MovimientoController {
         }
     }
 
+    /**
+     * Leer movimientos por cursor (fechaEmision, id) en orden ascendente
+     * Para rangos grandes: se reenvían cursorFecha/cursorId de la respuesta
+     * anterior hasta que hayMas sea false
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<MovimientosCursorResponse> obtenerMovimientosPorCursor(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+            @RequestParam(required = false) List<TipoMovimiento> tipos,
+            @RequestParam(required = false) String moneda,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorFecha,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "500") int size) {
+
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+
+            TipoMoneda monedaEnum = null;
+            if (moneda != null) {
+                try {
+                    monedaEnum = TipoMoneda.fromString(moneda);
+                } catch (IllegalArgumentException ex) {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+
+            log.debug("Leyendo movimientos por cursor para empresa: {} desde ({}, {})", empresaId, cursorFecha,
+                    cursorId);
+
+            MovimientosCursorResponse response = movimientoService.obtenerMovimientosPorCursor(
+                    empresaId,
+                    fechaDesde,
+                    fechaHasta,
+                    tipos,
+                    monedaEnum,
+                    cursorFecha,
+                    cursorId,
+                    size);
+
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            log.error("Error al leer movimientos por cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Obtener todos los movimientos sin paginación
      */
@@ -328,6 +383,25 @@ public class MovimientoController {
         }
     }
 
+    /**
+     * Endpoint interno para comunicación entre microservicios
+     * Devuelve solo los totales mensuales por tipo y moneda (sin los movimientos)
+     */
+    @GetMapping("/empresa/{organizacionId}/totales-mensuales")
+    public ResponseEntity<List<TotalMensualResponse>> obtenerTotalesMensualesPorEmpresa(
+            @PathVariable Long organizacionId) {
+
+        try {
+            log.debug("Obteniendo totales mensuales para empresa: {} (endpoint interno)", organizacionId);
+
+            return ResponseEntity.ok(movimientoService.obtenerTotalesMensuales(organizacionId));
+
+        } catch (RuntimeException e) {
+            log.error("Error al obtener totales mensuales: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/resumen/mensual")
     public ResponseEntity<ResumenMensualResponse> obtenerResumenMensual(
             @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
@@ -344,6 +418,41 @@ public class MovimientoController {
         }
     }
 
+    /**
+     * Montos agrupados por mes, tipo, categoría y moneda para un año (o un mes)
+     * Lo consumen los reportes (cash-flow, P&L, resumen) en lugar de traer cada movimiento
+     */
+    @GetMapping("/resumen/agregado")
+    public ResponseEntity<List<MovimientoAgregadoResponse>> obtenerAgregadoMensual(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
+            @RequestParam int anio,
+            @RequestParam(required = false) Integer mes,
+            @RequestParam(required = false) List<TipoMovimiento> tipos,
+            @RequestParam(required = false) String moneda) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+
+            TipoMoneda monedaEnum = null;
+            if (moneda != null) {
+                try {
+                    monedaEnum = TipoMoneda.fromString(moneda);
+                } catch (IllegalArgumentException ex) {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+
+            LocalDate desde = mes != null ? LocalDate.of(anio, mes, 1) : LocalDate.of(anio, 1, 1);
+            LocalDate hasta = mes != null ? desde.withDayOfMonth(desde.lengthOfMonth()) : LocalDate.of(anio, 12, 31);
+
+            List<MovimientoAgregadoResponse> response = movimientoService.obtenerAgregadoPorMesTipoCategoria(
+                    empresaId, desde, hasta, tipos, monedaEnum);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            log.error("Error al obtener agregado de movimientos: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/resumen/dashboard")
     public ResponseEntity<DashboardSummaryResponse> obtenerResumenDashboard(
             @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
@@ -369,81 +478,16 @@ public class MovimientoController {
             int limiteMovsSeguros = limiteMovimientos != null ? Math.max(limiteMovimientos, 1) : 6;
             int limiteFactSeguros = limiteFacturas != null ? Math.max(limiteFacturas, 1) : 6;
 
-            ResumenMensualResponse resumenMensual = movimientoService.obtenerResumenMensual(empresaId, null, fechaBase,
-                    monedaEnum);
-            MontosMensualesResponse ingresosMensuales = movimientoService.obtenerIngresosMensuales(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase,
-                    mesesSeguros,
-                    monedaEnum);
-            MontosMensualesResponse egresosMensuales = movimientoService.obtenerEgresosMensuales(
+            // Las secciones se arman en paralelo; si alguna no llega a tiempo la respuesta sale parcial
+            DashboardSummaryResponse response = dashboardService.obtenerResumen(
                     empresaId,
                     usuarioSub,
                     fechaBase,
                     mesesSeguros,
-                    monedaEnum);
-            MontosPorCategoriaResponse ingresosPorCategoria = movimientoService.obtenerIngresosPorCategoria(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase,
-                    monedaEnum);
-            MontosPorCategoriaResponse egresosPorCategoria = movimientoService.obtenerEgresosPorCategoria(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase,
-                    monedaEnum);
-            ConciliacionResumenResponse conciliacion = movimientoService.obtenerResumenConciliacion(
-                    empresaId,
-                    usuarioSub,
-                    fechaBase,
+                    limiteMovsSeguros,
+                    limiteFactSeguros,
                     monedaEnum);
 
-            Double saldoTotalValor = movimientoService.obtenerSaldoTotalEmpresa(empresaId, monedaEnum);
-            SaldoTotalResponse saldoTotal = SaldoTotalResponse.builder()
-                    .organizacionId(empresaId)
-                    .saldoTotal(saldoTotalValor)
-                    .moneda(monedaEnum != null ? monedaEnum.name() : "ARS")
-                    .build();
-
-            Pageable movimientosPageable = PageRequest.of(0, limiteMovsSeguros,
-                    Sort.by(Sort.Direction.DESC, "fechaEmision"));
-            Page<Movimiento> movimientosPage = movimientoService.obtenerMovimientos(
-                    empresaId,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    monedaEnum,
-                    null,
-                    null,
-                    null,
-                    null,
-                    movimientosPageable);
-            List<Movimiento> movimientosRecientes = movimientosPage.getContent();
-
-            Pageable facturasPageable = PageRequest.of(0, limiteFactSeguros,
-                    Sort.by(Sort.Direction.DESC, "fechaEmision"));
-            org.springframework.data.domain.Page<Factura> facturasPage = facturaService.listarPaginadasPorOrganizacion(
-                    empresaId,
-                    monedaEnum,
-                    facturasPageable);
-            List<Factura> facturasRecientes = facturasPage.getContent();
-
-            DashboardSummaryResponse response = DashboardSummaryResponse.builder()
-                    .resumenMensual(resumenMensual)
-                    .saldoTotal(saldoTotal)
-                    .ingresosMensuales(ingresosMensuales)
-                    .egresosMensuales(egresosMensuales)
-                    .ingresosPorCategoria(ingresosPorCategoria)
-                    .egresosPorCategoria(egresosPorCategoria)
-                    .conciliacion(conciliacion)
-                    .movimientosRecientes(movimientosRecientes)
-                    .facturasRecientes(facturasRecientes)
-                    .build();
-
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
             log.error("Error al obtener resumen de dashboard: {}", e.getMessage());
@@ -569,6 +613,39 @@ public class MovimientoController {
         }
     }
 
+    /**
+     * Compara el saldo según los cierres mensuales con el recalculado sobre toda la historia
+     */
+    @GetMapping("/resumen/saldo-total/verificacion")
+    public ResponseEntity<SaldoConsistenciaResponse> verificarSaldoTotalEmpresa(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub,
+            @RequestParam(required = false) String moneda) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+            TipoMoneda monedaEnum = moneda != null ? TipoMoneda.fromString(moneda) : null;
+            return ResponseEntity.ok(saldoMensualService.verificar(empresaId, monedaEnum));
+        } catch (RuntimeException e) {
+            log.error("Error al verificar saldo total de la empresa: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Reconstruye los cierres mensuales de saldo de la empresa desde los movimientos
+     */
+    @PostMapping("/resumen/saldo-total/reconstruir")
+    public ResponseEntity<SaldoConsistenciaResponse> reconstruirSaldoTotalEmpresa(
+            @RequestHeader(value = "X-Usuario-Sub") String usuarioSub) {
+        try {
+            Long empresaId = administracionService.obtenerEmpresaIdPorUsuarioSub(usuarioSub);
+            saldoMensualService.reconstruir(empresaId);
+            return ResponseEntity.ok(saldoMensualService.verificar(empresaId, null));
+        } catch (RuntimeException e) {
+            log.error("Error al reconstruir saldo de la empresa: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Obtener movimientos agrupados mensualmente para presupuestos
      * Reemplaza las múltiples llamadas individuales por mes
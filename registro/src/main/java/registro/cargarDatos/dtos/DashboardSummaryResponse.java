@@ -20,4 +20,7 @@ public class DashboardSummaryResponse {
     ConciliacionResumenResponse conciliacion;
     List<Movimiento> movimientosRecientes;
     List<Factura> facturasRecientes;
+    // true si alguna sección no llegó a tiempo o falló; sus campos quedan en null
+    boolean parcial;
+    List<String> seccionesIncompletas;
 }
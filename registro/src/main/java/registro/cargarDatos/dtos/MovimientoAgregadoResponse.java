@@ -0,0 +1,21 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Fila agregada de movimientos por mes, tipo, categoría y moneda.
+ * total es la suma algebraica (egresos negativos); totalAbsoluto suma valores absolutos.
+ */
+@Value
+@Builder
+public class MovimientoAgregadoResponse {
+    int anio;
+    int mes;
+    String tipo;
+    String categoria;
+    String moneda;
+    Double total;
+    Double totalAbsoluto;
+    long cantidad;
+}
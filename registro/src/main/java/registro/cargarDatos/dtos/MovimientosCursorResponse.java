@@ -0,0 +1,22 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+import registro.cargarDatos.models.Movimiento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página de movimientos leída por cursor (fechaEmision, id).
+ * Para pedir la siguiente página se reenvían siguienteFecha y siguienteId.
+ */
+@Value
+@Builder
+public class MovimientosCursorResponse {
+    List<Movimiento> content;
+    int size;
+    boolean hayMas;
+    LocalDateTime siguienteFecha;
+    Long siguienteId;
+}
@@ -0,0 +1,16 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SaldoConsistenciaResponse {
+
+    Long organizacionId;
+    String moneda;
+    Double saldoCierres;
+    Double saldoRecalculado;
+    Double diferencia;
+    boolean consistente;
+}
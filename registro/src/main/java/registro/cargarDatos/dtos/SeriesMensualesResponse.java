@@ -0,0 +1,13 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SeriesMensualesResponse {
+
+    ResumenMensualResponse resumenMensual;
+    MontosMensualesResponse ingresosMensuales;
+    MontosMensualesResponse egresosMensuales;
+}
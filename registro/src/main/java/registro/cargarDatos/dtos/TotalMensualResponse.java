@@ -0,0 +1,18 @@
+package registro.cargarDatos.dtos;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Total agregado de movimientos de un mes, por tipo y moneda.
+ */
+@Value
+@Builder
+public class TotalMensualResponse {
+    int anio;
+    int mes;
+    String tipo;
+    String moneda;
+    Double total;
+    long cantidad;
+}
@@ -11,6 +11,11 @@ import java.util.UUID;
 @Setter
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+@Table(indexes = {
+        // Búsqueda de candidatos de conciliación por banda de monto y por ventana de fechas
+        @Index(name = "idx_documento_org_moneda_monto", columnList = "organizacion_id, moneda, monto_total"),
+        @Index(name = "idx_documento_org_moneda_fecha", columnList = "organizacion_id, moneda, fecha_emision")
+})
 public abstract class DocumentoComercial {
 
     @Id
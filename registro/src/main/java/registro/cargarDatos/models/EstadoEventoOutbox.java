@@ -0,0 +1,6 @@
+package registro.cargarDatos.models;
+
+public enum EstadoEventoOutbox {
+    PENDIENTE,
+    FALLIDO
+}
@@ -0,0 +1,60 @@
+package registro.cargarDatos.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Evento para notificacion pendiente de envío (outbox transaccional).
+ * Se inserta en la misma transacción que el cambio que lo origina y lo envía
+ * DespachadorEventosOutbox; al confirmarse el envío la fila se borra. Las que agotan
+ * los reintentos quedan en FALLIDO para revisarlas a mano.
+ */
+@Entity
+@Table(name = "evento_outbox", indexes = {
+        @Index(name = "idx_evento_outbox_estado_proximo", columnList = "estado, proximo_intento, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Ruta del endpoint de notificacion, ej.: /api/events/movements
+    @Column(nullable = false, length = 120)
+    private String ruta;
+
+    // Cuerpo JSON ya serializado
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoEventoOutbox estado = EstadoEventoOutbox.PENDIENTE;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    @Column(nullable = false)
+    private Instant proximoIntento;
+
+    @Column(nullable = false)
+    private Instant creadoEn;
+
+    @Column(length = 500)
+    private String ultimoError;
+
+    public EventoOutbox(String ruta, String payload, Instant ahora) {
+        this.ruta = ruta;
+        this.payload = payload;
+        this.creadoEn = ahora;
+        this.proximoIntento = ahora;
+    }
+}
@@ -0,0 +1,57 @@
+package registro.cargarDatos.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Huella para detección de duplicados: SHA-256 de empresa, día, monto (a centavos),
+ * descripción y origen normalizados (sin acentos, minúsculas, espacios colapsados).
+ * {@link #clave} es el mismo texto sin la empresa, para comparar movimientos entre sí.
+ */
+public final class HuellaMovimiento {
+
+    private HuellaMovimiento() {
+    }
+
+    public static String calcular(Long organizacionId, LocalDate fecha, Double monto, String descripcion, String origen) {
+        String base = (organizacionId != null ? organizacionId.toString() : "")
+                + "|" + clave(fecha, monto, descripcion, origen);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(base.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /** Día, monto y textos normalizados: dos movimientos con la misma clave tienen la misma huella. */
+    public static String clave(LocalDate fecha, Double monto, String descripcion, String origen) {
+        return String.join("|",
+                fecha != null ? fecha.toString() : "",
+                normalizarMonto(monto),
+                normalizarTexto(descripcion),
+                normalizarTexto(origen));
+    }
+
+    private static String normalizarMonto(Double monto) {
+        if (monto == null) return "";
+        return BigDecimal.valueOf(monto).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String normalizarTexto(String texto) {
+        if (texto == null) return "";
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('\u00A0', ' ')
+                .replaceAll("\\s+", " ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -11,13 +11,36 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "registro") // Mantener nombre de tabla para compatibilidad con BD existente
+// Los índices compuestos se agregan a las bases existentes con db/migration/V1__add_indexes_to_registro.sql
+@Table(name = "registro", // Mantener nombre de tabla para compatibilidad con BD existente
+        indexes = {
+                @Index(name = "idx_registro_org_huella", columnList = "organizacion_id, huella_duplicado"),
+                @Index(name = "idx_registro_org_fecha",
+                        columnList = "organizacion_id, fecha_emision, tipo, moneda, monto_total, id_documento"),
+                @Index(name = "idx_registro_org_tipo_fecha",
+                        columnList = "organizacion_id, tipo, fecha_emision, moneda, categoria, monto_total"),
+                @Index(name = "idx_registro_org_documento",
+                        columnList = "organizacion_id, id_documento, moneda, fecha_emision")
+        })
 @Getter
 @Setter
 public class Movimiento {
 
+    public static final String ID_GENERATOR_TABLE = "registro_seq";
+    public static final String ID_GENERATOR_KEY = "registro";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Generador por tabla (MySQL no tiene secuencias): a diferencia de IDENTITY,
+    // permite que Hibernate agrupe los INSERT en batches JDBC. Reserva bloques de ids.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "registro_id")
+    @TableGenerator(
+            name = "registro_id",
+            table = ID_GENERATOR_TABLE,
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = ID_GENERATOR_KEY,
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     // Tipo de movimiento: INGRESO / EGRESO / DEUDA / ACREENCIA
@@ -64,6 +87,12 @@ public class Movimiento {
     @Column(name = "id_documento")
     private Long documentoId;
 
+    // Huella de duplicados (ver HuellaMovimiento); se recalcula en cada insert/update
+    @Column(name = "huella_duplicado", length = 64)
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String huellaDuplicado;
+
     /**
      * Indica si el movimiento está conciliado (tiene documento vinculado)
      */
@@ -72,6 +101,17 @@ public class Movimiento {
         return documentoId != null;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void recalcularHuellaDuplicado() {
+        this.huellaDuplicado = HuellaMovimiento.calcular(
+                organizacionId,
+                fechaEmision != null ? fechaEmision.toLocalDate() : null,
+                montoTotal,
+                descripcion,
+                origenNombre);
+    }
+
     /**
      * Vincula con un documento comercial
      */
@@ -0,0 +1,53 @@
+package registro.cargarDatos.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cierre mensual de saldo por organización y moneda.
+ * Acumula los ingresos y egresos del mes y el saldo al cierre (todo lo anterior más
+ * el mes). Solo hay filas para los meses con movimientos: el saldo de un mes sin fila
+ * es el del último mes que la tiene. Se mantiene en forma incremental desde
+ * SaldoMensualService y se puede reconstruir desde registro.
+ * La moneda se guarda como texto y nunca es null: los movimientos sin moneda van con
+ * {@link #SIN_MONEDA}, así la clave única también los cubre.
+ */
+@Entity
+@Table(name = "saldo_mensual",
+        uniqueConstraints = @UniqueConstraint(name = "uk_saldo_mensual_org_moneda_periodo",
+                columnNames = {"organizacion_id", "moneda", "periodo"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class SaldoMensual {
+
+    public static final String SIN_MONEDA = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long organizacionId;
+
+    // TipoMoneda.name() o SIN_MONEDA
+    @Column(nullable = false, length = 3)
+    private String moneda;
+
+    // Primer día del mes
+    @Column(nullable = false)
+    private LocalDate periodo;
+
+    private Double ingresos;
+    private Double egresos;
+    private Long cantidad;
+
+    private Double saldoCierre;
+
+    private LocalDateTime fechaActualizacion;
+}
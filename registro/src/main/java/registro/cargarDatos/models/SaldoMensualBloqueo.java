@@ -0,0 +1,26 @@
+package registro.cargarDatos.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de bloqueo de los cierres de saldo_mensual de una organización.
+ * SaldoMensualService la crea o actualiza al empezar cada ajuste o reconstrucción, y el
+ * bloqueo exclusivo sobre ella deja en serie a las transacciones de la misma organización.
+ */
+@Entity
+@Table(name = "saldo_mensual_bloqueo")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SaldoMensualBloqueo {
+
+    @Id
+    private Long organizacionId;
+
+    private LocalDateTime fechaActualizacion;
+}
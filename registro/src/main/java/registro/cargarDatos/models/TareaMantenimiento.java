@@ -0,0 +1,30 @@
+package registro.cargarDatos.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de una tarea de mantenimiento que corre al arrancar pero debe hacerse una sola vez
+ * entre todas las instancias de registro (ej.: completar huella_duplicado).
+ * La instancia que la toma la reserva hasta reservadaHasta y la renueva mientras avanza;
+ * al terminar queda completadaEn y ningún arranque posterior la vuelve a correr.
+ */
+@Entity
+@Table(name = "tarea_mantenimiento")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TareaMantenimiento {
+
+    @Id
+    @Column(length = 60)
+    private String nombre;
+
+    private LocalDateTime reservadaHasta;
+
+    private LocalDateTime completadaEn;
+}
@@ -0,0 +1,58 @@
+package registro.cargarDatos.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import registro.cargarDatos.models.DocumentoComercial;
+import registro.cargarDatos.models.TipoMoneda;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DocumentoComercialRepository extends JpaRepository<DocumentoComercial, Long> {
+
+    /**
+     * Documentos cuyo monto (en valor absoluto) cae en [montoMin, montoMax], los más cercanos
+     * a montoReferencia primero. Usa idx_documento_org_moneda_monto.
+     */
+    @Query("""
+            SELECT d FROM DocumentoComercial d
+            WHERE d.organizacionId = :organizacionId
+            AND (:moneda IS NULL OR d.moneda = :moneda)
+            AND TYPE(d) IN :tipos
+            AND (d.montoTotal BETWEEN :montoMin AND :montoMax
+                 OR d.montoTotal BETWEEN -:montoMax AND -:montoMin)
+            ORDER BY ABS(ABS(d.montoTotal) - :montoReferencia), d.idDocumento
+            """)
+    List<DocumentoComercial> findCandidatosPorMonto(@Param("organizacionId") Long organizacionId,
+                                                    @Param("moneda") TipoMoneda moneda,
+                                                    @Param("tipos") Collection<Class<? extends DocumentoComercial>> tipos,
+                                                    @Param("montoMin") Double montoMin,
+                                                    @Param("montoMax") Double montoMax,
+                                                    @Param("montoReferencia") Double montoReferencia,
+                                                    Pageable pageable);
+
+    /**
+     * Documentos emitidos en [desde, hasta), los más cercanos a fechaReferencia primero.
+     * Usa idx_documento_org_moneda_fecha.
+     */
+    @Query("""
+            SELECT d FROM DocumentoComercial d
+            WHERE d.organizacionId = :organizacionId
+            AND (:moneda IS NULL OR d.moneda = :moneda)
+            AND TYPE(d) IN :tipos
+            AND d.fechaEmision >= :desde AND d.fechaEmision < :hasta
+            ORDER BY ABS(EXTRACT(EPOCH FROM d.fechaEmision) - EXTRACT(EPOCH FROM :fechaReferencia)), d.idDocumento
+            """)
+    List<DocumentoComercial> findCandidatosPorFecha(@Param("organizacionId") Long organizacionId,
+                                                    @Param("moneda") TipoMoneda moneda,
+                                                    @Param("tipos") Collection<Class<? extends DocumentoComercial>> tipos,
+                                                    @Param("desde") LocalDateTime desde,
+                                                    @Param("hasta") LocalDateTime hasta,
+                                                    @Param("fechaReferencia") LocalDateTime fechaReferencia,
+                                                    Pageable pageable);
+}
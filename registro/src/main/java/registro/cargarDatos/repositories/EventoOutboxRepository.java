@@ -0,0 +1,37 @@
+package registro.cargarDatos.repositories;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import registro.cargarDatos.models.EstadoEventoOutbox;
+import registro.cargarDatos.models.EventoOutbox;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    /**
+     * Próximos eventos a enviar, bloqueados para esta transacción. Con SKIP LOCKED (timeout -2)
+     * varias instancias de registro se reparten las filas en lugar de esperarse.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoOutbox e WHERE e.estado = :estado AND e.proximoIntento <= :ahora ORDER BY e.id")
+    List<EventoOutbox> tomarListos(@Param("estado") EstadoEventoOutbox estado,
+                                   @Param("ahora") Instant ahora,
+                                   Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.proximoIntento = :hasta WHERE e.id IN :ids")
+    int reservarHasta(@Param("ids") Collection<Long> ids, @Param("hasta") Instant hasta);
+
+    long countByEstado(EstadoEventoOutbox estado);
+}
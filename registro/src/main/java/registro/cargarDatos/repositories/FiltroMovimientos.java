@@ -0,0 +1,117 @@
+package registro.cargarDatos.repositories;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.jpa.domain.Specification;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtro de movimientos que arma la cláusula WHERE solo con los criterios informados.
+ * Reemplaza a las consultas "(:param IS NULL OR col = :param)": cada combinación de
+ * filtros genera su propio SQL, así el optimizador elige el índice según lo que de
+ * verdad se filtra en lugar de un plan que sirva para todos los nulls posibles.
+ * El rango de fechas es semiabierto: desde inclusive, hasta exclusive.
+ */
+@Value
+@Builder(toBuilder = true)
+public class FiltroMovimientos {
+
+    Long organizacionId;
+    String usuarioId;
+    TipoMoneda moneda;
+    List<TipoMovimiento> tipos;
+    LocalDateTime desde;
+    LocalDateTime hasta;
+    Boolean conciliado;
+    Double montoMin;
+    Double montoMax;
+    String nombreRelacionado;
+    String search;
+    LocalDate searchDate;
+
+    public Specification<Movimiento> toSpecification() {
+        return (root, query, cb) -> cb.and(predicados(root, cb).toArray(new Predicate[0]));
+    }
+
+    List<Predicate> predicados(Root<Movimiento> root, CriteriaBuilder cb) {
+        List<Predicate> ands = new ArrayList<>();
+
+        if (organizacionId != null) {
+            ands.add(cb.equal(root.get("organizacionId"), organizacionId));
+        }
+        if (usuarioId != null) {
+            ands.add(cb.equal(root.get("usuarioId"), usuarioId));
+        }
+        if (desde != null) {
+            ands.add(cb.greaterThanOrEqualTo(root.get("fechaEmision"), desde));
+        }
+        if (hasta != null) {
+            ands.add(cb.lessThan(root.get("fechaEmision"), hasta));
+        }
+        if (tipos != null && !tipos.isEmpty()) {
+            ands.add(tipos.size() == 1
+                    ? cb.equal(root.get("tipo"), tipos.get(0))
+                    : root.get("tipo").in(tipos));
+        }
+        if (moneda != null) {
+            ands.add(cb.equal(root.get("moneda"), moneda));
+        }
+        if (montoMin != null) {
+            ands.add(cb.greaterThanOrEqualTo(cb.coalesce(root.<Double>get("montoTotal"), 0d), montoMin));
+        }
+        if (montoMax != null) {
+            ands.add(cb.lessThanOrEqualTo(cb.coalesce(root.<Double>get("montoTotal"), 0d), montoMax));
+        }
+        if (conciliado != null) {
+            ands.add(conciliado
+                    ? cb.isNotNull(root.get("documentoId"))
+                    : cb.isNull(root.get("documentoId")));
+        }
+        if (nombreRelacionado != null) {
+            String patron = "%" + nombreRelacionado.toLowerCase() + "%";
+            ands.add(cb.or(
+                    cb.like(cb.lower(root.get("origenNombre")), patron),
+                    cb.like(cb.lower(root.get("destinoNombre")), patron),
+                    cb.like(cb.lower(root.get("descripcion")), patron)));
+        }
+        if (search != null) {
+            String patron = "%" + search.toLowerCase() + "%";
+            ands.add(cb.or(
+                    cb.like(textoEnMinusculas(root, cb, "origenNombre"), patron),
+                    cb.like(textoEnMinusculas(root, cb, "destinoNombre"), patron),
+                    cb.like(textoEnMinusculas(root, cb, "descripcion"), patron),
+                    cb.like(textoEnMinusculas(root, cb, "categoria"), patron),
+                    cb.like(textoEnMinusculas(root, cb, "origenCuit"), patron),
+                    cb.like(textoEnMinusculas(root, cb, "destinoCuit"), patron)));
+        }
+        if (searchDate != null) {
+            // Rango del día en lugar de DATE(fechaEmision) = :searchDate, que no puede usar índice
+            ands.add(cb.greaterThanOrEqualTo(root.get("fechaEmision"), searchDate.atStartOfDay()));
+            ands.add(cb.lessThan(root.get("fechaEmision"), searchDate.plusDays(1).atStartOfDay()));
+        }
+        return ands;
+    }
+
+    private static Expression<String> textoEnMinusculas(Root<Movimiento> root, CriteriaBuilder cb, String campo) {
+        return cb.lower(cb.coalesce(root.<String>get(campo), ""));
+    }
+
+    public static class FiltroMovimientosBuilder {
+
+        public FiltroMovimientosBuilder tipo(TipoMovimiento tipo) {
+            this.tipos = tipo != null ? List.of(tipo) : null;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package registro.cargarDatos.repositories;
+
+import java.util.List;
+
+/**
+ * Agregados de movimientos armados con Criteria a partir de un FiltroMovimientos:
+ * el SQL solo lleva los predicados de los filtros informados.
+ */
+public interface MovimientoAgregadosRepository {
+
+    /** COALESCE(SUM(montoTotal), 0) de los movimientos que cumplen el filtro. */
+    Double sumarMontos(FiltroMovimientos filtro);
+
+    /**
+     * Por tipo: tipo, cantidad, conciliados, monto total, monto conciliado y monto pendiente
+     * (mismas columnas que devolvía obtenerResumenConciliacionPorTipo).
+     */
+    List<Object[]> resumirConciliacionPorTipo(FiltroMovimientos filtro);
+
+    /**
+     * Última conciliación (fechaActualizacion o, si falta, fechaEmision de un conciliado)
+     * y fechaEmision del último pendiente. Cualquiera de las dos puede ser null.
+     */
+    Object[] ultimasFechasConciliacion(FiltroMovimientos filtro);
+}
@@ -0,0 +1,79 @@
+package registro.cargarDatos.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import registro.cargarDatos.models.Movimiento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementación del fragmento MovimientoAgregadosRepository (Spring Data la asocia a
+ * MovimientoRepository por el sufijo Impl).
+ */
+class MovimientoAgregadosRepositoryImpl implements MovimientoAgregadosRepository {
+
+    private final EntityManager entityManager;
+
+    MovimientoAgregadosRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Double sumarMontos(FiltroMovimientos filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Double> query = cb.createQuery(Double.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+
+        query.select(cb.coalesce(cb.sum(root.<Double>get("montoTotal")), 0d))
+                .where(filtrar(filtro, root, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<Object[]> resumirConciliacionPorTipo(FiltroMovimientos filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+
+        Predicate conciliado = cb.isNotNull(root.get("documentoId"));
+        Expression<Double> monto = root.get("montoTotal");
+
+        query.multiselect(
+                        root.get("tipo"),
+                        cb.count(root),
+                        cb.sum(cb.<Integer>selectCase().when(conciliado, 1).otherwise(0)),
+                        cb.sum(monto),
+                        cb.sum(cb.<Double>selectCase().when(conciliado, monto).otherwise(0d)),
+                        cb.sum(cb.<Double>selectCase().when(cb.not(conciliado), monto).otherwise(0d)))
+                .where(filtrar(filtro, root, cb))
+                .groupBy(root.get("tipo"));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public Object[] ultimasFechasConciliacion(FiltroMovimientos filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+
+        Predicate conciliado = cb.isNotNull(root.get("documentoId"));
+        Expression<LocalDateTime> fechaEmision = root.get("fechaEmision");
+        Expression<LocalDateTime> fechaConciliacion = cb.coalesce(root.get("fechaActualizacion"), fechaEmision);
+        Expression<LocalDateTime> sinFecha = cb.nullLiteral(LocalDateTime.class);
+
+        query.multiselect(
+                        cb.greatest(cb.<LocalDateTime>selectCase().when(conciliado, fechaConciliacion).otherwise(sinFecha)),
+                        cb.greatest(cb.<LocalDateTime>selectCase().when(cb.not(conciliado), fechaEmision).otherwise(sinFecha)))
+                .where(filtrar(filtro, root, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] filtrar(FiltroMovimientos filtro, Root<Movimiento> root, CriteriaBuilder cb) {
+        return filtro.predicados(root, cb).toArray(new Predicate[0]);
+    }
+}
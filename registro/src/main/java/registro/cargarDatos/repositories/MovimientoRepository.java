@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, JpaSpecificationExecutor<Movimiento> {
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, JpaSpecificationExecutor<Movimiento>,
+                MovimientoAgregadosRepository {
 
         // Buscar por organización
         List<Movimiento> findByOrganizacionId(Long organizacionId);
@@ -35,6 +36,26 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
         List<Movimiento> findByOrganizacionIdAndFechaEmisionIn(Long organizacionId,
                         java.util.Set<LocalDateTime> fechas);
 
+        // Huellas ya registradas en la empresa (usa idx_registro_org_huella)
+        @Query("SELECT DISTINCT m.huellaDuplicado FROM Movimiento m " +
+                        "WHERE m.organizacionId = :organizacionId AND m.huellaDuplicado IN :huellas")
+        List<String> findHuellasExistentes(@Param("organizacionId") Long organizacionId,
+                        @Param("huellas") java.util.Collection<String> huellas);
+
+        /** findHuellasExistentes en tandas, para no armar un IN enorme con archivos grandes. */
+        default java.util.Set<String> buscarHuellasExistentes(Long organizacionId, java.util.Collection<String> huellas) {
+                java.util.Set<String> existentes = new java.util.HashSet<>();
+                List<String> pendientes = new java.util.ArrayList<>(huellas);
+                for (int desde = 0; desde < pendientes.size(); desde += 1000) {
+                        existentes.addAll(findHuellasExistentes(organizacionId,
+                                        pendientes.subList(desde, Math.min(desde + 1000, pendientes.size()))));
+                }
+                return existentes;
+        }
+
+        // Movimientos anteriores a la columna huella_duplicado, para completarla por tandas
+        List<Movimiento> findTop500ByHuellaDuplicadoIsNullOrderByIdAsc();
+
         // Buscar por organización y rango de fechas
         List<Movimiento> findByOrganizacionIdAndFechaEmisionBetween(Long organizacionId, LocalDateTime inicio,
                         LocalDateTime fin);
@@ -49,155 +70,111 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, J
                         LocalDateTime inicio,
                         LocalDateTime fin);
 
-        @Query("SELECT COALESCE(SUM(m.montoTotal), 0) FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
-                        "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND m.tipo = :tipo " +
-                        "AND m.fechaEmision BETWEEN :inicio AND :fin")
-        Double sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                        @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
-                        @Param("moneda") TipoMoneda moneda,
-                        @Param("tipo") TipoMovimiento tipo,
-                        @Param("inicio") LocalDateTime inicio,
-                        @Param("fin") LocalDateTime fin);
-
-        @Query("SELECT COUNT(m) FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
-                        "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND m.fechaEmision BETWEEN :inicio AND :fin")
-        long countByOrganizacionOrUsuarioAndFechaEmisionBetween(
-                        @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
-                        @Param("moneda") TipoMoneda moneda,
-                        @Param("inicio") LocalDateTime inicio,
-                        @Param("fin") LocalDateTime fin);
-
-        @Query("SELECT COUNT(m) FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
+        // Lectura por cursor (keyset sobre fechaEmision, id): cada página continúa
+        // después del último registro leído, sin OFFSET ni COUNT
+        @Query("SELECT m FROM Movimiento m " +
+                        "WHERE m.organizacionId = :organizacionId " +
+                        "AND m.fechaEmision >= :inicio " +
+                        "AND m.fechaEmision < :fin " +
+                        "AND m.tipo IN :tipos " +
                         "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND m.fechaEmision BETWEEN :inicio AND :fin " +
-                        "AND m.documentoComercial IS NOT NULL")
-        long countConciliadosByOrganizacionOrUsuarioAndFechaEmisionBetween(
+                        "AND (:cursorFecha IS NULL OR m.fechaEmision > :cursorFecha " +
+                        "     OR (m.fechaEmision = :cursorFecha AND m.id > :cursorId)) " +
+                        "ORDER BY m.fechaEmision ASC, m.id ASC")
+        List<Movimiento> findSiguientePaginaPorCursor(
                         @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
-                        @Param("moneda") TipoMoneda moneda,
                         @Param("inicio") LocalDateTime inicio,
-                        @Param("fin") LocalDateTime fin);
-
-        @Query("SELECT COUNT(m) FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
-                        "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND m.fechaEmision BETWEEN :inicio AND :fin " +
-                        "AND m.documentoComercial IS NULL")
-        long countPendientesByOrganizacionOrUsuarioAndFechaEmisionBetween(
-                        @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
+                        @Param("fin") LocalDateTime fin,
+                        @Param("tipos") List<TipoMovimiento> tipos,
                         @Param("moneda") TipoMoneda moneda,
-                        @Param("inicio") LocalDateTime inicio,
-                        @Param("fin") LocalDateTime fin);
+                        @Param("cursorFecha") LocalDateTime cursorFecha,
+                        @Param("cursorId") Long cursorId,
+                        Pageable pageable);
 
-        @Query("SELECT MAX(COALESCE(m.fechaActualizacion, m.fechaEmision)) FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
+        // Query optimizada para sumar montos por categoría (reemplaza findAll + groupBy
+        // en memoria)
+        @Query("SELECT COALESCE(m.categoria, 'Sin categoria'), SUM(m.montoTotal) " +
+                        "FROM Movimiento m " +
+                        "WHERE m.organizacionId = :organizacionId " +
+                        "AND m.tipo = :tipo " +
                         "AND (:moneda IS NULL OR m.moneda = :moneda) " +
                         "AND m.fechaEmision BETWEEN :inicio AND :fin " +
-                        "AND m.documentoComercial IS NOT NULL")
-        LocalDateTime findUltimaConciliacion(
+                        "GROUP BY m.categoria " +
+                        "ORDER BY SUM(m.montoTotal) DESC")
+        List<Object[]> sumMontosPorCategoria(
                         @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
+                        @Param("tipo") TipoMovimiento tipo,
                         @Param("moneda") TipoMoneda moneda,
                         @Param("inicio") LocalDateTime inicio,
                         @Param("fin") LocalDateTime fin);
 
-        @Query("SELECT MAX(m.fechaEmision) FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
+        // Totales mensuales por tipo y moneda (histórico para forecast, evita traer
+        // cada movimiento)
+        @Query("SELECT YEAR(m.fechaEmision), MONTH(m.fechaEmision), m.tipo, m.moneda, " +
+                        "SUM(m.montoTotal), COUNT(m) " +
+                        "FROM Movimiento m " +
+                        "WHERE m.organizacionId = :organizacionId " +
+                        "AND m.fechaEmision IS NOT NULL " +
+                        "GROUP BY YEAR(m.fechaEmision), MONTH(m.fechaEmision), m.tipo, m.moneda " +
+                        "ORDER BY YEAR(m.fechaEmision), MONTH(m.fechaEmision)")
+        List<Object[]> sumMontosMensualesPorTipoYMoneda(@Param("organizacionId") Long organizacionId);
+
+        // Montos y cantidad de los movimientos que impactan en el saldo, por organización,
+        // moneda y tipo (control de saldo_mensual)
+        @Query("SELECT m.organizacionId, m.moneda, m.tipo, SUM(m.montoTotal), COUNT(m) FROM Movimiento m " +
+                        "WHERE m.organizacionId IS NOT NULL " +
+                        "AND m.fechaEmision IS NOT NULL " +
+                        "AND m.tipo IN :tipos " +
+                        "GROUP BY m.organizacionId, m.moneda, m.tipo")
+        List<Object[]> sumPorOrganizacionMonedaYTipo(@Param("tipos") List<TipoMovimiento> tipos);
+
+        // Agregado por mes, tipo, categoría y moneda en una sola pasada (cash-flow,
+        // P&L y resumen mensual de reporte)
+        @Query("SELECT YEAR(m.fechaEmision), MONTH(m.fechaEmision), m.tipo, m.categoria, m.moneda, " +
+                        "SUM(m.montoTotal), SUM(ABS(m.montoTotal)), COUNT(m) " +
+                        "FROM Movimiento m " +
+                        "WHERE m.organizacionId = :organizacionId " +
+                        "AND m.fechaEmision >= :inicio " +
+                        "AND m.fechaEmision < :fin " +
+                        "AND m.tipo IN :tipos " +
                         "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND m.fechaEmision BETWEEN :inicio AND :fin " +
-                        "AND m.documentoComercial IS NULL")
-        LocalDateTime findUltimoMovimientoPendiente(
+                        "GROUP BY YEAR(m.fechaEmision), MONTH(m.fechaEmision), m.tipo, m.categoria, m.moneda")
+        List<Object[]> sumMontosPorMesTipoCategoriaYMoneda(
                         @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
-                        @Param("moneda") TipoMoneda moneda,
                         @Param("inicio") LocalDateTime inicio,
-                        @Param("fin") LocalDateTime fin);
+                        @Param("fin") LocalDateTime fin,
+                        @Param("tipos") List<TipoMovimiento> tipos,
+                        @Param("moneda") TipoMoneda moneda);
 
-        @Query("SELECT m.tipo, COUNT(m), SUM(CASE WHEN m.documentoComercial IS NOT NULL THEN 1 ELSE 0 END), " +
-                        "SUM(m.montoTotal), " +
-                        "SUM(CASE WHEN m.documentoComercial IS NOT NULL THEN m.montoTotal ELSE 0 END), " +
-                        "SUM(CASE WHEN m.documentoComercial IS NULL THEN m.montoTotal ELSE 0 END) " +
+        // Serie mensual por tipo en una sola pasada (dashboard: ingresos/egresos por mes
+        // y resumen del mes actual)
+        @Query("SELECT YEAR(m.fechaEmision), MONTH(m.fechaEmision), m.tipo, " +
+                        "COALESCE(SUM(m.montoTotal), 0), COUNT(m) " +
                         "FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
+                        "WHERE m.organizacionId = :organizacionId " +
                         "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND m.fechaEmision BETWEEN :inicio AND :fin " +
-                        "GROUP BY m.tipo")
-        List<Object[]> obtenerResumenConciliacionPorTipo(
+                        "AND m.fechaEmision >= :inicio " +
+                        "AND m.fechaEmision < :fin " +
+                        "GROUP BY YEAR(m.fechaEmision), MONTH(m.fechaEmision), m.tipo")
+        List<Object[]> sumMontosMensualesPorTipo(
                         @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
                         @Param("moneda") TipoMoneda moneda,
                         @Param("inicio") LocalDateTime inicio,
                         @Param("fin") LocalDateTime fin);
 
-        // Query optimizada para obtener movimientos con filtros (reemplaza findAll +
-        // filtros en memoria)
-        @Query("SELECT m FROM Movimiento m " +
-                        "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
-                        "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
-                        "AND (:fechaDesde IS NULL OR m.fechaEmision >= :fechaDesde) " +
-                        "AND (:fechaHasta IS NULL OR m.fechaEmision <= :fechaHasta) " +
-                        "AND (:tipos IS NULL OR m.tipo IN :tipos) " +
-                        "AND (:moneda IS NULL OR m.moneda = :moneda) " +
-                        "AND (:montoMin IS NULL OR COALESCE(m.montoTotal, 0) >= :montoMin) " +
-                        "AND (:montoMax IS NULL OR COALESCE(m.montoTotal, 0) <= :montoMax) " +
-                        "AND (:conciliado IS NULL OR " +
-                        "     (CASE WHEN :conciliado = true THEN m.documentoComercial IS NOT NULL " +
-                        "           ELSE m.documentoComercial IS NULL END)) " +
-                        "AND (:nombreRelacionado IS NULL OR " +
-                        "     LOWER(m.origenNombre) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%')) OR " +
-                        "     LOWER(m.destinoNombre) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%')) OR " +
-                        "     LOWER(m.descripcion) LIKE LOWER(CONCAT('%', :nombreRelacionado, '%'))) " +
-                        "AND (:search IS NULL OR " +
-                        "     LOWER(COALESCE(m.origenNombre, '')) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-                        "     LOWER(COALESCE(m.destinoNombre, '')) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-                        "     LOWER(COALESCE(m.descripcion, '')) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-                        "     LOWER(COALESCE(m.categoria, '')) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-                        "     LOWER(COALESCE(m.origenCuit, '')) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-                        "     LOWER(COALESCE(m.destinoCuit, '')) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-                        "AND (:searchDate IS NULL OR DATE(m.fechaEmision) = :searchDate)")
-        org.springframework.data.domain.Page<Movimiento> findMovimientosConFiltros(
-                        @Param("organizacionId") Long organizacionId,
-                        @Param("usuarioId") String usuarioId,
-                        @Param("fechaDesde") LocalDateTime fechaDesde,
-                        @Param("fechaHasta") LocalDateTime fechaHasta,
-                        @Param("tipos") List<TipoMovimiento> tipos,
-                        @Param("moneda") TipoMoneda moneda,
-                        @Param("montoMin") Double montoMin,
-                        @Param("montoMax") Double montoMax,
-                        @Param("conciliado") Boolean conciliado,
-                        @Param("nombreRelacionado") String nombreRelacionado,
-                        @Param("search") String search,
-                        @Param("searchDate") java.time.LocalDate searchDate,
-                        org.springframework.data.domain.Pageable pageable);
-
-        // Query optimizada para sumar montos por categoría (reemplaza findAll + groupBy
-        // en memoria)
-        @Query("SELECT COALESCE(m.categoria, 'Sin categoria'), SUM(m.montoTotal) " +
+        // Montos por tipo y categoría en una sola pasada (ingresos y egresos del
+        // dashboard juntos)
+        @Query("SELECT m.tipo, COALESCE(m.categoria, 'Sin categoria'), SUM(m.montoTotal) " +
                         "FROM Movimiento m " +
                         "WHERE m.organizacionId = :organizacionId " +
-                        "AND m.tipo = :tipo " +
+                        "AND m.tipo IN :tipos " +
                         "AND (:moneda IS NULL OR m.moneda = :moneda) " +
                         "AND m.fechaEmision BETWEEN :inicio AND :fin " +
-                        "GROUP BY m.categoria " +
+                        "GROUP BY m.tipo, m.categoria " +
                         "ORDER BY SUM(m.montoTotal) DESC")
-        List<Object[]> sumMontosPorCategoria(
+        List<Object[]> sumMontosPorTipoYCategoria(
                         @Param("organizacionId") Long organizacionId,
-                        @Param("tipo") TipoMovimiento tipo,
+                        @Param("tipos") List<TipoMovimiento> tipos,
                         @Param("moneda") TipoMoneda moneda,
                         @Param("inicio") LocalDateTime inicio,
                         @Param("fin") LocalDateTime fin);
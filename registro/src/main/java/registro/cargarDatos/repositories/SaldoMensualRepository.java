@@ -0,0 +1,42 @@
+package registro.cargarDatos.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import registro.cargarDatos.models.SaldoMensual;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SaldoMensualRepository extends JpaRepository<SaldoMensual, Long> {
+
+    // Saldo al cierre del último mes anterior a :periodo, sumado entre monedas si :moneda es null
+    @Query("SELECT COALESCE(SUM(s.saldoCierre), 0) FROM SaldoMensual s " +
+            "WHERE s.organizacionId = :organizacionId " +
+            "AND (:moneda IS NULL OR s.moneda = :moneda) " +
+            "AND s.periodo = (SELECT MAX(s2.periodo) FROM SaldoMensual s2 " +
+            "                 WHERE s2.organizacionId = s.organizacionId " +
+            "                 AND s2.moneda = s.moneda " +
+            "                 AND s2.periodo < :periodo)")
+    Double sumSaldoCierreAnteriorA(@Param("organizacionId") Long organizacionId,
+                                   @Param("moneda") String moneda,
+                                   @Param("periodo") LocalDate periodo);
+
+    // Totales de los cierres por organización y moneda (control contra registro)
+    @Query("SELECT s.organizacionId, s.moneda, SUM(s.ingresos), SUM(s.egresos), SUM(s.cantidad) " +
+            "FROM SaldoMensual s GROUP BY s.organizacionId, s.moneda")
+    List<Object[]> sumTotalesPorOrganizacionYMoneda();
+
+    // Saldo de cierre del último mes de cada organización y moneda
+    @Query("SELECT s.organizacionId, s.moneda, s.saldoCierre FROM SaldoMensual s " +
+            "WHERE s.periodo = (SELECT MAX(s2.periodo) FROM SaldoMensual s2 " +
+            "                   WHERE s2.organizacionId = s.organizacionId AND s2.moneda = s.moneda)")
+    List<Object[]> findUltimosCierres();
+
+    @Modifying
+    @Query("DELETE FROM SaldoMensual s WHERE s.organizacionId = :organizacionId")
+    int deleteByOrganizacionId(@Param("organizacionId") Long organizacionId);
+}
@@ -0,0 +1,206 @@
+package registro.cargarDatos.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.cargarDatos.config.DashboardExecutorConfig;
+import registro.cargarDatos.dtos.ConciliacionResumenResponse;
+import registro.cargarDatos.dtos.DashboardSummaryResponse;
+import registro.cargarDatos.dtos.MontosPorCategoriaResponse;
+import registro.cargarDatos.dtos.SaldoTotalResponse;
+import registro.cargarDatos.dtos.SeriesMensualesResponse;
+import registro.cargarDatos.models.Factura;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.Pagare;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Arma el resumen del dashboard lanzando cada sección en paralelo sobre dashboardExecutor.
+ * Todas comparten un mismo plazo (mycfo.dashboard.timeout-seccion) contado desde el inicio:
+ * la sección que no termina a tiempo o falla se cancela, queda en null y se informa en
+ * seccionesIncompletas, sin tirar abajo el resto del resumen.
+ * Cada sección corre en una transacción de solo lectura cuyo timeout es lo que queda del
+ * plazo, así las consultas se cortan en la base; y entre todos los pedidos no hay más de
+ * mycfo.dashboard.max-consultas secciones con conexión a la vez.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    static final String SECCION_SERIES = "series";
+    static final String SECCION_CATEGORIAS = "categorias";
+    static final String SECCION_CONCILIACION = "conciliacion";
+    static final String SECCION_SALDO = "saldoTotal";
+    static final String SECCION_MOVIMIENTOS = "movimientosRecientes";
+    static final String SECCION_FACTURAS = "facturasRecientes";
+
+    private final MovimientoService movimientoService;
+    private final FacturaService facturaService;
+    private final ExecutorService executor;
+    private final PlatformTransactionManager transactionManager;
+    private final Duration timeoutSeccion;
+    private final Semaphore consultas;
+
+    public DashboardService(MovimientoService movimientoService,
+                            FacturaService facturaService,
+                            @Qualifier(DashboardExecutorConfig.DASHBOARD_EXECUTOR) ExecutorService executor,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${mycfo.dashboard.timeout-seccion:5s}") Duration timeoutSeccion,
+                            @Value("${mycfo.dashboard.max-consultas:5}") int maxConsultas) {
+        this.movimientoService = movimientoService;
+        this.facturaService = facturaService;
+        this.executor = executor;
+        this.transactionManager = transactionManager;
+        this.timeoutSeccion = timeoutSeccion;
+        this.consultas = new Semaphore(Math.max(1, maxConsultas), true);
+    }
+
+    public DashboardSummaryResponse obtenerResumen(Long empresaId,
+                                                   String usuarioSub,
+                                                   LocalDate fechaBase,
+                                                   int meses,
+                                                   int limiteMovimientos,
+                                                   int limiteFacturas,
+                                                   TipoMoneda moneda) {
+        long limite = System.nanoTime() + timeoutSeccion.toNanos();
+
+        Future<SeriesMensualesResponse> series = enviar(limite, () ->
+                movimientoService.obtenerSeriesMensuales(empresaId, fechaBase, meses, moneda));
+        Future<Map<TipoMovimiento, MontosPorCategoriaResponse>> categorias = enviar(limite, () ->
+                movimientoService.obtenerMontosPorCategoriaPorTipo(empresaId, fechaBase, moneda));
+        Future<ConciliacionResumenResponse> conciliacion = enviar(limite, () ->
+                movimientoService.obtenerResumenConciliacion(empresaId, usuarioSub, fechaBase, moneda));
+        Future<SaldoTotalResponse> saldo = enviar(limite, () -> SaldoTotalResponse.builder()
+                .organizacionId(empresaId)
+                .saldoTotal(movimientoService.obtenerSaldoTotalEmpresa(empresaId, moneda))
+                .moneda(moneda != null ? moneda.name() : "ARS")
+                .build());
+        Future<List<Movimiento>> movimientos = enviar(limite, () ->
+                movimientosRecientes(empresaId, limiteMovimientos, moneda));
+        Future<List<Factura>> facturas = enviar(limite, () ->
+                facturasRecientes(empresaId, limiteFacturas, moneda));
+
+        List<String> incompletas = new ArrayList<>();
+        SeriesMensualesResponse seriesResultado = esperar(SECCION_SERIES, series, limite, incompletas);
+        Map<TipoMovimiento, MontosPorCategoriaResponse> categoriasResultado =
+                esperar(SECCION_CATEGORIAS, categorias, limite, incompletas);
+
+        DashboardSummaryResponse.DashboardSummaryResponseBuilder response = DashboardSummaryResponse.builder()
+                .conciliacion(esperar(SECCION_CONCILIACION, conciliacion, limite, incompletas))
+                .saldoTotal(esperar(SECCION_SALDO, saldo, limite, incompletas))
+                .movimientosRecientes(esperar(SECCION_MOVIMIENTOS, movimientos, limite, incompletas))
+                .facturasRecientes(esperar(SECCION_FACTURAS, facturas, limite, incompletas));
+
+        if (seriesResultado != null) {
+            response.resumenMensual(seriesResultado.getResumenMensual())
+                    .ingresosMensuales(seriesResultado.getIngresosMensuales())
+                    .egresosMensuales(seriesResultado.getEgresosMensuales());
+        }
+        if (categoriasResultado != null) {
+            response.ingresosPorCategoria(categoriasResultado.get(TipoMovimiento.Ingreso))
+                    .egresosPorCategoria(categoriasResultado.get(TipoMovimiento.Egreso));
+        }
+
+        if (!incompletas.isEmpty()) {
+            log.warn("Dashboard parcial para empresa {}: secciones sin datos {}", empresaId, incompletas);
+        }
+        return response
+                .parcial(!incompletas.isEmpty())
+                .seccionesIncompletas(incompletas)
+                .build();
+    }
+
+    private List<Movimiento> movimientosRecientes(Long empresaId, int limite, TipoMoneda moneda) {
+        Pageable pageable = PageRequest.of(0, limite, Sort.by(Sort.Direction.DESC, "fechaEmision"));
+        return movimientoService.obtenerMovimientos(
+                empresaId, null, null, null, null, null, null, moneda, null, null, null, null, pageable)
+                .getContent();
+    }
+
+    /**
+     * Fuera del hilo de la petición no hay open-in-view: las colecciones que Jackson
+     * serializa se inicializan acá, dentro de la transacción de la sección.
+     */
+    private List<Factura> facturasRecientes(Long empresaId, int limite, TipoMoneda moneda) {
+        Pageable pageable = PageRequest.of(0, limite, Sort.by(Sort.Direction.DESC, "fechaEmision"));
+        List<Factura> facturas = facturaService.listarPaginadasPorOrganizacion(empresaId, moneda, pageable)
+                .getContent();
+        for (Factura factura : facturas) {
+            Hibernate.initialize(factura.getItems());
+            Hibernate.initialize(factura.getRecibos());
+            Hibernate.initialize(factura.getPagares());
+            if (factura.getPagares() != null) {
+                for (Pagare pagare : factura.getPagares()) {
+                    Hibernate.initialize(pagare.getRecibos());
+                }
+            }
+        }
+        return facturas;
+    }
+
+    /**
+     * Lanza una sección: espera un lugar entre las max-consultas hasta el límite y la corre
+     * en una transacción de solo lectura con timeout igual a lo que queda del plazo (en
+     * segundos, redondeado hacia arriba). Spring pasa ese timeout a cada consulta JPA y JDBC.
+     */
+    private <T> Future<T> enviar(long limite, Supplier<T> seccion) {
+        return executor.submit(() -> {
+            if (!consultas.tryAcquire(Math.max(0L, limite - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("Sin lugar para consultar antes del plazo");
+            }
+            try {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    throw new TimeoutException("Plazo vencido antes de consultar");
+                }
+                TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+                lectura.setReadOnly(true);
+                lectura.setTimeout((int) Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(restante + 999_999_999L)));
+                return lectura.execute(status -> seccion.get());
+            } finally {
+                consultas.release();
+            }
+        });
+    }
+
+    private <T> T esperar(String seccion, Future<T> tarea, long limite, List<String> incompletas) {
+        try {
+            long restante = Math.max(0L, limite - System.nanoTime());
+            return tarea.get(restante, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Sección {} del dashboard excedió {} ms", seccion, timeoutSeccion.toMillis());
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            log.error("Sección {} del dashboard falló: {}", seccion, causa.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrumpida la espera de la sección {} del dashboard", seccion);
+        }
+        // Interrumpe la espera de un lugar o de una conexión del pool; una consulta ya enviada
+        // no se corta con la interrupción sino con el timeout de la transacción de la sección
+        tarea.cancel(true);
+        incompletas.add(seccion);
+        return null;
+    }
+}
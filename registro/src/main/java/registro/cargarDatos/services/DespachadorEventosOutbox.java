@@ -0,0 +1,259 @@
+package registro.cargarDatos.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import registro.cargarDatos.models.EstadoEventoOutbox;
+import registro.cargarDatos.models.EventoOutbox;
+import registro.cargarDatos.repositories.EventoOutboxRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envía a notificacion los eventos de evento_outbox en segundo plano.
+ * Cada pasada reserva un lote (SELECT ... FOR UPDATE SKIP LOCKED y una marca de reserva
+ * en proximo_intento), lo envía fuera de toda transacción en un solo POST a
+ * /api/events/batch y después borra los enviados y reprograma los fallidos con backoff
+ * exponencial. La entrega es al menos una vez: notificacion descarta los repetidos.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "mycfo.outbox.despachador.habilitado", havingValue = "true", matchIfMissing = true)
+public class DespachadorEventosOutbox {
+
+    private static final String PREFIJO_RUTA = "/api/events/";
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final int tamanioLote;
+    private final int maxIntentos;
+    private final Duration backoffInicial;
+    private final Duration backoffMaximo;
+    private final Duration reserva;
+
+    public DespachadorEventosOutbox(
+            EventoOutboxRepository eventoOutboxRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            RestTemplateBuilder restTemplateBuilder,
+            @Value("${notificacion.service.url}") String baseUrl,
+            @Value("${mycfo.outbox.lote:100}") int tamanioLote,
+            @Value("${mycfo.outbox.max-intentos:10}") int maxIntentos,
+            @Value("${mycfo.outbox.backoff-inicial:5s}") Duration backoffInicial,
+            @Value("${mycfo.outbox.backoff-maximo:30m}") Duration backoffMaximo,
+            @Value("${mycfo.outbox.reserva:2m}") Duration reserva,
+            @Value("${mycfo.outbox.timeout:5s}") Duration timeout) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Cliente propio con timeouts: un notificacion colgado no debe trabar el despachador
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(timeout)
+                .readTimeout(timeout)
+                .build();
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.tamanioLote = Math.max(1, tamanioLote);
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.backoffInicial = backoffInicial;
+        this.backoffMaximo = backoffMaximo;
+        this.reserva = reserva;
+    }
+
+    @Scheduled(fixedDelayString = "${mycfo.outbox.intervalo-ms:2000}")
+    public void despacharPendientes() {
+        boolean seguir;
+        do {
+            List<EventoOutbox> lote = reservarLote();
+            if (lote.isEmpty()) {
+                return;
+            }
+            // Si el lote vino lleno probablemente quedan más; se sigue mientras notificacion responda
+            seguir = enviar(lote) && lote.size() == tamanioLote;
+        } while (seguir);
+    }
+
+    private List<EventoOutbox> reservarLote() {
+        return transactionTemplate.execute(status -> {
+            Instant ahora = Instant.now();
+            List<EventoOutbox> listos = eventoOutboxRepository.tomarListos(
+                    EstadoEventoOutbox.PENDIENTE, ahora, PageRequest.of(0, tamanioLote));
+            if (!listos.isEmpty()) {
+                eventoOutboxRepository.reservarHasta(ids(listos), ahora.plus(reserva));
+            }
+            return listos;
+        });
+    }
+
+    /** Envía el lote y registra el resultado. Devuelve false si notificacion no está accesible. */
+    private boolean enviar(List<EventoOutbox> lote) {
+        Resultado resultado = enviarPorLoteOUnoPorUno(lote);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant ahora = Instant.now();
+            if (!resultado.enviados().isEmpty()) {
+                eventoOutboxRepository.deleteAllByIdInBatch(resultado.enviados());
+            }
+            if (!resultado.sinIntentar().isEmpty()) {
+                eventoOutboxRepository.reservarHasta(resultado.sinIntentar(), ahora.plus(backoffInicial));
+            }
+            eventoOutboxRepository.findAllById(resultado.fallidos().keySet())
+                    .forEach(evento -> registrarFallo(evento, resultado.fallidos().get(evento.getId()), ahora));
+        });
+
+        if (!resultado.fallidos().isEmpty()) {
+            log.warn("Outbox: {} eventos enviados, {} fallidos, {} postergados (notificacion {})",
+                    resultado.enviados().size(), resultado.fallidos().size(), resultado.sinIntentar().size(),
+                    resultado.accesible() ? "responde" : "no accesible");
+        } else {
+            log.debug("Outbox: {} eventos enviados", resultado.enviados().size());
+        }
+        return resultado.accesible();
+    }
+
+    private Resultado enviarPorLoteOUnoPorUno(List<EventoOutbox> lote) {
+        try {
+            return enviarEnUnaLlamada(lote);
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            // notificacion sin /api/events/batch (versión anterior): un POST por evento
+            log.debug("Outbox: notificacion no acepta lotes, se envía evento por evento");
+            return enviarUnoPorUno(lote);
+        }
+    }
+
+    /**
+     * Todo el lote en un POST a /api/events/batch. notificacion informa por posición los
+     * eventos rechazados (inválidos) y los fallidos (transitorios); el resto quedó registrado.
+     */
+    private Resultado enviarEnUnaLlamada(List<EventoOutbox> lote) {
+        ArrayNode cuerpo = objectMapper.createArrayNode();
+        try {
+            for (EventoOutbox evento : lote) {
+                cuerpo.addObject()
+                        .put("type", evento.getRuta().substring(PREFIJO_RUTA.length()))
+                        .set("payload", objectMapper.readTree(evento.getPayload()));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Payload inválido en evento_outbox", e);
+        }
+
+        Map<Long, Fallo> fallidos = new LinkedHashMap<>();
+        JsonNode respuesta;
+        try {
+            respuesta = restTemplate.postForObject(baseUrl + PREFIJO_RUTA + "batch",
+                    new HttpEntity<>(cuerpo, jsonHeaders()), JsonNode.class);
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            throw e;
+        } catch (RestClientException e) {
+            // Falló la llamada entera: todos cuentan un intento, ninguno es definitivo
+            lote.forEach(evento -> fallidos.put(evento.getId(), new Fallo(e.getMessage(), false)));
+            return new Resultado(List.of(), fallidos, List.of(), !(e instanceof ResourceAccessException));
+        }
+
+        if (respuesta != null) {
+            respuesta.path("rejected").forEach(error -> marcar(lote, error, true, fallidos));
+            respuesta.path("failed").forEach(error -> marcar(lote, error, false, fallidos));
+        }
+        List<Long> enviados = lote.stream().map(EventoOutbox::getId).filter(id -> !fallidos.containsKey(id)).toList();
+        return new Resultado(enviados, fallidos, List.of(), true);
+    }
+
+    private static void marcar(List<EventoOutbox> lote, JsonNode error, boolean definitivo, Map<Long, Fallo> fallidos) {
+        int indice = error.path("index").asInt(-1);
+        if (indice >= 0 && indice < lote.size()) {
+            fallidos.put(lote.get(indice).getId(), new Fallo(error.path("error").asText(null), definitivo));
+        }
+    }
+
+    private Resultado enviarUnoPorUno(List<EventoOutbox> lote) {
+        List<Long> enviados = new ArrayList<>();
+        Map<Long, Fallo> fallidos = new LinkedHashMap<>();
+        List<Long> sinIntentar = new ArrayList<>();
+        boolean accesible = true;
+
+        for (EventoOutbox evento : lote) {
+            if (!accesible) {
+                sinIntentar.add(evento.getId());
+                continue;
+            }
+            try {
+                restTemplate.postForEntity(baseUrl + evento.getRuta(),
+                        new HttpEntity<>(evento.getPayload(), jsonHeaders()), Void.class);
+                enviados.add(evento.getId());
+            } catch (RestClientException e) {
+                // Un 4xx (salvo 429) es un evento que notificacion rechaza: reintentarlo no cambia nada
+                boolean rechazado = e instanceof HttpClientErrorException http
+                        && http.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value();
+                fallidos.put(evento.getId(), new Fallo(e.getMessage(), rechazado));
+                // Conexión rechazada o timeout: el resto del lote fallaría igual
+                accesible = !(e instanceof ResourceAccessException);
+            }
+        }
+        return new Resultado(enviados, fallidos, sinIntentar, accesible);
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+
+    private void registrarFallo(EventoOutbox evento, Fallo fallo, Instant ahora) {
+        evento.setIntentos(evento.getIntentos() + 1);
+        evento.setUltimoError(abreviar(fallo.mensaje()));
+
+        if (fallo.definitivo() || evento.getIntentos() >= maxIntentos) {
+            evento.setEstado(EstadoEventoOutbox.FALLIDO);
+            log.error("Outbox: evento {} a {} descartado tras {} intentos: {}",
+                    evento.getId(), evento.getRuta(), evento.getIntentos(), fallo.mensaje());
+            return;
+        }
+        evento.setProximoIntento(ahora.plus(backoff(evento.getIntentos())));
+    }
+
+    // backoffInicial, el doble en cada intento, hasta backoffMaximo
+    private Duration backoff(int intentos) {
+        Duration espera = backoffInicial.multipliedBy(1L << Math.min(intentos - 1, 20));
+        return espera.compareTo(backoffMaximo) > 0 ? backoffMaximo : espera;
+    }
+
+    private static List<Long> ids(List<EventoOutbox> eventos) {
+        return eventos.stream().map(EventoOutbox::getId).toList();
+    }
+
+    private record Fallo(String mensaje, boolean definitivo) {}
+
+    private record Resultado(List<Long> enviados, Map<Long, Fallo> fallidos, List<Long> sinIntentar, boolean accesible) {}
+
+    private static String abreviar(String mensaje) {
+        if (mensaje == null) {
+            return null;
+        }
+        return mensaje.length() <= 500 ? mensaje : mensaje.substring(0, 500);
+    }
+}
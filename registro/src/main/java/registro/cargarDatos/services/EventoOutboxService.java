@@ -0,0 +1,58 @@
+package registro.cargarDatos.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import registro.cargarDatos.models.EventoOutbox;
+import registro.cargarDatos.repositories.EventoOutboxRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encola eventos para notificacion en la tabla evento_outbox. Se une a la transacción
+ * del llamador, así el evento existe si y solo si el cambio que lo originó se confirmó;
+ * el envío HTTP lo hace DespachadorEventosOutbox fuera de esa transacción.
+ */
+@Service
+@RequiredArgsConstructor
+public class EventoOutboxService {
+
+    public static final String RUTA_MOVIMIENTOS = "/api/events/movements";
+    public static final String RUTA_IMPORTACION = "/api/events/movements/imported";
+    public static final String RUTA_DUPLICADO = "/api/events/movements/duplicate";
+    public static final String RUTA_MP_VINCULADA = "/api/events/accounts/mp-linked";
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void encolar(String ruta, Object payload) {
+        eventoOutboxRepository.save(new EventoOutbox(ruta, serializar(payload), Instant.now()));
+    }
+
+    /** Encola varios eventos a la misma ruta en una sola transacción. */
+    @Transactional
+    public void encolarTodos(String ruta, List<?> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        Instant ahora = Instant.now();
+        List<EventoOutbox> eventos = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            eventos.add(new EventoOutbox(ruta, serializar(payload), ahora));
+        }
+        eventoOutboxRepository.saveAll(eventos);
+    }
+
+    private String serializar(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el evento: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package registro.cargarDatos.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Completa registro.huella_duplicado en los movimientos creados antes de que existiera
+ * la columna, en tandas con su propia transacción; los movimientos nuevos ya la calculan
+ * en @PrePersist/@PreUpdate.
+ * <p>
+ * Corre una sola vez entre todas las instancias: la primera que arranca toma la marca
+ * "huella_duplicado" de tarea_mantenimiento (con una reserva que renueva en cada tanda) y
+ * al terminar la deja completada; las demás, y los arranques siguientes, no hacen nada. Si la
+ * instancia cae a mitad de camino, el próximo arranque con la reserva vencida sigue desde ahí.
+ * Para volver a correrla (ej.: si una versión anterior siguió escribiendo durante un despliegue)
+ * alcanza con borrar la fila de la marca.
+ * <p>
+ * Hasta que termina, la detección de duplicados contra la base no ve los movimientos viejos
+ * que todavía no tienen huella.
+ */
+@Service
+@Slf4j
+public class HuellaDuplicadoBackfillService {
+
+    static final String TAREA = "huella_duplicado";
+
+    private final MovimientoRepository movimientoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reserva;
+
+    public HuellaDuplicadoBackfillService(MovimientoRepository movimientoRepository,
+                                          JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${mycfo.huella-duplicado.backfill.reserva:5m}") Duration reserva) {
+        this.movimientoRepository = movimientoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reserva = reserva;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarHuellasFaltantes() {
+        int total = 0;
+        try {
+            if (!tomarTarea()) {
+                return;
+            }
+            log.info("Completando huella_duplicado: hasta terminar, la detección de duplicados contra la base "
+                    + "no ve los movimientos viejos");
+            Integer actualizados;
+            do {
+                actualizados = transactionTemplate.execute(status -> {
+                    renovarReserva();
+                    List<Movimiento> tanda = movimientoRepository.findTop500ByHuellaDuplicadoIsNullOrderByIdAsc();
+                    tanda.forEach(Movimiento::recalcularHuellaDuplicado);
+                    movimientoRepository.saveAll(tanda);
+                    return tanda.size();
+                });
+                total += actualizados != null ? actualizados : 0;
+            } while (actualizados != null && actualizados > 0);
+            jdbcTemplate.update("UPDATE tarea_mantenimiento SET completada_en = ?, reservada_hasta = NULL WHERE nombre = ?",
+                    LocalDateTime.now(), TAREA);
+        } catch (Exception e) {
+            log.error("No se pudo completar huella_duplicado (actualizados {}): {}", total, e.getMessage());
+            return;
+        }
+        log.info("huella_duplicado completada en {} movimientos", total);
+    }
+
+    /**
+     * Toma la marca si no está completada ni reservada por otra instancia. El UPDATE
+     * condicional es atómico: de varias instancias que arrancan juntas, solo una lo logra.
+     */
+    private boolean tomarTarea() {
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO tarea_mantenimiento (nombre) VALUES (?) ON DUPLICATE KEY UPDATE nombre = nombre",
+                TAREA);
+        return jdbcTemplate.update("UPDATE tarea_mantenimiento SET reservada_hasta = ? WHERE nombre = ? "
+                        + "AND completada_en IS NULL AND (reservada_hasta IS NULL OR reservada_hasta < ?)",
+                ahora.plus(reserva), TAREA, ahora) == 1;
+    }
+
+    private void renovarReserva() {
+        jdbcTemplate.update("UPDATE tarea_mantenimiento SET reservada_hasta = ? WHERE nombre = ?",
+                LocalDateTime.now().plus(reserva), TAREA);
+    }
+}
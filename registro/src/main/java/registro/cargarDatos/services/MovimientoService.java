@@ -4,11 +4,14 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import registro.cargarDatos.config.CacheConfig;
 import registro.cargarDatos.models.EstadoMovimiento;
 import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.FiltroMovimientos;
 import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.cargarDatos.services.MovimientoEventService;
 
@@ -18,21 +21,26 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 
 import registro.cargarDatos.dtos.ConciliacionResumenResponse;
 import registro.cargarDatos.dtos.ConciliacionTipoResumen;
 import registro.cargarDatos.dtos.MontoPorCategoria;
 import registro.cargarDatos.dtos.MontosMensualesResponse;
 import registro.cargarDatos.dtos.MontosPorCategoriaResponse;
+import registro.cargarDatos.dtos.MovimientoAgregadoResponse;
+import registro.cargarDatos.dtos.MovimientosCursorResponse;
 import registro.cargarDatos.dtos.MovimientosPresupuestoResponse;
 import registro.cargarDatos.dtos.PuntoMontoMensual;
 import registro.cargarDatos.dtos.ResumenMensualResponse;
+import registro.cargarDatos.dtos.SeriesMensualesResponse;
+import registro.cargarDatos.dtos.TotalMensualResponse;
 import registro.cargarDatos.models.TipoMoneda;
 
 @Service
@@ -42,11 +50,15 @@ public class MovimientoService {
         private final MovimientoRepository movimientoRepository;
         private final EmpresaDataService empresaDataService;
         private final MovimientoEventService movimientoEventService;
+        private final PresupuestoCacheService presupuestoCacheService;
+        private final SaldoMensualService saldoMensualService;
+
+        private static final int MAX_PAGINA_CURSOR = 1000;
 
         /**
          * Guarda un nuevo movimiento estableciendo el estado según el tipo
          */
-        @CacheEvict(value = "movimientosPresupuesto", allEntries = true)
+        @Transactional
         public Movimiento guardarMovimiento(Movimiento movimiento) {
                 movimiento.setFechaCreacion(LocalDateTime.now());
 
@@ -65,14 +77,12 @@ public class MovimientoService {
 
                 // Guardar el movimiento
                 Movimiento savedMovimiento = movimientoRepository.save(movimiento);
+                saldoMensualService.registrarAlta(savedMovimiento);
+                presupuestoCacheService.evictarOrganizacion(savedMovimiento.getOrganizacionId());
 
-                // Enviar evento de notificación (asíncrono, no falla si el servicio está caído)
-                try {
-                        movimientoEventService.sendMovementCreatedEvent(savedMovimiento);
-                } catch (Exception e) {
-                        // Log error pero no fallar la operación principal
-                        System.err.println("Error enviando evento de movimiento: " + e.getMessage());
-                }
+                // Evento de notificación por outbox: se confirma junto con el movimiento y
+                // lo envía DespachadorEventosOutbox, sin llamadas HTTP en el alta
+                movimientoEventService.sendMovementCreatedEvent(savedMovimiento);
 
                 return savedMovimiento;
         }
@@ -166,7 +176,6 @@ public class MovimientoService {
          * Actualiza un movimiento existente
          */
         @Transactional
-        @CacheEvict(value = "movimientosPresupuesto", allEntries = true)
         public Movimiento actualizarMovimiento(Long id, Movimiento datosActualizados) {
                 Optional<Movimiento> optional = movimientoRepository.findById(id);
 
@@ -175,6 +184,8 @@ public class MovimientoService {
                 }
 
                 Movimiento movimiento = optional.get();
+                // Aporte al saldo antes de modificarlo, para ajustar los cierres mensuales
+                SaldoMensualService.AporteSaldo aporteAnterior = SaldoMensualService.AporteSaldo.baja(movimiento);
 
                 // Copiar campos actualizables comunes
                 movimiento.setTipo(datosActualizados.getTipo());
@@ -204,15 +215,22 @@ public class MovimientoService {
 
                 movimiento.setFechaActualizacion(LocalDateTime.now());
 
-                return movimientoRepository.save(movimiento);
+                Movimiento actualizado = movimientoRepository.save(movimiento);
+                saldoMensualService.registrarCambio(aporteAnterior, actualizado);
+                presupuestoCacheService.evictarOrganizacion(actualizado.getOrganizacionId());
+                return actualizado;
         }
 
         /**
          * Elimina un movimiento
          */
-        @CacheEvict(value = "movimientosPresupuesto", allEntries = true)
+        @Transactional
         public void eliminarMovimiento(Long id) {
+                Optional<Movimiento> existente = movimientoRepository.findById(id);
+                Long organizacionId = existente.map(Movimiento::getOrganizacionId).orElse(null);
                 movimientoRepository.deleteById(id);
+                existente.ifPresent(saldoMensualService::registrarBaja);
+                presupuestoCacheService.evictarOrganizacion(organizacionId);
         }
 
         /**
@@ -260,23 +278,9 @@ public class MovimientoService {
                         String search,
                         LocalDate searchDate,
                         Pageable pageable) {
-                LocalDateTime fechaDesdeTime = fechaDesde != null ? fechaDesde.atStartOfDay() : null;
-                LocalDateTime fechaHastaTime = fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null;
-
-                return movimientoRepository.findMovimientosConFiltros(
-                                organizacionId,
-                                usuarioId,
-                                fechaDesdeTime,
-                                fechaHastaTime,
-                                tipos,
-                                moneda,
-                                montoMin,
-                                montoMax,
-                                conciliado,
-                                nombreRelacionado,
-                                search,
-                                searchDate,
-                                pageable);
+                FiltroMovimientos filtro = filtroListado(organizacionId, usuarioId, fechaDesde, fechaHasta, tipos,
+                                conciliado, nombreRelacionado, moneda, montoMin, montoMax, search, searchDate);
+                return movimientoRepository.findAll(filtro.toSpecification(), pageable);
         }
 
         /**
@@ -321,26 +325,132 @@ public class MovimientoService {
                         Double montoMax,
                         String search,
                         LocalDate searchDate) {
-                LocalDateTime fechaDesdeTime = fechaDesde != null ? fechaDesde.atStartOfDay() : null;
-                LocalDateTime fechaHastaTime = fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null;
+                FiltroMovimientos filtro = filtroListado(organizacionId, usuarioId, fechaDesde, fechaHasta, tipos,
+                                conciliado, nombreRelacionado, moneda, montoMin, montoMax, search, searchDate);
+                return movimientoRepository.findAll(filtro.toSpecification());
+        }
+
+        // Solo los filtros informados llegan al WHERE (ver FiltroMovimientos)
+        private FiltroMovimientos filtroListado(
+                        Long organizacionId,
+                        String usuarioId,
+                        LocalDate fechaDesde,
+                        LocalDate fechaHasta,
+                        List<TipoMovimiento> tipos,
+                        Boolean conciliado,
+                        String nombreRelacionado,
+                        TipoMoneda moneda,
+                        Double montoMin,
+                        Double montoMax,
+                        String search,
+                        LocalDate searchDate) {
+                return FiltroMovimientos.builder()
+                                .organizacionId(organizacionId)
+                                .usuarioId(usuarioId)
+                                .desde(fechaDesde != null ? fechaDesde.atStartOfDay() : null)
+                                .hasta(fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null)
+                                .tipos(tipos)
+                                .conciliado(conciliado)
+                                .nombreRelacionado(nombreRelacionado)
+                                .moneda(moneda)
+                                .montoMin(montoMin)
+                                .montoMax(montoMax)
+                                .search(search)
+                                .searchDate(searchDate)
+                                .build();
+        }
 
-                // Usar Pageable.unpaged() para obtener todos sin paginación
-                Page<Movimiento> page = movimientoRepository.findMovimientosConFiltros(
+        /**
+         * Obtiene los montos agrupados por mes, tipo, categoría y moneda en el rango
+         * OPTIMIZADO: un único GROUP BY en BD; los reportes proyectan sobre estas filas
+         */
+        public List<MovimientoAgregadoResponse> obtenerAgregadoPorMesTipoCategoria(
+                        Long organizacionId,
+                        LocalDate fechaDesde,
+                        LocalDate fechaHasta,
+                        List<TipoMovimiento> tipos,
+                        TipoMoneda moneda) {
+                if (organizacionId == null) {
+                        throw new IllegalArgumentException("Se requiere organizacionId para el agregado de movimientos");
+                }
+                if (fechaDesde == null || fechaHasta == null) {
+                        throw new IllegalArgumentException("Se requieren fechaDesde y fechaHasta");
+                }
+
+                List<TipoMovimiento> tiposFiltro = (tipos == null || tipos.isEmpty())
+                                ? List.of(TipoMovimiento.values())
+                                : tipos;
+
+                return movimientoRepository.sumMontosPorMesTipoCategoriaYMoneda(
                                 organizacionId,
-                                usuarioId,
-                                fechaDesdeTime,
-                                fechaHastaTime,
-                                tipos,
-                                moneda,
-                                montoMin,
-                                montoMax,
-                                conciliado,
-                                nombreRelacionado,
-                                search,
-                                searchDate,
-                                Pageable.unpaged());
+                                fechaDesde.atStartOfDay(),
+                                fechaHasta.plusDays(1).atStartOfDay(),
+                                tiposFiltro,
+                                moneda).stream()
+                                .map(row -> MovimientoAgregadoResponse.builder()
+                                                .anio(((Number) row[0]).intValue())
+                                                .mes(((Number) row[1]).intValue())
+                                                .tipo(row[2] != null ? ((TipoMovimiento) row[2]).name() : null)
+                                                .categoria((String) row[3])
+                                                .moneda(row[4] != null ? ((TipoMoneda) row[4]).name() : null)
+                                                .total(row[5] != null ? ((Number) row[5]).doubleValue() : 0d)
+                                                .totalAbsoluto(row[6] != null ? ((Number) row[6]).doubleValue() : 0d)
+                                                .cantidad(row[7] != null ? ((Number) row[7]).longValue() : 0L)
+                                                .build())
+                                .toList();
+        }
 
-                return page.getContent();
+        /**
+         * Obtiene una página de movimientos por cursor (fechaEmision, id) en orden
+         * ascendente. Pensado para recorrer rangos grandes sin OFFSET: el cliente
+         * reenvía siguienteFecha/siguienteId hasta que hayMas sea false.
+         */
+        public MovimientosCursorResponse obtenerMovimientosPorCursor(
+                        Long organizacionId,
+                        LocalDate fechaDesde,
+                        LocalDate fechaHasta,
+                        List<TipoMovimiento> tipos,
+                        TipoMoneda moneda,
+                        LocalDateTime cursorFecha,
+                        Long cursorId,
+                        int size) {
+                if (organizacionId == null) {
+                        throw new IllegalArgumentException("Se requiere organizacionId para leer por cursor");
+                }
+                if (fechaDesde == null || fechaHasta == null) {
+                        throw new IllegalArgumentException("Se requieren fechaDesde y fechaHasta");
+                }
+                if (cursorFecha != null && cursorId == null) {
+                        throw new IllegalArgumentException("El cursor requiere fecha e id");
+                }
+
+                int sizeSeguro = Math.max(1, Math.min(size, MAX_PAGINA_CURSOR));
+                List<TipoMovimiento> tiposFiltro = (tipos == null || tipos.isEmpty())
+                                ? List.of(TipoMovimiento.values())
+                                : tipos;
+
+                // Pedimos un registro extra para saber si hay otra página
+                List<Movimiento> leidos = movimientoRepository.findSiguientePaginaPorCursor(
+                                organizacionId,
+                                fechaDesde.atStartOfDay(),
+                                fechaHasta.plusDays(1).atStartOfDay(),
+                                tiposFiltro,
+                                moneda,
+                                cursorFecha,
+                                cursorId,
+                                PageRequest.of(0, sizeSeguro + 1));
+
+                boolean hayMas = leidos.size() > sizeSeguro;
+                List<Movimiento> pagina = hayMas ? leidos.subList(0, sizeSeguro) : leidos;
+                Movimiento ultimo = pagina.isEmpty() ? null : pagina.get(pagina.size() - 1);
+
+                return MovimientosCursorResponse.builder()
+                                .content(pagina)
+                                .size(pagina.size())
+                                .hayMas(hayMas)
+                                .siguienteFecha(hayMas ? ultimo.getFechaEmision() : null)
+                                .siguienteId(hayMas ? ultimo.getId() : null)
+                                .build();
         }
 
         /**
@@ -378,6 +488,27 @@ public class MovimientoService {
                                                 Collectors.groupingBy(Movimiento::getTipo)));
         }
 
+        /**
+         * Obtiene los totales mensuales de la empresa agrupados por tipo y moneda
+         * OPTIMIZADO: GROUP BY en BD, devuelve un registro por mes/tipo/moneda
+         */
+        public List<TotalMensualResponse> obtenerTotalesMensuales(Long organizacionId) {
+                if (organizacionId == null) {
+                        throw new IllegalArgumentException("Se requiere organizacionId para los totales mensuales");
+                }
+
+                return movimientoRepository.sumMontosMensualesPorTipoYMoneda(organizacionId).stream()
+                                .map(row -> TotalMensualResponse.builder()
+                                                .anio(((Number) row[0]).intValue())
+                                                .mes(((Number) row[1]).intValue())
+                                                .tipo(row[2] != null ? ((TipoMovimiento) row[2]).name() : null)
+                                                .moneda(row[3] != null ? ((TipoMoneda) row[3]).name() : null)
+                                                .total(row[4] != null ? ((Number) row[4]).doubleValue() : 0d)
+                                                .cantidad(row[5] != null ? ((Number) row[5]).longValue() : 0L)
+                                                .build())
+                                .toList();
+        }
+
         public ResumenMensualResponse obtenerResumenMensual(Long organizacionId, String usuarioId,
                         LocalDate fechaReferencia) {
                 return obtenerResumenMensual(organizacionId, usuarioId, fechaReferencia, null);
@@ -480,25 +611,10 @@ public class MovimientoService {
                 LocalDate fechaBase = fechaReferencia != null ? fechaReferencia : LocalDate.now();
                 YearMonth periodoBase = YearMonth.from(fechaBase);
 
-                List<PuntoMontoMensual> puntos = new ArrayList<>();
-                for (int offset = mesesSeguros - 1; offset >= 0; offset--) {
-                        YearMonth periodo = periodoBase.minusMonths(offset);
-                        LocalDate inicio = periodo.atDay(1);
-                        LocalDate fin = periodo.atEndOfMonth();
-
-                        Double total = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                                        organizacionId,
-                                        usuarioId,
-                                        moneda,
-                                        tipo,
-                                        inicio.atStartOfDay(),
-                                        fin.plusDays(1).atStartOfDay());
-
-                        puntos.add(PuntoMontoMensual.builder()
-                                        .periodo(periodo.toString())
-                                        .total(total != null ? total : 0d)
-                                        .build());
-                }
+                // Un único GROUP BY por mes y tipo en lugar de una consulta por mes
+                Map<YearMonth, Map<TipoMovimiento, TotalMesTipo>> porMes = sumarPorMesYTipo(
+                                organizacionId, periodoBase, mesesSeguros, moneda);
+                List<PuntoMontoMensual> puntos = construirSerie(porMes, periodoBase, mesesSeguros, tipo);
 
                 return MontosMensualesResponse.builder()
                                 .organizacionId(organizacionId)
@@ -509,6 +625,114 @@ public class MovimientoService {
                                 .build();
         }
 
+        /**
+         * Serie de ingresos y egresos de los últimos meses y resumen del mes base,
+         * calculados con una sola consulta agrupada por mes y tipo. El costo en BD no
+         * depende de la cantidad de meses pedidos.
+         */
+        public SeriesMensualesResponse obtenerSeriesMensuales(
+                        Long organizacionId,
+                        LocalDate fechaReferencia,
+                        int meses,
+                        TipoMoneda moneda) {
+                if (organizacionId == null) {
+                        throw new IllegalArgumentException(
+                                        "Organizacion es obligatoria para el resumen mensual por periodo");
+                }
+
+                int mesesSeguros = Math.max(1, Math.min(meses, 24));
+                LocalDate fechaBase = fechaReferencia != null ? fechaReferencia : LocalDate.now();
+                YearMonth periodoBase = YearMonth.from(fechaBase);
+
+                Map<YearMonth, Map<TipoMovimiento, TotalMesTipo>> porMes = sumarPorMesYTipo(
+                                organizacionId, periodoBase, mesesSeguros, moneda);
+
+                MontosMensualesResponse ingresos = MontosMensualesResponse.builder()
+                                .organizacionId(organizacionId)
+                                .periodoBase(periodoBase.toString())
+                                .mesesIncluidos(mesesSeguros)
+                                .datos(construirSerie(porMes, periodoBase, mesesSeguros, TipoMovimiento.Ingreso))
+                                .build();
+                MontosMensualesResponse egresos = MontosMensualesResponse.builder()
+                                .organizacionId(organizacionId)
+                                .periodoBase(periodoBase.toString())
+                                .mesesIncluidos(mesesSeguros)
+                                .datos(construirSerie(porMes, periodoBase, mesesSeguros, TipoMovimiento.Egreso))
+                                .build();
+
+                // El resumen del mes base sale de la misma consulta (a nivel empresa)
+                Map<TipoMovimiento, TotalMesTipo> mesBase = porMes.getOrDefault(periodoBase, Map.of());
+                double ingresosMes = totalDe(mesBase, TipoMovimiento.Ingreso);
+                double egresosMes = totalDe(mesBase, TipoMovimiento.Egreso);
+                long movimientosMes = mesBase.values().stream().mapToLong(TotalMesTipo::cantidad).sum();
+
+                ResumenMensualResponse resumen = ResumenMensualResponse.builder()
+                                .organizacionId(organizacionId)
+                                .coincideUsuario(movimientosMes > 0)
+                                .periodo(periodoBase.toString())
+                                .periodoInicio(periodoBase.atDay(1))
+                                .periodoFin(periodoBase.atEndOfMonth())
+                                .ingresosTotales(ingresosMes)
+                                .egresosTotales(egresosMes)
+                                // Egresos ya son negativos: el neto es la suma algebraica
+                                .resultadoNeto(ingresosMes + egresosMes)
+                                .totalMovimientos(movimientosMes)
+                                .build();
+
+                return SeriesMensualesResponse.builder()
+                                .resumenMensual(resumen)
+                                .ingresosMensuales(ingresos)
+                                .egresosMensuales(egresos)
+                                .build();
+        }
+
+        private Map<YearMonth, Map<TipoMovimiento, TotalMesTipo>> sumarPorMesYTipo(
+                        Long organizacionId,
+                        YearMonth periodoBase,
+                        int meses,
+                        TipoMoneda moneda) {
+                LocalDateTime inicio = periodoBase.minusMonths(meses - 1L).atDay(1).atStartOfDay();
+                LocalDateTime fin = periodoBase.plusMonths(1).atDay(1).atStartOfDay();
+
+                Map<YearMonth, Map<TipoMovimiento, TotalMesTipo>> porMes = new HashMap<>();
+                for (Object[] row : movimientoRepository.sumMontosMensualesPorTipo(organizacionId, moneda, inicio,
+                                fin)) {
+                        if (row[2] == null) {
+                                continue;
+                        }
+                        YearMonth periodo = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+                        porMes.computeIfAbsent(periodo, k -> new EnumMap<>(TipoMovimiento.class))
+                                        .put((TipoMovimiento) row[2], new TotalMesTipo(
+                                                        row[3] != null ? ((Number) row[3]).doubleValue() : 0d,
+                                                        row[4] != null ? ((Number) row[4]).longValue() : 0L));
+                }
+                return porMes;
+        }
+
+        private List<PuntoMontoMensual> construirSerie(
+                        Map<YearMonth, Map<TipoMovimiento, TotalMesTipo>> porMes,
+                        YearMonth periodoBase,
+                        int meses,
+                        TipoMovimiento tipo) {
+                List<PuntoMontoMensual> puntos = new ArrayList<>(meses);
+                for (int offset = meses - 1; offset >= 0; offset--) {
+                        YearMonth periodo = periodoBase.minusMonths(offset);
+                        puntos.add(PuntoMontoMensual.builder()
+                                        .periodo(periodo.toString())
+                                        .total(totalDe(porMes.getOrDefault(periodo, Map.of()), tipo))
+                                        .build());
+                }
+                return puntos;
+        }
+
+        private static double totalDe(Map<TipoMovimiento, TotalMesTipo> totales, TipoMovimiento tipo) {
+                TotalMesTipo total = totales.get(tipo);
+                return total != null ? total.monto() : 0d;
+        }
+
+        private record TotalMesTipo(double monto, long cantidad) {
+        }
+
         public MontosPorCategoriaResponse obtenerIngresosPorCategoria(
                         Long organizacionId,
                         String usuarioId,
@@ -583,6 +807,49 @@ public class MovimientoService {
                                 .build();
         }
 
+        /**
+         * Montos por categoría de ingresos y egresos del año de referencia en una sola
+         * consulta agrupada por tipo y categoría.
+         */
+        public Map<TipoMovimiento, MontosPorCategoriaResponse> obtenerMontosPorCategoriaPorTipo(
+                        Long organizacionId,
+                        LocalDate fechaReferencia,
+                        TipoMoneda moneda) {
+                if (organizacionId == null) {
+                        throw new IllegalArgumentException("Organizacion es obligatoria para el resumen por categoria");
+                }
+
+                LocalDate fechaBase = fechaReferencia != null ? fechaReferencia : LocalDate.now();
+                int targetYear = fechaBase.getYear();
+                LocalDate inicio = LocalDate.of(targetYear, 1, 1);
+                LocalDate fin = LocalDate.of(targetYear, 12, 31);
+                List<TipoMovimiento> tipos = List.of(TipoMovimiento.Ingreso, TipoMovimiento.Egreso);
+
+                Map<TipoMovimiento, List<MontoPorCategoria>> categoriasPorTipo = new EnumMap<>(TipoMovimiento.class);
+                tipos.forEach(tipo -> categoriasPorTipo.put(tipo, new ArrayList<>()));
+
+                // Ya vienen ordenadas por monto DESC; el orden se conserva dentro de cada tipo
+                for (Object[] row : movimientoRepository.sumMontosPorTipoYCategoria(
+                                organizacionId,
+                                tipos,
+                                moneda,
+                                inicio.atStartOfDay(),
+                                fin.plusDays(1).atStartOfDay())) {
+                        categoriasPorTipo.get((TipoMovimiento) row[0]).add(MontoPorCategoria.builder()
+                                        .categoria((String) row[1])
+                                        .total(row[2] != null ? ((Number) row[2]).doubleValue() : 0d)
+                                        .build());
+                }
+
+                Map<TipoMovimiento, MontosPorCategoriaResponse> resultado = new EnumMap<>(TipoMovimiento.class);
+                categoriasPorTipo.forEach((tipo, categorias) -> resultado.put(tipo, MontosPorCategoriaResponse.builder()
+                                .organizacionId(organizacionId)
+                                .periodo(String.valueOf(targetYear))
+                                .categorias(categorias)
+                                .build()));
+                return resultado;
+        }
+
         public ConciliacionResumenResponse obtenerResumenConciliacion(
                         Long organizacionId,
                         String usuarioId,
@@ -605,57 +872,15 @@ public class MovimientoService {
                 LocalDate inicio = periodo.atDay(1);
                 LocalDate fin = periodo.atEndOfMonth();
 
-                long total = movimientoRepository.countByOrganizacionOrUsuarioAndFechaEmisionBetween(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
-
-                long conciliados = movimientoRepository.countConciliadosByOrganizacionOrUsuarioAndFechaEmisionBetween(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
-
-                long pendientes = movimientoRepository.countPendientesByOrganizacionOrUsuarioAndFechaEmisionBetween(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
-
-                double porcentaje = total > 0 ? (conciliados * 100d) / total : 0d;
-
-                LocalDateTime ultimaConciliacionDateTime = movimientoRepository.findUltimaConciliacion(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
-
-                LocalDate ultimaConciliacion = ultimaConciliacionDateTime != null
-                                ? ultimaConciliacionDateTime.toLocalDate()
-                                : null;
-
-                LocalDateTime ultimoPendienteDateTime = movimientoRepository.findUltimoMovimientoPendiente(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
-
-                LocalDate ultimoPendiente = ultimoPendienteDateTime != null
-                                ? ultimoPendienteDateTime.toLocalDate()
-                                : null;
+                FiltroMovimientos filtro = FiltroMovimientos.builder()
+                                .organizacionId(organizacionId)
+                                .usuarioId(usuarioId)
+                                .moneda(moneda)
+                                .desde(inicio.atStartOfDay())
+                                .hasta(fin.plusDays(1).atStartOfDay())
+                                .build();
 
-                List<Object[]> porTipoRaw = movimientoRepository.obtenerResumenConciliacionPorTipo(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
+                List<Object[]> porTipoRaw = movimientoRepository.resumirConciliacionPorTipo(filtro);
 
                 List<ConciliacionTipoResumen> porTipo = porTipoRaw.stream()
                                 .map(item -> {
@@ -697,6 +922,22 @@ public class MovimientoService {
                                 })
                                 .toList();
 
+                // Totales del período: suma de los conteos por tipo (misma consulta)
+                long total = porTipo.stream().mapToLong(ConciliacionTipoResumen::getTotal).sum();
+                long conciliados = porTipo.stream().mapToLong(ConciliacionTipoResumen::getConciliados).sum();
+                long pendientes = total - conciliados;
+
+                double porcentaje = total > 0 ? (conciliados * 100d) / total : 0d;
+
+                Object[] fechas = movimientoRepository.ultimasFechasConciliacion(filtro);
+
+                LocalDate ultimaConciliacion = fechas[0] != null
+                                ? ((LocalDateTime) fechas[0]).toLocalDate()
+                                : null;
+                LocalDate ultimoPendiente = fechas[1] != null
+                                ? ((LocalDateTime) fechas[1]).toLocalDate()
+                                : null;
+
                 return ConciliacionResumenResponse.builder()
                                 .organizacionId(organizacionId)
                                 .usuarioId(usuarioId)
@@ -713,28 +954,19 @@ public class MovimientoService {
 
         private QueryResult calcularSumas(Long organizacionId, String usuarioId, LocalDate inicio, LocalDate fin,
                         TipoMoneda moneda) {
-                Double ingresos = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                TipoMovimiento.Ingreso,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
-
-                Double egresos = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                TipoMovimiento.Egreso,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
+                FiltroMovimientos filtro = FiltroMovimientos.builder()
+                                .organizacionId(organizacionId)
+                                .usuarioId(usuarioId)
+                                .moneda(moneda)
+                                .desde(inicio.atStartOfDay())
+                                .hasta(fin.plusDays(1).atStartOfDay())
+                                .build();
 
-                long totalMovimientos = movimientoRepository.countByOrganizacionOrUsuarioAndFechaEmisionBetween(
-                                organizacionId,
-                                usuarioId,
-                                moneda,
-                                inicio.atStartOfDay(),
-                                fin.plusDays(1).atStartOfDay());
+                Double ingresos = movimientoRepository.sumarMontos(
+                                filtro.toBuilder().tipo(TipoMovimiento.Ingreso).build());
+                Double egresos = movimientoRepository.sumarMontos(
+                                filtro.toBuilder().tipo(TipoMovimiento.Egreso).build());
+                long totalMovimientos = movimientoRepository.count(filtro.toSpecification());
 
                 return new QueryResult(
                                 ingresos != null ? ingresos : 0d,
@@ -749,46 +981,19 @@ public class MovimientoService {
                 return obtenerSaldoTotalEmpresa(organizacionId, null);
         }
 
+        /**
+         * Saldo total de la empresa: último cierre mensual más el mes en curso
+         * (ver SaldoMensualService), sin recorrer toda la historia
+         */
         public Double obtenerSaldoTotalEmpresa(Long organizacionId, TipoMoneda moneda) {
-                if (organizacionId == null) {
-                        throw new IllegalArgumentException("Se requiere organizacionId para calcular el saldo total");
-                }
-
-                // Rango amplio: desde 1970 hasta hoy inclusive
-                LocalDate inicioFecha = LocalDate.of(1970, 1, 1);
-                LocalDate finFecha = LocalDate.now().plusDays(1); // inclusivo hasta fin de hoy
-
-                LocalDateTime inicio = inicioFecha.atStartOfDay();
-                LocalDateTime fin = finFecha.atStartOfDay();
-
-                Double ingresos = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                                organizacionId,
-                                null,
-                                moneda,
-                                TipoMovimiento.Ingreso,
-                                inicio,
-                                fin);
-
-                Double egresos = movimientoRepository.sumMontoByOrganizacionOrUsuarioAndTipoAndFechaBetween(
-                                organizacionId,
-                                null,
-                                moneda,
-                                TipoMovimiento.Egreso,
-                                inicio,
-                                fin);
-
-                double totalIngresos = ingresos != null ? ingresos : 0d;
-                double totalEgresos = egresos != null ? egresos : 0d;
-
-                // Egresos ya son negativos, devolvemos la suma algebraica
-                return totalIngresos + totalEgresos;
+                return saldoMensualService.obtenerSaldo(organizacionId, moneda);
         }
 
         /**
          * Obtiene movimientos agrupados mensualmente para presupuestos con caché
          * Reemplaza las múltiples llamadas individuales por mes
          */
-        @Cacheable(value = "movimientosPresupuesto", key = "#organizacionId + '_' + #fechaDesde + '_' + #fechaHasta + '_' + (#moneda != null ? #moneda.name() : 'ALL')")
+        @Cacheable(value = CacheConfig.MOVIMIENTOS_PRESUPUESTO, key = "#organizacionId + '_' + #fechaDesde + '_' + #fechaHasta + '_' + (#moneda != null ? #moneda.name() : 'ALL')")
         public MovimientosPresupuestoResponse obtenerMovimientosParaPresupuesto(
                         Long organizacionId, LocalDate fechaDesde, LocalDate fechaHasta, TipoMoneda moneda) {
 
@@ -0,0 +1,61 @@
+package registro.cargarDatos.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import registro.cargarDatos.config.CacheConfig;
+
+/**
+ * Invalidación por empresa de la caché movimientosPresupuesto.
+ * Las claves de obtenerMovimientosParaPresupuesto empiezan con "{organizacionId}_",
+ * así una escritura solo descarta las entradas de su propia empresa.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresupuestoCacheService {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Descarta las entradas de la empresa. Si hay una transacción activa, espera al
+     * commit para que una lectura concurrente no vuelva a cachear datos viejos.
+     */
+    public void evictarOrganizacion(Long organizacionId) {
+        if (organizacionId == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictar(organizacionId);
+                }
+            });
+        } else {
+            evictar(organizacionId);
+        }
+    }
+
+    private void evictar(Long organizacionId) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(CacheConfig.MOVIMIENTOS_PRESUPUESTO);
+        if (cache == null) {
+            return;
+        }
+
+        if (cache instanceof CaffeineCache caffeineCache) {
+            Cache<Object, Object> nativo = caffeineCache.getNativeCache();
+            String prefijo = organizacionId + "_";
+            nativo.asMap().keySet().removeIf(clave -> String.valueOf(clave).startsWith(prefijo));
+            log.debug("Caché de presupuesto invalidada para empresa {}", organizacionId);
+        } else {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package registro.cargarDatos.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.cargarDatos.dtos.SaldoConsistenciaResponse;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.SaldoMensual;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.FiltroMovimientos;
+import registro.cargarDatos.repositories.MovimientoRepository;
+import registro.cargarDatos.repositories.SaldoMensualRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Saldo por organización a partir de los cierres mensuales de saldo_mensual.
+ * El saldo es el cierre del último mes anterior al actual más lo movido en el mes en
+ * curso, en lugar de sumar toda la historia en cada consulta. Los cierres se ajustan
+ * en la misma transacción que da de alta, modifica o elimina el movimiento, con la
+ * organización bloqueada (ver {@link #bloquear}); al arrancar se reconstruyen las
+ * organizaciones cuyos totales no coinciden con registro.
+ */
+@Service
+@Slf4j
+public class SaldoMensualService {
+
+    private static final List<TipoMovimiento> TIPOS_SALDO = List.of(TipoMovimiento.Ingreso, TipoMovimiento.Egreso);
+    private static final double TOLERANCIA = 0.005;
+
+    private final MovimientoRepository movimientoRepository;
+    private final SaldoMensualRepository saldoMensualRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SaldoMensualService(MovimientoRepository movimientoRepository,
+                               SaldoMensualRepository saldoMensualRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.movimientoRepository = movimientoRepository;
+        this.saldoMensualRepository = saldoMensualRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Aporte de un movimiento al saldo de su mes. Null si no impacta en el saldo
+     * (sin organización o fecha, o de tipo Deuda/Acreencia).
+     */
+    public record AporteSaldo(Long organizacionId, TipoMoneda moneda, YearMonth periodo,
+                              double ingresos, double egresos, long cantidad) {
+
+        public static AporteSaldo alta(Movimiento movimiento) {
+            return de(movimiento, 1);
+        }
+
+        public static AporteSaldo baja(Movimiento movimiento) {
+            return de(movimiento, -1);
+        }
+
+        private static AporteSaldo de(Movimiento movimiento, int signo) {
+            if (movimiento == null || movimiento.getOrganizacionId() == null
+                    || movimiento.getFechaEmision() == null || !TIPOS_SALDO.contains(movimiento.getTipo())) {
+                return null;
+            }
+            double monto = movimiento.getMontoTotal() != null ? movimiento.getMontoTotal() * signo : 0d;
+            boolean ingreso = movimiento.getTipo() == TipoMovimiento.Ingreso;
+            return new AporteSaldo(
+                    movimiento.getOrganizacionId(),
+                    movimiento.getMoneda(),
+                    YearMonth.from(movimiento.getFechaEmision()),
+                    ingreso ? monto : 0d,
+                    ingreso ? 0d : monto,
+                    signo);
+        }
+    }
+
+    public void registrarAlta(Movimiento movimiento) {
+        aplicar(Collections.singletonList(AporteSaldo.alta(movimiento)));
+    }
+
+    public void registrarAltas(Collection<Movimiento> movimientos) {
+        aplicar(movimientos.stream().map(AporteSaldo::alta).toList());
+    }
+
+    public void registrarBaja(Movimiento movimiento) {
+        aplicar(Collections.singletonList(AporteSaldo.baja(movimiento)));
+    }
+
+    /**
+     * Ajusta los cierres por un cambio de movimiento: resta el aporte anterior (tomado
+     * antes de modificarlo) y suma el actual.
+     */
+    public void registrarCambio(AporteSaldo anterior, Movimiento actual) {
+        List<AporteSaldo> aportes = new ArrayList<>(2);
+        aportes.add(anterior);
+        aportes.add(AporteSaldo.alta(actual));
+        aplicar(aportes);
+    }
+
+    /**
+     * Agrupa los aportes por organización, moneda y mes y aplica cada grupo: crear la fila
+     * del mes si falta, sumar al mes y correr el saldo de cierre de ese mes y los siguientes.
+     * Corre en la transacción del llamador (o en una propia) con las organizaciones bloqueadas.
+     */
+    public void aplicar(Collection<AporteSaldo> aportes) {
+        Map<ClaveMes, double[]> agrupados = new LinkedHashMap<>();
+        for (AporteSaldo aporte : aportes) {
+            if (aporte == null) {
+                continue;
+            }
+            double[] acumulado = agrupados.computeIfAbsent(
+                    new ClaveMes(aporte.organizacionId(), claveMoneda(aporte.moneda()), aporte.periodo()),
+                    k -> new double[3]);
+            acumulado[0] += aporte.ingresos();
+            acumulado[1] += aporte.egresos();
+            acumulado[2] += aporte.cantidad();
+        }
+        agrupados.values().removeIf(acumulado -> acumulado[0] == 0d && acumulado[1] == 0d && acumulado[2] == 0d);
+        if (agrupados.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Siempre en el mismo orden, para que dos lotes con varias organizaciones no se traben
+            agrupados.keySet().stream().map(ClaveMes::organizacionId).distinct().sorted().forEach(this::bloquear);
+
+            LocalDateTime ahora = LocalDateTime.now();
+            agrupados.forEach((clave, acumulado) -> {
+                LocalDate periodo = clave.periodo().atDay(1);
+                asegurarFila(clave, periodo, ahora);
+
+                jdbcTemplate.update("UPDATE saldo_mensual SET ingresos = ingresos + ?, egresos = egresos + ?, "
+                                + "cantidad = cantidad + ?, fecha_actualizacion = ? "
+                                + "WHERE organizacion_id = ? AND moneda = ? AND periodo = ?",
+                        acumulado[0], acumulado[1], (long) acumulado[2], ahora,
+                        clave.organizacionId(), clave.moneda(), periodo);
+                jdbcTemplate.update("UPDATE saldo_mensual SET saldo_cierre = saldo_cierre + ? "
+                                + "WHERE organizacion_id = ? AND moneda = ? AND periodo >= ?",
+                        acumulado[0] + acumulado[1], clave.organizacionId(), clave.moneda(), periodo);
+            });
+        });
+    }
+
+    /**
+     * Bloquea los cierres de la organización hasta el fin de la transacción. El upsert sobre
+     * saldo_mensual_bloqueo deja un bloqueo exclusivo sobre la fila, exista o no antes, así
+     * que los ajustes y la reconstrucción de una misma organización quedan en serie.
+     */
+    private void bloquear(Long organizacionId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO saldo_mensual_bloqueo (organizacion_id, fecha_actualizacion) VALUES (?, ?) "
+                + "ON DUPLICATE KEY UPDATE fecha_actualizacion = ?", organizacionId, ahora, ahora);
+    }
+
+    private void asegurarFila(ClaveMes clave, LocalDate periodo, LocalDateTime ahora) {
+        // La fila nueva arranca con el cierre del último mes anterior que tenga fila. La lectura
+        // es con bloqueo para ver el último valor confirmado y no el de la foto de la transacción
+        List<Double> anterior = jdbcTemplate.queryForList(
+                "SELECT saldo_cierre FROM saldo_mensual WHERE organizacion_id = ? AND moneda = ? AND periodo < ? "
+                        + "ORDER BY periodo DESC LIMIT 1 FOR UPDATE",
+                Double.class, clave.organizacionId(), clave.moneda(), periodo);
+        double saldoInicial = anterior.isEmpty() || anterior.get(0) == null ? 0d : anterior.get(0);
+
+        jdbcTemplate.update("INSERT INTO saldo_mensual "
+                        + "(organizacion_id, moneda, periodo, ingresos, egresos, cantidad, saldo_cierre, fecha_actualizacion) "
+                        + "VALUES (?, ?, ?, 0, 0, 0, ?, ?) ON DUPLICATE KEY UPDATE id = id",
+                clave.organizacionId(), clave.moneda(), periodo, saldoInicial, ahora);
+    }
+
+    /**
+     * Saldo de la organización: último cierre anterior al mes en curso más lo movido
+     * en el mes hasta hoy inclusive. Con moneda null suma todas las monedas.
+     */
+    public double obtenerSaldo(Long organizacionId, TipoMoneda moneda) {
+        if (organizacionId == null) {
+            throw new IllegalArgumentException("Se requiere organizacionId para calcular el saldo total");
+        }
+        YearMonth mesActual = YearMonth.now();
+        Double cerrado = saldoMensualRepository.sumSaldoCierreAnteriorA(organizacionId,
+                moneda != null ? moneda.name() : null, mesActual.atDay(1));
+
+        double mesEnCurso = 0d;
+        for (Object[] row : movimientoRepository.sumMontosMensualesPorTipo(organizacionId, moneda,
+                mesActual.atDay(1).atStartOfDay(), LocalDate.now().plusDays(1).atStartOfDay())) {
+            if (TIPOS_SALDO.contains((TipoMovimiento) row[2]) && row[3] != null) {
+                mesEnCurso += ((Number) row[3]).doubleValue();
+            }
+        }
+        return (cerrado != null ? cerrado : 0d) + mesEnCurso;
+    }
+
+    /**
+     * Saldo recalculado sobre toda la historia de registro (lo que hacía antes cada
+     * consulta). Solo para verificar los cierres.
+     */
+    public double recalcularSaldo(Long organizacionId, TipoMoneda moneda) {
+        LocalDateTime inicio = LocalDate.of(1970, 1, 1).atStartOfDay();
+        LocalDateTime fin = LocalDate.now().plusDays(1).atStartOfDay();
+        double total = 0d;
+        for (TipoMovimiento tipo : TIPOS_SALDO) {
+            Double suma = movimientoRepository.sumarMontos(FiltroMovimientos.builder()
+                    .organizacionId(organizacionId)
+                    .moneda(moneda)
+                    .tipo(tipo)
+                    .desde(inicio)
+                    .hasta(fin)
+                    .build());
+            total += suma != null ? suma : 0d;
+        }
+        return total;
+    }
+
+    public SaldoConsistenciaResponse verificar(Long organizacionId, TipoMoneda moneda) {
+        double segunCierres = obtenerSaldo(organizacionId, moneda);
+        double recalculado = recalcularSaldo(organizacionId, moneda);
+        double diferencia = segunCierres - recalculado;
+        return SaldoConsistenciaResponse.builder()
+                .organizacionId(organizacionId)
+                .moneda(moneda != null ? moneda.name() : null)
+                .saldoCierres(segunCierres)
+                .saldoRecalculado(recalculado)
+                .diferencia(diferencia)
+                .consistente(Math.abs(diferencia) < TOLERANCIA)
+                .build();
+    }
+
+    /**
+     * Rehace todos los cierres de la organización desde registro en una transacción, con
+     * el mismo bloqueo que toman los ajustes: uno que llegue a mitad de camino espera y
+     * después suma sobre los cierres ya rehechos.
+     */
+    public void reconstruir(Long organizacionId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            bloquear(organizacionId);
+            saldoMensualRepository.deleteByOrganizacionId(organizacionId);
+
+            Map<ClaveMes, SaldoMensual> filas = new HashMap<>();
+            for (Object[] row : movimientoRepository.sumMontosMensualesPorTipoYMoneda(organizacionId)) {
+                TipoMovimiento tipo = (TipoMovimiento) row[2];
+                if (!TIPOS_SALDO.contains(tipo)) {
+                    continue;
+                }
+                YearMonth periodo = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+                String moneda = claveMoneda((TipoMoneda) row[3]);
+                double suma = row[4] != null ? ((Number) row[4]).doubleValue() : 0d;
+                long cantidad = row[5] != null ? ((Number) row[5]).longValue() : 0L;
+
+                SaldoMensual fila = filas.computeIfAbsent(new ClaveMes(organizacionId, moneda, periodo), clave -> {
+                    SaldoMensual nueva = new SaldoMensual();
+                    nueva.setOrganizacionId(organizacionId);
+                    nueva.setMoneda(moneda);
+                    nueva.setPeriodo(periodo.atDay(1));
+                    nueva.setIngresos(0d);
+                    nueva.setEgresos(0d);
+                    nueva.setCantidad(0L);
+                    return nueva;
+                });
+                if (tipo == TipoMovimiento.Ingreso) {
+                    fila.setIngresos(fila.getIngresos() + suma);
+                } else {
+                    fila.setEgresos(fila.getEgresos() + suma);
+                }
+                fila.setCantidad(fila.getCantidad() + cantidad);
+            }
+
+            // Saldo de cierre acumulado por moneda en orden cronológico
+            List<SaldoMensual> ordenadas = new ArrayList<>(filas.values());
+            ordenadas.sort(Comparator.comparing(SaldoMensual::getMoneda).thenComparing(SaldoMensual::getPeriodo));
+            LocalDateTime ahora = LocalDateTime.now();
+            String monedaActual = null;
+            double acumulado = 0d;
+            for (SaldoMensual fila : ordenadas) {
+                if (!fila.getMoneda().equals(monedaActual)) {
+                    monedaActual = fila.getMoneda();
+                    acumulado = 0d;
+                }
+                acumulado += fila.getIngresos() + fila.getEgresos();
+                fila.setSaldoCierre(acumulado);
+                fila.setFechaActualizacion(ahora);
+            }
+            saldoMensualRepository.saveAll(ordenadas);
+        });
+    }
+
+    /**
+     * Al arrancar reconstruye las organizaciones cuyos cierres no coinciden con registro
+     * (nunca construidas o desfasadas). Por organización y moneda compara ingresos, egresos
+     * y cantidad de movimientos, y el saldo de cierre del último mes contra el total.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirDesfasados() {
+        try {
+            // [ingresos, egresos, cantidad, saldo al último cierre]
+            Map<ClaveMoneda, double[]> enRegistro = new HashMap<>();
+            for (Object[] row : movimientoRepository.sumPorOrganizacionMonedaYTipo(TIPOS_SALDO)) {
+                double[] totales = enRegistro.computeIfAbsent(
+                        new ClaveMoneda(((Number) row[0]).longValue(), claveMoneda((TipoMoneda) row[1])),
+                        k -> new double[4]);
+                double suma = row[3] != null ? ((Number) row[3]).doubleValue() : 0d;
+                totales[row[2] == TipoMovimiento.Ingreso ? 0 : 1] += suma;
+                totales[2] += ((Number) row[4]).longValue();
+                totales[3] += suma;
+            }
+            Map<ClaveMoneda, double[]> enCierres = new HashMap<>();
+            for (Object[] row : saldoMensualRepository.sumTotalesPorOrganizacionYMoneda()) {
+                double[] totales = enCierres.computeIfAbsent(
+                        new ClaveMoneda(((Number) row[0]).longValue(), (String) row[1]), k -> new double[4]);
+                totales[0] = row[2] != null ? ((Number) row[2]).doubleValue() : 0d;
+                totales[1] = row[3] != null ? ((Number) row[3]).doubleValue() : 0d;
+                totales[2] = row[4] != null ? ((Number) row[4]).longValue() : 0L;
+            }
+            for (Object[] row : saldoMensualRepository.findUltimosCierres()) {
+                double[] totales = enCierres.computeIfAbsent(
+                        new ClaveMoneda(((Number) row[0]).longValue(), (String) row[1]), k -> new double[4]);
+                totales[3] = row[2] != null ? ((Number) row[2]).doubleValue() : 0d;
+            }
+
+            Set<ClaveMoneda> claves = new HashSet<>(enRegistro.keySet());
+            claves.addAll(enCierres.keySet());
+            Set<Long> desfasadas = new TreeSet<>();
+            double[] vacio = new double[4];
+            for (ClaveMoneda clave : claves) {
+                double[] esperado = enRegistro.getOrDefault(clave, vacio);
+                double[] actual = enCierres.getOrDefault(clave, vacio);
+                for (int i = 0; i < esperado.length; i++) {
+                    if (distintos(actual[i], esperado[i])) {
+                        desfasadas.add(clave.organizacionId());
+                        break;
+                    }
+                }
+            }
+            desfasadas.forEach(this::reconstruir);
+            if (!desfasadas.isEmpty()) {
+                log.info("saldo_mensual reconstruido para {} organizaciones", desfasadas.size());
+            }
+        } catch (Exception e) {
+            log.error("No se pudo verificar saldo_mensual al iniciar: {}", e.getMessage());
+        }
+    }
+
+    // Las dos sumas se hacen en distinto orden, así que en double pueden diferir en los últimos dígitos
+    private static boolean distintos(double actual, double esperado) {
+        return Math.abs(actual - esperado) >= Math.max(TOLERANCIA, Math.abs(esperado) * 1e-9);
+    }
+
+    /** Valor de saldo_mensual.moneda para la moneda de un movimiento. */
+    private static String claveMoneda(TipoMoneda moneda) {
+        return moneda != null ? moneda.name() : SaldoMensual.SIN_MONEDA;
+    }
+
+    private record ClaveMes(Long organizacionId, String moneda, YearMonth periodo) {
+    }
+
+    private record ClaveMoneda(Long organizacionId, String moneda) {
+    }
+}
@@ -1,9 +1,9 @@
 package registro.cargarDatos.services;
 
+import clientehttp.ClientesHttp;
+import clientehttp.TokenGoogle;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.auth.oauth2.AccessToken;
-import com.google.auth.oauth2.GoogleCredentials;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.coobird.thumbnailator.Thumbnails;
@@ -15,7 +15,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 import registro.cargarDatos.config.VertexAiProperties;
 
@@ -23,9 +22,7 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -36,14 +33,14 @@ import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 @Slf4j
 public class VertexImageScannerService {
 
-    private static final String CLOUD_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
     private static final Pattern FENCE_PATTERN = Pattern.compile("```[a-zA-Z]*");
     private static final int MAX_IMAGE_DIMENSION = 1024;
     private static final float JPEG_QUALITY = 0.6f;
 
     private final VertexAiProperties properties;
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ClientesHttp clientesHttp;
+    private final TokenGoogle tokenGoogle;
 
     public ImageScanResult scanImage(byte[] imageBytes, String mimeType, ScanType scanType) {
         long totalStart = System.nanoTime();
@@ -81,7 +78,7 @@ public class VertexImageScannerService {
             String payload = objectMapper.writeValueAsString(requestBody);
             log.info("Enviando imagen a Vertex AI. Tipo: {}, Bytes: {}, Endpoint: {}",
                     scanType, compressedImage.length, endpoint);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = clientesHttp.para("vertex").exchange(
                     endpoint,
                     HttpMethod.POST,
                     new HttpEntity<>(payload, headers),
@@ -144,7 +141,7 @@ public class VertexImageScannerService {
 
             String payload = objectMapper.writeValueAsString(requestBody);
             log.info("Enviando texto a Vertex AI. Tipo: {}, Endpoint: {}", scanType, endpoint);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = clientesHttp.para("vertex").exchange(
                     endpoint,
                     HttpMethod.POST,
                     new HttpEntity<>(payload, headers),
@@ -231,24 +228,8 @@ public class VertexImageScannerService {
 
     private String resolveAccessToken() {
         try {
-            GoogleCredentials credentials;
-            if (StringUtils.hasText(properties.getCredentialsPath())) {
-                try (FileInputStream stream = new FileInputStream(properties.getCredentialsPath())) {
-                    credentials = GoogleCredentials.fromStream(stream);
-                }
-            } else {
-                credentials = GoogleCredentials.getApplicationDefault();
-            }
-            credentials = credentials.createScoped(Collections.singleton(CLOUD_SCOPE));
-            AccessToken token = credentials.getAccessToken();
-            if (token == null || token.getExpirationTime() == null || token.getExpirationTime().before(Date.from(Instant.now()))) {
-                token = credentials.refreshAccessToken();
-            }
-            if (token == null) {
-                throw new IllegalStateException("No se pudo obtener access token de Google.");
-            }
-            return token.getTokenValue();
-        } catch (Exception ex) {
+            return tokenGoogle.obtener();
+        } catch (IllegalStateException ex) {
             log.error("Error obteniendo token de Google", ex);
             throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "No se pudo autenticar con Google.");
         }
@@ -1,13 +1,16 @@
 package registro.conciliacion.services;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import registro.cargarDatos.models.*;
+import registro.cargarDatos.repositories.DocumentoComercialRepository;
 import registro.cargarDatos.repositories.FacturaRepository;
 import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.cargarDatos.repositories.PagareRepository;
@@ -15,20 +18,32 @@ import registro.cargarDatos.repositories.ReciboRepository;
 import registro.conciliacion.dtos.DocumentoSugeridoDTO;
 import registro.conciliacion.dtos.MovimientoDTO;
 
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ConciliacionService {
 
     private final MovimientoRepository movimientoRepository;
     private final FacturaRepository facturaRepository;
     private final PagareRepository pagareRepository;
     private final ReciboRepository reciboRepository;
+    private final DocumentoComercialRepository documentoComercialRepository;
+
+    // Tipos de documento que se sugieren para conciliar
+    private static final List<Class<? extends DocumentoComercial>> TIPOS_DOCUMENTO =
+            List.of(Factura.class, Pagare.class, Recibo.class);
+    private static final double TOLERANCIA_MONTO = 0.15;
+    private static final int VENTANA_DIAS = 30;
+    private static final int MAX_CANDIDATOS_POR_CRITERIO = 200;
 
     /**
      * Obtiene movimientos sin conciliar con paginación
@@ -165,257 +180,40 @@ public class ConciliacionService {
     }
 
     /**
-     * Filtra documentos candidatos que coincidan en tipo Y (monto O fecha O
-     * descripción O todos)
-     * Esto reduce significativamente el espacio de búsqueda antes de aplicar
-     * scoring
-     * Carga EAGER de todos los datos para evitar lazy loading
+     * Busca en la base los documentos candidatos: mismo tipo de documento Y (monto dentro
+     * de la tolerancia O fecha dentro de la ventana).
+     * Un documento fuera de ambas bandas suma como máximo texto (15) + categoría (5) en
+     * calcularScore, por debajo del umbral de 30, así que no hace falta traerlo. Cada
+     * consulta usa un índice compuesto y está acotada, de modo que el scoring corre sobre
+     * una lista corta sin importar cuántos documentos tenga la empresa.
      */
     private List<DocumentoComercial> filtrarDocumentosCandidatos(Movimiento movimiento, Long empresaId,
             TipoMoneda monedaMovimiento) {
-        List<DocumentoComercial> candidatos = new ArrayList<>();
-
-        // Determinar el tipo de movimiento (INGRESO/EGRESO)
-        TipoMovimiento tipoMovimiento = movimiento.getTipo();
-
-        // Obtener todos los documentos de la base de datos
-        // findAll() carga todos los registros de forma eager
-        List<Factura> facturas = monedaMovimiento != null
-                ? facturaRepository.findByOrganizacionIdAndMoneda(empresaId, monedaMovimiento)
-                : facturaRepository.findByOrganizacionId(empresaId);
-        // Salvaguarda: si por alguna razón el repository no devuelve por moneda,
-        // filtrar manualmente
-        if (monedaMovimiento != null && (facturas == null || facturas.isEmpty())) {
-            facturas = facturaRepository.findByOrganizacionId(empresaId)
-                    .stream()
-                    .filter(f -> monedaMovimiento.equals(f.getMoneda()))
-                    .collect(Collectors.toList());
-        }
-
-        List<Pagare> pagares = monedaMovimiento != null
-                ? pagareRepository.findByOrganizacionIdAndMoneda(empresaId, monedaMovimiento)
-                : pagareRepository.findByOrganizacionId(empresaId);
-        if (monedaMovimiento != null && (pagares == null || pagares.isEmpty())) {
-            pagares = pagareRepository.findByOrganizacionId(empresaId)
-                    .stream()
-                    .filter(p -> monedaMovimiento.equals(p.getMoneda()))
-                    .collect(Collectors.toList());
-        }
-
-        List<Recibo> recibos = monedaMovimiento != null
-                ? reciboRepository.findByOrganizacionIdAndMoneda(empresaId, monedaMovimiento)
-                : reciboRepository.findByOrganizacionId(empresaId);
-        if (monedaMovimiento != null && (recibos == null || recibos.isEmpty())) {
-            recibos = reciboRepository.findByOrganizacionId(empresaId)
-                    .stream()
-                    .filter(r -> monedaMovimiento.equals(r.getMoneda()))
-                    .collect(Collectors.toList());
-        }
-
-        System.out.println("\n--- INICIANDO FILTRADO DE CANDIDATOS ---");
-        System.out.println("Total facturas en BD: " + (facturas != null ? facturas.size() : 0));
-        System.out.println("Total pagarés en BD: " + (pagares != null ? pagares.size() : 0));
-        System.out.println("Total recibos en BD: " + (recibos != null ? recibos.size() : 0));
-
-        // Forzar la inicialización de las colecciones para evitar lazy loading
-        // Esto asegura que todos los datos estén disponibles
-        if (facturas != null) {
-            facturas.size(); // Fuerza la carga completa
-        }
-        if (pagares != null) {
-            pagares.size(); // Fuerza la carga completa
-        }
-        if (recibos != null) {
-            recibos.size(); // Fuerza la carga completa
-        }
-
-        int facturasAnalizadas = 0;
-        int facturasAprobadas = 0;
-
-        // Filtrar facturas - recorrer TODAS las facturas sin excepción
-        if (facturas != null && !facturas.isEmpty()) {
-            System.out.println("\n--- ANALIZANDO FACTURAS ---");
-            for (Factura factura : facturas) {
-                try {
-                    facturasAnalizadas++;
-                    // Forzar acceso a propiedades para asegurar carga completa
-                    factura.getMontoTotal();
-                    factura.getFechaEmision();
-                    factura.getCategoria();
-                    // Asegurar que coincida la moneda cuando viene filtrada
-                    if (monedaMovimiento != null && !monedaMovimiento.equals(factura.getMoneda())) {
-                        continue;
-                    }
-
-                    boolean cumple = cumpleCriteriosFiltrado(movimiento, factura, tipoMovimiento);
-
-                    System.out.println("Factura #" + factura.getNumeroDocumento() +
-                            " | Monto: " + factura.getMontoTotal() +
-                            " | Fecha: " + factura.getFechaEmision() +
-                            " | Cumple: " + (cumple ? "SÍ" : "NO"));
-
-                    if (cumple) {
-                        candidatos.add(factura);
-                        facturasAprobadas++;
-                    }
-                } catch (Exception e) {
-                    // Si hay error en alguna factura, continuar con la siguiente
-                    System.err.println(
-                            "Error procesando factura ID: " + factura.getIdDocumento() + " - " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
-            System.out.println("Facturas analizadas: " + facturasAnalizadas + " | Aprobadas: " + facturasAprobadas);
-        }
-
-        // Filtrar pagarés - recorrer TODOS los pagarés
-        if (pagares != null && !pagares.isEmpty()) {
-            for (Pagare pagare : pagares) {
-                try {
-                    // Forzar acceso a propiedades
-                    pagare.getMontoTotal();
-                    pagare.getFechaEmision();
-                    pagare.getCategoria();
-                    if (monedaMovimiento != null && !monedaMovimiento.equals(pagare.getMoneda())) {
-                        continue;
-                    }
-
-                    if (cumpleCriteriosFiltrado(movimiento, pagare, tipoMovimiento)) {
-                        candidatos.add(pagare);
-                    }
-                } catch (Exception e) {
-                    System.err
-                            .println("Error procesando pagaré ID: " + pagare.getIdDocumento() + " - " + e.getMessage());
-                }
-            }
-        }
-
-        // Filtrar recibos - recorrer TODOS los recibos
-        if (recibos != null && !recibos.isEmpty()) {
-            for (Recibo recibo : recibos) {
-                try {
-                    // Forzar acceso a propiedades
-                    recibo.getMontoTotal();
-                    recibo.getFechaEmision();
-                    recibo.getCategoria();
-                    if (monedaMovimiento != null && !monedaMovimiento.equals(recibo.getMoneda())) {
-                        continue;
-                    }
-
-                    if (cumpleCriteriosFiltrado(movimiento, recibo, tipoMovimiento)) {
-                        candidatos.add(recibo);
-                    }
-                } catch (Exception e) {
-                    System.err
-                            .println("Error procesando recibo ID: " + recibo.getIdDocumento() + " - " + e.getMessage());
-                }
-            }
-        }
-
-        return candidatos;
-    }
-
-    /**
-     * Verifica si un documento cumple los criterios de filtrado:
-     * - Mismo tipo (INGRESO/EGRESO)
-     * - Y al menos uno de: monto similar O fecha cercana O descripción relacionada
-     */
-    private boolean cumpleCriteriosFiltrado(Movimiento movimiento, DocumentoComercial documento,
-            TipoMovimiento tipoMovimiento) {
-        // Criterio 1: Verificar tipo de movimiento
-        boolean tipoCoincide = verificarTipoCoincide(documento, tipoMovimiento);
-        if (!tipoCoincide) {
-            return false; // Si el tipo no coincide, descartar inmediatamente
-        }
-
-        // Criterio 2: Al menos uno de estos debe cumplirse
-        boolean montoSimilar = verificarMontoSimilar(movimiento, documento);
-        boolean fechaCercana = verificarFechaCercana(movimiento, documento);
-        boolean descripcionRelacionada = verificarDescripcionRelacionada(movimiento, documento);
-
-        // Retornar true si cumple tipo Y (monto O fecha O descripción)
-        return montoSimilar || fechaCercana || descripcionRelacionada;
-    }
-
-    /**
-     * Verifica si el tipo de documento coincide con el tipo de movimiento
-     */
-    private boolean verificarTipoCoincide(DocumentoComercial documento, TipoMovimiento tipoMovimiento) {
-        // Para facturas: EGRESO si somos compradores, INGRESO si somos vendedores
-        if (documento instanceof Factura) {
-            Factura factura = (Factura) documento;
-            // Simplificación: considerar todas las facturas (ajustar según lógica de
-            // negocio)
-            return true;
-        }
-
-        // Para pagarés y recibos: considerar todos (ajustar según lógica de negocio)
-        return true;
-    }
-
-    /**
-     * Verifica si el monto es similar (dentro del 15% de diferencia en valor
-     * absoluto)
-     */
-    private boolean verificarMontoSimilar(Movimiento movimiento, DocumentoComercial documento) {
-        if (movimiento.getMontoTotal() == null || documento.getMontoTotal() == null) {
-            return false;
-        }
-
-        double montoMov = Math.abs(movimiento.getMontoTotal());
-        double montoDoc = Math.abs(documento.getMontoTotal());
-
-        if (montoDoc == 0) {
-            return false;
-        }
-
-        double diferenciaPorcentual = Math.abs(montoMov - montoDoc) / montoDoc;
-
-        // Considerar similar si la diferencia es menor al 15%
-        return diferenciaPorcentual <= 0.15;
-    }
-
-    /**
-     * Verifica si la fecha es cercana (dentro de 30 días)
-     */
-    private boolean verificarFechaCercana(Movimiento movimiento, DocumentoComercial documento) {
-        if (movimiento.getFechaEmision() == null || documento.getFechaEmision() == null) {
-            return false;
-        }
-
-        long diferenciaDias = Math.abs(ChronoUnit.DAYS.between(
-                movimiento.getFechaEmision(), documento.getFechaEmision()));
-
-        // Considerar cercana si está dentro de 30 días
-        return diferenciaDias <= 30;
-    }
-
-    /**
-     * Verifica si hay relación en la descripción/nombres
-     */
-    private boolean verificarDescripcionRelacionada(Movimiento movimiento, DocumentoComercial documento) {
-        String origenNombre = movimiento.getOrigenNombre() != null ? movimiento.getOrigenNombre().toLowerCase() : "";
-        String destinoNombre = movimiento.getDestinoNombre() != null ? movimiento.getDestinoNombre().toLowerCase() : "";
-        String descripcion = movimiento.getDescripcion() != null ? movimiento.getDescripcion().toLowerCase() : "";
-
-        List<String> nombresDocumento = obtenerNombresDelDocumento(documento);
-
-        for (String nombre : nombresDocumento) {
-            if (nombre == null || nombre.trim().isEmpty()) {
-                continue;
-            }
-
-            String nombreLower = nombre.toLowerCase();
-
-            // Verificar si hay alguna coincidencia de texto
-            if (origenNombre.contains(nombreLower) || nombreLower.contains(origenNombre) ||
-                    destinoNombre.contains(nombreLower) || nombreLower.contains(destinoNombre) ||
-                    descripcion.contains(nombreLower) || nombreLower.contains(descripcion)) {
-                return true;
-            }
-        }
-
-        return false;
+        Map<Long, DocumentoComercial> candidatos = new LinkedHashMap<>();
+        Pageable limite = PageRequest.of(0, MAX_CANDIDATOS_POR_CRITERIO);
+
+        // Criterio 1: monto similar (hasta 15% del documento, o menos de 1 de diferencia)
+        if (movimiento.getMontoTotal() != null) {
+            double monto = Math.abs(movimiento.getMontoTotal());
+            double montoMin = Math.max(0, Math.min(monto / (1 + TOLERANCIA_MONTO), monto - 1.0));
+            double montoMax = Math.max(monto / (1 - TOLERANCIA_MONTO), monto + 1.0);
+            documentoComercialRepository.findCandidatosPorMonto(empresaId, monedaMovimiento, TIPOS_DOCUMENTO,
+                            montoMin, montoMax, monto, limite)
+                    .forEach(d -> candidatos.putIfAbsent(d.getIdDocumento(), d));
+        }
+
+        // Criterio 2: fecha cercana (mismo criterio por día que calcularScoreFecha)
+        if (movimiento.getFechaEmision() != null) {
+            LocalDate dia = movimiento.getFechaEmision().toLocalDate();
+            documentoComercialRepository.findCandidatosPorFecha(empresaId, monedaMovimiento, TIPOS_DOCUMENTO,
+                            dia.minusDays(VENTANA_DIAS).atStartOfDay(),
+                            dia.plusDays(VENTANA_DIAS + 1).atStartOfDay(),
+                            movimiento.getFechaEmision(), limite)
+                    .forEach(d -> candidatos.putIfAbsent(d.getIdDocumento(), d));
+        }
+
+        log.debug("Candidatos en BD (monto/fecha) para el movimiento {}: {}", movimiento.getId(), candidatos.size());
+        return new ArrayList<>(candidatos.values());
     }
 
     /**
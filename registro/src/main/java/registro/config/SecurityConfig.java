@@ -33,6 +33,10 @@ public class SecurityConfig {
                 // Público
                 .requestMatchers("/api/mp/**", "/actuator/**", "/error").permitAll()
 
+                // Invalidación de cachés desde otros microservicios: sin JWT, el controller exige
+                // X-Servicio-Token y el gateway no enruta /api/interno/**
+                .requestMatchers(HttpMethod.DELETE, "/api/interno/**").permitAll()
+
                 // Preflight CORS
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
@@ -1,5 +1,6 @@
 package registro.mercadopago.services.impl;
 
+import clientehttp.ClientesHttp;
 import registro.mercadopago.config.MpProperties;
 import registro.mercadopago.dtos.OauthStatusDTO;
 import registro.mercadopago.models.MpAccountLink;
@@ -31,7 +32,7 @@ public class MpAuthServiceImpl implements MpAuthService {
     private final MpPaymentRepository paymentRepo;
     private final MpWalletMovementRepository movementRepo;
     private final NotificationsEventPublisher notificationsEventPublisher;
-    private final RestTemplate rest = new RestTemplate();
+    private final RestTemplate rest;
 
     @Value("${notificacion.service.url:http://localhost:8084}")
     private String notificacionServiceUrl;
@@ -41,9 +42,11 @@ public class MpAuthServiceImpl implements MpAuthService {
             MpAccountLinkRepository repo,
             MpPaymentRepository paymentRepo,
             MpWalletMovementRepository movementRepo,
-            NotificationsEventPublisher notificationsEventPublisher
+            NotificationsEventPublisher notificationsEventPublisher,
+            ClientesHttp clientesHttp
     ) {
         this.props = props;
+        this.rest = clientesHttp.para("mercadopago");
         this.repo = repo;
         this.paymentRepo = paymentRepo;
         this.movementRepo = movementRepo;
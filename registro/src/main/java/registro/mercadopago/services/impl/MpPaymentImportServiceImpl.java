@@ -1,7 +1,9 @@
 package registro.mercadopago.services.impl;
 
+import clientehttp.ClientesHttp;
 import registro.cargarDatos.models.*;
 import registro.cargarDatos.repositories.MovimientoRepository;
+import registro.cargarDatos.services.SaldoMensualService;
 import registro.mercadopago.config.MpProperties;
 import registro.mercadopago.dtos.PaymentDTO;
 import registro.mercadopago.models.MpAccountLink;
@@ -38,8 +40,9 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
     private final CategorySuggestionService categorySuggestionService;
     private final MpDuplicateDetectionService duplicateDetectionService;
     private final AdministracionService administracionService;
+    private final SaldoMensualService saldoMensualService;
 
-    private final RestTemplate rest = new RestTemplate();
+    private final RestTemplate rest;
 
     public MpPaymentImportServiceImpl(
             MovimientoRepository movimientoRepo,
@@ -50,7 +53,9 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
             MpProperties props,
             CategorySuggestionService categorySuggestionService,
             MpDuplicateDetectionService duplicateDetectionService,
-            AdministracionService administracionService
+            AdministracionService administracionService,
+            SaldoMensualService saldoMensualService,
+            ClientesHttp clientesHttp
     ) {
         this.movimientoRepo = movimientoRepo;
         this.linkRepo = linkRepo;
@@ -61,6 +66,8 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
         this.categorySuggestionService = categorySuggestionService;
         this.duplicateDetectionService = duplicateDetectionService;
         this.administracionService = administracionService;
+        this.saldoMensualService = saldoMensualService;
+        this.rest = clientesHttp.para("mercadopago");
     }
 
     /* =========================
@@ -439,6 +446,7 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
 
         // === 3) Guardar en tabla Registro ===
         Movimiento savedRegistro = movimientoRepo.save(r);
+        saldoMensualService.registrarAlta(savedRegistro);
         
         // === 4) Guardar en tabla MpImportedPayment ===
         String mpPaymentId = asString(body.get("id"));
@@ -519,6 +527,7 @@ public class MpPaymentImportServiceImpl implements MpPaymentImportService {
 
         normalizarMontoMovimiento(registro);
         Movimiento savedRegistro = movimientoRepo.save(registro);
+        saldoMensualService.registrarAlta(savedRegistro);
 
         MpImportedPayment mpImported = new MpImportedPayment(savedRegistro, syntheticMpId, tenant.usuarioUuid(), link.getMpUserId());
         mpImported.setDescription(descripcion);
@@ -1,6 +1,7 @@
 // consolidacion/mercadopago/services/impl/MpWalletMovementImportServiceImpl.java
 package registro.mercadopago.services.impl;
 
+import clientehttp.ClientesHttp;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import registro.mercadopago.config.MpProperties;
 import registro.mercadopago.models.MpAccountLink;
@@ -26,15 +27,17 @@ public class MpWalletMovementImportServiceImpl implements MpWalletMovementImport
     private final MpWalletMovementRepository repo;
     private final MpAccountLinkRepository linkRepo;
     private final MpProperties props;
-    private final RestTemplate rest = new RestTemplate();
+    private final RestTemplate rest;
     private final ObjectMapper om = new ObjectMapper();
 
     public MpWalletMovementImportServiceImpl(
             MpWalletMovementRepository repo,
             MpAccountLinkRepository linkRepo,
-            MpProperties props
+            MpProperties props,
+            ClientesHttp clientesHttp
     ) {
         this.repo = repo; this.linkRepo = linkRepo; this.props = props;
+        this.rest = clientesHttp.para("mercadopago");
     }
 
     @Override
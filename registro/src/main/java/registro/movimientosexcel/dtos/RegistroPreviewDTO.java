@@ -7,6 +7,7 @@ import registro.cargarDatos.models.TipoMoneda;
 import registro.cargarDatos.models.TipoMovimiento;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Getter
 @Setter
@@ -22,6 +23,8 @@ public class RegistroPreviewDTO {
     private String categoriaSugerida;
     private Boolean esDuplicado;
     private String motivoDuplicado;
+    // Filas del archivo con la misma clave de duplicado (incluida esta); null si no se repite
+    private List<Integer> filasDuplicadas;
     
     public RegistroPreviewDTO(Integer filaExcel, TipoMovimiento tipo, Double montoTotal, 
                              LocalDate fechaEmision, String descripcion, String origen,
@@ -0,0 +1,45 @@
+package registro.movimientosexcel.lectura;
+
+import java.time.LocalDateTime;
+
+/**
+ * Valor de una celda ya leído del archivo, desacoplado del modelo de POI.
+ * {@code texto} es lo que mostraría Excel (equivalente a DataFormatter.formatCellValue).
+ */
+public class CeldaExcel {
+
+    private final String texto;
+    private final Double numero;
+    private final LocalDateTime fecha;
+
+    public CeldaExcel(String texto, Double numero, LocalDateTime fecha) {
+        this.texto = texto != null ? texto : "";
+        this.numero = numero;
+        this.fecha = fecha;
+    }
+
+    public static CeldaExcel texto(String texto) {
+        return new CeldaExcel(texto, null, null);
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public boolean esNumero() {
+        return numero != null;
+    }
+
+    public Double getNumero() {
+        return numero;
+    }
+
+    /** true si la celda es numérica con formato de fecha. */
+    public boolean esFecha() {
+        return fecha != null;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
@@ -0,0 +1,38 @@
+package registro.movimientosexcel.lectura;
+
+/**
+ * Fila de una hoja de cálculo. Las columnas ausentes se leen como celdas vacías.
+ */
+public class FilaExcel {
+
+    private final int indice;
+    private final CeldaExcel[] celdas;
+
+    public FilaExcel(int indice, CeldaExcel[] celdas) {
+        this.indice = indice;
+        this.celdas = celdas;
+    }
+
+    /** Índice de la fila en la hoja, base 0 (como Row.getRowNum). */
+    public int getIndice() {
+        return indice;
+    }
+
+    /** Una posición después de la última columna con datos (como Row.getLastCellNum). */
+    public int getUltimaColumna() {
+        return celdas.length;
+    }
+
+    public CeldaExcel getCelda(Integer columna) {
+        if (columna == null || columna < 0 || columna >= celdas.length) {
+            return null;
+        }
+        return celdas[columna];
+    }
+
+    /** Texto formateado de la columna, "" si no existe. */
+    public String getTexto(Integer columna) {
+        CeldaExcel celda = getCelda(columna);
+        return celda != null ? celda.getTexto() : "";
+    }
+}
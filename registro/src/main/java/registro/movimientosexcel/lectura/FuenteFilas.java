@@ -0,0 +1,29 @@
+package registro.movimientosexcel.lectura;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Origen de filas de la primera hoja de un archivo de movimientos.
+ * Se recorre una sola vez, en orden, sin filas inexistentes en la hoja.
+ */
+public interface FuenteFilas extends Iterable<FilaExcel>, AutoCloseable {
+
+    /**
+     * Abre el archivo eligiendo el lector según su contenido: los .xlsx se leen en
+     * streaming (memoria acotada); los .xls (límite de 65.536 filas) usan el modelo de POI.
+     */
+    static FuenteFilas abrir(InputStream is) throws IOException {
+        InputStream in = FileMagic.prepareToCheckMagic(is);
+        if (FileMagic.valueOf(in) == FileMagic.OOXML) {
+            return new XlsxStreamingFuenteFilas(in);
+        }
+        return new WorkbookFuenteFilas(WorkbookFactory.create(in));
+    }
+
+    @Override
+    void close() throws IOException;
+}
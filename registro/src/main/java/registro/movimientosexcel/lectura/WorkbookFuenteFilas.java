@@ -0,0 +1,68 @@
+package registro.movimientosexcel.lectura;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Fuente de filas sobre un Workbook de POI ya cargado. Se usa para .xls (HSSF),
+ * que no tiene un formato apto para lectura incremental en este flujo.
+ */
+class WorkbookFuenteFilas implements FuenteFilas {
+
+    private final Workbook workbook;
+    private final DataFormatter fmt = new DataFormatter();
+
+    WorkbookFuenteFilas(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    @Override
+    public Iterator<FilaExcel> iterator() {
+        Iterator<Row> filas = workbook.getSheetAt(0).rowIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return filas.hasNext();
+            }
+
+            @Override
+            public FilaExcel next() {
+                return convertir(filas.next());
+            }
+        };
+    }
+
+    private FilaExcel convertir(Row row) {
+        int ultima = Math.max(row.getLastCellNum(), 0);
+        CeldaExcel[] celdas = new CeldaExcel[ultima];
+        for (int c = 0; c < ultima; c++) {
+            Cell cell = row.getCell(c);
+            if (cell != null) {
+                celdas[c] = convertir(cell);
+            }
+        }
+        return new FilaExcel(row.getRowNum(), celdas);
+    }
+
+    private CeldaExcel convertir(Cell cell) {
+        String texto = fmt.formatCellValue(cell);
+        if (cell.getCellType() == CellType.NUMERIC) {
+            boolean esFecha = DateUtil.isCellDateFormatted(cell);
+            return new CeldaExcel(texto, cell.getNumericCellValue(),
+                    esFecha ? cell.getLocalDateTimeCellValue() : null);
+        }
+        return CeldaExcel.texto(texto);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.close();
+    }
+}
@@ -0,0 +1,213 @@
+package registro.movimientosexcel.lectura;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lectura en streaming de la primera hoja de un .xlsx.
+ * Recorre el XML de la hoja con StAX sobre las partes que expone XSSFReader (modelo de
+ * eventos de POI), así solo hay una fila en memoria a la vez en lugar del Workbook entero.
+ * El archivo se copia a un temporal para que OPCPackage no descomprima todo en heap.
+ */
+class XlsxStreamingFuenteFilas implements FuenteFilas {
+
+    private final DataFormatter fmt = new DataFormatter();
+
+    private Path temporal;
+    private OPCPackage paquete;
+    private ReadOnlySharedStringsTable sharedStrings;
+    private StylesTable estilos;
+    private InputStream hoja;
+    private XMLStreamReader xml;
+
+    private FilaExcel siguiente;
+    private boolean terminado;
+    private int ultimoIndice = -1;
+
+    XlsxStreamingFuenteFilas(InputStream is) throws IOException {
+        try {
+            temporal = Files.createTempFile("mycfo-import-", ".xlsx");
+            Files.copy(is, temporal, StandardCopyOption.REPLACE_EXISTING);
+            paquete = OPCPackage.open(temporal.toFile(), PackageAccess.READ);
+
+            XSSFReader reader = new XSSFReader(paquete);
+            sharedStrings = new ReadOnlySharedStringsTable(paquete);
+            estilos = reader.getStylesTable();
+
+            Iterator<InputStream> hojas = reader.getSheetsData();
+            if (!hojas.hasNext()) {
+                throw new IOException("El archivo no contiene hojas");
+            }
+            hoja = hojas.next();
+            xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(hoja);
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            close();
+            throw new IOException("No se pudo abrir el archivo .xlsx: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Iterator<FilaExcel> iterator() {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                if (siguiente == null && !terminado) {
+                    siguiente = leerFila();
+                }
+                return siguiente != null;
+            }
+
+            @Override
+            public FilaExcel next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FilaExcel fila = siguiente;
+                siguiente = null;
+                return fila;
+            }
+        };
+    }
+
+    private FilaExcel leerFila() {
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                    String ref = xml.getAttributeValue(null, "r");
+                    int indice = ref != null ? Integer.parseInt(ref) - 1 : ultimoIndice + 1;
+                    ultimoIndice = indice;
+                    return new FilaExcel(indice, leerCeldas());
+                }
+            }
+            terminado = true;
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Error leyendo la hoja: " + e.getMessage(), e);
+        }
+    }
+
+    private CeldaExcel[] leerCeldas() throws XMLStreamException {
+        List<CeldaExcel> celdas = new ArrayList<>();
+        int columna = -1;
+        while (xml.hasNext()) {
+            int evento = xml.next();
+            if (evento == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                String ref = xml.getAttributeValue(null, "r");
+                columna = ref != null ? new CellReference(ref).getCol() : columna + 1;
+                CeldaExcel celda = leerCelda(xml.getAttributeValue(null, "t"), xml.getAttributeValue(null, "s"));
+                while (celdas.size() <= columna) {
+                    celdas.add(null);
+                }
+                celdas.set(columna, celda);
+            } else if (evento == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        return celdas.toArray(new CeldaExcel[0]);
+    }
+
+    private CeldaExcel leerCelda(String tipo, String estilo) throws XMLStreamException {
+        String valor = null;
+        StringBuilder inline = new StringBuilder();
+        int fonetica = 0;
+        while (xml.hasNext()) {
+            int evento = xml.next();
+            if (evento == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "v" -> valor = xml.getElementText();
+                    case "rPh" -> fonetica++;
+                    case "t" -> {
+                        if (fonetica == 0) inline.append(xml.getElementText());
+                    }
+                    default -> { }
+                }
+            } else if (evento == XMLStreamConstants.END_ELEMENT) {
+                if ("rPh".equals(xml.getLocalName())) fonetica--;
+                else if ("c".equals(xml.getLocalName())) break;
+            }
+        }
+
+        if ("inlineStr".equals(tipo)) {
+            return CeldaExcel.texto(inline.toString());
+        }
+        if (valor == null) {
+            return CeldaExcel.texto("");
+        }
+        return switch (tipo == null ? "n" : tipo) {
+            case "s" -> CeldaExcel.texto(sharedStrings.getItemAt(Integer.parseInt(valor.trim())).getString());
+            case "b" -> CeldaExcel.texto("1".equals(valor.trim()) ? "TRUE" : "FALSE");
+            case "n" -> celdaNumerica(valor, estilo);
+            // str (resultado de fórmula), e (error) y d (fecha ISO) se muestran tal cual
+            default -> CeldaExcel.texto(valor);
+        };
+    }
+
+    private CeldaExcel celdaNumerica(String valor, String estilo) {
+        double numero;
+        try {
+            numero = Double.parseDouble(valor.trim());
+        } catch (NumberFormatException e) {
+            return CeldaExcel.texto(valor);
+        }
+
+        // Mismo criterio que XSSFSheetXMLHandler: sin atributo s se usa el estilo 0
+        XSSFCellStyle style = null;
+        if (estilos != null) {
+            if (estilo != null && !estilo.isEmpty()) {
+                style = estilos.getStyleAt(Integer.parseInt(estilo));
+            } else if (estilos.getNumCellStyles() > 0) {
+                style = estilos.getStyleAt(0);
+            }
+        }
+        short formatoIdx = style != null ? style.getDataFormat() : 0;
+        String formato = style != null ? style.getDataFormatString() : null;
+        if (formato == null) {
+            formato = BuiltinFormats.getBuiltinFormat(formatoIdx);
+        }
+
+        String texto = fmt.formatRawCellContents(numero, formatoIdx, formato);
+        LocalDateTime fecha = DateUtil.isADateFormat(formatoIdx, formato) && DateUtil.isValidExcelDate(numero)
+                ? DateUtil.getLocalDateTime(numero)
+                : null;
+        return new CeldaExcel(texto, numero, fecha);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (xml != null) xml.close();
+        } catch (XMLStreamException ignore) {
+        }
+        if (hoja != null) hoja.close();
+        if (paquete != null) paquete.revert();
+        if (temporal != null) Files.deleteIfExists(temporal);
+    }
+}
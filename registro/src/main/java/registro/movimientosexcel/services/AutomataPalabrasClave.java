@@ -0,0 +1,161 @@
+package registro.movimientosexcel.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Autómata de Aho-Corasick sobre un conjunto fijo de palabras clave.
+ * Encuentra todas las palabras presentes en un texto en una sola pasada, sin importar
+ * cuántas sean. Las transiciones se precalculan en una tabla (DFA completo), así que
+ * avanzar por un carácter es un acceso a arreglo y recorrer un texto no asigna memoria.
+ * Cada palabra lleva un valor entero que el llamador usa para identificarla.
+ */
+final class AutomataPalabrasClave {
+
+    private static final int[] SIN_SALIDAS = new int[0];
+
+    /** Índice en el alfabeto del autómata para cada char ASCII; -1 si ninguna palabra lo usa. */
+    private final int[] indiceCaracter;
+    private final int tamanioAlfabeto;
+    /** transiciones[estado * tamanioAlfabeto + indice] = estado siguiente. */
+    private final int[] transiciones;
+    /** Valores de las palabras que terminan en cada estado (incluidas las alcanzadas por sufijo). */
+    private final int[][] salidas;
+
+    private AutomataPalabrasClave(int[] indiceCaracter, int tamanioAlfabeto, int[] transiciones, int[][] salidas) {
+        this.indiceCaracter = indiceCaracter;
+        this.tamanioAlfabeto = tamanioAlfabeto;
+        this.transiciones = transiciones;
+        this.salidas = salidas;
+    }
+
+    int estadoInicial() {
+        return 0;
+    }
+
+    int avanzar(int estado, char c) {
+        int indice = c < indiceCaracter.length ? indiceCaracter[c] : -1;
+        // Un carácter que no aparece en ninguna palabra corta cualquier coincidencia en curso
+        return indice < 0 ? 0 : transiciones[estado * tamanioAlfabeto + indice];
+    }
+
+    int[] salidas(int estado) {
+        return salidas[estado];
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    static final class Builder {
+
+        private final List<String> palabras = new ArrayList<>();
+        private final List<Integer> valores = new ArrayList<>();
+
+        /** Agrega una palabra clave (ya normalizada a minúsculas, solo ASCII). */
+        Builder agregar(String palabra, int valor) {
+            if (palabra == null || palabra.isEmpty()) {
+                throw new IllegalArgumentException("La palabra clave no puede estar vacía");
+            }
+            for (int i = 0; i < palabra.length(); i++) {
+                if (palabra.charAt(i) >= 128) {
+                    throw new IllegalArgumentException("Palabra clave fuera de ASCII: " + palabra);
+                }
+            }
+            palabras.add(palabra);
+            valores.add(valor);
+            return this;
+        }
+
+        AutomataPalabrasClave construir() {
+            int[] indiceCaracter = new int[128];
+            Arrays.fill(indiceCaracter, -1);
+            int alfabeto = 0;
+            for (String palabra : palabras) {
+                for (int i = 0; i < palabra.length(); i++) {
+                    char c = palabra.charAt(i);
+                    if (indiceCaracter[c] < 0) {
+                        indiceCaracter[c] = alfabeto++;
+                    }
+                }
+            }
+            alfabeto = Math.max(alfabeto, 1);
+
+            // Trie: hijos[estado][indice], -1 si no hay arista
+            List<int[]> hijos = new ArrayList<>();
+            List<List<Integer>> terminales = new ArrayList<>();
+            hijos.add(nuevoNodo(alfabeto));
+            terminales.add(new ArrayList<>());
+
+            for (int p = 0; p < palabras.size(); p++) {
+                String palabra = palabras.get(p);
+                int estado = 0;
+                for (int i = 0; i < palabra.length(); i++) {
+                    int indice = indiceCaracter[palabra.charAt(i)];
+                    if (hijos.get(estado)[indice] < 0) {
+                        hijos.get(estado)[indice] = hijos.size();
+                        hijos.add(nuevoNodo(alfabeto));
+                        terminales.add(new ArrayList<>());
+                    }
+                    estado = hijos.get(estado)[indice];
+                }
+                terminales.get(estado).add(valores.get(p));
+            }
+
+            int estados = hijos.size();
+            int[] transiciones = new int[estados * alfabeto];
+            int[] falla = new int[estados];
+            int[][] salidas = new int[estados][];
+
+            // BFS: completa las transiciones faltantes con las del estado de falla
+            Deque<Integer> cola = new ArrayDeque<>();
+            salidas[0] = aArreglo(terminales.get(0), SIN_SALIDAS);
+            for (int a = 0; a < alfabeto; a++) {
+                int hijo = hijos.get(0)[a];
+                if (hijo < 0) {
+                    transiciones[a] = 0;
+                } else {
+                    transiciones[a] = hijo;
+                    falla[hijo] = 0;
+                    cola.add(hijo);
+                }
+            }
+            while (!cola.isEmpty()) {
+                int estado = cola.poll();
+                salidas[estado] = aArreglo(terminales.get(estado), salidas[falla[estado]]);
+                for (int a = 0; a < alfabeto; a++) {
+                    int hijo = hijos.get(estado)[a];
+                    if (hijo < 0) {
+                        transiciones[estado * alfabeto + a] = transiciones[falla[estado] * alfabeto + a];
+                    } else {
+                        transiciones[estado * alfabeto + a] = hijo;
+                        falla[hijo] = transiciones[falla[estado] * alfabeto + a];
+                        cola.add(hijo);
+                    }
+                }
+            }
+
+            return new AutomataPalabrasClave(indiceCaracter, alfabeto, transiciones, salidas);
+        }
+
+        private static int[] nuevoNodo(int alfabeto) {
+            int[] nodo = new int[alfabeto];
+            Arrays.fill(nodo, -1);
+            return nodo;
+        }
+
+        private static int[] aArreglo(List<Integer> propias, int[] heredadas) {
+            if (propias.isEmpty()) {
+                return heredadas;
+            }
+            int[] resultado = Arrays.copyOf(heredadas, heredadas.length + propias.size());
+            for (int i = 0; i < propias.size(); i++) {
+                resultado[heredadas.length + i] = propias.get(i);
+            }
+            return resultado;
+        }
+    }
+}
@@ -4,8 +4,6 @@ import org.springframework.stereotype.Service;
 import registro.cargarDatos.models.TipoMovimiento;
 
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Servicio inteligente de sugerencia de categorías para movimientos bancarios.
@@ -40,50 +38,43 @@ public class CategorySuggestionService {
     private final Map<String, List<PatronCategoria>> patronesEgresos = new HashMap<>();
     private final Map<String, List<PatronCategoria>> patronesIngresos = new HashMap<>();
     
+    // Todas las palabras clave de cada mapa compiladas en un único autómata
+    private final CategoriasCompiladas compiladasEgresos;
+    private final CategoriasCompiladas compiladasIngresos;
+    
     public CategorySuggestionService() {
         inicializarPatronesEgresos();
         inicializarPatronesIngresos();
+        compiladasEgresos = new CategoriasCompiladas(patronesEgresos, CAT_OTROS_EGRESOS);
+        compiladasIngresos = new CategoriasCompiladas(patronesIngresos, CAT_OTROS_INGRESOS);
+    }
+    
+    private CategoriasCompiladas compiladasPara(TipoMovimiento tipo) {
+        return tipo == TipoMovimiento.Egreso ? compiladasEgresos : compiladasIngresos;
     }
     
     /**
      * Sugiere una categoría basándose en la descripción y el tipo de registro
      */
     public String sugerirCategoria(String descripcion, TipoMovimiento tipo) {
-        if (descripcion == null || descripcion.trim().isEmpty()) {
-            return tipo == TipoMovimiento.Egreso ? CAT_OTROS_EGRESOS : CAT_OTROS_INGRESOS;
-        }
-        
-        String descripcionLower = descripcion.toLowerCase().trim();
-        
-        // Elegir el mapa de patrones según el tipo
-        Map<String, List<PatronCategoria>> patrones = 
-            tipo == TipoMovimiento.Egreso ? patronesEgresos : patronesIngresos;
-        
-        // Buscar coincidencias con prioridad
-        List<CoincidenciaCategoria> coincidencias = new ArrayList<>();
-        
-        for (Map.Entry<String, List<PatronCategoria>> entry : patrones.entrySet()) {
-            String categoria = entry.getKey();
-            List<PatronCategoria> listaPatrones = entry.getValue();
-            
-            for (PatronCategoria patron : listaPatrones) {
-                if (patron.coincide(descripcionLower)) {
-                    coincidencias.add(new CoincidenciaCategoria(categoria, patron.prioridad));
-                    break; // Solo una coincidencia por categoría
-                }
-            }
-        }
-        
-        // Si hay coincidencias, devolver la de mayor prioridad
-        if (!coincidencias.isEmpty()) {
-            coincidencias.sort(Comparator.comparingInt(c -> -c.prioridad)); // Orden descendente
-            return coincidencias.get(0).categoria;
+        CategoriasCompiladas compiladas = compiladasPara(tipo);
+        return compiladas.sugerir(descripcion, new int[compiladas.categorias.length]);
+    }
+
+    /**
+     * Sugiere categorías para varias descripciones del mismo tipo, reutilizando el estado
+     * de búsqueda entre filas. El resultado respeta el orden de la lista recibida.
+     */
+    public List<String> sugerirCategorias(List<String> descripciones, TipoMovimiento tipo) {
+        CategoriasCompiladas compiladas = compiladasPara(tipo);
+        int[] mejorOrden = new int[compiladas.categorias.length];
+        List<String> resultado = new ArrayList<>(descripciones.size());
+        for (String descripcion : descripciones) {
+            resultado.add(compiladas.sugerir(descripcion, mejorOrden));
         }
-        
-        // Categoría por defecto
-        return tipo == TipoMovimiento.Egreso ? CAT_OTROS_EGRESOS : CAT_OTROS_INGRESOS;
+        return resultado;
     }
-    
+
     /**
      * Sobrecarga para compatibilidad con código existente (asume Egreso por defecto)
      */
@@ -267,32 +258,103 @@ public class CategorySuggestionService {
      */
     private static class PatronCategoria {
         private final int prioridad;
-        private final Pattern pattern;
+        private final List<String> palabrasClave;
         
         public PatronCategoria(List<String> palabrasClave, int prioridad) {
             this.prioridad = prioridad;
-            // Crear un patrón regex que busque cualquiera de las palabras clave
-            String regex = palabrasClave.stream()
-                .map(Pattern::quote)
-                .collect(Collectors.joining("|"));
-            this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-        }
-        
-        public boolean coincide(String texto) {
-            return pattern.matcher(texto).find();
+            this.palabrasClave = palabrasClave.stream()
+                .map(p -> p.toLowerCase(Locale.ROOT))
+                .toList();
         }
     }
     
     /**
-     * Clase interna para almacenar coincidencias con prioridad
+     * Patrones de un tipo de movimiento compilados para buscar en una sola pasada.
+     * Cada palabra clave apunta a su categoría, a la posición de su patrón dentro de la
+     * categoría y a la prioridad de ese patrón. Se conserva el criterio original: en cada
+     * categoría cuenta el primer patrón que coincide y gana la categoría de mayor prioridad;
+     * ante empate, la que aparece primero al recorrer el mapa.
      */
-    private static class CoincidenciaCategoria {
-        private final String categoria;
-        private final int prioridad;
+    private static class CategoriasCompiladas {
+        private final String[] categorias;
+        private final String categoriaPorDefecto;
+        private final AutomataPalabrasClave automata;
+        private final int[] categoriaDeEntrada;
+        private final int[] ordenDeEntrada;
+        /** prioridadPorPatron[categoria][orden], precalculada al compilar. */
+        private final int[][] prioridadPorPatron;
         
-        public CoincidenciaCategoria(String categoria, int prioridad) {
-            this.categoria = categoria;
-            this.prioridad = prioridad;
+        CategoriasCompiladas(Map<String, List<PatronCategoria>> patrones, String categoriaPorDefecto) {
+            this.categoriaPorDefecto = categoriaPorDefecto;
+            this.categorias = new String[patrones.size()];
+            this.prioridadPorPatron = new int[patrones.size()][];
+            List<int[]> entradas = new ArrayList<>();
+            AutomataPalabrasClave.Builder builder = AutomataPalabrasClave.builder();
+            
+            int c = 0;
+            for (Map.Entry<String, List<PatronCategoria>> entry : patrones.entrySet()) {
+                categorias[c] = entry.getKey();
+                List<PatronCategoria> lista = entry.getValue();
+                prioridadPorPatron[c] = new int[lista.size()];
+                for (int orden = 0; orden < lista.size(); orden++) {
+                    PatronCategoria patron = lista.get(orden);
+                    prioridadPorPatron[c][orden] = patron.prioridad;
+                    for (String palabra : patron.palabrasClave) {
+                        builder.agregar(palabra, entradas.size());
+                        entradas.add(new int[] {c, orden});
+                    }
+                }
+                c++;
+            }
+            
+            this.automata = builder.construir();
+            this.categoriaDeEntrada = new int[entradas.size()];
+            this.ordenDeEntrada = new int[entradas.size()];
+            for (int i = 0; i < entradas.size(); i++) {
+                categoriaDeEntrada[i] = entradas.get(i)[0];
+                ordenDeEntrada[i] = entradas.get(i)[1];
+            }
+        }
+        
+        /**
+         * @param mejorOrden arreglo de trabajo de tamaño categorias.length; se reinicia acá
+         */
+        String sugerir(String descripcion, int[] mejorOrden) {
+            if (descripcion == null || descripcion.isBlank()) {
+                return categoriaPorDefecto;
+            }
+            Arrays.fill(mejorOrden, Integer.MAX_VALUE);
+            
+            int estado = automata.estadoInicial();
+            boolean hubo = false;
+            for (int i = 0; i < descripcion.length(); i++) {
+                estado = automata.avanzar(estado, Character.toLowerCase(descripcion.charAt(i)));
+                for (int entrada : automata.salidas(estado)) {
+                    int categoria = categoriaDeEntrada[entrada];
+                    if (ordenDeEntrada[entrada] < mejorOrden[categoria]) {
+                        mejorOrden[categoria] = ordenDeEntrada[entrada];
+                        hubo = true;
+                    }
+                }
+            }
+            if (!hubo) {
+                return categoriaPorDefecto;
+            }
+            
+            // Mayor prioridad entre el primer patrón que coincidió en cada categoría
+            int mejorCategoria = -1;
+            int mejorPrioridad = Integer.MIN_VALUE;
+            for (int categoria = 0; categoria < categorias.length; categoria++) {
+                if (mejorOrden[categoria] == Integer.MAX_VALUE) {
+                    continue;
+                }
+                int prioridad = prioridadPorPatron[categoria][mejorOrden[categoria]];
+                if (prioridad > mejorPrioridad) {
+                    mejorPrioridad = prioridad;
+                    mejorCategoria = categoria;
+                }
+            }
+            return categorias[mejorCategoria];
         }
     }
 }
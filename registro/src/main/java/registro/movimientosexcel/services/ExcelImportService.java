@@ -3,20 +3,22 @@ package registro.movimientosexcel.services;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.ss.usermodel.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import registro.movimientosexcel.dtos.*;
+import registro.movimientosexcel.lectura.CeldaExcel;
+import registro.movimientosexcel.lectura.FilaExcel;
+import registro.movimientosexcel.lectura.FuenteFilas;
 import registro.cargarDatos.models.Movimiento;
 import registro.cargarDatos.models.TipoMedioPago;
 import registro.cargarDatos.models.TipoMoneda;
 import registro.cargarDatos.models.TipoMovimiento;
-import registro.cargarDatos.repositories.MovimientoRepository;
 import registro.movimientosexcel.models.ExcelImportHistory;
 import registro.movimientosexcel.repositories.ExcelImportHistoryRepository;
+import registro.movimientosexcel.services.ImportacionLoteService.FilaPendiente;
 import registro.services.AdministracionService;
 
 import java.io.InputStream;
@@ -34,7 +36,7 @@ public class ExcelImportService {
     private static final Logger log = LoggerFactory.getLogger(ExcelImportService.class);
 
     @Autowired
-    private MovimientoRepository movimientoRepo;
+    private ImportacionLoteService importacionLoteService;
 
     @Autowired
     private NotificationsEventPublisher notifications;
@@ -96,6 +98,7 @@ public class ExcelImportService {
         history.setUsuario(usuarioUuid);
         
         try {
+            List<FilaPendiente> pendientes = new ArrayList<>();
             for (RegistroPreviewDTO preview : registrosSeleccionados) {
                 try {
                     Movimiento movimiento = convertirPreviewAMovimiento(preview);
@@ -104,14 +107,13 @@ public class ExcelImportService {
                     // Normalizar monto según tipo
                     normalizarMontoMovimiento(movimiento);
                     
-                    movimientoRepo.save(movimiento);
-                    totalGuardados++;
-                    notifications.publishMovement(movimiento, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(preview.getFilaExcel(), movimiento));
                     
                 } catch (Exception e) {
                     errores.add(new FilaConErrorDTO(preview.getFilaExcel(), e.getMessage()));
                 }
             }
+            totalGuardados = guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
             
             history.setRegistrosProcesados(registrosSeleccionados.size());
             history.setRegistrosGuardados(totalGuardados);
@@ -154,44 +156,45 @@ public class ExcelImportService {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            for (int i = 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
+            for (FilaExcel fila : fuente) {
+                int i = fila.getIndice();
+                if (i < 1) continue;
                 total++;
 
                 try {
-                    Cell fecha = fila.getCell(1);
-                    Cell descripcion = fila.getCell(2);
-                    Cell monto = fila.getCell(3);
-                    Cell medioPago = fila.getCell(4);
+                    CeldaExcel fecha = fila.getCelda(1);
+                    CeldaExcel descripcion = fila.getCelda(2);
+                    CeldaExcel monto = fila.getCelda(3);
+                    CeldaExcel medioPago = fila.getCelda(4);
 
                     if (fecha == null || descripcion == null || monto == null || medioPago == null) {
                         throw new RuntimeException("Faltan datos");
                     }
 
                     LocalDate fechaLocal;
-                    if (fecha.getCellType() == CellType.STRING) {
-                        fechaLocal = LocalDate.parse(fecha.getStringCellValue(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                    } else if (fecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(fecha)) {
-                        fechaLocal = fecha.getLocalDateTimeCellValue().toLocalDate();
+                    if (!fecha.esNumero()) {
+                        fechaLocal = LocalDate.parse(fecha.getTexto(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                    } else if (fecha.esFecha()) {
+                        fechaLocal = fecha.getFecha().toLocalDate();
                     } else {
                         throw new RuntimeException("Formato de fecha inválido en fila " + (i + 1));
                     }
 
-                    String descripcionStr = descripcion.getCellType() == CellType.STRING
-                            ? descripcion.getStringCellValue()
-                            : String.valueOf(descripcion.getNumericCellValue());
+                    String descripcionStr = !descripcion.esNumero()
+                            ? descripcion.getTexto()
+                            : String.valueOf(descripcion.getNumero());
 
-                    Double montoValor = monto.getCellType() == CellType.NUMERIC
-                            ? monto.getNumericCellValue()
-                            : Double.parseDouble(monto.getStringCellValue());
+                    Double montoValor = monto.esNumero()
+                            ? monto.getNumero()
+                            : Double.parseDouble(monto.getTexto());
 
-                    String medioPagoStr = medioPago.getCellType() == CellType.STRING
-                            ? medioPago.getStringCellValue()
-                            : String.valueOf(medioPago.getNumericCellValue());
+                    String medioPagoStr = !medioPago.esNumero()
+                            ? medioPago.getTexto()
+                            : String.valueOf(medioPago.getNumero());
 
                     Movimiento reg = new Movimiento();
                     reg.setTipo(determinarTipoMovimiento(montoValor));
@@ -207,8 +210,8 @@ public class ExcelImportService {
                     // Normalizar monto según tipo
                     normalizarMontoMovimiento(reg);
 
-                    movimientoRepo.save(reg);
-                    correctos++;
+                    pendientes.add(new FilaPendiente(i + 1, reg));
+                    correctos += guardarSiLoteCompleto(pendientes, organizacionId, usuarioSub, errores, false);
 
                 } catch (Exception e) {
                     errores.add(new FilaConErrorDTO(i + 1, e.getMessage()));
@@ -219,6 +222,7 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        correctos += guardarPendientes(pendientes, organizacionId, usuarioSub, errores, false);
         return new ResumenCargaDTO(total, correctos, errores);
     }
 
@@ -229,20 +233,20 @@ public class ExcelImportService {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            Row header = hoja.getRow(HEADER_ROW_INDEX);
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel header = avanzarHastaFila(filas, HEADER_ROW_INDEX);
             if (header == null) {
                 errores.add(new FilaConErrorDTO(0, "No existe la fila de encabezados en el índice " + HEADER_ROW_INDEX));
                 return new ResumenCargaDTO(total, correctos, errores);
             }
 
             Map<String, Integer> idx = new HashMap<>();
-            for (int c = 0; c < header.getLastCellNum(); c++) {
-                String v = fmt.formatCellValue(header.getCell(c)).trim().toUpperCase(Locale.ROOT);
+            for (int c = 0; c < header.getUltimaColumna(); c++) {
+                String v = header.getTexto(c).trim().toUpperCase(Locale.ROOT);
                 if (v.equals("RELEASE_DATE")) idx.put("FECHA", c);
                 else if (v.equals("TRANSACTION_TYPE")) idx.put("TIPO", c);
                 else if (v.equals("TRANSACTION_NET_AMOUNT")) idx.put("MONTO", c);
@@ -254,14 +258,14 @@ public class ExcelImportService {
                 return new ResumenCargaDTO(total, correctos, errores);
             }
 
-            for (int i = HEADER_ROW_INDEX + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String rawFecha = fmt.formatCellValue(fila.getCell(idx.get("FECHA"))).trim();
-                    String rawTipo  = fmt.formatCellValue(fila.getCell(idx.get("TIPO"))).trim();
-                    String rawMonto = fmt.formatCellValue(fila.getCell(idx.get("MONTO"))).trim();
+                    String rawFecha = fila.getTexto(idx.get("FECHA")).trim();
+                    String rawTipo  = fila.getTexto(idx.get("TIPO")).trim();
+                    String rawMonto = fila.getTexto(idx.get("MONTO")).trim();
 
                     if (rawFecha.isEmpty() && rawTipo.isEmpty() && rawMonto.isEmpty()) continue;
 
@@ -271,7 +275,7 @@ public class ExcelImportService {
                         throw new RuntimeException("Faltan datos obligatorios (RELEASE_DATE o TRANSACTION_NET_AMOUNT).");
                     }
 
-                    LocalDate fechaLocal = parseFechaMercadoPago(fila.getCell(idx.get("FECHA")));
+                    LocalDate fechaLocal = parseFechaMercadoPago(fila.getCelda(idx.get("FECHA")));
                     Double montoValor = parseMontoEsAr(rawMonto);
 
                     Movimiento mov = new Movimiento();
@@ -288,9 +292,8 @@ public class ExcelImportService {
                     // Normalizar monto según tipo
                     normalizarMontoMovimiento(mov);
 
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(i + 1, mov));
+                    correctos += guardarSiLoteCompleto(pendientes, organizacionId, usuarioSub, errores, true);
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
@@ -301,15 +304,26 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        correctos += guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
         return new ResumenCargaDTO(total, correctos, errores);
     }
 
-    private LocalDate parseFechaMercadoPago(Cell cFecha) {
+    /** Avanza hasta la fila {@code indice}; null si la hoja no la tiene. */
+    private FilaExcel avanzarHastaFila(Iterator<FilaExcel> filas, int indice) {
+        while (filas.hasNext()) {
+            FilaExcel fila = filas.next();
+            if (fila.getIndice() == indice) return fila;
+            if (fila.getIndice() > indice) return null;
+        }
+        return null;
+    }
+
+    private LocalDate parseFechaMercadoPago(CeldaExcel cFecha) {
         if (cFecha == null) throw new RuntimeException("Fecha vacía.");
-        if (cFecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cFecha)) {
-            return cFecha.getLocalDateTimeCellValue().toLocalDate();
+        if (cFecha.esFecha()) {
+            return cFecha.getFecha().toLocalDate();
         }
-        String raw = new DataFormatter().formatCellValue(cFecha).trim();
+        String raw = cFecha.getTexto().trim();
         DateTimeFormatter f1 = DateTimeFormatter.ofPattern("dd-MM-uuuu");
         DateTimeFormatter f2 = DateTimeFormatter.ofPattern("uuuu-MM-dd");
         try { return LocalDate.parse(raw, f1); } catch (Exception ignore) {}
@@ -337,6 +351,36 @@ public class ExcelImportService {
         return TipoMedioPago.Otro;
     }
     
+    /**
+     * Guarda por lotes los movimientos validados de una importación y agrega a
+     * {@code errores} las filas que no se pudieron persistir. Devuelve los guardados.
+     * Con {@code notificar}, los eventos se encolan en la transacción de cada lote.
+     */
+    private int guardarPendientes(List<FilaPendiente> pendientes, Long organizacionId, String usuarioSub,
+                                  List<FilaConErrorDTO> errores, boolean notificar) {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        ImportacionLoteService.ResultadoLote resultado = importacionLoteService.guardarEnLotes(pendientes, organizacionId,
+                notificar ? guardados -> notifications.publishMovements(guardados, usuarioSub, 1L) : guardados -> { });
+        errores.addAll(resultado.errores());
+        return resultado.guardados().size();
+    }
+
+    /**
+     * Guarda los pendientes cuando completan un lote, así una importación grande no
+     * acumula todo el archivo en memoria antes de escribir.
+     */
+    private int guardarSiLoteCompleto(List<FilaPendiente> pendientes, Long organizacionId, String usuarioSub,
+                                      List<FilaConErrorDTO> errores, boolean notificar) {
+        if (pendientes.size() < importacionLoteService.getTamanioLote()) {
+            return 0;
+        }
+        int guardados = guardarPendientes(pendientes, organizacionId, usuarioSub, errores, notificar);
+        pendientes.clear();
+        return guardados;
+    }
+
     private Long obtenerOrganizacionId(String usuarioSub) {
         if (usuarioSub == null || usuarioSub.isBlank()) {
             throw new IllegalArgumentException("El usuario en sesión es requerido para la carga de movimientos desde Excel");
@@ -366,6 +410,7 @@ public class ExcelImportService {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
         ExcelLibreConfigDTO config;
         try {
@@ -375,36 +420,34 @@ public class ExcelImportService {
             return new ResumenCargaDTO(total, correctos, errores);
         }
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
             Map<String, Integer> idx = config.getColumnMap();
             int startRow = Math.max(0, (config.getDataStartRow() != null ? config.getDataStartRow() - 1 : 1));
 
-            for (int i = startRow; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            for (FilaExcel fila : fuente) {
+                int i = fila.getIndice();
+                if (i < startRow) continue;
 
                 try {
-                    String rawFecha = getCellValue(fila, idx.get("fecha"), fmt);
-                    String rawDesc = getCellValue(fila, idx.get("descripcion"), fmt);
-                    String rawMonto = getCellValue(fila, idx.get("monto"), fmt);
+                    String rawFecha = getCellValue(fila, idx.get("fecha"));
+                    String rawDesc = getCellValue(fila, idx.get("descripcion"));
+                    String rawMonto = getCellValue(fila, idx.get("monto"));
 
                     if (rawFecha.isEmpty() && rawDesc.isEmpty() && rawMonto.isEmpty()) {
                         continue;
                     }
                     total++;
 
-                    LocalDate fecha = parseFechaGenerica(fila.getCell(idx.get("fecha")), rawFecha, config.getDateFormat());
+                    LocalDate fecha = parseFechaGenerica(fila.getCelda(idx.get("fecha")), rawFecha, config.getDateFormat());
                     Double monto = parseMontoGenerico(rawMonto, config.getDecimalSeparator());
 
-                    String rawTipo = getCellValue(fila, idx.get("tipo"), fmt);
+                    String rawTipo = getCellValue(fila, idx.get("tipo"));
                     TipoMovimiento tipo = parseTipoMovimiento(rawTipo, monto);
 
-                    String categoria = getCellValue(fila, idx.get("categoria"), fmt);
-                    String monedaStr = getCellValue(fila, idx.get("moneda"), fmt);
-                    String medioPagoStr = getCellValue(fila, idx.get("mediopago"), fmt);
-                    String origenStr = getCellValue(fila, idx.get("origen"), fmt);
+                    String categoria = getCellValue(fila, idx.get("categoria"));
+                    String monedaStr = getCellValue(fila, idx.get("moneda"));
+                    String medioPagoStr = getCellValue(fila, idx.get("mediopago"));
+                    String origenStr = getCellValue(fila, idx.get("origen"));
 
                     Movimiento mov = new Movimiento();
                     mov.setFechaEmision(fecha.atStartOfDay());
@@ -419,9 +462,8 @@ public class ExcelImportService {
                     enriquecerConContexto(mov, usuarioSub, organizacionId);
                     normalizarMontoMovimiento(mov);
 
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(i + 1, mov));
+                    correctos += guardarSiLoteCompleto(pendientes, organizacionId, usuarioSub, errores, true);
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
@@ -432,6 +474,7 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        correctos += guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
         return new ResumenCargaDTO(total, correctos, errores);
     }
 
@@ -439,27 +482,27 @@ public class ExcelImportService {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            int headerIdx = buscarFilaEncabezadosSantander(hoja, fmt);
-            if (headerIdx == -1) {
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel encabezado = buscarFilaEncabezadosSantander(filas);
+            if (encabezado == null) {
                 errores.add(new FilaConErrorDTO(0, "No se encontraron encabezados (Fecha, Descripción, Referencia, Caja de Ahorro)"));
                 return new ResumenCargaDTO(total, correctos, errores);
             }
 
-            for (int i = headerIdx + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String fechaStr = fmt.formatCellValue(fila.getCell(1)).trim();
-                    String descripcion = fmt.formatCellValue(fila.getCell(3)).trim();
-                    String refStr = fmt.formatCellValue(fila.getCell(4)).trim();
-                    String cajaStr = fmt.formatCellValue(fila.getCell(5)).trim();
-                    String ctaCteStr = fmt.formatCellValue(fila.getCell(6)).trim();
+                    String fechaStr = fila.getTexto(1).trim();
+                    String descripcion = fila.getTexto(3).trim();
+                    String refStr = fila.getTexto(4).trim();
+                    String cajaStr = fila.getTexto(5).trim();
+                    String ctaCteStr = fila.getTexto(6).trim();
 
                     if (fechaStr.isEmpty() || descripcion.isEmpty()) {
                         continue;
@@ -485,9 +528,8 @@ public class ExcelImportService {
                     enriquecerConContexto(mov, usuarioSub, organizacionId);
 
                     normalizarMontoMovimiento(mov);
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(i + 1, mov));
+                    correctos += guardarSiLoteCompleto(pendientes, organizacionId, usuarioSub, errores, true);
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
@@ -498,6 +540,7 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        correctos += guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
         return new ResumenCargaDTO(total, correctos, errores);
     }
     
@@ -520,45 +563,44 @@ public class ExcelImportService {
         List<FilaConErrorDTO> errores = new ArrayList<>();
         int total = 0;
         
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
             
-            for (int i = 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            for (FilaExcel fila : fuente) {
+                int i = fila.getIndice();
+                if (i < 1) continue;
                 
                 total++;
                 
                 try {
-                    Cell fecha = fila.getCell(1);
-                    Cell descripcion = fila.getCell(2);
-                    Cell monto = fila.getCell(3);
-                    Cell medioPago = fila.getCell(4);
+                    CeldaExcel fecha = fila.getCelda(1);
+                    CeldaExcel descripcion = fila.getCelda(2);
+                    CeldaExcel monto = fila.getCelda(3);
+                    CeldaExcel medioPago = fila.getCelda(4);
                     
                     if (fecha == null || descripcion == null || monto == null || medioPago == null) {
                         throw new RuntimeException("Faltan datos");
                     }
                     
                     LocalDate fechaLocal;
-                    if (fecha.getCellType() == CellType.STRING) {
-                        fechaLocal = LocalDate.parse(fecha.getStringCellValue(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                    } else if (fecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(fecha)) {
-                        fechaLocal = fecha.getLocalDateTimeCellValue().toLocalDate();
+                    if (!fecha.esNumero()) {
+                        fechaLocal = LocalDate.parse(fecha.getTexto(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                    } else if (fecha.esFecha()) {
+                        fechaLocal = fecha.getFecha().toLocalDate();
                     } else {
                         throw new RuntimeException("Formato de fecha inválido");
                     }
                     
-                    String descripcionStr = descripcion.getCellType() == CellType.STRING
-                            ? descripcion.getStringCellValue()
-                            : String.valueOf(descripcion.getNumericCellValue());
+                    String descripcionStr = !descripcion.esNumero()
+                            ? descripcion.getTexto()
+                            : String.valueOf(descripcion.getNumero());
                     
-                    Double montoValor = monto.getCellType() == CellType.NUMERIC
-                            ? monto.getNumericCellValue()
-                            : Double.parseDouble(monto.getStringCellValue());
+                    Double montoValor = monto.esNumero()
+                            ? monto.getNumero()
+                            : Double.parseDouble(monto.getTexto());
                     
-                    String medioPagoStr = medioPago.getCellType() == CellType.STRING
-                            ? medioPago.getStringCellValue()
-                            : String.valueOf(medioPago.getNumericCellValue());
+                    String medioPagoStr = !medioPago.esNumero()
+                            ? medioPago.getTexto()
+                            : String.valueOf(medioPago.getNumero());
                     
                     TipoMovimiento tipoMov = determinarTipoMovimiento(montoValor);
                     RegistroPreviewDTO preview = new RegistroPreviewDTO(
@@ -569,9 +611,6 @@ public class ExcelImportService {
                     // Sugerir categoría usando el tipo de registro para mejor precisión
                     preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(descripcionStr, tipoMov));
                     
-                    // Verificar duplicados
-                    verificarDuplicado(preview, registros);
-                    
                     registros.add(preview);
                     
                 } catch (Exception e) {
@@ -583,6 +622,9 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
         
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+        
         // Detectar duplicados en la base de datos
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         
@@ -606,21 +648,19 @@ public class ExcelImportService {
             return new PreviewDataDTO(new ArrayList<>(), total, 0, errores, "excel-libre");
         }
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
             int startRow = Math.max(0, (config.getDataStartRow() != null ? config.getDataStartRow() - 1 : 1));
             Map<String, Integer> idx = config.getColumnMap();
 
-            for (int i = startRow; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            for (FilaExcel fila : fuente) {
+                int i = fila.getIndice();
+                if (i < startRow) continue;
 
                 try {
-                    String rawFecha = getCellValue(fila, idx.get("fecha"), fmt);
-                    String rawDesc = getCellValue(fila, idx.get("descripcion"), fmt);
-                    String rawMonto = getCellValue(fila, idx.get("monto"), fmt);
+                    String rawFecha = getCellValue(fila, idx.get("fecha"));
+                    String rawDesc = getCellValue(fila, idx.get("descripcion"));
+                    String rawMonto = getCellValue(fila, idx.get("monto"));
 
                     if (rawFecha.isEmpty() && rawDesc.isEmpty() && rawMonto.isEmpty()) {
                         continue;
@@ -631,14 +671,14 @@ public class ExcelImportService {
                         throw new RuntimeException("Faltan datos obligatorios (fecha, descripción o monto).");
                     }
 
-                    LocalDate fecha = parseFechaGenerica(fila.getCell(idx.get("fecha")), rawFecha, config.getDateFormat());
+                    LocalDate fecha = parseFechaGenerica(fila.getCelda(idx.get("fecha")), rawFecha, config.getDateFormat());
                     Double monto = parseMontoGenerico(rawMonto, config.getDecimalSeparator());
                     TipoMovimiento tipo = determinarTipoMovimiento(monto);
 
-                    String categoria = getCellValue(fila, idx.get("categoria"), fmt);
-                    String monedaStr = getCellValue(fila, idx.get("moneda"), fmt);
-                    String medioPagoStr = getCellValue(fila, idx.get("mediopago"), fmt);
-                    String origenStr = getCellValue(fila, idx.get("origen"), fmt);
+                    String categoria = getCellValue(fila, idx.get("categoria"));
+                    String monedaStr = getCellValue(fila, idx.get("moneda"));
+                    String medioPagoStr = getCellValue(fila, idx.get("mediopago"));
+                    String origenStr = getCellValue(fila, idx.get("origen"));
 
                     TipoMoneda moneda = parseMoneda(monedaStr);
                     TipoMedioPago medioPago = parseMedioPago(medioPagoStr);
@@ -659,8 +699,6 @@ public class ExcelImportService {
                     } else {
                         preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(rawDesc, tipo));
                     }
-
-                    verificarDuplicado(preview, registros);
                     registros.add(preview);
 
                 } catch (Exception ex) {
@@ -672,6 +710,9 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "excel-libre");
     }
@@ -681,19 +722,18 @@ public class ExcelImportService {
         List<FilaConErrorDTO> errores = new ArrayList<>();
         int total = 0;
         
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
             
-            Row header = hoja.getRow(HEADER_ROW_INDEX);
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel header = avanzarHastaFila(filas, HEADER_ROW_INDEX);
             if (header == null) {
                 errores.add(new FilaConErrorDTO(0, "No existe la fila de encabezados en el índice " + HEADER_ROW_INDEX));
                 return new PreviewDataDTO(registros, total, 0, errores, "mercado-pago");
             }
             
             Map<String, Integer> idx = new HashMap<>();
-            for (int c = 0; c < header.getLastCellNum(); c++) {
-                String v = fmt.formatCellValue(header.getCell(c)).trim().toUpperCase(Locale.ROOT);
+            for (int c = 0; c < header.getUltimaColumna(); c++) {
+                String v = header.getTexto(c).trim().toUpperCase(Locale.ROOT);
                 if (v.equals("RELEASE_DATE")) idx.put("FECHA", c);
                 else if (v.equals("TRANSACTION_TYPE")) idx.put("TIPO", c);
                 else if (v.equals("TRANSACTION_NET_AMOUNT")) idx.put("MONTO", c);
@@ -705,14 +745,14 @@ public class ExcelImportService {
                 return new PreviewDataDTO(registros, total, 0, errores, "mercado-pago");
             }
             
-            for (int i = HEADER_ROW_INDEX + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
                 
                 try {
-                    String rawFecha = fmt.formatCellValue(fila.getCell(idx.get("FECHA"))).trim();
-                    String rawTipo = fmt.formatCellValue(fila.getCell(idx.get("TIPO"))).trim();
-                    String rawMonto = fmt.formatCellValue(fila.getCell(idx.get("MONTO"))).trim();
+                    String rawFecha = fila.getTexto(idx.get("FECHA")).trim();
+                    String rawTipo = fila.getTexto(idx.get("TIPO")).trim();
+                    String rawMonto = fila.getTexto(idx.get("MONTO")).trim();
                     
                     if (rawFecha.isEmpty() && rawTipo.isEmpty() && rawMonto.isEmpty()) continue;
                     
@@ -722,7 +762,7 @@ public class ExcelImportService {
                         throw new RuntimeException("Faltan datos obligatorios (RELEASE_DATE o TRANSACTION_NET_AMOUNT).");
                     }
                     
-                    LocalDate fechaLocal = parseFechaMercadoPago(fila.getCell(idx.get("FECHA")));
+                    LocalDate fechaLocal = parseFechaMercadoPago(fila.getCelda(idx.get("FECHA")));
                     Double montoValor = parseMontoEsAr(rawMonto);
                     TipoMovimiento tipoMov = determinarTipoMovimiento(montoValor);
                     
@@ -734,9 +774,6 @@ public class ExcelImportService {
                     // Sugerir categoría usando el tipo de registro para mejor precisión
                     preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(rawTipo, tipoMov));
                     
-                    // Verificar duplicados
-                    verificarDuplicado(preview, registros);
-                    
                     registros.add(preview);
                     
                 } catch (Exception ex) {
@@ -748,6 +785,9 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
         
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+        
         // Detectar duplicados en la base de datos
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         
@@ -759,26 +799,25 @@ public class ExcelImportService {
         List<FilaConErrorDTO> errores = new ArrayList<>();
         int total = 0;
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            int headerIdx = buscarFilaEncabezadosSantander(hoja, fmt);
-            if (headerIdx == -1) {
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel encabezado = buscarFilaEncabezadosSantander(filas);
+            if (encabezado == null) {
                 errores.add(new FilaConErrorDTO(0, "No se encontraron encabezados (Fecha, Descripción, Referencia, Caja de Ahorro)"));
                 return new PreviewDataDTO(registros, total, 0, errores, "santander");
             }
 
-            for (int i = headerIdx + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String fechaStr = fmt.formatCellValue(fila.getCell(1)).trim();
-                    String descripcion = fmt.formatCellValue(fila.getCell(3)).trim();
-                    String refStr = fmt.formatCellValue(fila.getCell(4)).trim();
-                    String cajaStr = fmt.formatCellValue(fila.getCell(5)).trim();
-                    String ctaCteStr = fmt.formatCellValue(fila.getCell(6)).trim();
+                    String fechaStr = fila.getTexto(1).trim();
+                    String descripcion = fila.getTexto(3).trim();
+                    String refStr = fila.getTexto(4).trim();
+                    String cajaStr = fila.getTexto(5).trim();
+                    String ctaCteStr = fila.getTexto(6).trim();
 
                     if (fechaStr.isEmpty() || descripcion.isEmpty()) {
                         continue;
@@ -805,7 +844,6 @@ public class ExcelImportService {
                     );
                     preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(descripcion, tipoMov));
                     preview.setMotivoDuplicado(refStr);
-                    verificarDuplicado(preview, registros);
                     registros.add(preview);
 
                 } catch (Exception ex) {
@@ -817,6 +855,9 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         if (!registrosConDuplicados.isEmpty()) {
             StringBuilder dbg = new StringBuilder();
@@ -831,23 +872,6 @@ public class ExcelImportService {
         return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "santander");
     }
     
-    private void verificarDuplicado(RegistroPreviewDTO nuevoRegistro, List<RegistroPreviewDTO> registrosExistentes) {
-        for (RegistroPreviewDTO existente : registrosExistentes) {
-            if (sonRegistrosIguales(nuevoRegistro, existente)) {
-                nuevoRegistro.setEsDuplicado(true);
-                nuevoRegistro.setMotivoDuplicado("Registro duplicado encontrado en fila " + existente.getFilaExcel());
-                break;
-            }
-        }
-    }
-    
-    private boolean sonRegistrosIguales(RegistroPreviewDTO reg1, RegistroPreviewDTO reg2) {
-        return Objects.equals(reg1.getFechaEmision(), reg2.getFechaEmision()) &&
-               Objects.equals(reg1.getMontoTotal(), reg2.getMontoTotal()) &&
-               Objects.equals(reg1.getDescripcion(), reg2.getDescripcion()) &&
-               Objects.equals(reg1.getOrigen(), reg2.getOrigen());
-    }
-    
     /**
      * Determina el tipo de registro basado en el monto
      * @param monto Monto del movimiento
@@ -936,15 +960,14 @@ public class ExcelImportService {
         return normalized;
     }
 
-    private String getCellValue(Row fila, Integer colIdx, DataFormatter fmt) {
+    private String getCellValue(FilaExcel fila, Integer colIdx) {
         if (fila == null || colIdx == null) return "";
-        Cell cell = fila.getCell(colIdx);
-        return cell == null ? "" : fmt.formatCellValue(cell).trim();
+        return fila.getTexto(colIdx).trim();
     }
 
-    private LocalDate parseFechaGenerica(Cell cell, String raw, String formato) {
-        if (cell != null && cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
-            return cell.getLocalDateTimeCellValue().toLocalDate();
+    private LocalDate parseFechaGenerica(CeldaExcel cell, String raw, String formato) {
+        if (cell != null && cell.esFecha()) {
+            return cell.getFecha().toLocalDate();
         }
         if (raw == null || raw.isBlank()) {
             throw new RuntimeException("Fecha vacia.");
@@ -1036,28 +1059,28 @@ public class ExcelImportService {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            int headerIdx = buscarFilaEncabezadosGalicia(hoja, fmt);
-            if (headerIdx == -1) {
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel encabezado = buscarFilaEncabezadosGalicia(filas);
+            if (encabezado == null) {
                 errores.add(new FilaConErrorDTO(0, "No se encontraron encabezados (Fecha, Movimiento, Debito/Credito)"));
                 return new ResumenCargaDTO(total, correctos, errores);
             }
 
-            Map<String, Integer> idx = mapearColumnasGalicia(hoja.getRow(headerIdx), fmt);
+            Map<String, Integer> idx = mapearColumnasGalicia(encabezado);
 
-            for (int i = headerIdx + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String rawFecha = fmt.formatCellValue(fila.getCell(idx.get("FECHA"))).trim();
-                    String rawMov = fmt.formatCellValue(fila.getCell(idx.get("MOVIMIENTO"))).trim();
-                    String rawDeb = fmt.formatCellValue(fila.getCell(idx.get("DEBITO"))).trim();
-                    String rawCred = fmt.formatCellValue(fila.getCell(idx.get("CREDITO"))).trim();
+                    String rawFecha = fila.getTexto(idx.get("FECHA")).trim();
+                    String rawMov = fila.getTexto(idx.get("MOVIMIENTO")).trim();
+                    String rawDeb = fila.getTexto(idx.get("DEBITO")).trim();
+                    String rawCred = fila.getTexto(idx.get("CREDITO")).trim();
 
                     if (rawFecha.isEmpty() && rawMov.isEmpty() && rawDeb.isEmpty() && rawCred.isEmpty()) {
                         continue;
@@ -1068,7 +1091,7 @@ public class ExcelImportService {
                         throw new RuntimeException("Falta la fecha.");
                     }
 
-                    LocalDate fechaLocal = parseFechaGalicia(fila.getCell(idx.get("FECHA")));
+                    LocalDate fechaLocal = parseFechaGalicia(fila.getCelda(idx.get("FECHA")));
                     double debitoVal = parseMontoGalicia(rawDeb);
                     double creditoVal = parseMontoGalicia(rawCred);
 
@@ -1091,9 +1114,8 @@ public class ExcelImportService {
 
                     normalizarMontoMovimiento(mov);
 
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(i + 1, mov));
+                    correctos += guardarSiLoteCompleto(pendientes, organizacionId, usuarioSub, errores, true);
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
@@ -1104,33 +1126,34 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        correctos += guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
         return new ResumenCargaDTO(total, correctos, errores);
     }
     private ResumenCargaDTO procesarNacion(MultipartFile file, String usuarioSub, Long organizacionId) {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            int headerIdx = buscarFilaEncabezadosNacion(hoja, fmt);
-            if (headerIdx == -1) {
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel encabezado = buscarFilaEncabezadosNacion(filas);
+            if (encabezado == null) {
                 errores.add(new FilaConErrorDTO(0, "No se encontraron encabezados (Fecha, Descripcion, Debito/Credito)"));
                 return new ResumenCargaDTO(total, correctos, errores);
             }
 
-            for (int i = headerIdx + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String fechaStr = fmt.formatCellValue(fila.getCell(0)).trim();
-                    String horaStr = fmt.formatCellValue(fila.getCell(1)).trim();
-                    String descripcion = fmt.formatCellValue(fila.getCell(2)).trim();
-                    String debStr = fmt.formatCellValue(fila.getCell(5)).trim();
-                    String credStr = fmt.formatCellValue(fila.getCell(6)).trim();
+                    String fechaStr = fila.getTexto(0).trim();
+                    String horaStr = fila.getTexto(1).trim();
+                    String descripcion = fila.getTexto(2).trim();
+                    String debStr = fila.getTexto(5).trim();
+                    String credStr = fila.getTexto(6).trim();
 
                     if (fechaStr.isEmpty() || descripcion.isEmpty()) {
                         continue;
@@ -1158,9 +1181,8 @@ public class ExcelImportService {
                     enriquecerConContexto(mov, usuarioSub, organizacionId);
 
                     normalizarMontoMovimiento(mov);
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(i + 1, mov));
+                    correctos += guardarSiLoteCompleto(pendientes, organizacionId, usuarioSub, errores, true);
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(i + 1, ex.getMessage()));
@@ -1171,6 +1193,7 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        correctos += guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
         return new ResumenCargaDTO(total, correctos, errores);
     }
 
@@ -1179,27 +1202,26 @@ public class ExcelImportService {
         List<FilaConErrorDTO> errores = new ArrayList<>();
         int total = 0;
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            int headerIdx = buscarFilaEncabezadosGalicia(hoja, fmt);
-            if (headerIdx == -1) {
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel encabezado = buscarFilaEncabezadosGalicia(filas);
+            if (encabezado == null) {
                 errores.add(new FilaConErrorDTO(0, "No se encontraron encabezados (Fecha, Movimiento, Debito/Credito)"));
                 return new PreviewDataDTO(registros, total, 0, errores, "galicia");
             }
 
-            Map<String, Integer> idx = mapearColumnasGalicia(hoja.getRow(headerIdx), fmt);
+            Map<String, Integer> idx = mapearColumnasGalicia(encabezado);
 
-            for (int i = headerIdx + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String rawFecha = fmt.formatCellValue(fila.getCell(idx.get("FECHA"))).trim();
-                    String rawMov = fmt.formatCellValue(fila.getCell(idx.get("MOVIMIENTO"))).trim();
-                    String rawDeb = fmt.formatCellValue(fila.getCell(idx.get("DEBITO"))).trim();
-                    String rawCred = fmt.formatCellValue(fila.getCell(idx.get("CREDITO"))).trim();
+                    String rawFecha = fila.getTexto(idx.get("FECHA")).trim();
+                    String rawMov = fila.getTexto(idx.get("MOVIMIENTO")).trim();
+                    String rawDeb = fila.getTexto(idx.get("DEBITO")).trim();
+                    String rawCred = fila.getTexto(idx.get("CREDITO")).trim();
 
                     if (rawFecha.isEmpty() && rawMov.isEmpty() && rawDeb.isEmpty() && rawCred.isEmpty()) {
                         continue;
@@ -1210,7 +1232,7 @@ public class ExcelImportService {
                         throw new RuntimeException("Falta la fecha.");
                     }
 
-                    LocalDate fechaLocal = parseFechaGalicia(fila.getCell(idx.get("FECHA")));
+                    LocalDate fechaLocal = parseFechaGalicia(fila.getCelda(idx.get("FECHA")));
                     double debitoVal = parseMontoGalicia(rawDeb);
                     double creditoVal = parseMontoGalicia(rawCred);
 
@@ -1233,7 +1255,6 @@ public class ExcelImportService {
                     );
 
                     preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(rawMov, tipoMov));
-                    verificarDuplicado(preview, registros);
                     registros.add(preview);
 
                 } catch (Exception ex) {
@@ -1245,27 +1266,33 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "galicia");
     }
 
-    private int buscarFilaEncabezadosGalicia(Sheet hoja, DataFormatter fmt) {
-        for (int r = 0; r <= hoja.getLastRowNum(); r++) {
-            Row fila = hoja.getRow(r);
-            if (fila == null) continue;
-            Map<String, Integer> idx = mapearColumnasGalicia(fila, fmt);
+    /**
+     * Avanza {@code filas} hasta la fila de encabezados y la devuelve (null si no existe).
+     * Las filas de datos se siguen leyendo del mismo iterador.
+     */
+    private FilaExcel buscarFilaEncabezadosGalicia(Iterator<FilaExcel> filas) {
+        while (filas.hasNext()) {
+            FilaExcel fila = filas.next();
+            Map<String, Integer> idx = mapearColumnasGalicia(fila);
             if (idx.containsKey("FECHA") && idx.containsKey("MOVIMIENTO")
                     && (idx.containsKey("DEBITO") || idx.containsKey("CREDITO"))) {
-                return r;
+                return fila;
             }
         }
-        return -1;
+        return null;
     }
 
-    private Map<String, Integer> mapearColumnasGalicia(Row header, DataFormatter fmt) {
+    private Map<String, Integer> mapearColumnasGalicia(FilaExcel header) {
         Map<String, Integer> idx = new HashMap<>();
-        for (int c = 0; c < header.getLastCellNum(); c++) {
-            String raw = fmt.formatCellValue(header.getCell(c)).trim();
+        for (int c = 0; c < header.getUltimaColumna(); c++) {
+            String raw = header.getTexto(c).trim();
             if (raw.isEmpty()) continue;
             String normalized = Normalizer.normalize(raw, Normalizer.Form.NFD)
                     .replaceAll("\\p{M}", "")
@@ -1279,12 +1306,12 @@ public class ExcelImportService {
         return idx;
     }
 
-    private LocalDate parseFechaGalicia(Cell cFecha) {
+    private LocalDate parseFechaGalicia(CeldaExcel cFecha) {
         if (cFecha == null) throw new RuntimeException("Fecha vacia.");
-        if (cFecha.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cFecha)) {
-            return cFecha.getLocalDateTimeCellValue().toLocalDate();
+        if (cFecha.esFecha()) {
+            return cFecha.getFecha().toLocalDate();
         }
-        String raw = new DataFormatter().formatCellValue(cFecha).trim();
+        String raw = cFecha.getTexto().trim();
         DateTimeFormatter f1 = DateTimeFormatter.ofPattern("dd/MM/uuuu");
         DateTimeFormatter f2 = DateTimeFormatter.ofPattern("dd-MM-uuuu");
         try { return LocalDate.parse(raw, f1); } catch (Exception ignore) {}
@@ -1365,25 +1392,23 @@ public class ExcelImportService {
         throw new RuntimeException("Fecha invalida: " + rawFecha);
     }
 
-    private int buscarFilaEncabezadosNacion(Sheet hoja, DataFormatter fmt) {
-        for (int r = 0; r <= hoja.getLastRowNum(); r++) {
-            Row fila = hoja.getRow(r);
-            if (fila == null) continue;
-            String c0 = fmt.formatCellValue(fila.getCell(0)).trim().toLowerCase(Locale.ROOT);
-            String c2 = fmt.formatCellValue(fila.getCell(2)).trim().toLowerCase(Locale.ROOT);
+    private FilaExcel buscarFilaEncabezadosNacion(Iterator<FilaExcel> filas) {
+        while (filas.hasNext()) {
+            FilaExcel fila = filas.next();
+            String c0 = fila.getTexto(0).trim().toLowerCase(Locale.ROOT);
+            String c2 = fila.getTexto(2).trim().toLowerCase(Locale.ROOT);
             if (c0.contains("fecha") && c2.contains("descripcion")) {
-                return r;
+                return fila;
             }
         }
-        return -1;
+        return null;
     }
-    private int buscarFilaEncabezadosSantander(Sheet hoja, DataFormatter fmt) {
-        for (int r = 0; r <= hoja.getLastRowNum(); r++) {
-            Row fila = hoja.getRow(r);
-            if (fila == null) continue;
+    private FilaExcel buscarFilaEncabezadosSantander(Iterator<FilaExcel> filas) {
+        while (filas.hasNext()) {
+            FilaExcel fila = filas.next();
             List<String> valores = new ArrayList<>();
-            for (int c = 0; c < fila.getLastCellNum(); c++) {
-                String v = normalizeTexto(fmt.formatCellValue(fila.getCell(c))).toLowerCase(Locale.ROOT);
+            for (int c = 0; c < fila.getUltimaColumna(); c++) {
+                String v = normalizeTexto(fila.getTexto(c)).toLowerCase(Locale.ROOT);
                 if (!v.isEmpty()) valores.add(v);
             }
             if (valores.isEmpty()) continue;
@@ -1391,10 +1416,10 @@ public class ExcelImportService {
             boolean tieneDesc = valores.stream().anyMatch(v -> v.contains("descripcion"));
             boolean tieneCaja = valores.stream().anyMatch(v -> v.contains("caja de ahorro"));
             if (tieneFecha && tieneDesc && tieneCaja) {
-                return r;
+                return fila;
             }
         }
-        return -1;
+        return null;
     }
 
     private LocalDateTime buildFechaHora(String fechaStr, String horaStr) {
@@ -1448,6 +1473,7 @@ public class ExcelImportService {
         int total = 0;
         int correctos = 0;
         List<FilaConErrorDTO> errores = new ArrayList<>();
+        List<FilaPendiente> pendientes = new ArrayList<>();
 
         try (InputStream is = file.getInputStream()) {
             List<UalaMovimiento> movimientos = extraerMovimientosUala(is);
@@ -1468,9 +1494,7 @@ public class ExcelImportService {
                     enriquecerConContexto(mov, usuarioSub, organizacionId);
 
                     normalizarMontoMovimiento(mov);
-                    movimientoRepo.save(mov);
-                    correctos++;
-                    notifications.publishMovement(mov, usuarioSub, 1L);
+                    pendientes.add(new FilaPendiente(movPdf.lineaOriginal(), mov));
 
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(movPdf.lineaOriginal(), ex.getMessage()));
@@ -1480,6 +1504,7 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo PDF: " + e.getMessage()));
         }
 
+        correctos = guardarPendientes(pendientes, organizacionId, usuarioSub, errores, true);
         return new ResumenCargaDTO(total, correctos, errores);
     }
 
@@ -1516,7 +1541,6 @@ public class ExcelImportService {
                             TipoMoneda.ARS
                     );
                     preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(movPdf.descripcion(), tipoMov));
-                    verificarDuplicado(preview, registros);
                     registros.add(preview);
                 } catch (Exception ex) {
                     errores.add(new FilaConErrorDTO(movPdf.lineaOriginal(), ex.getMessage()));
@@ -1526,6 +1550,9 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo PDF: " + e.getMessage()));
         }
 
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "uala");
     }
@@ -1534,26 +1561,25 @@ public class ExcelImportService {
         List<FilaConErrorDTO> errores = new ArrayList<>();
         int total = 0;
 
-        try (InputStream is = file.getInputStream(); Workbook workbook = WorkbookFactory.create(is)) {
-            Sheet hoja = workbook.getSheetAt(0);
-            DataFormatter fmt = new DataFormatter();
+        try (InputStream is = file.getInputStream(); FuenteFilas fuente = FuenteFilas.abrir(is)) {
 
-            int headerIdx = buscarFilaEncabezadosNacion(hoja, fmt);
-            if (headerIdx == -1) {
+            Iterator<FilaExcel> filas = fuente.iterator();
+            FilaExcel encabezado = buscarFilaEncabezadosNacion(filas);
+            if (encabezado == null) {
                 errores.add(new FilaConErrorDTO(0, "No se encontraron encabezados (Fecha, Descripcion, Debito/Credito)"));
                 return new PreviewDataDTO(registros, total, 0, errores, "nacion");
             }
 
-            for (int i = headerIdx + 1; i <= hoja.getLastRowNum(); i++) {
-                Row fila = hoja.getRow(i);
-                if (fila == null) continue;
+            while (filas.hasNext()) {
+                FilaExcel fila = filas.next();
+                int i = fila.getIndice();
 
                 try {
-                    String fechaStr = fmt.formatCellValue(fila.getCell(0)).trim();
-                    String horaStr = fmt.formatCellValue(fila.getCell(1)).trim();
-                    String descripcion = fmt.formatCellValue(fila.getCell(2)).trim();
-                    String debStr = fmt.formatCellValue(fila.getCell(5)).trim();
-                    String credStr = fmt.formatCellValue(fila.getCell(6)).trim();
+                    String fechaStr = fila.getTexto(0).trim();
+                    String horaStr = fila.getTexto(1).trim();
+                    String descripcion = fila.getTexto(2).trim();
+                    String debStr = fila.getTexto(5).trim();
+                    String credStr = fila.getTexto(6).trim();
 
                     if (fechaStr.isEmpty() || descripcion.isEmpty()) {
                         continue;
@@ -1582,7 +1608,6 @@ public class ExcelImportService {
                             TipoMoneda.ARS
                     );
                     preview.setCategoriaSugerida(categorySuggestionService.sugerirCategoria(descripcion, tipoMov));
-                    verificarDuplicado(preview, registros);
                     registros.add(preview);
 
                 } catch (Exception ex) {
@@ -1594,6 +1619,9 @@ public class ExcelImportService {
             errores.add(new FilaConErrorDTO(0, "Error al leer el archivo: " + e.getMessage()));
         }
 
+        // Duplicados dentro del mismo archivo
+        duplicateDetectionService.marcarDuplicadosEnArchivo(registros);
+
         List<RegistroPreviewDTO> registrosConDuplicados = duplicateDetectionService.detectarDuplicadosEnBD(registros, organizacionId);
         return new PreviewDataDTO(registrosConDuplicados, total, registrosConDuplicados.size(), errores, "nacion");
     }
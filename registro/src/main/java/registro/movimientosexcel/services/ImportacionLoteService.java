@@ -0,0 +1,126 @@
+package registro.movimientosexcel.services;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+import registro.cargarDatos.services.PresupuestoCacheService;
+import registro.cargarDatos.services.SaldoMensualService;
+import registro.movimientosexcel.dtos.FilaConErrorDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Persistencia por lotes de los movimientos importados desde archivos.
+ * Cada lote se guarda en su propia transacción con JDBC batching; si un lote falla
+ * se reintenta fila por fila para que una fila inválida no descarte el archivo entero.
+ * Lo que depende de los movimientos guardados (cierres de saldo, eventos del outbox)
+ * se escribe en esa misma transacción, así se confirma o se revierte junto con ellos.
+ */
+@Service
+public class ImportacionLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionLoteService.class);
+
+    private final MovimientoRepository movimientoRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PresupuestoCacheService presupuestoCacheService;
+    private final SaldoMensualService saldoMensualService;
+    private final int tamanioLote;
+
+    public ImportacionLoteService(
+            MovimientoRepository movimientoRepo,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            PresupuestoCacheService presupuestoCacheService,
+            SaldoMensualService saldoMensualService,
+            @Value("${mycfo.import.batch-size:500}") int tamanioLote) {
+        this.movimientoRepo = movimientoRepo;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.presupuestoCacheService = presupuestoCacheService;
+        this.saldoMensualService = saldoMensualService;
+        this.tamanioLote = Math.max(1, tamanioLote);
+    }
+
+    public int getTamanioLote() {
+        return tamanioLote;
+    }
+
+    /** Movimiento validado pendiente de guardar, con la fila del archivo de la que salió. */
+    public record FilaPendiente(int fila, Movimiento movimiento) {}
+
+    /** Resultado de la escritura: movimientos guardados (con id) y filas que fallaron. */
+    public record ResultadoLote(List<Movimiento> guardados, List<FilaConErrorDTO> errores) {}
+
+    /**
+     * @param alGuardar se llama con los movimientos guardados dentro de la transacción de cada
+     *                  lote (o de cada fila al reintentar); p. ej. para encolar sus eventos
+     */
+    public ResultadoLote guardarEnLotes(List<FilaPendiente> pendientes, Long organizacionId,
+                                        Consumer<List<Movimiento>> alGuardar) {
+        List<Movimiento> guardados = new ArrayList<>(pendientes.size());
+        List<FilaConErrorDTO> errores = new ArrayList<>();
+
+        for (int desde = 0; desde < pendientes.size(); desde += tamanioLote) {
+            List<FilaPendiente> lote = pendientes.subList(desde, Math.min(desde + tamanioLote, pendientes.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> persistirLote(lote, alGuardar));
+                lote.forEach(p -> guardados.add(p.movimiento()));
+            } catch (Exception e) {
+                log.warn("Falló el lote de filas {}-{} ({}); reintentando fila por fila",
+                        lote.get(0).fila(), lote.get(lote.size() - 1).fila(), e.getMessage());
+                guardarFilaPorFila(lote, alGuardar, guardados, errores);
+            }
+        }
+
+        if (!guardados.isEmpty()) {
+            presupuestoCacheService.evictarOrganizacion(organizacionId);
+        }
+
+        log.info("Importación por lotes: {} guardados, {} con error (lote={})",
+                guardados.size(), errores.size(), tamanioLote);
+        return new ResultadoLote(guardados, errores);
+    }
+
+    private void persistirLote(List<FilaPendiente> lote, Consumer<List<Movimiento>> alGuardar) {
+        List<Movimiento> movimientos = new ArrayList<>(lote.size());
+        for (FilaPendiente pendiente : lote) {
+            movimientos.add(movimientoRepo.save(pendiente.movimiento()));
+        }
+        // Cierres de saldo del lote agrupados por mes, en la misma transacción
+        saldoMensualService.registrarAltas(movimientos);
+        alGuardar.accept(movimientos);
+        // Un flush por lote: Hibernate agrupa los INSERT según hibernate.jdbc.batch_size
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void guardarFilaPorFila(List<FilaPendiente> lote, Consumer<List<Movimiento>> alGuardar,
+                                    List<Movimiento> guardados, List<FilaConErrorDTO> errores) {
+        for (FilaPendiente pendiente : lote) {
+            Movimiento movimiento = pendiente.movimiento();
+            // El lote revertido pudo dejar ids asignados que no existen en la base
+            movimiento.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    movimientoRepo.saveAndFlush(movimiento);
+                    saldoMensualService.registrarAlta(movimiento);
+                    alGuardar.accept(List.of(movimiento));
+                });
+                guardados.add(movimiento);
+            } catch (Exception e) {
+                movimiento.setId(null);
+                errores.add(new FilaConErrorDTO(pendiente.fila(), e.getMessage()));
+            }
+        }
+    }
+}
@@ -1,31 +1,27 @@
 package registro.movimientosexcel.services;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.services.EventoOutboxService;
 import registro.movimientosexcel.dtos.MovementEventPayload;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Eventos de importación y de cuentas para notificacion. Se encolan en el outbox
+ * (EventoOutboxService) y los envía DespachadorEventosOutbox en segundo plano.
+ */
 @Service
 public class NotificationsEventPublisher {
 
-    private static final Logger log = LoggerFactory.getLogger(NotificationsEventPublisher.class);
+    private final EventoOutboxService outbox;
 
-    private final RestTemplate rest;
-    private final String baseUrl; // ej.: http://localhost:8084
-
-    public NotificationsEventPublisher(
-            RestTemplate rest,
-            @Value("${notificacion.service.url}") String baseUrl) {
-        this.rest = rest;
-        this.baseUrl = baseUrl.replaceAll("/+$", ""); // sin slash final
+    public NotificationsEventPublisher(EventoOutboxService outbox) {
+        this.outbox = outbox;
     }
 
     /**
@@ -34,12 +30,23 @@ public class NotificationsEventPublisher {
      * @param fallbackUserId Id de usuario en caso de que el registro no tenga asociado un usuario explícito.
      */
     public void publishMovement(Movimiento movimiento, String usuarioSub, Long fallbackUserId) {
+        outbox.encolar(EventoOutboxService.RUTA_MOVIMIENTOS, toPayload(movimiento, usuarioSub, fallbackUserId));
+    }
+
+    /** Igual que publishMovement para todos los movimientos de un lote, en una sola transacción. */
+    public void publishMovements(List<Movimiento> movimientos, String usuarioSub, Long fallbackUserId) {
+        outbox.encolarTodos(EventoOutboxService.RUTA_MOVIMIENTOS, movimientos.stream()
+                .map(movimiento -> toPayload(movimiento, usuarioSub, fallbackUserId))
+                .toList());
+    }
+
+    private MovementEventPayload toPayload(Movimiento movimiento, String usuarioSub, Long fallbackUserId) {
         // Si no hay un identificador de referencia, usamos su ID de base de datos
         String refId = (movimiento.getCategoria() != null && !movimiento.getCategoria().isEmpty())
                 ? movimiento.getCategoria()
                 : String.valueOf(movimiento.getId());
 
-        MovementEventPayload payload = new MovementEventPayload(
+        return new MovementEventPayload(
                 usuarioSub != null ? usuarioSub : (fallbackUserId != null ? String.valueOf(fallbackUserId) : null),
                 refId,
                 toInstant(movimiento),                    // LocalDate → Instant
@@ -47,9 +54,6 @@ public class NotificationsEventPublisher {
                 movimiento.getDescripcion(),              // descripción libre del registro
                 movimiento.getMoneda() != null ? movimiento.getMoneda().name() : "ARS"
         );
-
-        String url = baseUrl + "/api/events/movements";
-        postWithFallback(url, payload);
     }
 
     public void publishImport(String importId,
@@ -67,8 +71,7 @@ public class NotificationsEventPublisher {
         payload.put("fileName", fileName);
         payload.put("importedAt", Instant.now());
 
-        String url = baseUrl + "/api/events/movements/imported";
-        postWithFallback(url, payload);
+        outbox.encolar(EventoOutboxService.RUTA_IMPORTACION, payload);
     }
 
     public void publishDuplicate(String usuarioSub,
@@ -85,8 +88,7 @@ public class NotificationsEventPublisher {
         payload.put("occurredAt", occurredAt != null ? occurredAt : Instant.now());
         payload.put("duplicateOfRef", duplicateOfRef);
 
-        String url = baseUrl + "/api/events/movements/duplicate";
-        postWithFallback(url, payload);
+        outbox.encolar(EventoOutboxService.RUTA_DUPLICADO, payload);
     }
 
     public void publishMpLinked(String usuarioSub, Long accountId, String accountName) {
@@ -95,8 +97,7 @@ public class NotificationsEventPublisher {
         payload.put("accountId", accountId);
         payload.put("accountName", accountName);
 
-        String url = baseUrl + "/api/events/accounts/mp-linked";
-        postWithFallback(url, payload);
+        outbox.encolar(EventoOutboxService.RUTA_MP_VINCULADA, payload);
     }
 
     private Instant toInstant(Movimiento movimiento) {
@@ -107,22 +108,4 @@ public class NotificationsEventPublisher {
                 .atZone(ZoneId.systemDefault())
                 .toInstant();
     }
-
-    private void postWithFallback(String url, Object payload) {
-        try {
-            rest.postForEntity(url, payload, Void.class);
-        } catch (Exception e) {
-            if (e.getCause() instanceof java.net.UnknownHostException) {
-                String fallback = "http://localhost:8084" + url.substring(url.indexOf("/api/"));
-                log.warn("Host no resuelve, probando fallback {}", fallback);
-                try {
-                    rest.postForEntity(fallback, payload, Void.class);
-                    return;
-                } catch (Exception ex2) {
-                    log.warn("Fallback también falló: {}", ex2.getMessage());
-                }
-            }
-            log.warn("No se pudo publicar a Notificaciones [{}]: {}", url, e.getMessage());
-        }
-    }
 }
@@ -0,0 +1,64 @@
+package registro.movimientosexcel.services;
+
+import registro.cargarDatos.models.HuellaMovimiento;
+import registro.cargarDatos.models.Movimiento;
+import registro.movimientosexcel.dtos.RegistroPreviewDTO;
+
+import java.time.LocalDate;
+
+/**
+ * Clave de duplicado de un movimiento: fecha (día), monto, descripción y origen, normalizados
+ * como en {@link HuellaMovimiento} (monto a centavos; textos sin acentos, en minúsculas y con
+ * los espacios colapsados). Dos registros son iguales dentro del archivo exactamente cuando
+ * tienen la misma huella en la base.
+ */
+final class RegistroKey {
+    private final LocalDate fechaEmision;
+    private final Double montoTotal;
+    private final String descripcion;
+    private final String origen;
+    private final String clave;
+
+    RegistroKey(LocalDate fechaEmision, Double montoTotal, String descripcion, String origen) {
+        this.fechaEmision = fechaEmision;
+        this.montoTotal = montoTotal;
+        this.descripcion = descripcion;
+        this.origen = origen;
+        this.clave = HuellaMovimiento.clave(fechaEmision, montoTotal, descripcion, origen);
+    }
+
+    static RegistroKey de(RegistroPreviewDTO movimiento) {
+        return new RegistroKey(
+            movimiento.getFechaEmision(),
+            movimiento.getMontoTotal(),
+            movimiento.getDescripcion(),
+            movimiento.getOrigen()
+        );
+    }
+
+    static RegistroKey de(Movimiento movimiento) {
+        return new RegistroKey(
+            movimiento.getFechaEmision() != null ? movimiento.getFechaEmision().toLocalDate() : null,
+            movimiento.getMontoTotal(),
+            movimiento.getDescripcion(),
+            movimiento.getOrigenNombre()
+        );
+    }
+
+    /** Huella persistida en registro.huella_duplicado para esta clave dentro de la empresa. */
+    String huella(Long organizacionId) {
+        return HuellaMovimiento.calcular(organizacionId, fechaEmision, montoTotal, descripcion, origen);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return clave.equals(((RegistroKey) o).clave);
+    }
+
+    @Override
+    public int hashCode() {
+        return clave.hashCode();
+    }
+}
@@ -1,53 +1,74 @@
 package registro.services;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import clientehttp.EmpresaPorUsuarioCache;
+import clientehttp.EmpresaPorUsuarioCache.Resolucion;
+
+import java.time.Duration;
 
 /**
  * Servicio para comunicarse con el microservicio de Administración
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AdministracionService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final EmpresaPorUsuarioCache empresaPorUsuarioCache;
 
     @Value("${mycfo.administracion.url}")
     private String administracionUrl;
 
+    public AdministracionService(RestTemplateBuilder restTemplateBuilder,
+                                 EmpresaPorUsuarioCache empresaPorUsuarioCache,
+                                 @Value("${mycfo.administracion.timeout:3s}") Duration timeout) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(timeout)
+                .readTimeout(timeout)
+                .build();
+        this.empresaPorUsuarioCache = empresaPorUsuarioCache;
+    }
+
     /**
-     * Obtiene el ID de empresa de un usuario por su sub (Cognito)
+     * Obtiene el ID de empresa de un usuario por su sub (Cognito).
+     * La respuesta se cachea (ver {@link EmpresaPorUsuarioCache}).
      * @param usuarioSub Sub del usuario de Cognito
      * @return ID de la empresa del usuario
      * @throws RuntimeException si el usuario no existe o no tiene empresa asociada
      */
     public Long obtenerEmpresaIdPorUsuarioSub(String usuarioSub) {
+        Resolucion resolucion = empresaPorUsuarioCache.obtener(usuarioSub, this::consultarEmpresa);
+        if (!resolucion.tieneEmpresa()) {
+            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+        }
+        return resolucion.empresaId();
+    }
+
+    private Resolucion consultarEmpresa(String usuarioSub) {
         try {
             String url = administracionUrl + "/api/empresas/usuario/" + usuarioSub + "/id";
-            log.info("Llamando a administración para obtener empresa del usuario: {}", usuarioSub);
-            log.debug("URL: {}", url);
-            
+            log.debug("Llamando a administración para obtener empresa del usuario {}: {}", usuarioSub, url);
+
             Long empresaId = restTemplate.getForObject(url, Long.class);
-            
             if (empresaId == null) {
-                throw new RuntimeException("El usuario no tiene empresa asociada");
+                log.warn("Usuario sin empresa asociada: {}", usuarioSub);
+                return Resolucion.SIN_EMPRESA;
             }
-            
-            log.info("Empresa ID obtenida: {} para usuario: {}", empresaId, usuarioSub);
-            return empresaId;
-            
+
+            log.debug("Empresa ID obtenida: {} para usuario: {}", empresaId, usuarioSub);
+            return new Resolucion(empresaId);
+
         } catch (HttpClientErrorException.NotFound e) {
-            log.error("Usuario no encontrado o sin empresa: {}", usuarioSub);
-            throw new RuntimeException("Usuario no encontrado o sin empresa asociada: " + usuarioSub);
+            log.warn("Usuario no encontrado o sin empresa: {}", usuarioSub);
+            return Resolucion.SIN_EMPRESA;
         } catch (Exception e) {
             log.error("Error al obtener empresa del usuario {}: {}", usuarioSub, e.getMessage());
             throw new RuntimeException("Error al comunicarse con el servicio de administración", e);
         }
     }
 }
-
@@ -0,0 +1,58 @@
+-- V1__add_indexes_to_registro.sql
+
+-- Índices compuestos de la tabla registro (entidad Movimiento). Los mismos se declaran en
+-- @Table(indexes) para que ddl-auto los cree en bases nuevas; acá se agregan a las existentes.
+-- Cada paso es condicional: si la tabla todavía no existe (base vacía, Flyway corre antes que
+-- Hibernate) o el índice ya está, no hace nada.
+
+-- Dashboard (series mensuales, resumen de conciliación), listados y lectura por cursor:
+-- rango por empresa + fecha; tipo, moneda, monto e id_documento cubren las agregaciones
+SET @create_idx_sql := (
+    SELECT IF(
+        (SELECT COUNT(*) FROM information_schema.tables
+          WHERE table_schema = DATABASE() AND table_name = 'registro') = 1
+        AND (SELECT COUNT(*) FROM information_schema.statistics
+          WHERE table_schema = DATABASE() AND table_name = 'registro'
+            AND index_name = 'idx_registro_org_fecha') = 0,
+        'CREATE INDEX idx_registro_org_fecha ON registro (organizacion_id, fecha_emision, tipo, moneda, monto_total, id_documento)',
+        'SELECT 1'
+    )
+);
+
+PREPARE stmt FROM @create_idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Montos por categoría y presupuesto: empresa + tipo + rango de fechas, cubriendo categoría y monto
+SET @create_idx_sql := (
+    SELECT IF(
+        (SELECT COUNT(*) FROM information_schema.tables
+          WHERE table_schema = DATABASE() AND table_name = 'registro') = 1
+        AND (SELECT COUNT(*) FROM information_schema.statistics
+          WHERE table_schema = DATABASE() AND table_name = 'registro'
+            AND index_name = 'idx_registro_org_tipo_fecha') = 0,
+        'CREATE INDEX idx_registro_org_tipo_fecha ON registro (organizacion_id, tipo, fecha_emision, moneda, categoria, monto_total)',
+        'SELECT 1'
+    )
+);
+
+PREPARE stmt FROM @create_idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Conciliación: movimientos pendientes / conciliados de la empresa (id_documento IS [NOT] NULL)
+SET @create_idx_sql := (
+    SELECT IF(
+        (SELECT COUNT(*) FROM information_schema.tables
+          WHERE table_schema = DATABASE() AND table_name = 'registro') = 1
+        AND (SELECT COUNT(*) FROM information_schema.statistics
+          WHERE table_schema = DATABASE() AND table_name = 'registro'
+            AND index_name = 'idx_registro_org_documento') = 0,
+        'CREATE INDEX idx_registro_org_documento ON registro (organizacion_id, id_documento, moneda, fecha_emision)',
+        'SELECT 1'
+    )
+);
+
+PREPARE stmt FROM @create_idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
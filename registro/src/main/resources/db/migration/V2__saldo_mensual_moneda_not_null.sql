@@ -0,0 +1,33 @@
+-- V2__saldo_mensual_moneda_not_null.sql
+
+-- saldo_mensual.moneda pasa a texto NOT NULL ('' para los movimientos sin moneda): con NULL la
+-- clave única (organizacion_id, moneda, periodo) dejaba pasar filas repetidas. Las filas con
+-- moneda NULL se borran; al arrancar, SaldoMensualService ve que los totales no coinciden con
+-- registro y reconstruye esas organizaciones. Si la tabla todavía no existe, no hace nada:
+-- ddl-auto la crea ya con la columna nueva.
+
+SET @saldo_sql := (
+    SELECT IF(
+        (SELECT COUNT(*) FROM information_schema.tables
+          WHERE table_schema = DATABASE() AND table_name = 'saldo_mensual') = 1,
+        'DELETE FROM saldo_mensual WHERE moneda IS NULL',
+        'SELECT 1'
+    )
+);
+
+PREPARE stmt FROM @saldo_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @saldo_sql := (
+    SELECT IF(
+        (SELECT COUNT(*) FROM information_schema.tables
+          WHERE table_schema = DATABASE() AND table_name = 'saldo_mensual') = 1,
+        'ALTER TABLE saldo_mensual MODIFY moneda VARCHAR(3) NOT NULL',
+        'SELECT 1'
+    )
+);
+
+PREPARE stmt FROM @saldo_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
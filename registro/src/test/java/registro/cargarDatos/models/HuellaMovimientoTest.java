@@ -0,0 +1,65 @@
+package registro.cargarDatos.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Normalización de la huella de duplicados: lo que una persona vería como el mismo movimiento
+ * tiene que dar la misma huella, y cualquier diferencia real una distinta.
+ */
+class HuellaMovimientoTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 14);
+
+    @Test
+    void ignoraAcentosMayusculasYEspacios() {
+        String base = HuellaMovimiento.calcular(1L, DIA, 1500.0, "Pago café Martínez", "Banco Nación");
+
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 1500.0, "PAGO CAFE MARTINEZ", "banco nacion")).isEqualTo(base);
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 1500.0, "  Pago   café\tMartínez ", "Banco  Nación")).isEqualTo(base);
+        // Acento combinado (e + U+0301) en lugar del carácter precompuesto
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 1500.0, "Pago cafe\u0301 Marti\u0301nez", "Banco Nacio\u0301n"))
+                .isEqualTo(base);
+    }
+
+    @Test
+    void tomaElEspacioDuroComoEspacio() {
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 10.0, "Transferencia\u00A0recibida", null))
+                .isEqualTo(HuellaMovimiento.calcular(1L, DIA, 10.0, "Transferencia recibida", null));
+    }
+
+    @Test
+    void redondeaElMontoACentavos() {
+        String base = HuellaMovimiento.calcular(1L, DIA, 100.0, "x", "y");
+
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 100.004, "x", "y")).isEqualTo(base);
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 99.995, "x", "y")).isEqualTo(base);
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 100.01, "x", "y")).isNotEqualTo(base);
+        assertThat(HuellaMovimiento.calcular(1L, DIA, -100.0, "x", "y")).isNotEqualTo(base);
+    }
+
+    @Test
+    void aceptaCamposNulos() {
+        String sinDatos = HuellaMovimiento.calcular(null, null, null, null, null);
+
+        assertThat(sinDatos).hasSize(64);
+        assertThat(HuellaMovimiento.calcular(null, null, null, null, null)).isEqualTo(sinDatos);
+        // Nulo y vacío son lo mismo para los textos, no para la fecha o el monto
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 5.0, null, null))
+                .isEqualTo(HuellaMovimiento.calcular(1L, DIA, 5.0, "", "  "));
+        assertThat(HuellaMovimiento.calcular(1L, DIA, null, "x", null))
+                .isNotEqualTo(HuellaMovimiento.calcular(1L, DIA, 0.0, "x", null));
+    }
+
+    @Test
+    void distingueEmpresaDiaYOrigen() {
+        String base = HuellaMovimiento.calcular(1L, DIA, 10.0, "x", "banco");
+
+        assertThat(HuellaMovimiento.calcular(2L, DIA, 10.0, "x", "banco")).isNotEqualTo(base);
+        assertThat(HuellaMovimiento.calcular(1L, DIA.plusDays(1), 10.0, "x", "banco")).isNotEqualTo(base);
+        assertThat(HuellaMovimiento.calcular(1L, DIA, 10.0, "x", "mp")).isNotEqualTo(base);
+    }
+}
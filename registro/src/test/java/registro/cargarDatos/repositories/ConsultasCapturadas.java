@@ -0,0 +1,137 @@
+package registro.cargarDatos.repositories;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SELECT que Hibernate ejecuta en los tests de repositorios, con sus parámetros, para
+ * pasarlos por EXPLAIN. Se activa con @ContextConfiguration(classes = ConsultasCapturadas.Config.class).
+ */
+final class ConsultasCapturadas {
+
+    private static final List<Consulta> CONSULTAS = new ArrayList<>();
+
+    private ConsultasCapturadas() {
+    }
+
+    static void limpiar() {
+        CONSULTAS.clear();
+    }
+
+    /** Consultas capturadas desde el último limpiar() que leen la tabla indicada. */
+    static List<Consulta> sobre(String tabla) {
+        String marca = " " + tabla.toLowerCase() + " ";
+        return CONSULTAS.stream()
+                .filter(c -> c.sql().toLowerCase().contains(marca))
+                .toList();
+    }
+
+    /** SELECT ejecutado por Hibernate con sus parámetros, en orden de posición. */
+    record Consulta(String sql, Map<Integer, Object> parametros) {
+
+        String conLiterales() {
+            StringBuilder resultado = new StringBuilder();
+            int posicion = 1;
+            for (int i = 0; i < sql.length(); i++) {
+                char c = sql.charAt(i);
+                resultado.append(c == '?' ? literal(parametros.get(posicion++)) : String.valueOf(c));
+            }
+            return resultado.toString();
+        }
+
+        private static String literal(Object valor) {
+            if (valor == null) {
+                return "NULL";
+            }
+            if (valor instanceof Number || valor instanceof Boolean) {
+                return valor.toString();
+            }
+            if (valor instanceof LocalDateTime fecha) {
+                return "TIMESTAMP '" + Timestamp.valueOf(fecha) + "'";
+            }
+            if (valor instanceof Timestamp fecha) {
+                return "TIMESTAMP '" + fecha + "'";
+            }
+            if (valor instanceof LocalDate || valor instanceof java.sql.Date) {
+                return "DATE '" + valor + "'";
+            }
+            return "'" + valor.toString().replace("'", "''") + "'";
+        }
+    }
+
+    // Sin @Configuration a propósito: RegistroApplication escanea todo "registro" y levantaría
+    // esta clase en los demás tests, pisando la configuración de repositorios de la aplicación
+    @EntityScan("registro")
+    @EnableJpaRepositories(basePackageClasses = MovimientoRepository.class)
+    static class Config {
+
+        /** Envuelve el DataSource para registrar cada SELECT preparado y sus parámetros. */
+        @Bean
+        static BeanPostProcessor capturaDeConsultas() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return proxy(DataSource.class, dataSource, (metodo, args, resultado) ->
+                                resultado instanceof Connection conexion ? capturar(conexion) : resultado);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static Connection capturar(Connection conexion) {
+            return proxy(Connection.class, conexion, (metodo, args, resultado) -> {
+                if (metodo.startsWith("prepareStatement") && args[0] instanceof String sql
+                        && sql.trim().toLowerCase().startsWith("select")) {
+                    return capturar((PreparedStatement) resultado, sql);
+                }
+                return resultado;
+            });
+        }
+
+        private static PreparedStatement capturar(PreparedStatement sentencia, String sql) {
+            Map<Integer, Object> parametros = new TreeMap<>();
+            return proxy(PreparedStatement.class, sentencia, (metodo, args, resultado) -> {
+                if (metodo.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer posicion) {
+                    parametros.put(posicion, metodo.equals("setNull") ? null : args[1]);
+                } else if (metodo.equals("executeQuery")) {
+                    CONSULTAS.add(new Consulta(sql, new TreeMap<>(parametros)));
+                }
+                return resultado;
+            });
+        }
+
+        private interface Interceptor {
+            Object despues(String metodo, Object[] args, Object resultado);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> tipo, T destino, Interceptor interceptor) {
+            return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (p, metodo, args) -> {
+                Object resultado;
+                try {
+                    resultado = metodo.invoke(destino, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                return interceptor.despues(metodo.getName(), args, resultado);
+            });
+        }
+    }
+}
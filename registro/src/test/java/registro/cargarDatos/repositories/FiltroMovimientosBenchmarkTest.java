@@ -0,0 +1,244 @@
+package registro.cargarDatos.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Compara las consultas "(:param IS NULL OR col = :param)" que había en MovimientoRepository
+ * con las que arma FiltroMovimientos, sobre una tabla registro sembrada: plan (EXPLAIN con
+ * los parámetros enlazados) y latencia mediana / p95 por combinación de filtros.
+ * Verifica además que ambas devuelvan lo mismo.
+ *
+ * No corre con el build normal:
+ *   mvn -pl registro test -Dtest=FiltroMovimientosBenchmarkTest -Dbenchmark=true [-Dbenchmark.filas=200000]
+ * Por defecto usa H2 en modo MySQL, con OPTIMIZE_REUSE_RESULTS apagado: si no, H2 devuelve el
+ * resultado anterior de una sentencia idéntica y se mide la caché en lugar de la consulta. Para un MySQL local, usar una base descartable
+ * (ddl-auto=create-drop recrea la tabla):
+ *   -Dbenchmark.url=jdbc:mysql://localhost:3306/registro_bench -Dbenchmark.driver=com.mysql.cj.jdbc.Driver
+ *   -Dbenchmark.usuario=... -Dbenchmark.clave=... -Dbenchmark.dialect=org.hibernate.dialect.MySQLDialect
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${benchmark.url:jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE}",
+        "spring.datasource.driver-class-name=${benchmark.driver:org.h2.Driver}",
+        "spring.datasource.username=${benchmark.usuario:sa}",
+        "spring.datasource.password=${benchmark.clave:}",
+        "spring.jpa.properties.hibernate.dialect=${benchmark.dialect:org.hibernate.dialect.H2Dialect}",
+        "spring.jpa.show-sql=false",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ConsultasCapturadas.Config.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FiltroMovimientosBenchmarkTest {
+
+    // Consultas anteriores, tal como estaban en MovimientoRepository
+    private static final String SUMA_CATCH_ALL = "SELECT COALESCE(SUM(m.montoTotal), 0) FROM Movimiento m " +
+            "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
+            "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
+            "AND (:moneda IS NULL OR m.moneda = :moneda) " +
+            "AND m.tipo = :tipo " +
+            "AND m.fechaEmision BETWEEN :inicio AND :fin";
+
+    private static final String RESUMEN_CATCH_ALL = "SELECT m.tipo, COUNT(m), " +
+            "SUM(CASE WHEN m.documentoComercial IS NOT NULL THEN 1 ELSE 0 END), " +
+            "SUM(m.montoTotal), " +
+            "SUM(CASE WHEN m.documentoComercial IS NOT NULL THEN m.montoTotal ELSE 0 END), " +
+            "SUM(CASE WHEN m.documentoComercial IS NULL THEN m.montoTotal ELSE 0 END) " +
+            "FROM Movimiento m " +
+            "WHERE (:organizacionId IS NULL OR m.organizacionId = :organizacionId) " +
+            "AND (:usuarioId IS NULL OR m.usuarioId = :usuarioId) " +
+            "AND (:moneda IS NULL OR m.moneda = :moneda) " +
+            "AND m.fechaEmision BETWEEN :inicio AND :fin " +
+            "GROUP BY m.tipo";
+
+    private static final int EMPRESAS = 40;
+    private static final int USUARIOS_POR_EMPRESA = 5;
+    private static final int DOCUMENTOS = 1000;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime FIN = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Autowired
+    private MovimientoRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${benchmark.filas:200000}")
+    private int filas;
+
+    @Value("${benchmark.iteraciones:50}")
+    private int iteraciones;
+
+    /** Combinación de filtros del caso: los null no filtran. */
+    private record Caso(String nombre, Long organizacionId, String usuarioId, TipoMoneda moneda) {
+
+        FiltroMovimientos filtro() {
+            return FiltroMovimientos.builder()
+                    .organizacionId(organizacionId)
+                    .usuarioId(usuarioId)
+                    .moneda(moneda)
+                    .desde(INICIO)
+                    .hasta(FIN)
+                    .build();
+        }
+    }
+
+    @Test
+    void comparaCatchAllContraFiltroMovimientos() {
+        sembrar();
+
+        List<Caso> casos = List.of(
+                new Caso("empresa", 7L, null, null),
+                new Caso("empresa+moneda", 7L, null, TipoMoneda.ARS),
+                new Caso("empresa+usuario", 7L, "u7-1", null),
+                new Caso("solo usuario", null, "u7-1", null));
+
+        System.out.printf("%nregistro sembrada con %d filas (%s)%n", filas, url);
+        for (Caso caso : casos) {
+            FiltroMovimientos filtro = caso.filtro();
+            FiltroMovimientos ingresos = filtro.toBuilder().tipo(TipoMovimiento.Ingreso).build();
+
+            Double sumaAntes = medir(caso, "suma ingresos / catch-all",
+                    () -> parametros(entityManager.createQuery(SUMA_CATCH_ALL, Double.class), caso)
+                            .setParameter("tipo", TipoMovimiento.Ingreso)
+                            .getSingleResult());
+            Double sumaAhora = medir(caso, "suma ingresos / filtro",
+                    () -> repository.sumarMontos(ingresos));
+            assertThat(sumaAhora).as(caso.nombre()).isCloseTo(sumaAntes, offset(1e-6));
+
+            List<Object[]> resumenAntes = medir(caso, "resumen por tipo / catch-all",
+                    () -> parametros(entityManager.createQuery(RESUMEN_CATCH_ALL, Object[].class), caso)
+                            .getResultList());
+            List<Object[]> resumenAhora = medir(caso, "resumen por tipo / filtro",
+                    () -> repository.resumirConciliacionPorTipo(filtro));
+            assertThat(conteosPorTipo(resumenAhora)).as(caso.nombre()).isEqualTo(conteosPorTipo(resumenAntes));
+        }
+    }
+
+    private <T> TypedQuery<T> parametros(TypedQuery<T> query, Caso caso) {
+        return query.setParameter("organizacionId", caso.organizacionId())
+                .setParameter("usuarioId", caso.usuarioId())
+                .setParameter("moneda", caso.moneda())
+                .setParameter("inicio", INICIO)
+                .setParameter("fin", FIN);
+    }
+
+    private <T> T medir(Caso caso, String consulta, Supplier<T> ejecucion) {
+        ConsultasCapturadas.limpiar();
+        T resultado = ejecucion.get();
+        List<String> plan = ConsultasCapturadas.sobre("registro").stream()
+                .map(this::explicar)
+                .toList();
+
+        for (int i = 0; i < iteraciones / 2; i++) {
+            ejecucion.get();
+        }
+        long[] tiempos = new long[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            long inicio = System.nanoTime();
+            ejecucion.get();
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+
+        System.out.printf("%-16s %-30s mediana %8.2f ms  p95 %8.2f ms  plan: %s%n",
+                caso.nombre(), consulta,
+                tiempos[tiempos.length / 2] / 1e6,
+                tiempos[(int) Math.ceil(tiempos.length * 0.95) - 1] / 1e6,
+                String.join(" | ", plan));
+        return resultado;
+    }
+
+    /** EXPLAIN con los parámetros enlazados, como llega la sentencia preparada a la base. */
+    private String explicar(ConsultasCapturadas.Consulta consulta) {
+        Object[] parametros = consulta.parametros().values().toArray();
+        List<Map<String, Object>> filasPlan = jdbcTemplate.queryForList("EXPLAIN " + consulta.sql(), parametros);
+        if (url.startsWith("jdbc:h2:")) {
+            // H2: una sola columna con el SQL anotado; nos quedamos con el acceso a registro
+            String texto = String.valueOf(filasPlan.get(0).values().iterator().next());
+            int desde = texto.indexOf("/*", texto.indexOf("\"REGISTRO\""));
+            return desde < 0 ? texto : texto.substring(desde, texto.indexOf("*/", desde) + 2).replaceAll("\\s+", " ");
+        }
+        // MySQL: type / key / rows de cada fila del plan
+        return filasPlan.stream()
+                .map(f -> "type=" + f.get("type") + " key=" + f.get("key") + " rows=" + f.get("rows"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static Map<String, Long> conteosPorTipo(List<Object[]> filas) {
+        Map<String, Long> conteos = new TreeMap<>();
+        for (Object[] fila : filas) {
+            conteos.put(String.valueOf(fila[0]), ((Number) fila[1]).longValue());
+        }
+        return conteos;
+    }
+
+    private void sembrar() {
+        Random random = new Random(42);
+        TipoMovimiento[] tipos = {TipoMovimiento.Ingreso, TipoMovimiento.Egreso};
+        TipoMoneda[] monedas = {TipoMoneda.ARS, TipoMoneda.ARS, TipoMoneda.USD};
+        long segundosEnRango = Duration.between(INICIO.minusYears(2), FIN).getSeconds();
+
+        // Documentos a los que apuntan los movimientos conciliados (FK de id_documento)
+        List<Object[]> documentos = new ArrayList<>();
+        for (long id = 1; id <= DOCUMENTOS; id++) {
+            documentos.add(new Object[]{id, "BENCH-" + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO documento_comercial (id_documento, numero_documento) VALUES (?, ?)", documentos);
+
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 1; i <= filas; i++) {
+            int empresa = 1 + random.nextInt(EMPRESAS);
+            TipoMovimiento tipo = tipos[random.nextInt(tipos.length)];
+            double monto = 1 + random.nextInt(100_000);
+            LocalDateTime fecha = INICIO.minusYears(2).plusSeconds(1 + random.nextLong(segundosEnRango - 1));
+            lote.add(new Object[]{
+                    (long) i,
+                    (long) empresa,
+                    "u" + empresa + "-" + random.nextInt(USUARIOS_POR_EMPRESA),
+                    tipo.name(),
+                    monedas[random.nextInt(monedas.length)].name(),
+                    tipo == TipoMovimiento.Egreso ? -monto : monto,
+                    Timestamp.valueOf(fecha),
+                    random.nextInt(3) == 0 ? (long) (1 + random.nextInt(DOCUMENTOS)) : null,
+                    "cat" + random.nextInt(12)});
+            if (lote.size() == 5000 || i == filas) {
+                jdbcTemplate.batchUpdate("INSERT INTO registro (id, organizacion_id, usuario_id, tipo, moneda, "
+                        + "monto_total, fecha_emision, id_documento, categoria) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+        jdbcTemplate.execute(url.startsWith("jdbc:h2:") ? "ANALYZE" : "ANALYZE TABLE registro");
+    }
+}
@@ -0,0 +1,126 @@
+package registro.cargarDatos.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regresión de planes: corre las consultas calientes de MovimientoRepository y pasa cada
+ * SELECT sobre registro por EXPLAIN. Falla si alguna vuelve a recorrer la tabla entera.
+ * Los parámetros se inlinean como literales, igual que hace Connector/J con sentencias
+ * preparadas del lado del cliente, así "(:x IS NULL OR col = :x)" se simplifica como en MySQL.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:planes;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ConsultasCapturadas.Config.class)
+class MovimientoRepositoryPlanTest {
+
+    private static final Pattern ACCESO_A_REGISTRO =
+            Pattern.compile("\"REGISTRO\" \"\\w+\"\\s*/\\* PUBLIC\\.([\\w.]+)(: [^*]+)? \\*/");
+
+    private static final Long ORG = 1L;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime FIN = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final List<TipoMovimiento> TIPOS = List.of(TipoMovimiento.Ingreso, TipoMovimiento.Egreso);
+
+    @Autowired
+    private MovimientoRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void limpiar() {
+        ConsultasCapturadas.limpiar();
+    }
+
+    @Test
+    void seriesMensualesDelDashboardUsanIndice() {
+        repository.sumMontosMensualesPorTipo(ORG, null, INICIO, FIN);
+        repository.sumMontosMensualesPorTipo(ORG, TipoMoneda.ARS, INICIO, FIN);
+        assertSinScanCompleto();
+    }
+
+    @Test
+    void montosPorCategoriaUsanIndice() {
+        repository.sumMontosPorTipoYCategoria(ORG, TIPOS, null, INICIO, FIN);
+        repository.sumMontosPorCategoria(ORG, TipoMovimiento.Egreso, TipoMoneda.USD, INICIO, FIN);
+        assertSinScanCompleto();
+    }
+
+    @Test
+    void resumenDeConciliacionUsaIndice() {
+        FiltroMovimientos filtro = FiltroMovimientos.builder()
+                .organizacionId(ORG).usuarioId("usuario").desde(INICIO).hasta(FIN).build();
+        repository.resumirConciliacionPorTipo(filtro);
+        repository.ultimasFechasConciliacion(filtro.toBuilder().moneda(TipoMoneda.ARS).build());
+        repository.sumarMontos(filtro.toBuilder().usuarioId(null).tipo(TipoMovimiento.Ingreso).build());
+        repository.count(filtro.toSpecification());
+        assertSinScanCompleto();
+    }
+
+    @Test
+    void listadoYCursorUsanIndice() {
+        repository.findAll(FiltroMovimientos.builder().organizacionId(ORG).build().toSpecification(),
+                PageRequest.of(1, 6, Sort.by(Sort.Direction.DESC, "fechaEmision")));
+        repository.findAll(FiltroMovimientos.builder().organizacionId(ORG).conciliado(false)
+                        .searchDate(INICIO.toLocalDate()).build().toSpecification(),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "fechaEmision")));
+        repository.findSiguientePaginaPorCursor(ORG, INICIO, FIN, TIPOS, null, INICIO, 10L, PageRequest.of(0, 500));
+        assertSinScanCompleto();
+    }
+
+    @Test
+    void pendientesDeConciliacionUsanIndice() {
+        repository.findByOrganizacionIdAndDocumentoComercialIsNullAndMoneda(ORG, TipoMoneda.ARS,
+                PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "fechaEmision")));
+        repository.countByOrganizacionIdAndDocumentoComercialIsNull(ORG);
+        repository.countByOrganizacionIdAndDocumentoComercialIsNotNullAndMoneda(ORG, TipoMoneda.USD);
+        assertSinScanCompleto();
+    }
+
+    @Test
+    void deteccionDeDuplicadosUsaIndice() {
+        repository.buscarHuellasExistentes(ORG, List.of("a", "b", "c"));
+        repository.findByOrganizacionIdAndFechaEmisionBetween(ORG, INICIO, FIN);
+        assertSinScanCompleto();
+    }
+
+    private void assertSinScanCompleto() {
+        List<ConsultasCapturadas.Consulta> sobreRegistro = ConsultasCapturadas.sobre("registro");
+        assertThat(sobreRegistro).as("consultas capturadas").isNotEmpty();
+
+        for (ConsultasCapturadas.Consulta consulta : sobreRegistro) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + consulta.conLiterales(), String.class);
+            Matcher acceso = ACCESO_A_REGISTRO.matcher(plan);
+            assertThat(acceso.find()).as("acceso a registro en el plan:%n%s", plan).isTrue();
+            // H2 anota "/* PUBLIC.INDICE: condición */"; sin condición es un recorrido completo,
+            // sea tableScan o el índice de la clave primaria
+            assertThat(acceso.group(2))
+                    .as("plan de %s%n%s", consulta.sql(), plan)
+                    .isNotNull();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package registro.cargarDatos.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.dialect.H2Dialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+import registro.cargarDatos.models.EstadoEventoOutbox;
+import registro.cargarDatos.models.EventoOutbox;
+import registro.cargarDatos.repositories.EventoOutboxRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withRawStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+/**
+ * Despacho de evento_outbox contra un notificacion simulado: reserva de cada lote, POST a
+ * /api/events/batch, vuelta a un POST por evento si notificacion no acepta lotes, reintentos
+ * con backoff y FALLIDO al agotar los intentos.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=registro.cargarDatos.services.DespachadorEventosOutboxTest$H2ConSkipLocked",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = DespachadorEventosOutboxTest.Config.class)
+// El despachador abre sus propias transacciones, como en producción
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DespachadorEventosOutboxTest {
+
+    private static final String URL = "http://notificacion";
+    private static final int LOTE = 3;
+    private static final int MAX_INTENTOS = 4;
+    private static final Duration BACKOFF_INICIAL = Duration.ofSeconds(10);
+    private static final Duration BACKOFF_MAXIMO = Duration.ofSeconds(30);
+    private static final Duration RESERVA = Duration.ofMinutes(2);
+
+    @Autowired
+    private EventoOutboxRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DespachadorEventosOutbox despachador;
+    private MockRestServiceServer notificacion;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAllInBatch();
+        despachador = new DespachadorEventosOutbox(repository, new ObjectMapper(), transactionManager,
+                new RestTemplateBuilder(), URL + "/", LOTE, MAX_INTENTOS, BACKOFF_INICIAL, BACKOFF_MAXIMO,
+                RESERVA, Duration.ofSeconds(5));
+        RestTemplate restTemplate = (RestTemplate) ReflectionTestUtils.getField(despachador, "restTemplate");
+        notificacion = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    void elLoteSaleEnUnSoloPostYSeBorra() {
+        guardar("/api/events/movements", "{\"refId\":\"1\"}");
+        guardar("/api/events/budget-created", "{\"budgetId\":2}");
+
+        notificacion.expect(requestTo(URL + "/api/events/batch"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("""
+                        [{"type":"movements","payload":{"refId":"1"}},
+                         {"type":"budget-created","payload":{"budgetId":2}}]
+                        """, true))
+                .andRespond(aceptado("{\"rejected\":[],\"failed\":[]}"));
+
+        despachador.despacharPendientes();
+
+        notificacion.verify();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void rechazadosQuedanFallidosYFallidosSeReprogramanConBackoff() {
+        EventoOutbox invalido = guardar("/api/events/nope", "{}");
+        EventoOutbox transitorio = guardar("/api/events/movements", "{\"refId\":\"2\"}");
+        guardar("/api/events/movements", "{\"refId\":\"3\"}");
+
+        notificacion.expect(requestTo(URL + "/api/events/batch"))
+                .andRespond(aceptado("""
+                        {"rejected":[{"index":0,"type":"nope","error":"Tipo de evento desconocido: nope"}],
+                         "failed":[{"index":1,"type":"movements","error":"administracion no responde"}]}
+                        """));
+        // El lote vino lleno: busca más, pero los que quedan están reprogramados
+        Instant antes = Instant.now();
+        despachador.despacharPendientes();
+        Instant despues = Instant.now();
+
+        notificacion.verify();
+        assertThat(repository.count()).isEqualTo(2);
+
+        EventoOutbox rechazado = repository.findById(invalido.getId()).orElseThrow();
+        assertThat(rechazado.getEstado()).isEqualTo(EstadoEventoOutbox.FALLIDO);
+        assertThat(rechazado.getIntentos()).isEqualTo(1);
+        assertThat(rechazado.getUltimoError()).isEqualTo("Tipo de evento desconocido: nope");
+
+        EventoOutbox reprogramado = repository.findById(transitorio.getId()).orElseThrow();
+        assertThat(reprogramado.getEstado()).isEqualTo(EstadoEventoOutbox.PENDIENTE);
+        assertThat(reprogramado.getIntentos()).isEqualTo(1);
+        assertThat(reprogramado.getUltimoError()).isEqualTo("administracion no responde");
+        assertThat(reprogramado.getProximoIntento())
+                .isBetween(antes.plus(BACKOFF_INICIAL), despues.plus(BACKOFF_INICIAL));
+    }
+
+    @Test
+    void sinEndpointDeLotesEnviaUnoPorUno() {
+        EventoOutbox enviado = guardar("/api/events/movements", "{\"refId\":\"1\"}");
+        EventoOutbox rechazado = guardar("/api/events/budget-created", "{}");
+        EventoOutbox transitorio = guardar("/api/events/movements", "{\"refId\":\"3\"}");
+
+        // notificacion anterior a /batch
+        notificacion.expect(requestTo(URL + "/api/events/batch")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+        notificacion.expect(requestTo(URL + "/api/events/movements"))
+                .andExpect(content().json("{\"refId\":\"1\"}"))
+                .andRespond(withStatus(HttpStatus.ACCEPTED));
+        notificacion.expect(requestTo(URL + "/api/events/budget-created"))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+        notificacion.expect(requestTo(URL + "/api/events/movements"))
+                .andExpect(content().json("{\"refId\":\"3\"}"))
+                .andRespond(withRawStatus(429));
+
+        despachador.despacharPendientes();
+
+        notificacion.verify();
+        assertThat(repository.findById(enviado.getId())).isEmpty();
+        assertThat(repository.findById(rechazado.getId()).orElseThrow().getEstado())
+                .isEqualTo(EstadoEventoOutbox.FALLIDO);
+        EventoOutbox reintento = repository.findById(transitorio.getId()).orElseThrow();
+        assertThat(reintento.getEstado()).isEqualTo(EstadoEventoOutbox.PENDIENTE);
+        assertThat(reintento.getIntentos()).isEqualTo(1);
+    }
+
+    @Test
+    void unoPorUnoPostergaElRestoSiNotificacionNoEstaAccesible() {
+        EventoOutbox primero = guardar("/api/events/movements", "{\"refId\":\"1\"}");
+        EventoOutbox segundo = guardar("/api/events/movements", "{\"refId\":\"2\"}");
+
+        notificacion.expect(requestTo(URL + "/api/events/batch")).andRespond(withStatus(HttpStatus.METHOD_NOT_ALLOWED));
+        notificacion.expect(requestTo(URL + "/api/events/movements")).andRespond(withException(new IOException("caido")));
+
+        Instant antes = Instant.now();
+        despachador.despacharPendientes();
+
+        notificacion.verify();
+        assertThat(repository.findById(primero.getId()).orElseThrow().getIntentos()).isEqualTo(1);
+        // El segundo no se intentó: no suma intento, solo se posterga
+        EventoOutbox postergado = repository.findById(segundo.getId()).orElseThrow();
+        assertThat(postergado.getIntentos()).isZero();
+        assertThat(postergado.getProximoIntento()).isAfterOrEqualTo(antes.plus(BACKOFF_INICIAL));
+    }
+
+    @Test
+    void backoffSeDuplicaHastaElMaximoYQuedaFallidoAlAgotarIntentos() {
+        EventoOutbox evento = guardar("/api/events/movements", "{\"refId\":\"1\"}");
+        // 10s, 20s, 30s (tope de 40s) y al cuarto intento FALLIDO
+        List<Duration> esperas = List.of(Duration.ofSeconds(10), Duration.ofSeconds(20), Duration.ofSeconds(30));
+
+        for (int intento = 1; intento <= MAX_INTENTOS; intento++) {
+            notificacion.reset();
+            notificacion.expect(requestTo(URL + "/api/events/batch"))
+                    .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+            vencer(evento);
+
+            Instant antes = Instant.now();
+            despachador.despacharPendientes();
+            Instant despues = Instant.now();
+
+            notificacion.verify();
+            EventoOutbox actual = repository.findById(evento.getId()).orElseThrow();
+            assertThat(actual.getIntentos()).isEqualTo(intento);
+            if (intento < MAX_INTENTOS) {
+                Duration espera = esperas.get(intento - 1);
+                assertThat(actual.getEstado()).isEqualTo(EstadoEventoOutbox.PENDIENTE);
+                assertThat(actual.getProximoIntento()).isBetween(antes.plus(espera), despues.plus(espera));
+            } else {
+                assertThat(actual.getEstado()).isEqualTo(EstadoEventoOutbox.FALLIDO);
+            }
+        }
+
+        // Un FALLIDO no se vuelve a tomar
+        notificacion.reset();
+        vencer(evento);
+        despachador.despacharPendientes();
+        notificacion.verify();
+    }
+
+    @Test
+    void reservaElLoteYLoVuelveATomarAlVencerLaReserva() {
+        EventoOutbox evento = guardar("/api/events/movements", "{\"refId\":\"1\"}");
+
+        Instant antes = Instant.now();
+        assertThat(reservar()).extracting(EventoOutbox::getId).containsExactly(evento.getId());
+        assertThat(repository.findById(evento.getId()).orElseThrow().getProximoIntento())
+                .isAfterOrEqualTo(antes.plus(RESERVA));
+
+        // Reservado: otra instancia (o la próxima pasada) no lo toma
+        assertThat(reservar()).isEmpty();
+
+        // La instancia que lo tenía murió sin registrar el resultado: al vencer la reserva vuelve a salir
+        vencer(evento);
+        assertThat(reservar()).extracting(EventoOutbox::getId).containsExactly(evento.getId());
+        assertThat(repository.findById(evento.getId()).orElseThrow().getIntentos()).isZero();
+    }
+
+    @Test
+    void lasFilasBloqueadasPorOtraInstanciaSeSaltean() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < LOTE; i++) {
+            ids.add(guardar("/api/events/movements", "{\"refId\":\"" + i + "\"}").getId());
+        }
+
+        // Otra instancia tomó la primera fila y todavía no cerró su transacción
+        CountDownLatch bloqueada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<Void> otra = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList("SELECT id FROM evento_outbox WHERE id = ? FOR UPDATE", ids.get(0));
+                    bloqueada.countDown();
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        try {
+            assertThat(bloqueada.await(5, TimeUnit.SECONDS)).isTrue();
+            // No espera el lock: toma las otras dos
+            assertThat(reservar()).extracting(EventoOutbox::getId).containsExactly(ids.get(1), ids.get(2));
+        } finally {
+            liberar.countDown();
+            otra.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(reservar()).extracting(EventoOutbox::getId).containsExactly(ids.get(0));
+    }
+
+    private EventoOutbox guardar(String ruta, String payload) {
+        return repository.save(new EventoOutbox(ruta, payload, Instant.now().minusSeconds(1)));
+    }
+
+    private void vencer(EventoOutbox evento) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                repository.reservarHasta(List.of(evento.getId()), Instant.now().minusSeconds(1)));
+    }
+
+    private List<EventoOutbox> reservar() {
+        return ReflectionTestUtils.invokeMethod(despachador, "reservarLote");
+    }
+
+    private static org.springframework.test.web.client.ResponseCreator aceptado(String cuerpo) {
+        return withStatus(HttpStatus.ACCEPTED).contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    /**
+     * H2 admite FOR UPDATE SKIP LOCKED pero su dialecto de Hibernate no lo declara y lo
+     * reemplaza por un FOR UPDATE que espera el lock; así la consulta sale como en MySQL.
+     */
+    public static class H2ConSkipLocked extends H2Dialect {
+        @Override
+        public boolean supportsSkipLocked() {
+            return true;
+        }
+
+        @Override
+        public String getForUpdateSkipLockedString() {
+            return " for update skip locked";
+        }
+
+        @Override
+        public String getForUpdateSkipLockedString(String aliases) {
+            return getForUpdateSkipLockedString();
+        }
+    }
+
+    // Sin @Configuration a propósito: RegistroApplication escanea todo "registro" y levantaría
+    // esta clase en los demás tests
+    @EntityScan("registro")
+    @EnableJpaRepositories(basePackageClasses = EventoOutboxRepository.class)
+    static class Config {
+    }
+}
@@ -0,0 +1,108 @@
+package registro.cargarDatos.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El completado de huella_duplicado corre una sola vez entre instancias y arranques: lo hace
+ * quien toma la marca en tarea_mantenimiento, y después ya no se repite.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:huellas;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = HuellaDuplicadoBackfillServiceTest.Config.class)
+@Import(HuellaDuplicadoBackfillService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HuellaDuplicadoBackfillServiceTest {
+
+    @Autowired
+    private HuellaDuplicadoBackfillService service;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM tarea_mantenimiento");
+        movimientoRepository.deleteAllInBatch();
+        for (int i = 0; i < 3; i++) {
+            Movimiento movimiento = new Movimiento();
+            movimiento.setOrganizacionId(1L);
+            movimiento.setTipo(TipoMovimiento.Ingreso);
+            movimiento.setMoneda(TipoMoneda.ARS);
+            movimiento.setMontoTotal(100d + i);
+            movimiento.setFechaEmision(LocalDateTime.parse("2025-01-10T00:00"));
+            movimiento.setDescripcion("Venta " + i);
+            movimientoRepository.save(movimiento);
+        }
+        // Como los movimientos anteriores a la columna
+        jdbcTemplate.update("UPDATE registro SET huella_duplicado = NULL");
+    }
+
+    @Test
+    void completaLasHuellasUnaSolaVez() {
+        service.completarHuellasFaltantes();
+
+        assertThat(sinHuella()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT completada_en FROM tarea_mantenimiento WHERE nombre = ?",
+                LocalDateTime.class, HuellaDuplicadoBackfillService.TAREA)).isNotNull();
+
+        // Otro arranque (u otra réplica) ya no recorre registro
+        jdbcTemplate.update("UPDATE registro SET huella_duplicado = NULL");
+        service.completarHuellasFaltantes();
+        assertThat(sinHuella()).isEqualTo(3);
+    }
+
+    @Test
+    void noCorreMientrasOtraInstanciaTieneLaReserva() {
+        jdbcTemplate.update("INSERT INTO tarea_mantenimiento (nombre, reservada_hasta) VALUES (?, ?)",
+                HuellaDuplicadoBackfillService.TAREA, LocalDateTime.now().plusMinutes(5));
+
+        service.completarHuellasFaltantes();
+        assertThat(sinHuella()).isEqualTo(3);
+
+        // La instancia que la tenía cayó: con la reserva vencida la toma el próximo arranque
+        jdbcTemplate.update("UPDATE tarea_mantenimiento SET reservada_hasta = ? WHERE nombre = ?",
+                LocalDateTime.now().minusSeconds(1), HuellaDuplicadoBackfillService.TAREA);
+        service.completarHuellasFaltantes();
+        assertThat(sinHuella()).isZero();
+    }
+
+    private Integer sinHuella() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM registro WHERE huella_duplicado IS NULL", Integer.class);
+    }
+
+    // Sin @Configuration a propósito: RegistroApplication escanea todo "registro" y levantaría
+    // esta clase en los demás tests
+    @EntityScan("registro")
+    @EnableJpaRepositories(basePackageClasses = MovimientoRepository.class)
+    static class Config {
+    }
+}
@@ -0,0 +1,173 @@
+package registro.cargarDatos.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cierres de saldo_mensual: el ajuste incremental de cada alta, baja o cambio (fila nueva
+ * sembrada con el cierre anterior y corrimiento de los meses siguientes) y la reconstrucción
+ * desde registro. Cada fila se compara como "moneda periodo ingresos egresos cantidad cierre".
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:saldos;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = SaldoMensualServiceTest.Config.class)
+@Import(SaldoMensualService.class)
+class SaldoMensualServiceTest {
+
+    private static final Long ORG = 7L;
+
+    @Autowired
+    private SaldoMensualService service;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void altaSiembraElMesDesdeElCierreAnteriorYCorreLosSiguientes() {
+        service.registrarAlta(movimiento(TipoMovimiento.Ingreso, 100d, TipoMoneda.ARS, "2025-01-10"));
+        service.registrarAlta(movimiento(TipoMovimiento.Egreso, -30d, TipoMoneda.ARS, "2025-03-05"));
+        assertThat(filas()).containsExactly(
+                "ARS 2025-01 100.0 0.0 1 100.0",
+                "ARS 2025-03 0.0 -30.0 1 70.0");
+
+        // Un mes intermedio arranca con el cierre de enero y corre el de marzo
+        service.registrarAlta(movimiento(TipoMovimiento.Ingreso, 50d, TipoMoneda.ARS, "2025-02-01"));
+        service.registrarAlta(movimiento(TipoMovimiento.Ingreso, 5d, TipoMoneda.USD, "2025-02-01"));
+        assertThat(filas()).containsExactly(
+                "ARS 2025-01 100.0 0.0 1 100.0",
+                "ARS 2025-02 50.0 0.0 1 150.0",
+                "ARS 2025-03 0.0 -30.0 1 120.0",
+                "USD 2025-02 5.0 0.0 1 5.0");
+    }
+
+    @Test
+    void bajaYCambioDescuentanElAporteAnterior() {
+        Movimiento enero = movimiento(TipoMovimiento.Ingreso, 100d, TipoMoneda.ARS, "2025-01-10");
+        Movimiento marzo = movimiento(TipoMovimiento.Egreso, -40d, TipoMoneda.ARS, "2025-03-01");
+        service.registrarAltas(List.of(enero, marzo));
+
+        SaldoMensualService.AporteSaldo anterior = SaldoMensualService.AporteSaldo.baja(enero);
+        enero.setFechaEmision(LocalDateTime.parse("2025-03-20T00:00"));
+        enero.setMontoTotal(80d);
+        service.registrarCambio(anterior, enero);
+        assertThat(filas()).containsExactly(
+                "ARS 2025-01 0.0 0.0 0 0.0",
+                "ARS 2025-03 80.0 -40.0 2 40.0");
+
+        service.registrarBaja(marzo);
+        assertThat(filas()).containsExactly(
+                "ARS 2025-01 0.0 0.0 0 0.0",
+                "ARS 2025-03 80.0 0.0 1 80.0");
+    }
+
+    @Test
+    void movimientosSinMonedaCompartenUnaSolaFila() {
+        service.registrarAlta(movimiento(TipoMovimiento.Ingreso, 10d, null, "2025-05-02"));
+        service.registrarAlta(movimiento(TipoMovimiento.Ingreso, 15d, null, "2025-05-20"));
+        service.registrarAlta(movimiento(TipoMovimiento.Deuda, 99d, null, "2025-05-20"));
+        assertThat(filas()).containsExactly(" 2025-05 25.0 0.0 2 25.0");
+    }
+
+    @Test
+    void reconstruirDaLoMismoQueLosAjustes() {
+        List<Movimiento> movimientos = guardar(
+                movimiento(TipoMovimiento.Ingreso, 100d, TipoMoneda.ARS, "2024-11-03"),
+                movimiento(TipoMovimiento.Egreso, -20d, TipoMoneda.ARS, "2024-11-28"),
+                movimiento(TipoMovimiento.Ingreso, 7.5d, TipoMoneda.USD, "2024-12-01"),
+                movimiento(TipoMovimiento.Egreso, -60d, TipoMoneda.ARS, "2025-02-14"),
+                movimiento(TipoMovimiento.Ingreso, 12d, null, "2025-02-15"),
+                movimiento(TipoMovimiento.Acreencia, 500d, TipoMoneda.ARS, "2025-02-15"));
+        service.registrarAltas(movimientos);
+        List<String> incrementales = filas();
+
+        jdbcTemplate.update("UPDATE saldo_mensual SET saldo_cierre = saldo_cierre + 1000 WHERE organizacion_id = ?", ORG);
+        service.reconstruir(ORG);
+
+        assertThat(filas()).isEqualTo(incrementales).containsExactly(
+                " 2025-02 12.0 0.0 1 12.0",
+                "ARS 2024-11 100.0 -20.0 2 80.0",
+                "ARS 2025-02 0.0 -60.0 1 20.0",
+                "USD 2024-12 7.5 0.0 1 7.5");
+    }
+
+    @Test
+    void alIniciarReconstruyeSiDifierenLosMontosAunqueCoincidaLaCantidad() {
+        service.registrarAltas(guardar(
+                movimiento(TipoMovimiento.Ingreso, 100d, TipoMoneda.ARS, "2025-01-10"),
+                movimiento(TipoMovimiento.Egreso, -30d, TipoMoneda.ARS, "2025-02-10")));
+        List<String> correctas = filas();
+
+        jdbcTemplate.update("UPDATE saldo_mensual SET ingresos = 90, saldo_cierre = saldo_cierre - 10 "
+                + "WHERE organizacion_id = ? AND periodo = '2025-01-01'", ORG);
+        jdbcTemplate.update("UPDATE saldo_mensual SET saldo_cierre = saldo_cierre - 10 "
+                + "WHERE organizacion_id = ? AND periodo = '2025-02-01'", ORG);
+        service.reconstruirDesfasados();
+        assertThat(filas()).isEqualTo(correctas);
+
+        // Solo el último cierre corrido (semilla vieja): también se detecta
+        jdbcTemplate.update("UPDATE saldo_mensual SET saldo_cierre = saldo_cierre + 5 "
+                + "WHERE organizacion_id = ? AND periodo = '2025-02-01'", ORG);
+        service.reconstruirDesfasados();
+        assertThat(filas()).isEqualTo(correctas);
+    }
+
+    private List<Movimiento> guardar(Movimiento... movimientos) {
+        return movimientoRepository.saveAll(List.of(movimientos));
+    }
+
+    private static Movimiento movimiento(TipoMovimiento tipo, double monto, TipoMoneda moneda, String fecha) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setOrganizacionId(ORG);
+        movimiento.setTipo(tipo);
+        movimiento.setMontoTotal(monto);
+        movimiento.setMoneda(moneda);
+        movimiento.setFechaEmision(LocalDateTime.parse(fecha + "T12:00"));
+        return movimiento;
+    }
+
+    private List<String> filas() {
+        List<String> filas = new ArrayList<>();
+        jdbcTemplate.query("SELECT moneda, periodo, ingresos, egresos, cantidad, saldo_cierre FROM saldo_mensual "
+                        + "WHERE organizacion_id = ? ORDER BY moneda, periodo",
+                rs -> {
+                    filas.add(String.join(" ", rs.getString(1), rs.getString(2).substring(0, 7),
+                            String.valueOf(rs.getDouble(3)), String.valueOf(rs.getDouble(4)),
+                            String.valueOf(rs.getLong(5)), String.valueOf(rs.getDouble(6))));
+                }, ORG);
+        return filas;
+    }
+
+    // Sin @Configuration a propósito: RegistroApplication escanea todo "registro" y levantaría
+    // esta clase en los demás tests
+    @EntityScan("registro")
+    @EnableJpaRepositories(basePackageClasses = MovimientoRepository.class)
+    static class Config {
+    }
+}
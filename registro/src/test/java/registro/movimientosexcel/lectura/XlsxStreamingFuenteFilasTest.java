@@ -0,0 +1,231 @@
+package registro.movimientosexcel.lectura;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El lector en streaming de .xlsx tiene que entregar las mismas filas y celdas que el modelo
+ * de POI (WorkbookFactory) sobre el mismo archivo, que es lo que usaban los parsers antes.
+ */
+class XlsxStreamingFuenteFilasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 14);
+
+    @Test
+    @DisplayName("Lee los textos de la tabla de shared strings")
+    void sharedStrings() throws IOException {
+        byte[] xlsx = xlsx(new XSSFWorkbook(), hoja -> {
+            Row encabezado = hoja.createRow(0);
+            encabezado.createCell(0).setCellValue("Fecha");
+            encabezado.createCell(1).setCellValue("Descripción");
+            Row fila = hoja.createRow(1);
+            fila.createCell(0).setCellValue("Fecha");
+            fila.createCell(1).setCellValue("Café Martínez  ");
+        });
+
+        List<FilaExcel> filas = leer(xlsx);
+
+        assertThat(filas).hasSize(2);
+        assertThat(filas.get(0).getTexto(1)).isEqualTo("Descripción");
+        assertThat(filas.get(1).getTexto(0)).isEqualTo("Fecha");
+        assertThat(filas.get(1).getTexto(1)).isEqualTo("Café Martínez  ");
+        assertThat(filas.get(1).getCelda(1).esNumero()).isFalse();
+        assertIgualQueWorkbook(xlsx);
+    }
+
+    @Test
+    @DisplayName("Lee los textos inline (los que escribe SXSSF)")
+    void inlineStrings() throws IOException {
+        byte[] xlsx = xlsx(new SXSSFWorkbook(), hoja -> {
+            Row fila = hoja.createRow(0);
+            fila.createCell(0).setCellValue("Transferencia recibida");
+            fila.createCell(1).setCellValue("");
+            fila.createCell(2).setCellValue("línea\ncon salto");
+        });
+        assertThat(new String(xlsx, 0, 2)).isEqualTo("PK");
+
+        List<FilaExcel> filas = leer(xlsx);
+
+        assertThat(filas).hasSize(1);
+        assertThat(filas.get(0).getTexto(0)).isEqualTo("Transferencia recibida");
+        assertThat(filas.get(0).getCelda(1)).isNotNull();
+        assertThat(filas.get(0).getTexto(1)).isEmpty();
+        assertThat(filas.get(0).getTexto(2)).isEqualTo("línea\ncon salto");
+        assertIgualQueWorkbook(xlsx);
+    }
+
+    @Test
+    @DisplayName("Los números con formato de fecha traen la fecha y el texto formateado")
+    void fechasNumericas() throws IOException {
+        byte[] xlsx = xlsx(new XSSFWorkbook(), hoja -> {
+            Workbook wb = hoja.getWorkbook();
+            CellStyle fecha = estilo(wb, "dd/mm/yyyy");
+            CellStyle fechaHora = estilo(wb, "d/m/yy h:mm");
+            CellStyle importe = estilo(wb, "#,##0.00");
+            Row fila = hoja.createRow(0);
+            fila.createCell(0).setCellValue(DIA);
+            fila.getCell(0).setCellStyle(fecha);
+            fila.createCell(1).setCellValue(DIA.atTime(10, 30));
+            fila.getCell(1).setCellStyle(fechaHora);
+            fila.createCell(2).setCellValue(-1234.5);
+            fila.getCell(2).setCellStyle(importe);
+            fila.createCell(3).setCellValue(1500);
+            fila.createCell(4).setCellValue(true);
+        });
+
+        FilaExcel fila = leer(xlsx).get(0);
+
+        assertThat(fila.getCelda(0).esFecha()).isTrue();
+        assertThat(fila.getCelda(0).getFecha()).isEqualTo(DIA.atStartOfDay());
+        assertThat(fila.getTexto(0)).isEqualTo("14/03/2025");
+        assertThat(fila.getCelda(1).getFecha()).isEqualTo(LocalDateTime.of(2025, 3, 14, 10, 30));
+        assertThat(fila.getCelda(2).esFecha()).isFalse();
+        assertThat(fila.getCelda(2).getNumero()).isEqualTo(-1234.5);
+        assertThat(fila.getCelda(3).esNumero()).isTrue();
+        assertThat(fila.getTexto(3)).isEqualTo("1500");
+        assertThat(fila.getTexto(4)).isEqualTo("TRUE");
+        assertIgualQueWorkbook(xlsx);
+    }
+
+    @Test
+    @DisplayName("Las celdas y filas que faltan no corren las posiciones")
+    void celdasSalteadas() throws IOException {
+        byte[] xlsx = xlsx(new XSSFWorkbook(), hoja -> {
+            Row primera = hoja.createRow(0);
+            primera.createCell(0).setCellValue("a");
+            primera.createCell(3).setCellValue("d");
+            // Celda vacía pero con estilo: existe en el XML sin valor
+            primera.createCell(5).setCellStyle(estilo(hoja.getWorkbook(), "0.00"));
+            Row tercera = hoja.createRow(2);
+            tercera.createCell(2).setCellValue(7);
+        });
+
+        List<FilaExcel> filas = leer(xlsx);
+
+        assertThat(filas).extracting(FilaExcel::getIndice).containsExactly(0, 2);
+        FilaExcel primera = filas.get(0);
+        assertThat(primera.getUltimaColumna()).isEqualTo(6);
+        assertThat(primera.getCelda(1)).isNull();
+        assertThat(primera.getCelda(2)).isNull();
+        assertThat(primera.getTexto(2)).isEmpty();
+        assertThat(primera.getTexto(3)).isEqualTo("d");
+        assertThat(primera.getCelda(5)).isNotNull();
+        assertThat(primera.getCelda(5).esNumero()).isFalse();
+        assertThat(filas.get(1).getCelda(0)).isNull();
+        assertThat(filas.get(1).getCelda(2).getNumero()).isEqualTo(7.0);
+        assertIgualQueWorkbook(xlsx);
+    }
+
+    @Test
+    @DisplayName("Una hoja grande se recorre entera sin retener las filas ya leídas")
+    void hojaGrande() throws IOException {
+        int total = 100_000;
+        byte[] xlsx = xlsx(new SXSSFWorkbook(100), hoja -> {
+            CellStyle fecha = estilo(hoja.getWorkbook(), "dd/mm/yyyy");
+            for (int i = 0; i < total; i++) {
+                Row fila = hoja.createRow(i);
+                fila.createCell(0).setCellValue(DIA.plusDays(i % 365));
+                fila.getCell(0).setCellStyle(fecha);
+                fila.createCell(1).setCellValue("Movimiento " + i);
+                fila.createCell(3).setCellValue(i * 1.5);
+            }
+        });
+
+        try (FuenteFilas fuente = FuenteFilas.abrir(new ByteArrayInputStream(xlsx))) {
+            assertThat(fuente).isInstanceOf(XlsxStreamingFuenteFilas.class);
+            Iterator<FilaExcel> it = fuente.iterator();
+            WeakReference<FilaExcel> primera = new WeakReference<>(it.next());
+            int leidas = 1;
+            FilaExcel ultima = null;
+            while (it.hasNext()) {
+                ultima = it.next();
+                leidas++;
+            }
+
+            assertThat(leidas).isEqualTo(total);
+            assertThat(ultima.getIndice()).isEqualTo(total - 1);
+            assertThat(ultima.getTexto(1)).isEqualTo("Movimiento " + (total - 1));
+            assertThat(ultima.getCelda(2)).isNull();
+            assertThat(ultima.getCelda(3).getNumero()).isEqualTo((total - 1) * 1.5);
+            // El lector solo referencia la fila actual: las anteriores quedan para el GC
+            for (int i = 0; i < 10 && primera.get() != null; i++) {
+                System.gc();
+            }
+            assertThat(primera.get()).isNull();
+        }
+    }
+
+    /** Compara fila a fila el lector en streaming con el Workbook que arma WorkbookFactory. */
+    private void assertIgualQueWorkbook(byte[] xlsx) throws IOException {
+        List<String> workbook;
+        try (FuenteFilas fuente = new WorkbookFuenteFilas(WorkbookFactory.create(new ByteArrayInputStream(xlsx)))) {
+            workbook = describir(fuente);
+        }
+        List<String> streaming;
+        try (FuenteFilas fuente = new XlsxStreamingFuenteFilas(new ByteArrayInputStream(xlsx))) {
+            streaming = describir(fuente);
+        }
+        assertThat(streaming).isEqualTo(workbook);
+    }
+
+    private static List<String> describir(FuenteFilas fuente) {
+        List<String> filas = new ArrayList<>();
+        for (FilaExcel fila : fuente) {
+            StringBuilder sb = new StringBuilder().append(fila.getIndice()).append(':');
+            for (int c = 0; c < fila.getUltimaColumna(); c++) {
+                CeldaExcel celda = fila.getCelda(c);
+                sb.append(" [").append(c).append("] ");
+                sb.append(celda == null ? "null"
+                        : celda.getTexto() + " | " + celda.getNumero() + " | " + celda.getFecha());
+            }
+            filas.add(sb.toString());
+        }
+        return filas;
+    }
+
+    private static List<FilaExcel> leer(byte[] xlsx) throws IOException {
+        try (FuenteFilas fuente = FuenteFilas.abrir(new ByteArrayInputStream(xlsx))) {
+            assertThat(fuente).isInstanceOf(XlsxStreamingFuenteFilas.class);
+            List<FilaExcel> filas = new ArrayList<>();
+            fuente.forEach(filas::add);
+            return filas;
+        }
+    }
+
+    private static byte[] xlsx(Workbook wb, Consumer<Sheet> contenido) throws IOException {
+        try (wb; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            contenido.accept(wb.createSheet("Movimientos"));
+            wb.write(out);
+            if (wb instanceof SXSSFWorkbook sxssf) {
+                sxssf.dispose();
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static CellStyle estilo(Workbook wb, String formato) {
+        CellStyle style = wb.createCellStyle();
+        style.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat(formato));
+        return style;
+    }
+}
@@ -0,0 +1,84 @@
+package registro.movimientosexcel.services;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Sugerencia de categorías tal como la hacía {@link CategorySuggestionService} antes del autómata:
+ * un regex por patrón (las palabras clave unidas con "|") probado categoría por categoría.
+ * Las palabras y prioridades se leen del servicio, así que la referencia no se desfasa si cambian.
+ */
+final class CategoriasPorRegex {
+
+    private final Map<String, List<PatronRegex>> egresos;
+    private final Map<String, List<PatronRegex>> ingresos;
+
+    CategoriasPorRegex(CategorySuggestionService servicio) {
+        this.egresos = compilar(servicio, "patronesEgresos");
+        this.ingresos = compilar(servicio, "patronesIngresos");
+    }
+
+    String sugerirCategoria(String descripcion, TipoMovimiento tipo) {
+        if (descripcion == null || descripcion.trim().isEmpty()) {
+            return tipo == TipoMovimiento.Egreso
+                    ? CategorySuggestionService.CAT_OTROS_EGRESOS
+                    : CategorySuggestionService.CAT_OTROS_INGRESOS;
+        }
+        String descripcionLower = descripcion.toLowerCase().trim();
+        Map<String, List<PatronRegex>> patrones = tipo == TipoMovimiento.Egreso ? egresos : ingresos;
+
+        List<Map.Entry<String, Integer>> coincidencias = new ArrayList<>();
+        for (Map.Entry<String, List<PatronRegex>> entry : patrones.entrySet()) {
+            for (PatronRegex patron : entry.getValue()) {
+                if (patron.pattern().matcher(descripcionLower).find()) {
+                    coincidencias.add(Map.entry(entry.getKey(), patron.prioridad()));
+                    break; // Solo una coincidencia por categoría
+                }
+            }
+        }
+        if (!coincidencias.isEmpty()) {
+            coincidencias.sort(Comparator.comparingInt(c -> -c.getValue()));
+            return coincidencias.get(0).getKey();
+        }
+        return tipo == TipoMovimiento.Egreso
+                ? CategorySuggestionService.CAT_OTROS_EGRESOS
+                : CategorySuggestionService.CAT_OTROS_INGRESOS;
+    }
+
+    /** Todas las palabras clave del tipo, en el orden en que aparecen en el servicio. */
+    List<String> palabrasClave(TipoMovimiento tipo) {
+        return (tipo == TipoMovimiento.Egreso ? egresos : ingresos).values().stream()
+                .flatMap(List::stream)
+                .flatMap(patron -> patron.palabras().stream())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<PatronRegex>> compilar(CategorySuggestionService servicio, String campo) {
+        // Se respeta el orden de iteración del mapa del servicio: decide los empates de prioridad
+        Map<String, List<?>> patrones = (Map<String, List<?>>) ReflectionTestUtils.getField(servicio, campo);
+        Map<String, List<PatronRegex>> compilados = new LinkedHashMap<>();
+        for (Map.Entry<String, List<?>> entry : patrones.entrySet()) {
+            List<PatronRegex> lista = new ArrayList<>();
+            for (Object patron : entry.getValue()) {
+                List<String> palabras = (List<String>) ReflectionTestUtils.getField(patron, "palabrasClave");
+                int prioridad = (int) ReflectionTestUtils.getField(patron, "prioridad");
+                String regex = palabras.stream().map(Pattern::quote).collect(Collectors.joining("|"));
+                lista.add(new PatronRegex(palabras, prioridad, Pattern.compile(regex, Pattern.CASE_INSENSITIVE)));
+            }
+            compilados.put(entry.getKey(), lista);
+        }
+        return compilados;
+    }
+
+    private record PatronRegex(List<String> palabras, int prioridad, Pattern pattern) {
+    }
+}
@@ -0,0 +1,90 @@
+package registro.movimientosexcel.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de sugerir la categoría de una fila importada, por fila del corpus de descripciones
+ * bancarias: {@code porRegex} es la búsqueda que hacía {@link CategorySuggestionService}
+ * (un regex por patrón, categoría por categoría), {@code automata} la versión actual.
+ * Se corre con el {@code main}, con el classpath de test del módulo (desde el IDE o con
+ * {@code java -cp}, después de {@code mvn -pl registro -am test-compile}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategorySuggestionBenchmark {
+
+    @Param({"Egreso", "Ingreso"})
+    private TipoMovimiento tipo;
+
+    private List<String> descripciones;
+    private CategorySuggestionService servicio;
+    private CategoriasPorRegex porRegex;
+
+    @Setup
+    public void preparar() throws IOException {
+        descripciones = cargarDescripciones();
+        servicio = new CategorySuggestionService();
+        porRegex = new CategoriasPorRegex(servicio);
+        // Las dos variantes tienen que sugerir lo mismo para que la comparación valga
+        for (String descripcion : descripciones) {
+            if (!servicio.sugerirCategoria(descripcion, tipo).equals(porRegex.sugerirCategoria(descripcion, tipo))) {
+                throw new IllegalStateException("Las categorías no coinciden para: " + descripcion);
+            }
+        }
+    }
+
+    @Benchmark
+    public void porRegex(Blackhole bh) {
+        for (String descripcion : descripciones) {
+            bh.consume(porRegex.sugerirCategoria(descripcion, tipo));
+        }
+    }
+
+    @Benchmark
+    public void automata(Blackhole bh) {
+        for (String descripcion : descripciones) {
+            bh.consume(servicio.sugerirCategoria(descripcion, tipo));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CategorySuggestionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    static List<String> cargarDescripciones() throws IOException {
+        try (InputStream in = new ClassPathResource("categorias/descripciones.txt").getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .map(String::trim)
+                    .filter(linea -> !linea.isEmpty() && !linea.startsWith("#"))
+                    .toList();
+        }
+    }
+}
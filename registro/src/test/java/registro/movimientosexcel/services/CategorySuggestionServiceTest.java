@@ -0,0 +1,86 @@
+package registro.movimientosexcel.services;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import registro.cargarDatos.models.TipoMovimiento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El autómata tiene que elegir la misma categoría que la búsqueda por regex de cada patrón
+ * ({@link CategoriasPorRegex}): descripciones reales del corpus, cada palabra clave sola y
+ * rodeada de texto, y combinaciones de varias palabras de categorías distintas.
+ */
+class CategorySuggestionServiceTest {
+
+    private static CategorySuggestionService servicio;
+    private static CategoriasPorRegex referencia;
+
+    @BeforeAll
+    static void setUp() {
+        servicio = new CategorySuggestionService();
+        referencia = new CategoriasPorRegex(servicio);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TipoMovimiento.class)
+    void coincideConLaBusquedaPorRegex(TipoMovimiento tipo) throws Exception {
+        List<String> descripciones = descripciones(tipo);
+
+        for (String descripcion : descripciones) {
+            assertThat(servicio.sugerirCategoria(descripcion, tipo))
+                    .as("%s: %s", tipo, descripcion)
+                    .isEqualTo(referencia.sugerirCategoria(descripcion, tipo));
+        }
+        assertThat(servicio.sugerirCategorias(descripciones, tipo))
+                .isEqualTo(descripciones.stream().map(d -> referencia.sugerirCategoria(d, tipo)).toList());
+    }
+
+    @Test
+    void sinDescripcionDevuelveLaCategoriaPorDefecto() {
+        assertThat(servicio.sugerirCategoria(null, TipoMovimiento.Egreso))
+                .isEqualTo(CategorySuggestionService.CAT_OTROS_EGRESOS);
+        assertThat(servicio.sugerirCategoria("   ", TipoMovimiento.Ingreso))
+                .isEqualTo(CategorySuggestionService.CAT_OTROS_INGRESOS);
+        assertThat(servicio.sugerirCategoria("xyz 000", TipoMovimiento.Egreso))
+                .isEqualTo(CategorySuggestionService.CAT_OTROS_EGRESOS);
+    }
+
+    @Test
+    void ganaLaCategoriaDeMayorPrioridad() {
+        // "uber" (Transporte, 10) contra "comida" (Alimentos, 7)
+        assertThat(servicio.sugerirCategoria("UBER comida", TipoMovimiento.Egreso))
+                .isEqualTo(CategorySuggestionService.CAT_TRANSPORTE);
+        // "honorario" (Prestación de Servicios, 10) contra "transferencia" (Transferencias Recibidas, 8)
+        assertThat(servicio.sugerirCategoria("Transferencia honorarios", TipoMovimiento.Ingreso))
+                .isEqualTo(CategorySuggestionService.CAT_PRESTACION_SERVICIOS);
+    }
+
+    static List<String> descripciones(TipoMovimiento tipo) throws Exception {
+        List<String> descripciones = new ArrayList<>(CategorySuggestionBenchmark.cargarDescripciones());
+        descripciones.add("");
+        List<String> palabras = referencia.palabrasClave(tipo);
+        for (String palabra : palabras) {
+            descripciones.add(palabra);
+            descripciones.add(palabra.toUpperCase());
+            descripciones.add("PAGO " + palabra.toUpperCase() + " 0042");
+            descripciones.add("x" + palabra + "x");
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder sb = new StringBuilder("mov");
+            int cantidad = 1 + random.nextInt(4);
+            for (int j = 0; j < cantidad; j++) {
+                sb.append(random.nextBoolean() ? ' ' : '*').append(palabras.get(random.nextInt(palabras.size())));
+            }
+            descripciones.add(sb.toString());
+        }
+        return descripciones;
+    }
+}
@@ -0,0 +1,109 @@
+package registro.movimientosexcel.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import registro.cargarDatos.models.Movimiento;
+import registro.cargarDatos.models.TipoMoneda;
+import registro.cargarDatos.models.TipoMovimiento;
+import registro.cargarDatos.repositories.MovimientoRepository;
+import registro.movimientosexcel.dtos.RegistroPreviewDTO;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * La detección dentro del archivo y la detección contra la base tienen que coincidir: un
+ * registro repetido en el archivo es duplicado si y solo si, ya guardado el primero, la base
+ * lo marcaría como existente por huella_duplicado.
+ */
+class DuplicateDetectionServiceTest {
+
+    private static final Long ORG = 3L;
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 14);
+
+    private DuplicateDetectionService service;
+    private final Set<String> huellasGuardadas = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        MovimientoRepository repository = mock(MovimientoRepository.class);
+        when(repository.buscarHuellasExistentes(eq(ORG), anyCollection())).thenAnswer(inv -> {
+            Collection<String> pedidas = inv.getArgument(1);
+            return pedidas.stream().filter(huellasGuardadas::contains).collect(Collectors.toSet());
+        });
+        service = new DuplicateDetectionService();
+        ReflectionTestUtils.setField(service, "movimientoRepository", repository);
+    }
+
+    static Stream<Arguments> pares() {
+        return Stream.of(
+                Arguments.of(registro(DIA, 100.0, "Pago proveedor", "Banco"),
+                        registro(DIA, 100.0, "Pago proveedor", "Banco"), true),
+                Arguments.of(registro(DIA, 1500.0, "Café Martínez", "Banco Nación"),
+                        registro(DIA, 1500.0, "CAFE  MARTINEZ ", "banco nacion"), true),
+                Arguments.of(registro(DIA, 10.0, "Transferencia recibida", null),
+                        registro(DIA, 10.0, "Transferencia recibida", ""), true),
+                Arguments.of(registro(DIA, 100.0, "x", "y"),
+                        registro(DIA, 100.004, "x", "y"), true),
+                Arguments.of(registro(DIA, 100.0, "x", "y"),
+                        registro(DIA, 100.01, "x", "y"), false),
+                Arguments.of(registro(DIA, 100.0, "x", "y"),
+                        registro(DIA.plusDays(1), 100.0, "x", "y"), false),
+                Arguments.of(registro(DIA, 100.0, "Pago", "Banco"),
+                        registro(DIA, 100.0, "Pago", "Mercado Pago"), false));
+    }
+
+    @ParameterizedTest
+    @MethodSource("pares")
+    void archivoYBaseCoinciden(RegistroPreviewDTO primero, RegistroPreviewDTO segundo, boolean duplicado) {
+        // En el mismo archivo
+        RegistroPreviewDTO enArchivo = copia(segundo);
+        RegistroPreviewDTO original = copia(primero);
+        original.setFilaExcel(2);
+        enArchivo.setFilaExcel(3);
+        service.marcarDuplicadosEnArchivo(List.of(original, enArchivo));
+
+        // Con el primero ya guardado en la base (huella calculada por la entidad, como al persistir)
+        huellasGuardadas.add(guardado(primero).getHuellaDuplicado());
+        RegistroPreviewDTO contraBase = copia(segundo);
+        service.detectarDuplicadosEnBD(List.of(contraBase), ORG);
+
+        assertThat(Boolean.TRUE.equals(enArchivo.getEsDuplicado())).isEqualTo(duplicado);
+        assertThat(Boolean.TRUE.equals(contraBase.getEsDuplicado())).isEqualTo(duplicado);
+    }
+
+    private static Movimiento guardado(RegistroPreviewDTO registro) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setOrganizacionId(ORG);
+        movimiento.setFechaEmision(registro.getFechaEmision().atTime(9, 30));
+        movimiento.setMontoTotal(registro.getMontoTotal());
+        movimiento.setDescripcion(registro.getDescripcion());
+        movimiento.setOrigenNombre(registro.getOrigen());
+        movimiento.recalcularHuellaDuplicado();
+        return movimiento;
+    }
+
+    private static RegistroPreviewDTO registro(LocalDate fecha, Double monto, String descripcion, String origen) {
+        return new RegistroPreviewDTO(null, TipoMovimiento.Egreso, monto, fecha, descripcion, origen, null, TipoMoneda.ARS);
+    }
+
+    private static RegistroPreviewDTO copia(RegistroPreviewDTO registro) {
+        return new RegistroPreviewDTO(registro.getFilaExcel(), registro.getTipo(), registro.getMontoTotal(),
+                registro.getFechaEmision(), registro.getDescripcion(), registro.getOrigen(),
+                registro.getMedioPago(), registro.getMoneda());
+    }
+}
@@ -0,0 +1,185 @@
+package registro.movimientosexcel.services;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import registro.cargarDatos.repositories.MovimientoRepository;
+import registro.movimientosexcel.dtos.PreviewDataDTO;
+import registro.services.AdministracionService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cada parser de banco tiene que dar el mismo preview si el archivo llega como .xlsx (lector
+ * en streaming) o como .xls con el mismo contenido (Workbook de WorkbookFactory).
+ */
+class ExcelImportServiceLecturaTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 14);
+    private static final String CONFIG_EXCEL_LIBRE =
+            "{\"columnMap\":{\"fecha\":2,\"descripcion\":4,\"monto\":6},\"dataStartRow\":2}";
+
+    private ExcelImportService service;
+
+    @BeforeEach
+    void setUp() {
+        MovimientoRepository movimientoRepository = mock(MovimientoRepository.class);
+        when(movimientoRepository.buscarHuellasExistentes(any(), anyCollection())).thenReturn(Set.of());
+        DuplicateDetectionService duplicateDetectionService = new DuplicateDetectionService();
+        ReflectionTestUtils.setField(duplicateDetectionService, "movimientoRepository", movimientoRepository);
+        AdministracionService administracionService = mock(AdministracionService.class);
+        when(administracionService.obtenerEmpresaIdPorUsuarioSub(anyString())).thenReturn(1L);
+
+        service = new ExcelImportService();
+        ReflectionTestUtils.setField(service, "duplicateDetectionService", duplicateDetectionService);
+        ReflectionTestUtils.setField(service, "categorySuggestionService", new CategorySuggestionService());
+        ReflectionTestUtils.setField(service, "administracionService", administracionService);
+    }
+
+    static Stream<Arguments> bancos() {
+        return Stream.of(
+                Arguments.of("mycfo", (Function<Workbook, Sheet>) ExcelImportServiceLecturaTest::mycfo),
+                Arguments.of("excel-libre", (Function<Workbook, Sheet>) ExcelImportServiceLecturaTest::excelLibre),
+                Arguments.of("mercado-pago", (Function<Workbook, Sheet>) ExcelImportServiceLecturaTest::mercadoPago),
+                Arguments.of("galicia", (Function<Workbook, Sheet>) ExcelImportServiceLecturaTest::galicia),
+                Arguments.of("nacion", (Function<Workbook, Sheet>) ExcelImportServiceLecturaTest::nacion),
+                Arguments.of("santander", (Function<Workbook, Sheet>) ExcelImportServiceLecturaTest::santander));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("bancos")
+    void mismoPreviewConStreamingQueConWorkbook(String tipoOrigen, Function<Workbook, Sheet> contenido) throws IOException {
+        PreviewDataDTO streaming = preview(tipoOrigen, "movimientos.xlsx", escribir(new XSSFWorkbook(), contenido));
+        PreviewDataDTO workbook = preview(tipoOrigen, "movimientos.xls", escribir(new HSSFWorkbook(), contenido));
+
+        assertThat(streaming.getRegistros()).isNotEmpty();
+        assertThat(streaming.getErrores()).noneMatch(e -> e.getFila() == 0);
+        assertThat(streaming).usingRecursiveComparison().isEqualTo(workbook);
+    }
+
+    private PreviewDataDTO preview(String tipoOrigen, String nombre, byte[] contenido) {
+        MockMultipartFile file = new MockMultipartFile("file", nombre, null, contenido);
+        return service.procesarArchivoParaPreview(file, tipoOrigen, "sub", CONFIG_EXCEL_LIBRE);
+    }
+
+    // Encabezado en la fila 0; fecha, descripción, monto y medio de pago desde la columna 1
+    private static Sheet mycfo(Workbook wb) {
+        Sheet hoja = wb.createSheet();
+        fila(hoja, 0, null, "Fecha", "Descripción", "Monto", "Medio de pago");
+        fila(hoja, 1, null, DIA, "Supermercado Día", -1520.75, "Tarjeta");
+        fila(hoja, 2, null, "2025-03-15", "Cobro factura 12", 85000, "Transferencia");
+        fila(hoja, 4, null, DIA, 4711, 300, "Efectivo");
+        fila(hoja, 5, null, DIA, "Sin medio de pago", 10);
+        return hoja;
+    }
+
+    private static Sheet excelLibre(Workbook wb) {
+        Sheet hoja = wb.createSheet();
+        fila(hoja, 0, null, "Fecha", null, "Concepto", null, "Importe");
+        fila(hoja, 1, null, DIA, null, "Pago proveedor", null, -2500);
+        fila(hoja, 2, null, "15/03/2025", null, "Venta mostrador", null, "1234.5");
+        fila(hoja, 3);
+        fila(hoja, 4, null, DIA, null, null, null, 10);
+        return hoja;
+    }
+
+    private static Sheet mercadoPago(Workbook wb) {
+        Sheet hoja = wb.createSheet();
+        fila(hoja, 0, "Reporte de liberaciones");
+        fila(hoja, 3, "RELEASE_DATE", "TRANSACTION_TYPE", "TRANSACTION_NET_AMOUNT");
+        fila(hoja, 4, DIA, "Venta", "1.500,25");
+        fila(hoja, 5, "15-03-2025", "Retiro", "-800");
+        fila(hoja, 7, DIA, "Comisión", 12);
+        fila(hoja, 8, "", "", "");
+        return hoja;
+    }
+
+    private static Sheet galicia(Workbook wb) {
+        Sheet hoja = wb.createSheet();
+        fila(hoja, 0, "Banco Galicia - Últimos movimientos");
+        fila(hoja, 2, "Fecha", "Movimiento", "Débito", "Crédito", "Saldo");
+        fila(hoja, 3, DIA, "Transferencia recibida", null, "25.000,00", "25.000,00");
+        fila(hoja, 4, "15/03/2025", "Pago de servicios", "3.200,50", null, "21.799,50");
+        fila(hoja, 6, DIA, "Sin importes", null, null);
+        return hoja;
+    }
+
+    private static Sheet nacion(Workbook wb) {
+        Sheet hoja = wb.createSheet();
+        fila(hoja, 0, "Banco de la Nación Argentina");
+        fila(hoja, 2, "Fecha", "Hora", "Descripcion", null, null, "Debito", "Credito");
+        fila(hoja, 3, DIA, "10:30", "Compra con débito", null, null, "1.234,56", null);
+        fila(hoja, 4, "15/03/25", null, "Acreditación de haberes", null, null, null, 450000);
+        fila(hoja, 5, DIA, "11:00", "Sin importes");
+        fila(hoja, 6, DIA, null, "Saldo final", null, null, null, 1);
+        fila(hoja, 7, DIA, null, "Después del saldo", null, null, 5, null);
+        return hoja;
+    }
+
+    private static Sheet santander(Workbook wb) {
+        Sheet hoja = wb.createSheet();
+        fila(hoja, 1, null, "Fecha", null, "Descripción", "Referencia", "Caja de Ahorro ", "Cuenta Corriente");
+        fila(hoja, 2, null, DIA, null, "Transferencia a terceros", "REF-1", "-15.000,00", null);
+        fila(hoja, 3, null, "15/03/2025", null, "Depósito", 778899, null, 3200.5);
+        fila(hoja, 4, null, DIA, null, "Sin monto", "REF-3", "0", "");
+        fila(hoja, 6, null, DIA, null, "Saldo total", null, 1, null);
+        return hoja;
+    }
+
+    /** Escribe una fila con textos, números y fechas (estas con formato dd/mm/yyyy); null deja la celda sin crear. */
+    private static void fila(Sheet hoja, int indice, Object... valores) {
+        Row row = hoja.createRow(indice);
+        for (int c = 0; c < valores.length; c++) {
+            Object valor = valores[c];
+            if (valor instanceof String s) {
+                row.createCell(c).setCellValue(s);
+            } else if (valor instanceof Number n) {
+                row.createCell(c).setCellValue(n.doubleValue());
+            } else if (valor instanceof LocalDate d) {
+                row.createCell(c).setCellValue(d);
+                row.getCell(c).setCellStyle(estiloFecha(hoja.getWorkbook()));
+            }
+        }
+    }
+
+    private static CellStyle estiloFecha(Workbook wb) {
+        for (int i = 0; i < wb.getNumCellStyles(); i++) {
+            CellStyle style = wb.getCellStyleAt(i);
+            if ("dd/mm/yyyy".equals(style.getDataFormatString())) {
+                return style;
+            }
+        }
+        CellStyle style = wb.createCellStyle();
+        style.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+        return style;
+    }
+
+    private static byte[] escribir(Workbook wb, Function<Workbook, Sheet> contenido) throws IOException {
+        try (wb; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            contenido.apply(wb);
+            wb.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package reporte.dtos;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Página leída por cursor desde /movimientos/cursor de Registro
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hayMas;
+    private LocalDateTime siguienteFecha;
+    private Long siguienteId;
+
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+
+    public LocalDateTime getSiguienteFecha() { return siguienteFecha; }
+    public void setSiguienteFecha(LocalDateTime siguienteFecha) { this.siguienteFecha = siguienteFecha; }
+
+    public Long getSiguienteId() { return siguienteId; }
+    public void setSiguienteId(Long siguienteId) { this.siguienteId = siguienteId; }
+}
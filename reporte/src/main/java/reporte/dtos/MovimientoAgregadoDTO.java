@@ -0,0 +1,37 @@
+package reporte.dtos;
+
+// Fila agregada (mes, tipo, categoría, moneda) de /movimientos/resumen/agregado en Registro
+public class MovimientoAgregadoDTO {
+    private int anio;
+    private int mes; // 1..12
+    private String tipo;
+    private String categoria;
+    private String moneda;
+    private Double total;          // suma algebraica (egresos negativos)
+    private Double totalAbsoluto;  // suma de valores absolutos
+    private long cantidad;
+
+    public int getAnio() { return anio; }
+    public void setAnio(int anio) { this.anio = anio; }
+
+    public int getMes() { return mes; }
+    public void setMes(int mes) { this.mes = mes; }
+
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+
+    public String getMoneda() { return moneda; }
+    public void setMoneda(String moneda) { this.moneda = moneda; }
+
+    public Double getTotal() { return total; }
+    public void setTotal(Double total) { this.total = total; }
+
+    public Double getTotalAbsoluto() { return totalAbsoluto; }
+    public void setTotalAbsoluto(Double totalAbsoluto) { this.totalAbsoluto = totalAbsoluto; }
+
+    public long getCantidad() { return cantidad; }
+    public void setCantidad(long cantidad) { this.cantidad = cantidad; }
+}
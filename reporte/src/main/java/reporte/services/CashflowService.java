@@ -1,16 +1,10 @@
 package reporte.services;
 
+import clientehttp.ClientesHttp;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.server.ResponseStatusException;
+import reporte.dtos.MovimientoAgregadoDTO;
 import reporte.dtos.RegistroDTO;
 
 import java.time.LocalDate;
@@ -23,7 +17,14 @@ public class CashflowService {
     @Value("${mycfo.registro.url}")
     private String registroUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    private final RegistroMovimientosClient registroMovimientosClient;
+
+    public CashflowService(ClientesHttp clientesHttp, RegistroMovimientosClient registroMovimientosClient) {
+        this.restTemplate = clientesHttp.para("registro");
+        this.registroMovimientosClient = registroMovimientosClient;
+    }
 
     public List<RegistroDTO> obtenerRegistrosPorAnio(int anio) {
         String url = registroUrl + "/registros";
@@ -56,56 +57,36 @@ public class CashflowService {
     public List<RegistroDTO> obtenerRegistrosPorAnio(int anio, String userSub, String moneda, String authorization) {
         LocalDate desde = LocalDate.of(anio, 1, 1);
         LocalDate hasta = LocalDate.of(anio, 12, 31);
-        String url = registroUrl + "/movimientos?fechaDesde=" + desde +
-                "&fechaHasta=" + hasta +
-                "&tipos=Ingreso&tipos=Egreso&page=0&size=1000&sortBy=fechaEmision&sortDir=asc";
 
-        if (moneda != null && !moneda.isBlank()) {
-            url = url + "&moneda=" + moneda;
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        if (userSub != null) {
-            headers.add("X-Usuario-Sub", userSub);
-        }
-        if (authorization != null && !authorization.isBlank()) {
-            headers.add("Authorization", authorization);
-        }
-
-        ResponseEntity<reporte.dtos.PageResponse<RegistroDTO>> response;
-        try {
-            response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    new ParameterizedTypeReference<reporte.dtos.PageResponse<RegistroDTO>>() {
-                    });
-        } catch (HttpClientErrorException e) {
-            var status = e.getStatusCode();
-            if (status.value() == HttpStatus.UNAUTHORIZED.value() || status.value() == HttpStatus.FORBIDDEN.value()) {
-                throw new ResponseStatusException(status, "No autorizado al consultar movimientos en Registro", e);
+        List<RegistroDTO> resultado = new ArrayList<>();
+        registroMovimientosClient.recorrerMovimientos(desde, hasta, moneda, userSub, authorization, pagina -> {
+            for (RegistroDTO r : pagina) {
+                if (esMovimientoDeCajaDelAnio(r, anio)) {
+                    resultado.add(r);
+                }
             }
-            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Error consultando movimientos en Registro", e);
-        }
-
-        List<RegistroDTO> lista = Optional.ofNullable(response.getBody())
-                .map(reporte.dtos.PageResponse::getContent)
-                .orElse(List.of());
-
-        List<String> mediosValidos = List.of("Efectivo", "Transferencia", "MercadoPago");
-
-        return lista.stream()
-                .filter(r -> r.getFechaEmision() != null
-                        && r.getFechaEmision().toLocalDate().getYear() == anio
-                        && r.getTipo() != null
-                        && ("Ingreso".equalsIgnoreCase(r.getTipo()) || "Egreso".equalsIgnoreCase(r.getTipo())))
-                // && r.getMedioPago() != null
-                // && mediosValidos.contains(r.getMedioPago()))
-                .collect(Collectors.toList());
+        });
+        return resultado;
     }
 
     public reporte.dtos.CashflowDTO obtenerResumenAnual(int anio, String userSub, String moneda, String authorization) {
-        List<RegistroDTO> movimientos = obtenerRegistrosPorAnio(anio, userSub, moneda, authorization);
+        final String targetMoneda = (moneda != null && !moneda.isBlank()) ? moneda : "ARS";
+        // Ingresos/egresos por mes proyectados desde el agregado de Registro (índice 0 = enero)
+        double[] ingresosMensuales = new double[12];
+        double[] egresosMensuales = new double[12];
+
+        for (MovimientoAgregadoDTO fila : registroMovimientosClient.obtenerAgregado(anio, null, targetMoneda, userSub, authorization)) {
+            if (fila.getAnio() != anio || fila.getMes() < 1 || fila.getMes() > 12
+                    || !targetMoneda.equalsIgnoreCase(fila.getMoneda())) {
+                continue;
+            }
+            double monto = fila.getTotalAbsoluto() != null ? fila.getTotalAbsoluto() : 0.0;
+            if ("Ingreso".equalsIgnoreCase(fila.getTipo())) {
+                ingresosMensuales[fila.getMes() - 1] += monto;
+            } else if ("Egreso".equalsIgnoreCase(fila.getTipo())) {
+                egresosMensuales[fila.getMes() - 1] += monto;
+            }
+        }
 
         double saldoInicial = 0.0; // En una versión futura esto podría venir de un balance inicial configurado
         List<reporte.dtos.MesCashflowDTO> meses = new ArrayList<>();
@@ -113,25 +94,8 @@ public class CashflowService {
         double saldoAcumulado = saldoInicial;
 
         for (int m = 1; m <= 12; m++) {
-            final int mesActual = m;
-            List<RegistroDTO> movsMes = movimientos.stream()
-                    .filter(r -> r.getFechaEmision() != null
-                            && r.getFechaEmision().toLocalDate().getMonthValue() == mesActual)
-                    .collect(Collectors.toList());
-
-            final String targetMoneda = (moneda != null && !moneda.isBlank()) ? moneda : "ARS";
-
-            double ingresos = movsMes.stream()
-                    .filter(r -> "Ingreso".equalsIgnoreCase(r.getTipo()))
-                    .filter(r -> targetMoneda.equalsIgnoreCase(r.getMoneda()))
-                    .mapToDouble(r -> r.getMontoTotal() != null ? Math.abs(r.getMontoTotal()) : 0.0)
-                    .sum();
-
-            double egresos = movsMes.stream()
-                    .filter(r -> "Egreso".equalsIgnoreCase(r.getTipo()))
-                    .filter(r -> targetMoneda.equalsIgnoreCase(r.getMoneda()))
-                    .mapToDouble(r -> r.getMontoTotal() != null ? Math.abs(r.getMontoTotal()) : 0.0)
-                    .sum();
+            double ingresos = ingresosMensuales[m - 1];
+            double egresos = egresosMensuales[m - 1];
 
             double netCashFlow = ingresos - egresos;
             double cashOnHandInicio = saldoAcumulado;
@@ -145,4 +109,12 @@ public class CashflowService {
 
         return new reporte.dtos.CashflowDTO(anio, saldoInicial, meses);
     }
+
+    // Solo ingresos y egresos con fecha dentro del año
+    private boolean esMovimientoDeCajaDelAnio(RegistroDTO r, int anio) {
+        return r.getFechaEmision() != null
+                && r.getFechaEmision().toLocalDate().getYear() == anio
+                && r.getTipo() != null
+                && ("Ingreso".equalsIgnoreCase(r.getTipo()) || "Egreso".equalsIgnoreCase(r.getTipo()));
+    }
 }
@@ -1,13 +1,11 @@
 package reporte.services;
 
+import clientehttp.ClientesHttp;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import reporte.dtos.DetalleCategoriaDTO;
+import reporte.dtos.MovimientoAgregadoDTO;
 import reporte.dtos.ProfitAndLossDTO;
 import reporte.dtos.ProfitAndLossDTO.DocumentoComercialDTO;
 
@@ -20,7 +18,14 @@ public class ProfitAndLossService {
     @Value("${mycfo.registro.url}")
     private String registroUrl; // Ej: http://localhost:8086
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    private final RegistroMovimientosClient registroMovimientosClient;
+
+    public ProfitAndLossService(ClientesHttp clientesHttp, RegistroMovimientosClient registroMovimientosClient) {
+        this.restTemplate = clientesHttp.para("registro");
+        this.registroMovimientosClient = registroMovimientosClient;
+    }
 
     public ProfitAndLossDTO obtenerFacturasPorAnio(int anio) {
         String url = registroUrl + "/documentos-comerciales";
@@ -87,60 +92,25 @@ public class ProfitAndLossService {
     }
 
     public ProfitAndLossDTO obtenerFacturasPorAnio(int anio, String userSub, String moneda, String authorization) {
-        // Para evitar tocar otros módulos, basamos P&L en movimientos filtrados por usuario/empresa
-        // y calculamos ingresos/egresos mensuales por Categoría, usando DEVENGADO (fecha del documento comercial)
-        var desde = java.time.LocalDate.of(anio, 1, 1);
-        var hasta = java.time.LocalDate.of(anio, 12, 31);
-        String url = registroUrl + "/movimientos?fechaDesde=" + desde +
-                "&fechaHasta=" + hasta +
-                "&tipos=Ingreso&tipos=Egreso&page=0&size=1000&sortBy=fechaEmision&sortDir=asc";
-
-        if (moneda != null && !moneda.isBlank()) {
-            url = url + "&moneda=" + moneda;
-        }
-
+        // P&L basado en movimientos de la empresa: Registro agrupa por mes/tipo/categoría/moneda
+        // y aquí solo se proyectan ingresos/egresos mensuales y por categoría
         try {
-            HttpHeaders headers = new HttpHeaders();
-            if (userSub != null) {
-                headers.add("X-Usuario-Sub", userSub);
-            }
-            if (authorization != null && !authorization.isBlank()) {
-                headers.add("Authorization", authorization);
-            }
-            ResponseEntity<reporte.dtos.PageResponse<reporte.dtos.RegistroDTO>> res = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    new org.springframework.core.ParameterizedTypeReference<reporte.dtos.PageResponse<reporte.dtos.RegistroDTO>>() {}
-            );
-            java.util.List<reporte.dtos.RegistroDTO> movimientos = java.util.Optional.ofNullable(res.getBody())
-                    .map(reporte.dtos.PageResponse::getContent)
-                    .orElse(java.util.List.of());
-
             double[] ingresosMensuales = new double[12];
             double[] egresosMensuales = new double[12];
             java.util.Map<String, Double> ingresosPorCategoria = new java.util.HashMap<>();
             java.util.Map<String, Double> egresosPorCategoria = new java.util.HashMap<>();
 
-            for (reporte.dtos.RegistroDTO mov : movimientos) {
-                if (mov.getMontoTotal() == null || mov.getTipo() == null) continue;
-
-                java.time.LocalDate fechaDevengado = (mov.getDocumentoComercial() != null && mov.getDocumentoComercial().getFechaEmision() != null)
-                        ? mov.getDocumentoComercial().getFechaEmision().toLocalDate()
-                        : (mov.getFechaEmision() != null ? mov.getFechaEmision().toLocalDate() : null);
-                if (fechaDevengado == null) continue;
+            for (MovimientoAgregadoDTO fila : registroMovimientosClient.obtenerAgregado(anio, null, moneda, userSub, authorization)) {
+                if (fila.getTotal() == null || fila.getTipo() == null || fila.getMes() < 1 || fila.getMes() > 12) continue;
 
-                int mes = fechaDevengado.getMonthValue() - 1;
-                double monto = mov.getMontoTotal();
-                String categoria = java.util.Optional
-                        .ofNullable(mov.getCategoria())
-                        .or(() -> java.util.Optional.ofNullable(mov.getDocumentoComercial()).map(reporte.dtos.RegistroDTO.DocumentoDTO::getCategoria))
-                        .orElse("Sin Categoría");
+                int mes = fila.getMes() - 1;
+                double monto = fila.getTotal();
+                String categoria = Optional.ofNullable(fila.getCategoria()).orElse("Sin Categoría");
 
-                if ("Ingreso".equalsIgnoreCase(mov.getTipo())) {
+                if ("Ingreso".equalsIgnoreCase(fila.getTipo())) {
                     ingresosMensuales[mes] += monto;
                     ingresosPorCategoria.put(categoria, ingresosPorCategoria.getOrDefault(categoria, 0.0) + monto);
-                } else if ("Egreso".equalsIgnoreCase(mov.getTipo())) {
+                } else if ("Egreso".equalsIgnoreCase(fila.getTipo())) {
                     egresosMensuales[mes] += monto;
                     egresosPorCategoria.put(categoria, egresosPorCategoria.getOrDefault(categoria, 0.0) + monto);
                 }
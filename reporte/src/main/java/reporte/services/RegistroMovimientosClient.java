@@ -0,0 +1,148 @@
+package reporte.services;
+
+import clientehttp.ClientesHttp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reporte.dtos.CursorPageResponse;
+import reporte.dtos.MovimientoAgregadoDTO;
+import reporte.dtos.RegistroDTO;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Acceso a los movimientos de Registro para los reportes.
+ * - obtenerAgregado: montos ya agrupados por mes/tipo/categoría/moneda (una query en Registro).
+ * - recorrerMovimientos: lectura incremental por cursor; cada página se entrega al
+ *   consumidor y se descarta, así el consumo de memoria no depende del rango.
+ */
+@Service
+public class RegistroMovimientosClient {
+
+    private static final int TAMANIO_PAGINA = 500;
+
+    @Value("${mycfo.registro.url}")
+    private String registroUrl;
+
+    private final RestTemplate restTemplate;
+
+    public RegistroMovimientosClient(ClientesHttp clientesHttp) {
+        this.restTemplate = clientesHttp.para("registro");
+    }
+
+    public List<MovimientoAgregadoDTO> obtenerAgregado(int anio, Integer mes, String moneda, String userSub,
+            String authorization) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(registroUrl)
+                .path("/movimientos/resumen/agregado")
+                .queryParam("anio", anio)
+                .queryParam("tipos", "Ingreso", "Egreso");
+
+        if (mes != null) {
+            builder.queryParam("mes", mes);
+        }
+        if (moneda != null && !moneda.isBlank()) {
+            builder.queryParam("moneda", moneda);
+        }
+        URI uri = builder.encode().build().toUri();
+
+        try {
+            ResponseEntity<List<MovimientoAgregadoDTO>> response = restTemplate.exchange(
+                    uri,
+                    HttpMethod.GET,
+                    new HttpEntity<>(construirHeaders(userSub, authorization)),
+                    new ParameterizedTypeReference<List<MovimientoAgregadoDTO>>() {
+                    });
+            return Optional.ofNullable(response.getBody()).orElse(List.of());
+        } catch (HttpClientErrorException e) {
+            throw traducirError(e);
+        }
+    }
+
+    public void recorrerMovimientos(LocalDate desde, LocalDate hasta, String moneda, String userSub,
+            String authorization, Consumer<List<RegistroDTO>> consumidorPagina) {
+        HttpEntity<Void> request = new HttpEntity<>(construirHeaders(userSub, authorization));
+
+        LocalDateTime cursorFecha = null;
+        Long cursorId = null;
+        boolean hayMas = true;
+
+        while (hayMas) {
+            CursorPageResponse<RegistroDTO> pagina = leerPagina(desde, hasta, moneda, cursorFecha, cursorId, request);
+            if (pagina == null) {
+                return;
+            }
+
+            if (pagina.getContent() != null && !pagina.getContent().isEmpty()) {
+                consumidorPagina.accept(pagina.getContent());
+            }
+
+            hayMas = pagina.isHayMas() && pagina.getSiguienteFecha() != null && pagina.getSiguienteId() != null;
+            cursorFecha = pagina.getSiguienteFecha();
+            cursorId = pagina.getSiguienteId();
+        }
+    }
+
+    private CursorPageResponse<RegistroDTO> leerPagina(LocalDate desde, LocalDate hasta, String moneda,
+            LocalDateTime cursorFecha, Long cursorId, HttpEntity<Void> request) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(registroUrl)
+                .path("/movimientos/cursor")
+                .queryParam("fechaDesde", desde)
+                .queryParam("fechaHasta", hasta)
+                .queryParam("tipos", "Ingreso", "Egreso")
+                .queryParam("size", TAMANIO_PAGINA);
+
+        if (moneda != null && !moneda.isBlank()) {
+            builder.queryParam("moneda", moneda);
+        }
+        if (cursorFecha != null && cursorId != null) {
+            builder.queryParam("cursorFecha", cursorFecha)
+                    .queryParam("cursorId", cursorId);
+        }
+        URI uri = builder.encode().build().toUri();
+
+        try {
+            ResponseEntity<CursorPageResponse<RegistroDTO>> response = restTemplate.exchange(
+                    uri,
+                    HttpMethod.GET,
+                    request,
+                    new ParameterizedTypeReference<CursorPageResponse<RegistroDTO>>() {
+                    });
+            return response.getBody();
+        } catch (HttpClientErrorException e) {
+            throw traducirError(e);
+        }
+    }
+
+    private HttpHeaders construirHeaders(String userSub, String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        if (userSub != null) {
+            headers.add("X-Usuario-Sub", userSub);
+        }
+        if (authorization != null && !authorization.isBlank()) {
+            headers.add("Authorization", authorization);
+        }
+        return headers;
+    }
+
+    private ResponseStatusException traducirError(HttpClientErrorException e) {
+        var status = e.getStatusCode();
+        if (status.value() == HttpStatus.UNAUTHORIZED.value() || status.value() == HttpStatus.FORBIDDEN.value()) {
+            return new ResponseStatusException(status, "No autorizado al consultar movimientos en Registro", e);
+        }
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Error consultando movimientos en Registro", e);
+    }
+}
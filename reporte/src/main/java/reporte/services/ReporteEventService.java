@@ -1,5 +1,6 @@
 package reporte.services;
 
+import clientehttp.ClientesHttp;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -19,8 +20,8 @@ public class ReporteEventService {
     @Value("${notificacion.service.url:http://localhost:8084}")
     private String notificacionServiceUrl;
 
-    public ReporteEventService() {
-        this.restTemplate = new RestTemplate();
+    public ReporteEventService(ClientesHttp clientesHttp) {
+        this.restTemplate = clientesHttp.para("notificacion");
     }
 
     public void sendReportGeneratedEvent(String reportType, String reportName, String period, boolean hasAnomalies) {
@@ -1,23 +1,15 @@
 package reporte.services;
 
+import clientehttp.ClientesHttp;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.server.ResponseStatusException;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import reporte.dtos.DetalleCategoriaDTO;
+import reporte.dtos.MovimientoAgregadoDTO;
 import reporte.dtos.RegistroDTO;
-import reporte.dtos.PageResponse;
 import reporte.dtos.ResumenMensualDTO;
 
 import java.text.Normalizer;
-import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,7 +19,14 @@ public class ResumenService {
     @Value("${mycfo.registro.url}")
     private String registroUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    private final RegistroMovimientosClient registroMovimientosClient;
+
+    public ResumenService(ClientesHttp clientesHttp, RegistroMovimientosClient registroMovimientosClient) {
+        this.restTemplate = clientesHttp.para("registro");
+        this.registroMovimientosClient = registroMovimientosClient;
+    }
 
     public ResumenMensualDTO obtenerResumenMensual(int anio, int mes, List<String> categoriasFiltro) {
         String url = registroUrl + "/registros";
@@ -113,96 +112,46 @@ public class ResumenService {
     }
 
     public ResumenMensualDTO obtenerResumenMensual(int anio, int mes, List<String> categoriasFiltro, String userSub, String moneda, String authorization) {
-        LocalDate desde = LocalDate.of(anio, mes, 1);
-        LocalDate hasta = desde.withDayOfMonth(desde.lengthOfMonth());
-        String url = registroUrl + "/movimientos?fechaDesde=" + desde +
-                "&fechaHasta=" + hasta +
-                "&tipos=Ingreso&tipos=Egreso&page=0&size=1000&sortBy=fechaEmision&sortDir=asc";
-
-        if (moneda != null && !moneda.isBlank()) {
-            url = url + "&moneda=" + moneda;
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        if (userSub != null) {
-            headers.add("X-Usuario-Sub", userSub);
-        }
-        if (authorization != null && !authorization.isBlank()) {
-            headers.add("Authorization", authorization);
-        }
-
-        ResponseEntity<PageResponse<RegistroDTO>> response;
-        try {
-            response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    new ParameterizedTypeReference<PageResponse<RegistroDTO>>() {}
-            );
-        } catch (HttpClientErrorException e) {
-            var status = e.getStatusCode();
-            if (status.value() == HttpStatus.UNAUTHORIZED.value() || status.value() == HttpStatus.FORBIDDEN.value()) {
-                throw new ResponseStatusException(status, "No autorizado al consultar movimientos en Registro", e);
+        Set<String> filtrosNorm = categoriasFiltro == null ? Set.of() : categoriasFiltro.stream()
+                .map(this::normalize)
+                .filter(s -> !s.isBlank())
+                .collect(Collectors.toSet());
+
+        // Registro ya devuelve los montos agrupados por categoría/tipo/moneda del mes
+        double[] totales = new double[2]; // [ingresos, egresos]
+        Map<String, Double> ingresosPorCategoria = new HashMap<>();
+        Map<String, Double> egresosPorCategoria = new HashMap<>();
+
+        for (MovimientoAgregadoDTO fila : registroMovimientosClient.obtenerAgregado(anio, mes, moneda, userSub, authorization)) {
+            if (fila.getTotal() == null) {
+                continue;
+            }
+            if (!filtrosNorm.isEmpty()
+                    && (fila.getCategoria() == null || !filtrosNorm.contains(normalize(fila.getCategoria())))) {
+                continue;
             }
-            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Error consultando movimientos en Registro", e);
-        }
-
-        List<RegistroDTO> lista = Optional.ofNullable(response.getBody())
-                .map(PageResponse::getContent)
-                .orElse(List.of());
-
-        List<RegistroDTO> filtrados = lista.stream()
-                .filter(r -> r.getFechaEmision() != null
-                        && r.getFechaEmision().toLocalDate().getYear() == anio
-                        && r.getFechaEmision().toLocalDate().getMonthValue() == mes)
-                .toList();
 
-        if (categoriasFiltro != null && !categoriasFiltro.isEmpty()) {
-            Set<String> filtrosNorm = categoriasFiltro.stream()
-                    .map(this::normalize)
-                    .filter(s -> !s.isBlank())
-                    .collect(Collectors.toSet());
+            String categoria = (fila.getCategoria() == null || fila.getCategoria().isBlank())
+                    ? "Sin categoría" : fila.getCategoria();
 
-            if (!filtrosNorm.isEmpty()) {
-                filtrados = filtrados.stream()
-                        .filter(r -> {
-                            String cat = r.getCategoria();
-                            if (cat == null) return false;
-                            return filtrosNorm.contains(normalize(cat));
-                        })
-                        .toList();
+            if ("Ingreso".equalsIgnoreCase(fila.getTipo())) {
+                totales[0] += fila.getTotal();
+                ingresosPorCategoria.merge(categoria, fila.getTotal(), Double::sum);
+            } else if ("Egreso".equalsIgnoreCase(fila.getTipo())) {
+                totales[1] += fila.getTotal();
+                egresosPorCategoria.merge(categoria, fila.getTotal(), Double::sum);
             }
         }
 
-        List<RegistroDTO> ingresos = filtrados.stream()
-                .filter(r -> "Ingreso".equalsIgnoreCase(r.getTipo()))
-                .toList();
-
-        List<RegistroDTO> egresos = filtrados.stream()
-                .filter(r -> "Egreso".equalsIgnoreCase(r.getTipo()))
-                .toList();
-
-        double totalIngresos = ingresos.stream().mapToDouble(RegistroDTO::getMontoTotal).sum();
-        double totalEgresos = egresos.stream().mapToDouble(RegistroDTO::getMontoTotal).sum();
+        double totalIngresos = totales[0];
+        double totalEgresos = totales[1];
         double balance = totalIngresos - totalEgresos;
 
-        List<DetalleCategoriaDTO> detalleIngresos = ingresos.stream()
-                .collect(Collectors.groupingBy(registro -> {
-                            String categoria = registro.getCategoria();
-                            return (categoria == null || categoria.isBlank()) ? "Sin categoría" : categoria;
-                        },
-                        Collectors.summingDouble(RegistroDTO::getMontoTotal)))
-                .entrySet().stream()
+        List<DetalleCategoriaDTO> detalleIngresos = ingresosPorCategoria.entrySet().stream()
                 .map(e -> new DetalleCategoriaDTO(e.getKey(), e.getValue()))
                 .toList();
 
-        List<DetalleCategoriaDTO> detalleEgresos = egresos.stream()
-                .collect(Collectors.groupingBy(registro -> {
-                            String categoria = registro.getCategoria();
-                            return (categoria == null || categoria.isBlank()) ? "Sin categoría" : categoria;
-                        },
-                        Collectors.summingDouble(RegistroDTO::getMontoTotal)))
-                .entrySet().stream()
+        List<DetalleCategoriaDTO> detalleEgresos = egresosPorCategoria.entrySet().stream()
                 .map(e -> new DetalleCategoriaDTO(e.getKey(), e.getValue()))
                 .toList();
 